@@ -0,0 +1,55 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2024, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.tile;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * A cache of encoded tile images, as returned by the tile server. A {@link TileService} with a
+ * cache set looks up tiles in the cache before requesting them, and stores the tiles it requests.
+ *
+ * <p>Implementations must be safe for use by multiple threads.
+ *
+ * @see TileService#setTileCache(TileCache)
+ * @see org.geotools.tile.util.PackFileTileCache
+ * @since 32
+ */
+public interface TileCache extends Closeable {
+
+    /**
+     * Returns the tile stored under the given key.
+     *
+     * @param key the tile key
+     * @return the encoded tile, or {@code null} if not found or expired
+     */
+    byte[] get(String key) throws IOException;
+
+    /**
+     * Stores a tile, replacing any tile stored under the same key.
+     *
+     * @param key the tile key
+     * @param data the encoded tile
+     */
+    void put(String key, byte[] data) throws IOException;
+
+    /** Removes the tile stored under the given key, if any. */
+    void remove(String key) throws IOException;
+
+    /** Removes all tiles. */
+    void clear() throws IOException;
+}
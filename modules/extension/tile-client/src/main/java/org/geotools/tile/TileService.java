@@ -18,7 +18,10 @@
 package org.geotools.tile;
 
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
@@ -67,6 +70,9 @@ public abstract class TileService implements ImageLoader {
     private final String name;
     private final HTTPClient client;
 
+    /** The cache of encoded tiles, if any. */
+    private volatile TileCache tileCache;
+
     /**
      * Creates a TileService
      *
@@ -352,17 +358,80 @@ public Set<Tile> findTilesInExtent(
     public abstract TileIdentifier identifyTileAtCoordinate(
             double lon, double lat, ZoomLevel zoomLevel);
 
-    /** Fetches the image from url given by tile. */
+    /**
+     * Fetches the image from url given by tile. If a {@link TileCache} is set, the tile is looked
+     * up in the cache first, and stored in the cache once fetched.
+     */
     @Override
     public BufferedImage loadImageTileImage(Tile tile) throws IOException {
+        final TileCache cache = this.tileCache;
+        String key = null;
+        if (cache != null) {
+            key = getTileCacheKey(tile);
+            byte[] data = cache.get(key);
+            if (data != null) {
+                BufferedImage image = decodeTileImage(data);
+                if (image != null) {
+                    return image;
+                }
+                // corrupted or unreadable entry, fetch it again
+                cache.remove(key);
+            }
+        }
+        byte[] data = fetchTileData(tile);
+        BufferedImage image = decodeTileImage(data);
+        if (cache != null && image != null) {
+            cache.put(key, data);
+        }
+        return image;
+    }
+
+    /**
+     * Fetches the encoded image of the given tile from the server. The default implementation
+     * issues a GET request on the tile URL.
+     *
+     * @return the encoded image, or {@code null} if the server did not return an image
+     */
+    protected byte[] fetchTileData(Tile tile) throws IOException {
         final HTTPResponse response = getHttpClient().get(tile.getUrl());
-        try {
-            return ImageIOExt.readBufferedImage(response.getResponseStream());
+        try (InputStream in = response.getResponseStream()) {
+            return in.readAllBytes();
         } finally {
             response.dispose();
         }
     }
 
+    /**
+     * Returns the key of the tile in the {@link TileCache}. The default implementation uses the
+     * tile URL, which identifies the layer, style and format in addition of the tile position.
+     */
+    protected String getTileCacheKey(Tile tile) {
+        URL url = tile.getUrl();
+        return url != null ? url.toExternalForm() : getName() + "/" + tile.getId();
+    }
+
+    private static BufferedImage decodeTileImage(byte[] data) throws IOException {
+        if (data == null) {
+            return null;
+        }
+        return ImageIOExt.readBufferedImage(new ByteArrayInputStream(data));
+    }
+
+    /** Returns the cache of encoded tiles, or {@code null} if none. */
+    public TileCache getTileCache() {
+        return tileCache;
+    }
+
+    /**
+     * Sets the cache of encoded tiles used by {@link #loadImageTileImage(Tile)}. The cache is not
+     * closed by this service.
+     *
+     * @param tileCache the cache, or {@code null} to disable caching
+     */
+    public void setTileCache(TileCache tileCache) {
+        this.tileCache = tileCache;
+    }
+
     /** Check cache for given identifier. Call TileFactory to create new if not present. */
     public Tile obtainTile(TileIdentifier identifier) {
         String id = identifier.getId();
@@ -20,27 +20,84 @@
 import java.awt.RenderingHints;
 import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.concurrent.CountDownLatch;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import org.geotools.api.referencing.FactoryException;
+import org.geotools.api.referencing.crs.CoordinateReferenceSystem;
 import org.geotools.api.referencing.operation.TransformException;
 import org.geotools.geometry.jts.ReferencedEnvelope;
+import org.geotools.referencing.CRS;
+import org.geotools.referencing.crs.DefaultGeographicCRS;
 import org.geotools.tile.Tile;
 import org.geotools.tile.TileService;
+import org.geotools.tile.impl.ZoomLevel;
+import org.geotools.tile.util.TileScheduler.Priority;
+import org.geotools.util.logging.Logging;
 
 /**
- * This Layer is an attempt to speed rendering by using a CountDownLatch and threads to render each
- * tile. The performance improvement is minimal, though.
+ * This Layer loads the tiles in parallel with a {@link TileScheduler}, then draws them. Once the
+ * tiles on screen are scheduled, their neighbours and the tiles of the next zoom level are
+ * prefetched with a lower priority, so that they are likely to be ready when the map is panned or
+ * zoomed in. Pending requests for tiles that are neither on screen nor prefetched anymore are
+ * cancelled at each redraw.
  *
  * @author Ugo Taddei
  * @since 12
  */
 public class AsyncTileLayer extends TileLayer {
 
-    private CountDownLatch countDownLatch;
+    private static final Logger LOGGER = Logging.getLogger(AsyncTileLayer.class);
+
+    private final TileScheduler scheduler;
+
+    private final boolean ownScheduler;
+
+    private boolean prefetchNeighbours = true;
+
+    private boolean prefetchNextZoomLevel = false;
+
+    /** The requests for the tiles being rendered. */
+    private Map<Tile, Future<BufferedImage>> requests;
 
     public AsyncTileLayer(TileService service) {
+        this(service, new TileScheduler(), true);
+    }
+
+    /**
+     * Creates a layer loading its tiles with the given scheduler, which can be shared among layers.
+     * The scheduler won't be disposed with this layer.
+     */
+    public AsyncTileLayer(TileService service, TileScheduler scheduler) {
+        this(service, scheduler, false);
+    }
+
+    private AsyncTileLayer(TileService service, TileScheduler scheduler, boolean ownScheduler) {
         super(service);
+        this.scheduler = scheduler;
+        this.ownScheduler = ownScheduler;
+    }
+
+    /** Sets whether the tiles around the ones on screen should be prefetched. Defaults to true. */
+    public void setPrefetchNeighbours(boolean prefetchNeighbours) {
+        this.prefetchNeighbours = prefetchNeighbours;
+    }
+
+    /**
+     * Sets whether the tiles of the next zoom level covering the ones on screen should be
+     * prefetched. Defaults to false, as this quadruples the number of requests.
+     */
+    public void setPrefetchNextZoomLevel(boolean prefetchNextZoomLevel) {
+        this.prefetchNextZoomLevel = prefetchNextZoomLevel;
     }
 
     @Override
@@ -50,35 +107,50 @@ protected void renderTiles(
             ReferencedEnvelope viewportExtent,
             AffineTransform worldToImageTransform) {
 
-        this.countDownLatch = new CountDownLatch(tiles.size());
+        Map<Tile, Future<BufferedImage>> visible = new LinkedHashMap<>();
+        for (Tile tile : tiles) {
+            visible.put(tile, scheduler.schedule(tile, Priority.VISIBLE, this));
+        }
 
-        localRenderTiles(tiles, g2d, viewportExtent, worldToImageTransform);
+        List<Tile> needed = new ArrayList<>(tiles);
+        if (prefetchNeighbours) {
+            for (Tile tile : findNeighbours(tiles)) {
+                scheduler.schedule(tile, Priority.NEIGHBOUR, this);
+                needed.add(tile);
+            }
+        }
+        if (prefetchNextZoomLevel) {
+            for (Tile tile : findNextZoomLevelTiles(tiles)) {
+                scheduler.schedule(tile, Priority.NEXT_ZOOM, this);
+                needed.add(tile);
+            }
+        }
+        scheduler.retain(this, needed);
+
+        this.requests = visible;
         try {
-            this.countDownLatch.await();
-        } catch (InterruptedException ie) {
-            java.util.logging.Logger.getGlobal().log(java.util.logging.Level.INFO, "", ie);
+            localRenderTiles(tiles, g2d, viewportExtent, worldToImageTransform);
+        } finally {
+            this.requests = null;
         }
-        this.countDownLatch = null;
     }
 
     @Override
-    protected void renderTile(final Tile tile, final Graphics2D g2d, final double[] points) {
-
-        Runnable r =
-                () -> {
-                    BufferedImage img = getTileImage(tile);
-
-                    g2d.drawImage(
-                            img,
-                            (int) points[0],
-                            (int) points[1],
-                            (int) Math.ceil(points[2] - points[0]),
-                            (int) Math.ceil(points[3] - points[1]),
-                            null);
-
-                    countDownLatch.countDown();
-                };
-        new Thread(r).start();
+    protected BufferedImage getTileImage(Tile tile) {
+        Map<Tile, Future<BufferedImage>> pending = this.requests;
+        Future<BufferedImage> request = pending != null ? pending.get(tile) : null;
+        if (request != null) {
+            try {
+                return request.get();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                LOGGER.log(Level.INFO, "Failed to load tile " + tile.getId(), e.getCause());
+            } catch (CancellationException e) {
+                LOGGER.log(Level.FINE, "Tile request cancelled: " + tile.getId(), e);
+            }
+        }
+        return super.getTileImage(tile);
     }
 
     protected void localRenderTiles(
@@ -112,4 +184,87 @@ protected void localRenderTiles(
             renderTile(tile, g2d, points);
         }
     }
+
+    /**
+     * Returns the tiles of the same zoom level surrounding the given ones, excluding the given
+     * ones.
+     */
+    protected Set<Tile> findNeighbours(Collection<Tile> tiles) {
+        Set<Tile> neighbours = new LinkedHashSet<>();
+        for (Tile tile : tiles) {
+            ReferencedEnvelope extent = tile.getExtent();
+            ZoomLevel zoomLevel = tile.getTileIdentifier().getZoomLevel();
+            for (int dx = -1; dx <= 1; dx++) {
+                for (int dy = -1; dy <= 1; dy++) {
+                    if (dx != 0 || dy != 0) {
+                        addTileAt(
+                                neighbours,
+                                extent,
+                                extent.getMedian(0) + dx * extent.getSpan(0),
+                                extent.getMedian(1) + dy * extent.getSpan(1),
+                                zoomLevel);
+                    }
+                }
+            }
+        }
+        neighbours.removeAll(tiles);
+        return neighbours;
+    }
+
+    /** Returns the tiles of the next zoom level covering the given ones. */
+    protected Set<Tile> findNextZoomLevelTiles(Collection<Tile> tiles) {
+        Set<Tile> children = new LinkedHashSet<>();
+        TileService service = getService();
+        for (Tile tile : tiles) {
+            int z = tile.getTileIdentifier().getZ() + 1;
+            if (z > service.getMaxZoomLevel()) {
+                continue;
+            }
+            ZoomLevel zoomLevel = service.getTileFactory().getZoomLevel(z, service);
+            ReferencedEnvelope extent = tile.getExtent();
+            for (int i = 0; i < 4; i++) {
+                addTileAt(
+                        children,
+                        extent,
+                        extent.getMinimum(0) + ((i & 1) * 2 + 1) * extent.getSpan(0) / 4,
+                        extent.getMinimum(1) + ((i >> 1) * 2 + 1) * extent.getSpan(1) / 4,
+                        zoomLevel);
+            }
+        }
+        return children;
+    }
+
+    /**
+     * Adds the tile containing the given point, expressed in the CRS of the given tile extent. The
+     * point is converted to the longitude / latitude expected by {@link
+     * TileService#identifyTileAtCoordinate}, whatever the projection and axis order of the tiles.
+     */
+    private void addTileAt(
+            Set<Tile> result, ReferencedEnvelope extent, double x, double y, ZoomLevel zoomLevel) {
+        TileService service = getService();
+        double[] point = {x, y};
+        CoordinateReferenceSystem crs = extent.getCoordinateReferenceSystem();
+        if (crs != null) {
+            try {
+                CRS.findMathTransform(crs, DefaultGeographicCRS.WGS84, true)
+                        .transform(point, 0, point, 0, 1);
+            } catch (FactoryException | TransformException e) {
+                LOGGER.log(Level.FINE, "Skipping the prefetch of the tile at " + x + ", " + y, e);
+                return;
+            }
+        }
+        double lon = point[0];
+        double lat = point[1];
+        if (service.getBounds().contains(lon, lat)) {
+            result.add(service.obtainTile(service.identifyTileAtCoordinate(lon, lat, zoomLevel)));
+        }
+    }
+
+    @Override
+    public void dispose() {
+        if (ownScheduler) {
+            scheduler.dispose();
+        }
+        super.dispose();
+    }
 }
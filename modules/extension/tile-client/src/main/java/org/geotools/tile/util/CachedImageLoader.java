@@ -19,6 +19,13 @@
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.imageio.ImageIO;
@@ -40,6 +47,10 @@
  * may not allow you to save tile locally. If you do so, you might be breaching licenses. So, be
  * nice.
  *
+ * <p>Limits can be given to the cache. Images are then also kept in memory, and both the memory and
+ * disk caches evict their least recently used tiles once over their size limit. The disk cache
+ * limit accounts for the files found in the cache directory when the loader is created.
+ *
  * @author Ugo Taddei
  * @since 12
  */
@@ -49,14 +60,64 @@ public class CachedImageLoader implements ImageLoader {
 
     private final File cacheDirectory;
 
+    /** The loader used on cache misses, or {@code null} to read the tile URL directly. */
+    private final ImageLoader delegate;
+
+    /** The memory cache size limit in bytes, zero to disable the memory cache. */
+    private final long maxMemoryBytes;
+
+    /** The disk cache size limit in bytes, or a negative value for no limit. */
+    private final long maxDiskBytes;
+
+    /** Images in memory, in access order. Guarded by itself. */
+    private final LinkedHashMap<String, BufferedImage> memory =
+            new LinkedHashMap<>(16, 0.75f, true);
+
+    private long memoryBytes;
+
+    /** Sizes of the files in the cache directory, in access order. Guarded by itself. */
+    private final LinkedHashMap<File, Long> files = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long diskBytes;
+
     public CachedImageLoader(File cacheDirectory) {
+        this(cacheDirectory, null, 0, -1);
+    }
+
+    /**
+     * Creates a loader with a memory and a disk cache.
+     *
+     * @param cacheDirectory the directory where tile images are stored
+     * @param delegate the loader used on cache misses, or {@code null} to read the tile URL
+     * @param maxMemoryBytes the memory cache limit in bytes, zero to disable the memory cache
+     * @param maxDiskBytes the disk cache limit in bytes, or a negative value for no limit
+     */
+    public CachedImageLoader(
+            File cacheDirectory, ImageLoader delegate, long maxMemoryBytes, long maxDiskBytes) {
         this.cacheDirectory = cacheDirectory;
+        this.delegate = delegate;
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.maxDiskBytes = maxDiskBytes;
+        if (maxDiskBytes >= 0) {
+            File[] existing = cacheDirectory.listFiles((dir, name) -> name.endsWith(".png"));
+            if (existing != null) {
+                // oldest first, so that they are the first to be evicted
+                Arrays.sort(existing, Comparator.comparingLong(File::lastModified));
+                for (File file : existing) {
+                    files.put(file, file.length());
+                    diskBytes += file.length();
+                }
+            }
+        }
     }
 
     @Override
     public BufferedImage loadImageTileImage(Tile tile) throws IOException {
 
-        BufferedImage img = null;
+        BufferedImage img = getFromMemory(tile.getId());
+        if (img != null) {
+            return img;
+        }
 
         File imgFile = new File(this.cacheDirectory, tile.getId() + ".png");
         if (imgFile.exists()) {
@@ -68,18 +129,114 @@ public BufferedImage loadImageTileImage(Tile tile) throws IOException {
                                 + imgFile.getAbsolutePath());
             }
             img = ImageIOExt.readBufferedImage(imgFile);
+            touch(imgFile);
 
         } else {
             if (LOGGER.isLoggable(Level.FINE)) {
                 LOGGER.fine(
                         "Not found in cache '" + tile.getId() + "'. Loading from " + tile.getUrl());
             }
-            img = ImageIOExt.readBufferedImage(tile.getUrl());
-            ImageIO.write(img, "png", imgFile);
+            if (delegate != null) {
+                img = delegate.loadImageTileImage(tile);
+            } else {
+                img = ImageIOExt.readBufferedImage(tile.getUrl());
+            }
+            write(img, imgFile);
             if (LOGGER.isLoggable(Level.FINE)) {
                 LOGGER.fine("Wrote to cache " + imgFile.getAbsolutePath());
             }
         }
+        putInMemory(tile.getId(), img);
         return img;
     }
+
+    /** Removes all the images from the memory cache. The disk cache is left untouched. */
+    public void clearMemoryCache() {
+        synchronized (memory) {
+            memory.clear();
+            memoryBytes = 0;
+        }
+    }
+
+    private BufferedImage getFromMemory(String id) {
+        if (maxMemoryBytes <= 0) {
+            return null;
+        }
+        synchronized (memory) {
+            return memory.get(id);
+        }
+    }
+
+    private void putInMemory(String id, BufferedImage img) {
+        long size = sizeOf(img);
+        if (img == null || size > maxMemoryBytes) {
+            return;
+        }
+        synchronized (memory) {
+            BufferedImage previous = memory.put(id, img);
+            if (previous != null) {
+                memoryBytes -= sizeOf(previous);
+            }
+            memoryBytes += size;
+            for (Iterator<BufferedImage> it = memory.values().iterator();
+                    memoryBytes > maxMemoryBytes && it.hasNext(); ) {
+                memoryBytes -= sizeOf(it.next());
+                it.remove();
+            }
+        }
+    }
+
+    /** Estimates the memory used by the image raster. */
+    private static long sizeOf(BufferedImage img) {
+        if (img == null) {
+            return 0;
+        }
+        int bits = img.getColorModel().getPixelSize();
+        return (long) img.getWidth() * img.getHeight() * Math.max(1, (bits + 7) / 8);
+    }
+
+    /**
+     * Writes the image in the cache directory. The image is written to a temporary file first, so
+     * that concurrent readers never see a partial file.
+     */
+    private void write(BufferedImage img, File imgFile) throws IOException {
+        File tmp = File.createTempFile(imgFile.getName(), ".tmp", cacheDirectory);
+        try {
+            ImageIO.write(img, "png", tmp);
+            Files.move(tmp.toPath(), imgFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp.toPath());
+        }
+        if (maxDiskBytes >= 0) {
+            synchronized (files) {
+                Long previous = files.put(imgFile, imgFile.length());
+                if (previous != null) {
+                    diskBytes -= previous;
+                }
+                diskBytes += imgFile.length();
+                for (Iterator<Map.Entry<File, Long>> it = files.entrySet().iterator();
+                        diskBytes > maxDiskBytes && it.hasNext(); ) {
+                    Map.Entry<File, Long> eldest = it.next();
+                    if (eldest.getKey().equals(imgFile)) {
+                        continue;
+                    }
+                    if (!eldest.getKey().delete() && eldest.getKey().exists()) {
+                        LOGGER.fine("Could not evict " + eldest.getKey() + " from the cache");
+                        continue;
+                    }
+                    diskBytes -= eldest.getValue();
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    /** Marks a file as recently used. */
+    private void touch(File imgFile) {
+        if (maxDiskBytes >= 0) {
+            synchronized (files) {
+                files.get(imgFile);
+            }
+        }
+    }
 }
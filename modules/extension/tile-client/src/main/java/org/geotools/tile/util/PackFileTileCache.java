@@ -0,0 +1,583 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2024, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.tile.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.geotools.tile.TileCache;
+import org.geotools.util.logging.Logging;
+
+/**
+ * A {@link TileCache} storing tiles in a fixed number of append-only pack files, instead of one
+ * file per tile. Keys are spread among the pack files (the shards) by hash, each shard being locked
+ * independently.
+ *
+ * <p>Each shard is made of a {@code .pack} file holding the tile records, and an in-memory index
+ * giving the position of the live record of each key. The index is saved in a {@code .idx} file
+ * when the cache is closed, so that reopening a cache only reads the records appended after the
+ * index was saved. Removed, replaced and evicted tiles leave dead records in the pack file, which
+ * is compacted once dead records take more space than live ones.
+ *
+ * <p>Tiles older than the time to live are not returned. The size limit applies to the pack files,
+ * dead records included: live tiles are kept under half of it, the least recently used ones being
+ * evicted, and the pack file is compacted when it grows over the limit. Reads do not block each
+ * other, and only block on compaction.
+ *
+ * @since 32
+ */
+public class PackFileTileCache implements TileCache {
+
+    private static final Logger LOGGER = Logging.getLogger(PackFileTileCache.class);
+
+    /** The default number of shards. */
+    public static final int DEFAULT_SHARDS = 16;
+
+    /** Record header: key length, data length (negative for removals) and timestamp. */
+    private static final int RECORD_HEADER = 2 * Integer.BYTES + Long.BYTES;
+
+    private static final int INDEX_MAGIC = 0x54504b49;
+
+    /** Shards smaller than this are never compacted. */
+    private static final long MIN_COMPACTION_SIZE = 1 << 20;
+
+    private final Shard[] shards;
+
+    private final long timeToLive;
+
+    /**
+     * Opens or creates a cache with {@link #DEFAULT_SHARDS} shards, no size limit and no expiry.
+     *
+     * @param directory the cache directory, created if needed
+     */
+    public PackFileTileCache(File directory) throws IOException {
+        this(directory, DEFAULT_SHARDS, -1, -1);
+    }
+
+    /**
+     * Opens or creates a cache. The number of shards must be the same each time the cache in a
+     * given directory is opened.
+     *
+     * @param directory the cache directory, created if needed
+     * @param shards the number of pack files
+     * @param maxBytes the size limit of the pack files in bytes, or a negative value for no limit
+     * @param timeToLive the time a tile stays valid in milliseconds, or a negative value for no
+     *     expiry
+     */
+    public PackFileTileCache(File directory, int shards, long maxBytes, long timeToLive)
+            throws IOException {
+        if (shards < 1) {
+            throw new IllegalArgumentException("The number of shards must be positive");
+        }
+        Files.createDirectories(directory.toPath());
+        this.timeToLive = timeToLive;
+        this.shards = new Shard[shards];
+        long shardLimit = maxBytes < 0 ? -1 : Math.max(1, maxBytes / shards);
+        try {
+            for (int i = 0; i < shards; i++) {
+                String name = String.format("shard-%03d", i);
+                this.shards[i] = new Shard(directory.toPath(), name, shardLimit);
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    private Shard shard(String key) {
+        return shards[Math.floorMod(key.hashCode(), shards.length)];
+    }
+
+    @Override
+    public byte[] get(String key) throws IOException {
+        return shard(key).get(key);
+    }
+
+    @Override
+    public void put(String key, byte[] data) throws IOException {
+        if (data == null) {
+            throw new IllegalArgumentException("Tile data cannot be null");
+        }
+        shard(key).write(key, data);
+    }
+
+    @Override
+    public void remove(String key) throws IOException {
+        shard(key).write(key, null);
+    }
+
+    @Override
+    public void clear() throws IOException {
+        for (Shard shard : shards) {
+            shard.clear();
+        }
+    }
+
+    /** Returns the number of tiles in the cache, including the expired ones. */
+    public int size() {
+        int size = 0;
+        for (Shard shard : shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    /** Saves the index of each shard and closes the pack files. */
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (Shard shard : shards) {
+            if (shard != null) {
+                try {
+                    shard.close();
+                } catch (IOException e) {
+                    if (failure == null) failure = e;
+                    else failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private boolean isExpired(Entry entry) {
+        return timeToLive >= 0 && System.currentTimeMillis() - entry.timestamp > timeToLive;
+    }
+
+    /** The location of a live record in a pack file. */
+    private static final class Entry {
+
+        final long offset;
+
+        final int length;
+
+        final long timestamp;
+
+        /** The record length, header included. */
+        final int recordLength;
+
+        Entry(long offset, int length, long timestamp, int recordLength) {
+            this.offset = offset;
+            this.length = length;
+            this.timestamp = timestamp;
+            this.recordLength = recordLength;
+        }
+    }
+
+    /** A pack file and its index. */
+    private final class Shard {
+
+        private final Path pack;
+
+        private final Path index;
+
+        private final long maxBytes;
+
+        /** Guards the channel against compaction, which takes the write lock. */
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+        /** The live records, in access order. Guarded by itself. */
+        private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+        /** Bytes used by live records. Guarded by entries. */
+        private long liveBytes;
+
+        /**
+         * Guards appends, and the index update that follows them, so that records of the same key
+         * are indexed in the order they are written. Taken before {@link #entries}.
+         */
+        private final Object appendLock = new Object();
+
+        private FileChannel channel;
+
+        /** The pack file length. Written under appendLock, or the write lock. */
+        private volatile long end;
+
+        Shard(Path directory, String name, long maxBytes) throws IOException {
+            this.pack = directory.resolve(name + ".pack");
+            this.index = directory.resolve(name + ".idx");
+            this.maxBytes = maxBytes;
+            this.channel = open(pack);
+            long indexed = readIndex();
+            end = scan(indexed);
+            if (end < channel.size()) {
+                LOGGER.warning("Truncating incomplete records at the end of " + pack);
+                channel.truncate(end);
+            }
+            // the index will be saved again on close, until then it is stale
+            Files.deleteIfExists(index);
+        }
+
+        private FileChannel open(Path path) throws IOException {
+            return FileChannel.open(
+                    path,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+        }
+
+        byte[] get(String key) throws IOException {
+            lock.readLock().lock();
+            try {
+                Entry entry;
+                synchronized (entries) {
+                    entry = entries.get(key);
+                }
+                if (entry == null) {
+                    return null;
+                }
+                if (isExpired(entry)) {
+                    synchronized (entries) {
+                        if (entries.get(key) == entry) {
+                            removeEntry(key);
+                        }
+                    }
+                    return null;
+                }
+                ByteBuffer buffer = ByteBuffer.allocate(entry.length);
+                readFully(buffer, entry.offset);
+                return buffer.array();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        /** Appends a record for the given key, {@code data} being {@code null} for a removal. */
+        void write(String key, byte[] data) throws IOException {
+            boolean compact;
+            lock.readLock().lock();
+            try {
+                synchronized (entries) {
+                    if (data == null && !entries.containsKey(key)) {
+                        return;
+                    }
+                }
+                long timestamp = System.currentTimeMillis();
+                byte[] record = encode(key, data, timestamp);
+                synchronized (appendLock) {
+                    long offset = end;
+                    writeFully(ByteBuffer.wrap(record), offset);
+                    end += record.length;
+                    synchronized (entries) {
+                        removeEntry(key);
+                        if (data != null) {
+                            int dataOffset = record.length - data.length;
+                            addEntry(
+                                    key,
+                                    new Entry(
+                                            offset + dataOffset,
+                                            data.length,
+                                            timestamp,
+                                            record.length));
+                            evict();
+                        }
+                        compact = shouldCompact();
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            if (compact) {
+                compact();
+            }
+        }
+
+        int size() {
+            synchronized (entries) {
+                return entries.size();
+            }
+        }
+
+        private void addEntry(String key, Entry entry) {
+            entries.put(key, entry);
+            liveBytes += entry.recordLength;
+        }
+
+        private void removeEntry(String key) {
+            Entry previous = entries.remove(key);
+            if (previous != null) {
+                liveBytes -= previous.recordLength;
+            }
+        }
+
+        /**
+         * Drops the least recently used entries until the live records fit in half the size limit,
+         * leaving the other half to dead records until the next compaction.
+         */
+        private void evict() {
+            if (maxBytes < 0) {
+                return;
+            }
+            // the most recent entry is kept even if it does not fit alone
+            for (Iterator<Entry> it = entries.values().iterator();
+                    liveBytes > maxBytes / 2 && entries.size() > 1; ) {
+                liveBytes -= it.next().recordLength;
+                it.remove();
+            }
+        }
+
+        /**
+         * Returns true if the pack file grew over the size limit, or if dead records take more
+         * space than live ones. Must be called holding the entries lock.
+         */
+        private boolean shouldCompact() {
+            long size = end;
+            long deadBytes = size - liveBytes;
+            if (maxBytes >= 0 && size > maxBytes && deadBytes > 0) {
+                return true;
+            }
+            return size > MIN_COMPACTION_SIZE && deadBytes > liveBytes;
+        }
+
+        /**
+         * Rewrites the pack file with the live records only. Evicted entries are only dropped from
+         * the index, so they come back if the pack file is scanned before being compacted. This is
+         * why the index is saved on close and loaded in preference to the pack file.
+         */
+        private void compact() throws IOException {
+            lock.writeLock().lock();
+            try {
+                synchronized (entries) {
+                    if (!shouldCompact()) {
+                        return;
+                    }
+                }
+                Path tmp = pack.resolveSibling(pack.getFileName() + ".tmp");
+                List<Map.Entry<String, Entry>> live;
+                synchronized (entries) {
+                    live = new ArrayList<>(entries.entrySet());
+                }
+                LinkedHashMap<String, Entry> compacted = new LinkedHashMap<>(64, 0.75f, true);
+                long position = 0;
+                long bytes = 0;
+                try (FileChannel out =
+                        FileChannel.open(
+                                tmp,
+                                StandardOpenOption.CREATE,
+                                StandardOpenOption.TRUNCATE_EXISTING,
+                                StandardOpenOption.WRITE)) {
+                    for (Map.Entry<String, Entry> e : live) {
+                        Entry entry = e.getValue();
+                        if (isExpired(entry)) {
+                            continue;
+                        }
+                        long start = entry.offset - (entry.recordLength - entry.length);
+                        ByteBuffer record = ByteBuffer.allocate(entry.recordLength);
+                        readFully(record, start);
+                        record.flip();
+                        while (record.hasRemaining()) {
+                            out.write(record);
+                        }
+                        compacted.put(
+                                e.getKey(),
+                                new Entry(
+                                        position + entry.recordLength - entry.length,
+                                        entry.length,
+                                        entry.timestamp,
+                                        entry.recordLength));
+                        position += entry.recordLength;
+                        bytes += entry.recordLength;
+                    }
+                }
+                channel.close();
+                Files.move(tmp, pack, StandardCopyOption.REPLACE_EXISTING);
+                channel = open(pack);
+                end = position;
+                synchronized (entries) {
+                    entries.clear();
+                    entries.putAll(compacted);
+                    liveBytes = bytes;
+                }
+                if (LOGGER.isLoggable(Level.FINE)) {
+                    LOGGER.fine("Compacted " + pack + " to " + position + " bytes");
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void clear() throws IOException {
+            lock.writeLock().lock();
+            try {
+                channel.truncate(0);
+                end = 0;
+                synchronized (entries) {
+                    entries.clear();
+                    liveBytes = 0;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void close() throws IOException {
+            lock.writeLock().lock();
+            try {
+                if (channel.isOpen()) {
+                    channel.force(false);
+                    writeIndex();
+                    channel.close();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        /**
+         * Loads the saved index, if any and consistent with the pack file.
+         *
+         * @return the pack file position up to which records are indexed
+         */
+        private long readIndex() throws IOException {
+            if (!Files.isRegularFile(index)) {
+                return 0;
+            }
+            try (DataInputStream in =
+                    new DataInputStream(new BufferedInputStream(Files.newInputStream(index)))) {
+                if (in.readInt() != INDEX_MAGIC) {
+                    return 0;
+                }
+                long indexed = in.readLong();
+                if (indexed > channel.size()) {
+                    return 0;
+                }
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    String key = in.readUTF();
+                    Entry entry =
+                            new Entry(in.readLong(), in.readInt(), in.readLong(), in.readInt());
+                    addEntry(key, entry);
+                }
+                return indexed;
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Ignoring unreadable tile cache index " + index, e);
+                entries.clear();
+                liveBytes = 0;
+                return 0;
+            }
+        }
+
+        private void writeIndex() throws IOException {
+            Path tmp = index.resolveSibling(index.getFileName() + ".tmp");
+            try (DataOutputStream out =
+                    new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                synchronized (entries) {
+                    out.writeInt(INDEX_MAGIC);
+                    out.writeLong(end);
+                    out.writeInt(entries.size());
+                    // access order, so that the least recently used entries are still first
+                    for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                        Entry entry = e.getValue();
+                        out.writeUTF(e.getKey());
+                        out.writeLong(entry.offset);
+                        out.writeInt(entry.length);
+                        out.writeLong(entry.timestamp);
+                        out.writeInt(entry.recordLength);
+                    }
+                }
+            }
+            Files.move(tmp, index, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        /**
+         * Indexes the records found after the given position.
+         *
+         * @return the position after the last complete record
+         */
+        private long scan(long position) throws IOException {
+            long size = channel.size();
+            ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER);
+            while (position + RECORD_HEADER <= size) {
+                header.clear();
+                readFully(header, position);
+                int keyLength = header.getInt(0);
+                int dataLength = header.getInt(Integer.BYTES);
+                long timestamp = header.getLong(2 * Integer.BYTES);
+                long recordLength = RECORD_HEADER + keyLength + Math.max(0L, dataLength);
+                if (keyLength < 0 || position + recordLength > size) {
+                    break;
+                }
+                ByteBuffer keyBuffer = ByteBuffer.allocate(keyLength);
+                readFully(keyBuffer, position + RECORD_HEADER);
+                String key = new String(keyBuffer.array(), StandardCharsets.UTF_8);
+                removeEntry(key);
+                if (dataLength >= 0) {
+                    addEntry(
+                            key,
+                            new Entry(
+                                    position + RECORD_HEADER + keyLength,
+                                    dataLength,
+                                    timestamp,
+                                    (int) recordLength));
+                }
+                position += recordLength;
+            }
+            evict();
+            return position;
+        }
+
+        private void readFully(ByteBuffer buffer, long position) throws IOException {
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position + buffer.position());
+                if (read < 0) {
+                    throw new EOFException("Unexpected end of " + pack);
+                }
+            }
+        }
+
+        private void writeFully(ByteBuffer buffer, long position) throws IOException {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, position + buffer.position());
+            }
+        }
+    }
+
+    private static byte[] encode(String key, byte[] data, long timestamp) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int dataLength = data == null ? 0 : data.length;
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER + keyBytes.length + dataLength);
+        record.putInt(keyBytes.length);
+        record.putInt(data == null ? -1 : data.length);
+        record.putLong(timestamp);
+        record.put(keyBytes);
+        if (data != null) {
+            record.put(data);
+        }
+        return record.array();
+    }
+}
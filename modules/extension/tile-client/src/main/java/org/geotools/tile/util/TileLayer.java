@@ -61,6 +61,11 @@ public TileLayer(TileService service) {
         this.service = service;
     }
 
+    /** Returns the service providing the tiles of this layer. */
+    public TileService getService() {
+        return this.service;
+    }
+
     public GridCoverage2D getCoverage() {
         return this.coverage;
     }
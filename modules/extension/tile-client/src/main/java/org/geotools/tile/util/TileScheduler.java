@@ -0,0 +1,370 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2024, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.tile.util;
+
+import java.awt.image.BufferedImage;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.geotools.tile.Tile;
+import org.geotools.util.logging.Logging;
+
+/**
+ * Schedules the loading of tile images on a pool of threads. Requests are served by {@link
+ * Priority}, so that the tiles on screen are loaded before the tiles that are only prefetched, and
+ * the number of concurrent requests to the same host is bounded.
+ *
+ * <p>Requests wait in a queue per host, and are handed to the thread pool only when the host has a
+ * free slot, so the pool threads never block waiting on a busy host while tiles from other hosts
+ * are waiting.
+ *
+ * <p>Scheduling a tile that is already pending returns the pending request, upgrading its priority
+ * if needed. Requests are scheduled on behalf of an owner, typically the layer drawing the tiles,
+ * so that the pending requests an owner no longer needs, for example after the map has been panned,
+ * can be dropped with {@link #retain(Object, Collection)} without affecting the other owners
+ * sharing the scheduler.
+ *
+ * <p>Images are loaded with {@link Tile#getBufferedImage()}, so they go through the tile {@link
+ * org.geotools.tile.ImageLoader}, which is where caching should be plugged in (see {@link
+ * CachedImageLoader}).
+ *
+ * @since 32
+ */
+public class TileScheduler {
+
+    private static final Logger LOGGER = Logging.getLogger(TileScheduler.class);
+
+    /** The priority of a tile request, from the most to the least urgent. */
+    public enum Priority {
+        /** The tile is on screen. */
+        VISIBLE,
+        /** The tile is next to a tile on screen, and will be needed if the map is panned. */
+        NEIGHBOUR,
+        /** The tile covers a tile on screen at the next zoom level. */
+        NEXT_ZOOM
+    }
+
+    /** The default number of concurrent requests to the same host. */
+    public static final int DEFAULT_MAX_PER_HOST = 4;
+
+    private final ThreadPoolExecutor executor;
+
+    private final int maxPerHost;
+
+    /** The pending requests, by tile id. Guards itself and {@link #hosts}. */
+    private final Map<String, TileRequest> pending = new HashMap<>();
+
+    /** The requests waiting for a free slot, by host. Guarded by {@link #pending}. */
+    private final Map<String, HostQueue> hosts = new HashMap<>();
+
+    /** Used to serve requests of the same priority in submission order. */
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * Creates a scheduler with as many threads as available processors, and at most {@link
+     * #DEFAULT_MAX_PER_HOST} concurrent requests per host.
+     */
+    public TileScheduler() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_MAX_PER_HOST);
+    }
+
+    /**
+     * Creates a scheduler.
+     *
+     * @param threads the number of threads loading tiles
+     * @param maxPerHost the maximum number of concurrent requests to the same host
+     */
+    public TileScheduler(int threads, int maxPerHost) {
+        if (threads < 1 || maxPerHost < 1) {
+            throw new IllegalArgumentException(
+                    "The number of threads and requests per host must be positive");
+        }
+        this.maxPerHost = maxPerHost;
+        this.executor =
+                new ThreadPoolExecutor(
+                        threads,
+                        threads,
+                        30,
+                        TimeUnit.SECONDS,
+                        new PriorityBlockingQueue<>(),
+                        new SchedulerThreadFactory());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Schedules the loading of the tile image, without an owner.
+     *
+     * @param tile the tile to load
+     * @param priority the request priority
+     * @return the pending image
+     */
+    public Future<BufferedImage> schedule(Tile tile, Priority priority) {
+        return schedule(tile, priority, null);
+    }
+
+    /**
+     * Schedules the loading of the tile image on behalf of the given owner.
+     *
+     * @param tile the tile to load
+     * @param priority the request priority
+     * @param owner the object the request is made for, used by {@link #retain(Object, Collection)},
+     *     may be null
+     * @return the pending image
+     */
+    public Future<BufferedImage> schedule(Tile tile, Priority priority, Object owner) {
+        synchronized (pending) {
+            TileRequest request = pending.get(tile.getId());
+            if (request != null) {
+                request.owners.add(owner);
+            }
+            if (request != null && request.priority.compareTo(priority) <= 0) {
+                return request;
+            }
+            if (request != null && !request.host.queue.remove(request)) {
+                // already handed to the pool, no point in queuing it again
+                return request;
+            }
+            TileRequest upgraded =
+                    new TileRequest(tile, getHostQueue(tile), priority, sequence.getAndIncrement());
+            upgraded.owners.add(owner);
+            if (request != null) {
+                // the new request completes the old one, which callers may be waiting on
+                upgraded.owners.addAll(request.owners);
+                upgraded.superseded = request;
+                request.upgradedTo = upgraded;
+            }
+            pending.put(tile.getId(), upgraded);
+            upgraded.host.queue.add(upgraded);
+            dispatch(upgraded.host);
+            return upgraded;
+        }
+    }
+
+    /**
+     * Cancels the pending requests scheduled without an owner for the tiles not in the given
+     * collection.
+     *
+     * @param tiles the tiles still needed
+     * @return the number of cancelled requests
+     * @see #retain(Object, Collection)
+     */
+    public int retain(Collection<Tile> tiles) {
+        return retain(null, tiles);
+    }
+
+    /**
+     * Cancels the pending requests of the given owner for the tiles not in the given collection.
+     * Requests also made by other owners are left to them. Requests already running are left to
+     * complete, so that the image ends up in the caches.
+     *
+     * @param owner the owner the requests were scheduled for, may be null
+     * @param tiles the tiles still needed
+     * @return the number of cancelled requests
+     */
+    public int retain(Object owner, Collection<Tile> tiles) {
+        Set<String> needed = new HashSet<>();
+        for (Tile tile : tiles) {
+            needed.add(tile.getId());
+        }
+        List<TileRequest> cancelled = new ArrayList<>();
+        synchronized (pending) {
+            for (Iterator<TileRequest> it = pending.values().iterator(); it.hasNext(); ) {
+                TileRequest request = it.next();
+                if (needed.contains(request.tile.getId()) || !request.owners.remove(owner)) {
+                    continue;
+                }
+                if (request.owners.isEmpty() && request.host.queue.remove(request)) {
+                    it.remove();
+                    cancelled.add(request);
+                }
+            }
+        }
+        for (TileRequest request : cancelled) {
+            request.cancel(false);
+        }
+        if (!cancelled.isEmpty() && LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.fine("Cancelled " + cancelled.size() + " tile requests no longer needed");
+        }
+        return cancelled.size();
+    }
+
+    /** Returns the number of requests not completed yet. */
+    public int getPendingCount() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+    /** Cancels all pending requests and stops the threads. */
+    public void dispose() {
+        List<TileRequest> requests;
+        synchronized (pending) {
+            executor.shutdownNow();
+            requests = new ArrayList<>(pending.values());
+            pending.clear();
+            hosts.clear();
+        }
+        for (TileRequest request : requests) {
+            request.cancel(false);
+        }
+    }
+
+    private HostQueue getHostQueue(Tile tile) {
+        URL url = tile.getUrl();
+        String host = url == null || url.getHost() == null ? "" : url.getHost();
+        return hosts.computeIfAbsent(host, h -> new HostQueue());
+    }
+
+    /**
+     * Hands the most urgent requests of the host to the pool, as long as the host has free slots.
+     * Must be called while holding the {@link #pending} lock.
+     */
+    private void dispatch(HostQueue host) {
+        while (host.running < maxPerHost && !host.queue.isEmpty() && !executor.isShutdown()) {
+            TileRequest request = host.queue.poll();
+            request.dispatched = true;
+            host.running++;
+            executor.execute(request);
+        }
+    }
+
+    /** The requests to the same host waiting for a free slot. */
+    private static final class HostQueue {
+
+        final PriorityQueue<TileRequest> queue = new PriorityQueue<>();
+
+        /** The number of requests handed to the pool and not completed yet. */
+        int running;
+    }
+
+    /** Loads the image of a tile, queued by priority and then by submission order. */
+    private final class TileRequest extends FutureTask<BufferedImage>
+            implements Comparable<TileRequest> {
+
+        final Tile tile;
+
+        final HostQueue host;
+
+        final Priority priority;
+
+        final long order;
+
+        /** The owners still needing the tile. Guarded by {@link #pending}. */
+        final Set<Object> owners = new HashSet<>();
+
+        /** Whether the request has been handed to the pool. Guarded by {@link #pending}. */
+        boolean dispatched;
+
+        /** The request replacing this one after a priority upgrade. */
+        volatile TileRequest upgradedTo;
+
+        /** The request this one replaced after a priority upgrade, completed along with it. */
+        volatile TileRequest superseded;
+
+        TileRequest(Tile tile, HostQueue host, Priority priority, long order) {
+            super(tile::getBufferedImage);
+            this.tile = tile;
+            this.host = host;
+            this.priority = priority;
+            this.order = order;
+        }
+
+        @Override
+        public BufferedImage get() throws InterruptedException, ExecutionException {
+            TileRequest upgraded = upgradedTo;
+            return upgraded != null ? upgraded.get() : super.get();
+        }
+
+        @Override
+        public BufferedImage get(long timeout, TimeUnit unit)
+                throws InterruptedException, ExecutionException, TimeoutException {
+            TileRequest upgraded = upgradedTo;
+            return upgraded != null ? upgraded.get(timeout, unit) : super.get(timeout, unit);
+        }
+
+        @Override
+        public boolean isDone() {
+            TileRequest upgraded = upgradedTo;
+            return upgraded != null ? upgraded.isDone() : super.isDone();
+        }
+
+        @Override
+        protected void done() {
+            synchronized (pending) {
+                pending.remove(tile.getId(), this);
+                if (dispatched) {
+                    // free the host slot for the next request
+                    host.running--;
+                    dispatch(host);
+                }
+            }
+            TileRequest previous = superseded;
+            if (previous != null) {
+                // release the callers already waiting on the superseded request
+                if (isCancelled()) {
+                    previous.cancel(false);
+                } else {
+                    try {
+                        previous.set(super.get());
+                    } catch (ExecutionException e) {
+                        previous.setException(e.getCause());
+                    } catch (InterruptedException e) {
+                        // cannot happen, the request is done
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        }
+
+        @Override
+        public int compareTo(TileRequest other) {
+            int result = priority.compareTo(other.priority);
+            return result != 0 ? result : Long.compare(order, other.order);
+        }
+    }
+
+    private static final class SchedulerThreadFactory implements ThreadFactory {
+
+        private static final AtomicInteger COUNT = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "TileScheduler-" + COUNT.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
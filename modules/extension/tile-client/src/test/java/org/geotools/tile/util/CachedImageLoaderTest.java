@@ -0,0 +1,100 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2024, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.tile.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.geotools.geometry.jts.ReferencedEnvelope;
+import org.geotools.referencing.crs.DefaultGeographicCRS;
+import org.geotools.tile.ImageLoader;
+import org.geotools.tile.Tile;
+import org.geotools.tile.impl.WebMercatorZoomLevel;
+import org.geotools.tile.impl.osm.OSMTileIdentifier;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CachedImageLoaderTest {
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testMemoryAndDiskCache() throws Exception {
+        File directory = folder.newFolder();
+        AtomicInteger fetches = new AtomicInteger();
+        ImageLoader remote =
+                tile -> {
+                    fetches.incrementAndGet();
+                    return new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB);
+                };
+        // room for two images in memory, files are a few hundred bytes at most
+        CachedImageLoader loader =
+                new CachedImageLoader(directory, remote, 2 * 16 * 16 * 4, 100_000);
+        Tile first = createTile(0, loader);
+        Tile second = createTile(1, loader);
+        Tile third = createTile(2, loader);
+
+        BufferedImage image = loader.loadImageTileImage(first);
+        assertSame(image, loader.loadImageTileImage(first));
+        loader.loadImageTileImage(second);
+        loader.loadImageTileImage(third);
+        assertEquals(3, fetches.get());
+        assertEquals(3, directory.listFiles((dir, name) -> name.endsWith(".png")).length);
+
+        // evicted from memory, read back from disk
+        BufferedImage fromDisk = loader.loadImageTileImage(first);
+        assertEquals(3, fetches.get());
+        assertEquals(16, fromDisk.getWidth());
+
+        // a tiny disk cache only keeps the most recent file
+        CachedImageLoader small = new CachedImageLoader(directory, remote, 0, 1);
+        small.loadImageTileImage(createTile(3, small));
+        assertEquals(4, fetches.get());
+        assertEquals(
+                Collections.singletonList(createTile(3, small).getId() + ".png"),
+                Arrays.asList(directory.list((dir, name) -> name.endsWith(".png"))));
+    }
+
+    private static Tile createTile(int x, ImageLoader loader) {
+        ReferencedEnvelope env = new ReferencedEnvelope(x, x + 1, 0, 1, DefaultGeographicCRS.WGS84);
+        Tile tile =
+                new Tile(
+                        new OSMTileIdentifier(x, 0, new WebMercatorZoomLevel(5), "SomeService"),
+                        env,
+                        256) {
+
+                    @Override
+                    public URL getUrl() {
+                        try {
+                            return new URL("http://a/tiles/" + x);
+                        } catch (MalformedURLException e) {
+                            throw new RuntimeException(e);
+                        }
+                    }
+                };
+        tile.setImageLoader(loader);
+        return tile;
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2024, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.tile.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PackFileTileCacheTest {
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testPutGetRemove() throws Exception {
+        try (PackFileTileCache cache = new PackFileTileCache(folder.getRoot())) {
+            assertNull(cache.get("a"));
+            cache.put("a", bytes("first"));
+            cache.put("b", bytes("second"));
+            cache.put("a", bytes("replaced"));
+            assertArrayEquals(bytes("replaced"), cache.get("a"));
+            assertArrayEquals(bytes("second"), cache.get("b"));
+            assertEquals(2, cache.size());
+
+            cache.remove("a");
+            assertNull(cache.get("a"));
+            assertEquals(1, cache.size());
+
+            cache.clear();
+            assertNull(cache.get("b"));
+            assertEquals(0, cache.size());
+        }
+        // one pack file per shard, not one file per tile
+        assertEquals(
+                PackFileTileCache.DEFAULT_SHARDS,
+                folder.getRoot().list((dir, name) -> name.endsWith(".pack")).length);
+    }
+
+    @Test
+    public void testReopen() throws Exception {
+        File directory = folder.getRoot();
+        try (PackFileTileCache cache = new PackFileTileCache(directory, 2, -1, -1)) {
+            cache.put("a", bytes("first"));
+            cache.put("b", bytes("second"));
+        }
+        try (PackFileTileCache cache = new PackFileTileCache(directory, 2, -1, -1)) {
+            // loaded from the index
+            assertArrayEquals(bytes("first"), cache.get("a"));
+            cache.remove("a");
+            cache.put("c", bytes("third"));
+        }
+        // simulate a crash, the index is not saved
+        new File(directory, "shard-000.idx").delete();
+        new File(directory, "shard-001.idx").delete();
+        try (PackFileTileCache cache = new PackFileTileCache(directory, 2, -1, -1)) {
+            // rebuilt from the pack files
+            assertNull(cache.get("a"));
+            assertArrayEquals(bytes("second"), cache.get("b"));
+            assertArrayEquals(bytes("third"), cache.get("c"));
+        }
+    }
+
+    @Test
+    public void testExpiry() throws Exception {
+        try (PackFileTileCache cache = new PackFileTileCache(folder.getRoot(), 1, -1, 50)) {
+            cache.put("a", bytes("first"));
+            assertArrayEquals(bytes("first"), cache.get("a"));
+            Thread.sleep(100);
+            assertNull(cache.get("a"));
+        }
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        byte[] tile = new byte[1000];
+        // live tiles are kept under half the limit
+        try (PackFileTileCache cache = new PackFileTileCache(folder.getRoot(), 1, 7000, -1)) {
+            cache.put("a", tile);
+            cache.put("b", tile);
+            cache.put("c", tile);
+            // a becomes the most recently used
+            cache.get("a");
+            cache.put("d", tile);
+            assertEquals(3, cache.size());
+            assertNull(cache.get("b"));
+            assertArrayEquals(tile, cache.get("a"));
+            assertArrayEquals(tile, cache.get("d"));
+        }
+    }
+
+    @Test
+    public void testSizeLimitIncludesDeadRecords() throws Exception {
+        File pack = new File(folder.getRoot(), "shard-000.pack");
+        byte[] tile = new byte[1000];
+        try (PackFileTileCache cache = new PackFileTileCache(folder.getRoot(), 1, 10_000, -1)) {
+            for (int i = 0; i < 100; i++) {
+                tile[0] = (byte) i;
+                cache.put(String.valueOf(i % 3), tile);
+                assertTrue(pack.length() <= 10_000 + tile.length + 100);
+            }
+            assertEquals(99, cache.get("0")[0]);
+        }
+    }
+
+    @Test
+    public void testCompaction() throws Exception {
+        File directory = folder.getRoot();
+        byte[] tile = new byte[100_000];
+        try (PackFileTileCache cache = new PackFileTileCache(directory, 1, -1, -1)) {
+            for (int i = 0; i < 50; i++) {
+                tile[0] = (byte) i;
+                cache.put("a", tile);
+            }
+            cache.put("b", bytes("second"));
+            assertEquals(49, cache.get("a")[0]);
+            assertArrayEquals(bytes("second"), cache.get("b"));
+            // most of the replaced records have been dropped
+            assertTrue(new File(directory, "shard-000.pack").length() < 20 * tile.length);
+        }
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try (PackFileTileCache cache = new PackFileTileCache(folder.getRoot(), 4, -1, -1)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                final int thread = t;
+                futures.add(
+                        executor.submit(
+                                () -> {
+                                    for (int i = 0; i < 200; i++) {
+                                        String key = thread + "/" + i;
+                                        cache.put(key, bytes(key));
+                                        assertArrayEquals(bytes(key), cache.get(key));
+                                    }
+                                    return null;
+                                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            assertEquals(1600, cache.size());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testConcurrentPutsOfSameKey() throws Exception {
+        File directory = folder.getRoot();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        byte[] last;
+        try (PackFileTileCache cache = new PackFileTileCache(directory, 1, -1, -1)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                final int thread = t;
+                futures.add(
+                        executor.submit(
+                                () -> {
+                                    for (int i = 0; i < 200; i++) {
+                                        cache.put("a", bytes(thread + "/" + i));
+                                    }
+                                    return null;
+                                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            last = cache.get("a");
+        } finally {
+            executor.shutdown();
+        }
+        // the index must point to the last record written, which wins when the pack is scanned
+        Files.delete(new File(directory, "shard-000.idx").toPath());
+        try (PackFileTileCache cache = new PackFileTileCache(directory, 1, -1, -1)) {
+            assertArrayEquals(last, cache.get("a"));
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
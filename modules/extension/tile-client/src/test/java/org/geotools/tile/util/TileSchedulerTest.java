@@ -0,0 +1,239 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2024, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.tile.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.geotools.geometry.jts.ReferencedEnvelope;
+import org.geotools.referencing.crs.DefaultGeographicCRS;
+import org.geotools.tile.ImageLoader;
+import org.geotools.tile.Tile;
+import org.geotools.tile.impl.WebMercatorZoomLevel;
+import org.geotools.tile.impl.osm.OSMTileIdentifier;
+import org.geotools.tile.util.TileScheduler.Priority;
+import org.junit.After;
+import org.junit.Test;
+
+public class TileSchedulerTest {
+
+    private TileScheduler scheduler;
+
+    @After
+    public void tearDown() {
+        if (scheduler != null) {
+            scheduler.dispose();
+        }
+    }
+
+    @Test
+    public void testPriorityOrder() throws Exception {
+        scheduler = new TileScheduler(1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> loaded = new CopyOnWriteArrayList<>();
+        Tile blocker = createTile(0, "a", tile -> awaitAndRecord(release, loaded, tile));
+        ImageLoader recorder = tile -> awaitAndRecord(null, loaded, tile);
+
+        Future<BufferedImage> first = scheduler.schedule(blocker, Priority.VISIBLE);
+        scheduler.schedule(createTile(1, "a", recorder), Priority.NEXT_ZOOM);
+        scheduler.schedule(createTile(2, "a", recorder), Priority.NEIGHBOUR);
+        Tile upgraded = createTile(3, "a", recorder);
+        Future<BufferedImage> low = scheduler.schedule(upgraded, Priority.NEXT_ZOOM);
+        Future<BufferedImage> high = scheduler.schedule(upgraded, Priority.VISIBLE);
+        release.countDown();
+
+        assertNotNull(first.get(5, TimeUnit.SECONDS));
+        assertSame(high.get(5, TimeUnit.SECONDS), low.get(5, TimeUnit.SECONDS));
+        while (scheduler.getPendingCount() > 0) {
+            Thread.sleep(10);
+        }
+        assertEquals(Arrays.asList("0", "3", "2", "1"), loaded);
+    }
+
+    @Test
+    public void testRetain() throws Exception {
+        scheduler = new TileScheduler(1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> loaded = new CopyOnWriteArrayList<>();
+        Tile blocker = createTile(0, "a", tile -> awaitAndRecord(release, loaded, tile));
+        Tile kept = createTile(1, "a", tile -> awaitAndRecord(null, loaded, tile));
+        Tile dropped = createTile(2, "a", tile -> awaitAndRecord(null, loaded, tile));
+
+        scheduler.schedule(blocker, Priority.VISIBLE);
+        Future<BufferedImage> keptRequest = scheduler.schedule(kept, Priority.NEIGHBOUR);
+        Future<BufferedImage> droppedRequest = scheduler.schedule(dropped, Priority.NEIGHBOUR);
+        assertEquals(1, scheduler.retain(Arrays.asList(blocker, kept)));
+        release.countDown();
+
+        assertNotNull(keptRequest.get(5, TimeUnit.SECONDS));
+        assertTrue(droppedRequest.isCancelled());
+        assertFalse(loaded.contains("2"));
+    }
+
+    @Test
+    public void testUpgradeReleasesWaitingCallers() throws Exception {
+        scheduler = new TileScheduler(1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> loaded = new CopyOnWriteArrayList<>();
+        scheduler.schedule(
+                createTile(0, "a", tile -> awaitAndRecord(release, loaded, tile)),
+                Priority.VISIBLE);
+        Tile upgraded = createTile(1, "a", tile -> awaitAndRecord(null, loaded, tile));
+        Future<BufferedImage> low = scheduler.schedule(upgraded, Priority.NEXT_ZOOM);
+
+        // wait on the low priority request before it gets upgraded
+        FutureTask<BufferedImage> waiter = new FutureTask<>(() -> low.get());
+        Thread thread = new Thread(waiter);
+        thread.start();
+        while (thread.getState() != Thread.State.WAITING) {
+            Thread.sleep(10);
+        }
+        Future<BufferedImage> high = scheduler.schedule(upgraded, Priority.VISIBLE);
+        assertNotSame(low, high);
+        release.countDown();
+
+        assertSame(high.get(5, TimeUnit.SECONDS), waiter.get(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("0", "1"), loaded);
+    }
+
+    @Test
+    public void testRetainIsScopedToOwner() throws Exception {
+        scheduler = new TileScheduler(1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> loaded = new CopyOnWriteArrayList<>();
+        Object first = new Object();
+        Object second = new Object();
+        Tile blocker = createTile(0, "a", tile -> awaitAndRecord(release, loaded, tile));
+        Tile shared = createTile(1, "a", tile -> awaitAndRecord(null, loaded, tile));
+        Tile other = createTile(2, "a", tile -> awaitAndRecord(null, loaded, tile));
+
+        scheduler.schedule(blocker, Priority.VISIBLE, first);
+        Future<BufferedImage> sharedRequest = scheduler.schedule(shared, Priority.NEIGHBOUR, first);
+        scheduler.schedule(shared, Priority.NEIGHBOUR, second);
+        Future<BufferedImage> otherRequest = scheduler.schedule(other, Priority.NEIGHBOUR, second);
+
+        // the first owner no longer needs the shared tile, the second one still does
+        assertEquals(0, scheduler.retain(first, Arrays.asList(blocker)));
+        // requests of other owners are left alone
+        assertEquals(0, scheduler.retain(new Object(), Arrays.asList(blocker)));
+        release.countDown();
+
+        assertNotNull(sharedRequest.get(5, TimeUnit.SECONDS));
+        assertNotNull(otherRequest.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testMaxPerHost() throws Exception {
+        scheduler = new TileScheduler(4, 2);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        ImageLoader loader =
+                tile -> {
+                    int current = running.incrementAndGet();
+                    maxRunning.accumulateAndGet(current, Math::max);
+                    try {
+                        Thread.sleep(50);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    running.decrementAndGet();
+                    return new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+                };
+        Future<?>[] requests = new Future<?>[8];
+        for (int i = 0; i < requests.length; i++) {
+            requests[i] = scheduler.schedule(createTile(i, "a", loader), Priority.VISIBLE);
+        }
+        for (Future<?> request : requests) {
+            request.get(5, TimeUnit.SECONDS);
+        }
+        assertTrue(maxRunning.get() <= 2);
+    }
+
+    @Test
+    public void testBusyHostDoesNotBlockOthers() throws Exception {
+        scheduler = new TileScheduler(2, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> loaded = new CopyOnWriteArrayList<>();
+        ImageLoader blocking = tile -> awaitAndRecord(release, loaded, tile);
+
+        // the second request to host "a" waits for the first one, without taking a thread
+        Future<BufferedImage> first =
+                scheduler.schedule(createTile(0, "a", blocking), Priority.VISIBLE);
+        Future<BufferedImage> second =
+                scheduler.schedule(createTile(1, "a", blocking), Priority.VISIBLE);
+        Future<BufferedImage> other =
+                scheduler.schedule(
+                        createTile(2, "b", tile -> awaitAndRecord(null, loaded, tile)),
+                        Priority.NEIGHBOUR);
+        assertNotNull(other.get(5, TimeUnit.SECONDS));
+        assertFalse(first.isDone());
+        assertFalse(second.isDone());
+
+        release.countDown();
+        assertNotNull(second.get(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("2", "0", "1"), loaded);
+    }
+
+    private static BufferedImage awaitAndRecord(
+            CountDownLatch latch, List<String> loaded, Tile tile) {
+        try {
+            if (latch != null) {
+                latch.await();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        loaded.add(String.valueOf(tile.getTileIdentifier().getX()));
+        return new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+    }
+
+    private static Tile createTile(int x, String host, ImageLoader loader) {
+        ReferencedEnvelope env = new ReferencedEnvelope(x, x + 1, 0, 1, DefaultGeographicCRS.WGS84);
+        Tile tile =
+                new Tile(
+                        new OSMTileIdentifier(x, 0, new WebMercatorZoomLevel(5), "SomeService"),
+                        env,
+                        256) {
+
+                    @Override
+                    public URL getUrl() {
+                        try {
+                            return new URL("http://" + host + "/tiles/" + x);
+                        } catch (MalformedURLException e) {
+                            throw new RuntimeException(e);
+                        }
+                    }
+                };
+        tile.setImageLoader(loader);
+        return tile;
+    }
+}
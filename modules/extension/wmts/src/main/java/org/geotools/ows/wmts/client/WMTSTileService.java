@@ -18,8 +18,8 @@
 
 import static org.geotools.tile.impl.ScaleZoomLevelMatcher.getProjectedEnvelope;
 
-import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.Collections;
@@ -39,7 +39,6 @@
 import org.geotools.http.HTTPClient;
 import org.geotools.http.HTTPClientFinder;
 import org.geotools.http.HTTPResponse;
-import org.geotools.image.io.ImageIOExt;
 import org.geotools.ows.ServiceException;
 import org.geotools.ows.wms.CRSEnvelope;
 import org.geotools.ows.wmts.WMTSHelper;
@@ -656,16 +655,16 @@ TileIdentifier constrainToUpperLeftTile(TileIdentifier coordTile, WMTSZoomLevel
 
     @SuppressWarnings("unchecked")
     @Override
-    public BufferedImage loadImageTileImage(Tile tile) throws IOException {
+    protected byte[] fetchTileData(Tile tile) throws IOException {
         if (tileServer == null) {
             if (!getExtrainfo().containsKey(WMTSTileService.EXTRA_HEADERS)) {
-                return super.loadImageTileImage(tile);
+                return super.fetchTileData(tile);
             }
             Map<String, String> headers =
                     (Map<String, String>) getExtrainfo().get(WMTSTileService.EXTRA_HEADERS);
             HTTPResponse http = getHttpClient().get(tile.getUrl(), headers);
-            try {
-                return ImageIOExt.readBufferedImage(http.getResponseStream());
+            try (InputStream in = http.getResponseStream()) {
+                return in.readAllBytes();
             } finally {
                 http.dispose();
             }
@@ -683,7 +682,7 @@ public BufferedImage loadImageTileImage(Tile tile) throws IOException {
         GetSingleTileRequest request = createGetTileRequest(tileMatrix, tileCol, tileRow);
         try {
             GetTileResponse response = tileServer.issueRequest(request);
-            return response.getTileImage();
+            return response.getTileData();
         } catch (ServiceException e) {
             LOGGER.log(Level.SEVERE, "WMTS server returned exception", e);
             throw new IOException("WMTS server returned exception", e);
@@ -17,7 +17,10 @@
 package org.geotools.ows.wmts.response;
 
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.URL;
 import org.geotools.data.ows.Response;
 import org.geotools.http.HTTPResponse;
@@ -40,11 +43,15 @@ public class GetTileResponse extends Response {
 
     private URL requestURL;
 
-    private final BufferedImage tileImage;
+    private final byte[] tileData;
+
+    /** The decoded tile image, decoded on first access. */
+    private BufferedImage tileImage;
 
     /**
-     * Constructor of GetTileResponse. Reads the image if the content-type is set to image. Other
-     * content-types should use the responseStream.
+     * Constructor of GetTileResponse. Reads the encoded image if the content-type is set to image,
+     * the image is decoded on demand by {@link #getTileImage()}. Other content-types should use the
+     * responseStream.
      */
     public GetTileResponse(HTTPResponse httpResponse, WMTSServiceType wmtsServiceType)
             throws ServiceException, IOException {
@@ -53,13 +60,13 @@ public GetTileResponse(HTTPResponse httpResponse, WMTSServiceType wmtsServiceTyp
 
         String format = httpResponse.getContentType();
         if (format.startsWith("image")) {
-            try {
-                tileImage = ImageIOExt.readBufferedImage(httpResponse.getResponseStream());
+            try (InputStream in = httpResponse.getResponseStream()) {
+                tileData = in.readAllBytes();
             } finally {
                 httpResponse.dispose();
             }
         } else {
-            tileImage = null;
+            tileData = null;
         }
     }
 
@@ -83,8 +90,26 @@ public void setRequestURL(URL requestURL) {
         this.requestURL = requestURL;
     }
 
-    /** The tile image in cases where content-type is set to image. */
-    public BufferedImage getTileImage() {
+    /**
+     * The tile image in cases where content-type is set to image.
+     *
+     * @throws UncheckedIOException if the image cannot be decoded
+     */
+    public synchronized BufferedImage getTileImage() {
+        if (tileImage == null && tileData != null) {
+            try {
+                tileImage = ImageIOExt.readBufferedImage(new ByteArrayInputStream(tileData));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to decode the tile image", e);
+            }
+        }
         return tileImage;
     }
+
+    /**
+     * The encoded tile image, as sent by the server, in cases where content-type is set to image.
+     */
+    public byte[] getTileData() {
+        return tileData;
+    }
 }
@@ -38,14 +38,19 @@
 import org.geotools.referencing.CRS;
 import org.geotools.tile.Tile;
 import org.geotools.tile.Tile.RenderState;
+import org.geotools.tile.util.PackFileTileCache;
 import org.junit.Assert;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.GeometryFactory;
 import org.locationtech.jts.geom.Point;
 
 public class WMTSTileServiceTest {
 
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
     /**
      * Test's the usage of WebMapTileServer for downloading the images. Will use the MockHttpClient
      * served to WebMapTileServer for all http calls.
@@ -72,6 +77,46 @@ public void loadImagesUsingWebMapTileServerKVP() throws Exception {
         Assert.assertNotNull(image);
     }
 
+    /** Tiles found in the tile cache are not requested again. */
+    @Test
+    public void loadImagesUsingTileCache() throws Exception {
+        WMTSCapabilities caps = WMTSTestUtils.createCapabilities("getcapa_kvp.xml");
+        URL tileURL =
+                new URL(
+                        "http://localhost:8080/geoserver/gwc/service/wmts?tilematrixset=EPSG:4326&REQUEST=GetTile&TileRow=2&VERSION=1.0.0&format=image/png&SERVICE=WMTS&style=&TileCol=2&type=KVP&layer=spearfish&TileMatrix=EPSG:4326:3");
+        MockHttpClient client = new MockHttpClient();
+        client.expectGet(
+                tileURL, new MockHttpResponse(TestData.file(null, "world.png"), "image/png"));
+
+        try (PackFileTileCache cache = new PackFileTileCache(folder.getRoot())) {
+            WebMapTileServer tileServer =
+                    new WebMapTileServer(
+                            new URL("http://localhost:8080/geoserver/gwc/service/wmts"),
+                            client,
+                            caps);
+            WMTSLayer layer = caps.getLayer("spearfish");
+            TileMatrixSet matrixSet = tileServer.selectMatrixSet(layer, CRS.decode("EPSG:4326"));
+            WMTSTileService tileService = new WMTSTileService(tileServer, layer, matrixSet);
+            tileService.setTileCache(cache);
+            WMTSTile testTile = new WMTSTile(2, 2, new WMTSZoomLevel(3, tileService), tileService);
+            Assert.assertNotNull(tileService.loadImageTileImage(testTile));
+            Assert.assertEquals(1, cache.size());
+
+            // a client without any expectation, the tile has to come from the cache
+            WebMapTileServer offline =
+                    new WebMapTileServer(
+                            new URL("http://localhost:8080/geoserver/gwc/service/wmts"),
+                            new MockHttpClient(),
+                            caps);
+            WMTSTileService cachedService = new WMTSTileService(offline, layer, matrixSet);
+            cachedService.setTileCache(cache);
+            WMTSTile cachedTile =
+                    new WMTSTile(2, 2, new WMTSZoomLevel(3, cachedService), cachedService);
+            BufferedImage image = cachedService.loadImageTileImage(cachedTile);
+            Assert.assertNotNull(image);
+        }
+    }
+
     @Test
     public void getBufferedImageUsingWebMapTileServerRestful() throws Exception {
         WMTSCapabilities caps = WMTSTestUtils.createCapabilities("noaa-tileserver.xml");
@@ -38,6 +38,7 @@
 import javax.media.jai.ROI;
 import org.geotools.image.ImageWorker;
 import org.geotools.image.io.ImageIOExt;
+import org.geotools.util.SoftValueHashMap;
 import org.geotools.util.URLs;
 
 /**
@@ -50,6 +51,10 @@ public class MaskOverviewProvider {
     private static final boolean DEFAULT_SKIP_EXTERNAL_FILES_LOOKUP =
             ImageIOUtilities.isSkipExternalFilesLookup();
 
+    /** The sizes of the images of local files, by absolute path */
+    private static final SoftValueHashMap<String, ImageSizes> IMAGE_SIZES =
+            new SoftValueHashMap<>();
+
     private static final Logger LOGGER =
             org.geotools.util.logging.Logging.getLogger(MaskOverviewProvider.class);
 
@@ -286,15 +291,8 @@ private SourceSPIProvider externalOverviewsCheck(
     }
 
     public int getNumOverviews(SourceSPIProvider sourceSpiProvider) {
-        ImageReader reader = null;
-        int numOverviews;
-        try (ImageInputStream imageStream = sourceSpiProvider.getStream()) {
-            // Creating reader
-            reader = sourceSpiProvider.getReader();
-            // Setting input
-            reader.setInput(imageStream, false, false);
-            // Getting number of images
-            numOverviews = reader.getNumImages(true) - 1;
+        try {
+            return getImageSizes(sourceSpiProvider, null).getNumImages() - 1;
         } catch (Exception e) {
             if (LOGGER.isLoggable(Level.WARNING)) {
                 LOGGER.log(
@@ -303,12 +301,7 @@ public int getNumOverviews(SourceSPIProvider sourceSpiProvider) {
                         e);
             }
             throw new IllegalArgumentException(e);
-        } finally {
-            if (reader != null) {
-                reader.dispose();
-            }
         }
-        return numOverviews;
     }
 
     public int getNumOverviews(
@@ -493,26 +486,17 @@ public boolean hasExternalMasksOverviews() {
     }
 
     /** Returns a double[][] containing the resolutions for all the overviews */
-    // optional resources, readers not closeables, try-with-resources would not help much here
-    @SuppressWarnings("PMD.UseTryWithResources")
     public double[][] getOverviewResolutions(double span0, double span1) {
         double[][] overviewsResolution = null;
         if (numOverviews > 0) {
-            ImageInputStream stream = null;
-            ImageInputStream streamOvr = null;
-            ImageReader reader = null;
-            ImageReader readerOvr = null;
             try {
-                // Instantiating Stream
-                stream = sourceSpiProvider.getStream();
-                reader = sourceSpiProvider.getReader();
-                reader.setInput(stream, false, false);
-                if (ovrURL != null) {
-                    SourceSPIProvider ovrProvider =
-                            sourceSpiProvider.getCompatibleSourceProvider(ovrURL);
-                    streamOvr = ovrProvider.getStream();
-                    readerOvr = overviewReaderSpi.createReaderInstance();
-                    readerOvr.setInput(streamOvr, false, false);
+                ImageSizes sizes = getImageSizes(sourceSpiProvider, null);
+                ImageSizes ovrSizes = null;
+                if (numExternalOverviews > 0) {
+                    ovrSizes =
+                            getImageSizes(
+                                    sourceSpiProvider.getCompatibleSourceProvider(ovrURL),
+                                    overviewReaderSpi);
                 }
 
                 overviewsResolution = new double[numOverviews][2];
@@ -521,15 +505,15 @@ public double[][] getOverviewResolutions(double span0, double span1) {
                     // Handling internal and external overviews
                     if (numExternalOverviews > 0 && i >= numInternalOverviews) {
                         int index = i - numInternalOverviews;
-                        overviewsResolution[i][0] = span0 / readerOvr.getWidth(index);
-                        overviewsResolution[i][1] = span1 / readerOvr.getHeight(index);
+                        overviewsResolution[i][0] = span0 / ovrSizes.widths[index];
+                        overviewsResolution[i][1] = span1 / ovrSizes.heights[index];
                     } else {
                         int index =
                                 hasDatasetLayout
                                         ? layout.getInternalOverviewImageIndex(i + 1)
                                         : i + 1;
-                        overviewsResolution[i][0] = span0 / reader.getWidth(index);
-                        overviewsResolution[i][1] = span1 / reader.getHeight(index);
+                        overviewsResolution[i][0] = span0 / sizes.widths[index];
+                        overviewsResolution[i][1] = span1 / sizes.heights[index];
                     }
                 }
             } catch (Exception e) {
@@ -537,39 +521,84 @@ public double[][] getOverviewResolutions(double span0, double span1) {
                     LOGGER.log(Level.WARNING, "Unable to create a Reader for File: " + fileURL, e);
                 }
                 throw new IllegalArgumentException(e);
-            } finally {
-                // Closing stream and readers
-                if (stream != null) {
-                    try {
-                        stream.close();
-                    } catch (Exception e) {
-                        if (LOGGER.isLoggable(Level.SEVERE)) {
-                            LOGGER.log(Level.SEVERE, e.getMessage(), e);
-                        }
-                    } finally {
-                        if (reader != null) {
-                            reader.dispose();
-                        }
-                    }
-                }
-                if (streamOvr != null) {
-                    try {
-                        streamOvr.close();
-                    } catch (Exception e) {
-                        if (LOGGER.isLoggable(Level.SEVERE)) {
-                            LOGGER.log(Level.SEVERE, e.getMessage(), e);
-                        }
-                    } finally {
-                        if (readerOvr != null) {
-                            readerOvr.dispose();
-                        }
-                    }
-                }
             }
         }
         return overviewsResolution;
     }
 
+    /**
+     * Returns the sizes of the images of the given source. Sizes of local files are shared by all
+     * the providers, until the file is modified, so that opening the same pyramid again does not
+     * parse the image directories of the file, and of its overviews file.
+     *
+     * @param readerSpi the SPI of the reader to use, or null to use the one of the provider
+     */
+    private static ImageSizes getImageSizes(SourceSPIProvider provider, ImageReaderSpi readerSpi)
+            throws IOException {
+        URL url = provider.getSourceUrl();
+        File file = url != null && "file".equals(url.getProtocol()) ? URLs.urlToFile(url) : null;
+        String key = file != null ? file.getAbsolutePath() : null;
+        if (key != null) {
+            ImageSizes sizes;
+            synchronized (IMAGE_SIZES) {
+                sizes = IMAGE_SIZES.get(key);
+            }
+            if (sizes != null && sizes.isValid(file)) {
+                return sizes;
+            }
+        }
+
+        ImageReader reader = null;
+        try (ImageInputStream stream = provider.getStream()) {
+            reader = readerSpi != null ? readerSpi.createReaderInstance() : provider.getReader();
+            reader.setInput(stream, false, false);
+            ImageSizes sizes = new ImageSizes(file, reader);
+            if (key != null) {
+                synchronized (IMAGE_SIZES) {
+                    IMAGE_SIZES.put(key, sizes);
+                }
+            }
+            return sizes;
+        } finally {
+            if (reader != null) {
+                reader.dispose();
+            }
+        }
+    }
+
+    /** The sizes of all the images of a file, as of its last modification */
+    private static final class ImageSizes {
+
+        private final long lastModified;
+
+        private final long length;
+
+        private final int[] widths;
+
+        private final int[] heights;
+
+        ImageSizes(File file, ImageReader reader) throws IOException {
+            // stamp before reading, a concurrent modification will make the sizes stale
+            this.lastModified = file != null ? file.lastModified() : 0;
+            this.length = file != null ? file.length() : 0;
+            int numImages = reader.getNumImages(true);
+            this.widths = new int[numImages];
+            this.heights = new int[numImages];
+            for (int i = 0; i < numImages; i++) {
+                widths[i] = reader.getWidth(i);
+                heights[i] = reader.getHeight(i);
+            }
+        }
+
+        boolean isValid(File file) {
+            return file.lastModified() == lastModified && file.length() == length;
+        }
+
+        int getNumImages() {
+            return widths.length;
+        }
+    }
+
     public ImageReaderSpi getExternalOverviewReaderSpi() {
         return overviewReaderSpi;
     }
@@ -41,6 +41,7 @@
 import java.awt.Color;
 import java.awt.HeadlessException;
 import java.awt.Image;
+import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.RenderingHints;
 import java.awt.Transparency;
@@ -55,6 +56,7 @@
 import java.awt.image.DirectColorModel;
 import java.awt.image.IndexColorModel;
 import java.awt.image.PackedColorModel;
+import java.awt.image.Raster;
 import java.awt.image.RenderedImage;
 import java.awt.image.SampleModel;
 import java.awt.image.WritableRaster;
@@ -102,6 +104,7 @@
 import javax.media.jai.ROIShape;
 import javax.media.jai.RenderedOp;
 import javax.media.jai.TileCache;
+import javax.media.jai.TileScheduler;
 import javax.media.jai.Warp;
 import javax.media.jai.WarpAffine;
 import javax.media.jai.WarpGrid;
@@ -422,9 +425,30 @@ protected static OperationDescriptor getOperationDescriptor(final String name)
      */
     public static final Hints.Key FORCE_MOSAIC_ROI_PROPERTY = new Hints.Key(Boolean.class);
 
+    /** The fields of an {@link ImageLayout} defining the tile grid */
+    private static final int TILE_LAYOUT_MASK =
+            ImageLayout.TILE_GRID_X_OFFSET_MASK
+                    | ImageLayout.TILE_GRID_Y_OFFSET_MASK
+                    | ImageLayout.TILE_WIDTH_MASK
+                    | ImageLayout.TILE_HEIGHT_MASK;
+
     /** Specify whether to preserve chained affines instead of collapsing them */
     public static final Hints.Key PRESERVE_CHAINED_AFFINES = new Hints.Key(Boolean.class);
 
+    /**
+     * Specify whether {@link #getBufferedImage()} computes the tiles of the image in parallel, see
+     * {@link #prefetch(Rectangle)}
+     */
+    public static final Hints.Key PARALLEL_TILES = new Hints.Key(Boolean.class);
+
+    /**
+     * Specify whether {@link #rescale(double[], double[])} can fuse a rescale with a previous one
+     * to doubles even when the composed coefficients do not give exactly the same values as the two
+     * steps. Rounding to an integral output type may then differ by one unit. Exact fusions are
+     * always performed.
+     */
+    public static final Hints.Key FUSE_INEXACT_RESCALE = new Hints.Key(Boolean.class);
+
     /** The image property name generated by {@link ExtremaDescriptor}. */
     private static final String EXTREMA = "extrema";
 
@@ -641,11 +665,65 @@ public final RenderedImage getRenderedImage() {
     public final BufferedImage getBufferedImage() {
         if (image instanceof BufferedImage) {
             return (BufferedImage) image;
+        } else if (Boolean.TRUE.equals(getRenderingHint(PARALLEL_TILES))
+                && image.getNumXTiles() * image.getNumYTiles() > 1) {
+            return getBufferedImageFromTiles();
         } else {
             return getPlanarImage().getAsBufferedImage();
         }
     }
 
+    /**
+     * Assembles the current image in a buffered image, requesting all of its tiles at once so that
+     * they are computed in parallel, see {@link #prefetch(Rectangle)}.
+     */
+    private BufferedImage getBufferedImageFromTiles() {
+        PlanarImage planar = getPlanarImage();
+        ColorModel cm = planar.getColorModel();
+        Rectangle bounds = planar.getBounds();
+        Point[] indices = planar.getTileIndices(bounds);
+        if (cm == null || indices == null) {
+            return planar.getAsBufferedImage();
+        }
+        WritableRaster raster =
+                Raster.createWritableRaster(
+                        planar.getSampleModel()
+                                .createCompatibleSampleModel(bounds.width, bounds.height),
+                        bounds.getLocation());
+        for (Raster tile : planar.getTiles(indices)) {
+            raster.setRect(tile);
+        }
+        if (bounds.x != 0 || bounds.y != 0) {
+            raster =
+                    raster.createWritableChild(
+                            bounds.x, bounds.y, bounds.width, bounds.height, 0, 0, null);
+        }
+        return new BufferedImage(cm, raster, cm.isAlphaPremultiplied(), null);
+    }
+
+    /**
+     * Computes the tiles of the current image intersecting the specified region, requesting them at
+     * once so that operations compute them in parallel on their {@link TileScheduler}, see {@link
+     * JAI#KEY_TILE_SCHEDULER}. The computed tiles are stored in the tile cache, so pulling pixels
+     * from the region (e.g. drawing or encoding it) does not compute them again, as long as the
+     * cache is enabled and large enough to hold them.
+     *
+     * <p>The current image is left untouched, so the chain can still be extended afterwards.
+     *
+     * @param region The region to prefetch, or {@code null} for the whole image.
+     * @return this {@link ImageWorker}.
+     */
+    public final ImageWorker prefetch(Rectangle region) {
+        if (!(image instanceof BufferedImage)) {
+            PlanarImage planar = getPlanarImage();
+            Point[] indices = planar.getTileIndices(region != null ? region : planar.getBounds());
+            if (indices != null) {
+                planar.getTiles(indices);
+            }
+        }
+        return this;
+    }
+
     /**
      * Returns the {@linkplain #getRenderedImage rendered image} as a planar image.
      *
@@ -944,6 +1022,11 @@ public final ImageWorker removeRenderingHint(final RenderingHints.Key key) {
      * @return The rendering hints to use for image computation (never {@code null}).
      */
     public final RenderingHints getRenderingHints() {
+        return getRenderingHints(image);
+    }
+
+    /** Returns the rendering hints for an image to be computed by this class from the given one. */
+    private RenderingHints getRenderingHints(final RenderedImage image) {
         RenderingHints hints = ImageUtilities.getRenderingHints(image);
         if (hints == null) {
             hints = new RenderingHints(null);
@@ -2579,11 +2662,7 @@ public final ImageWorker retainBands(final int numBands) {
             for (int i = 0; i < bands.length; i++) {
                 bands[i] = i;
             }
-            // ParameterBlock creation
-            ParameterBlock pb = new ParameterBlock();
-            pb.setSource(image, 0);
-            pb.set(bands, 0);
-            image = JAI.create("BandSelect", pb, getRenderingHints());
+            retainBands(bands);
         }
 
         // All post conditions for this method contract.
@@ -2602,14 +2681,191 @@ public final ImageWorker retainBands(final int numBands) {
      * @see BandSelectDescriptor
      */
     public final ImageWorker retainBands(final int[] bands) {
+        // band select over band select? Select directly from the source of the previous one
+        RenderedImage source = image;
+        int[] sourceBands = bands;
+        RenderingHints hints = null;
+        final RenderedOp previous = getOperation("BandSelect");
+        if (previous != null) {
+            ParameterBlock paramBlock = previous.getParameterBlock();
+            int[] previousBands = (int[]) paramBlock.getObjectParameter(0);
+            sourceBands = new int[bands.length];
+            for (int i = 0; i < bands.length; i++) {
+                sourceBands[i] = previousBands[bands[i]];
+            }
+            source = paramBlock.getRenderedSource(0);
+            hints = getFusedRenderingHints(previous, source, TILE_LAYOUT_MASK);
+        }
         // ParameterBlock creation
         ParameterBlock pb = new ParameterBlock();
-        pb.setSource(image, 0);
-        pb.set(bands, 0);
-        image = JAI.create("BandSelect", pb, getRenderingHints());
+        pb.setSource(source, 0);
+        pb.set(sourceBands, 0);
+        image = JAI.create("BandSelect", pb, hints != null ? hints : getRenderingHints());
         return this;
     }
 
+    /**
+     * Returns the current image if it is the result of the specified operation, {@code null}
+     * otherwise. Used to fuse an operation with the previous one, when their combination can be
+     * computed in a single step.
+     */
+    private RenderedOp getOperation(String name) {
+        if (image instanceof RenderedOp) {
+            RenderedOp op = (RenderedOp) image;
+            if (name.equals(op.getOperationName())) {
+                return op;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Composes the coefficients of two rescales, returning the scales and offsets of the single
+     * equivalent rescale, or {@code null} if the bands the coefficients apply to are ambiguous.
+     * Rescale applies the first coefficient to all bands when there are fewer coefficients than
+     * bands, so each array must hold either a single coefficient or as many as the others.
+     */
+    private static double[][] composeRescales(
+            double[] scale1, double[] offset1, double[] scale2, double[] offset2) {
+        double[][] coefficients = {scale1, offset1, scale2, offset2};
+        int length = 1;
+        for (double[] c : coefficients) {
+            if (c == null || c.length == 0) {
+                return null;
+            }
+            length = Math.max(length, c.length);
+        }
+        for (double[] c : coefficients) {
+            if (c.length != 1 && c.length != length) {
+                return null;
+            }
+        }
+        double[] scale = new double[length];
+        double[] offset = new double[length];
+        for (int b = 0; b < length; b++) {
+            double s1 = scale1[scale1.length == 1 ? 0 : b];
+            double o1 = offset1[offset1.length == 1 ? 0 : b];
+            double s2 = scale2[scale2.length == 1 ? 0 : b];
+            double o2 = offset2[offset2.length == 1 ? 0 : b];
+            scale[b] = s2 * s1;
+            offset[b] = s2 * o1 + o2;
+        }
+        return new double[][] {scale, offset};
+    }
+
+    /**
+     * Returns true if rescaling values of the given data type twice, or once with the composed
+     * coefficients, gives exactly the same values: integral values and coefficients, with all the
+     * intermediate results small enough to be represented exactly as doubles.
+     */
+    private static boolean isExactRescale(int dataType, double[]... coefficients) {
+        double max;
+        switch (dataType) {
+            case DataBuffer.TYPE_BYTE:
+                max = 0xFF;
+                break;
+            case DataBuffer.TYPE_USHORT:
+                max = 0xFFFF;
+                break;
+            case DataBuffer.TYPE_SHORT:
+                max = -(double) Short.MIN_VALUE;
+                break;
+            case DataBuffer.TYPE_INT:
+                max = -(double) Integer.MIN_VALUE;
+                break;
+            default:
+                return false;
+        }
+        // scale and offset pairs, in order
+        for (int i = 0; i < coefficients.length; i += 2) {
+            double maxScale = 0;
+            double maxOffset = 0;
+            for (double s : coefficients[i]) {
+                if (s != Math.rint(s)) {
+                    return false;
+                }
+                maxScale = Math.max(maxScale, Math.abs(s));
+            }
+            for (double o : coefficients[i + 1]) {
+                if (o != Math.rint(o)) {
+                    return false;
+                }
+                maxOffset = Math.max(maxOffset, Math.abs(o));
+            }
+            max = max * maxScale + maxOffset;
+            if (max >= 0x1p53) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Returns true if the layout of the operation sets a double precision sample model */
+    private static boolean isDoubleLayout(RenderedOp op) {
+        RenderingHints hints = op.getRenderingHints();
+        Object layout = hints != null ? hints.get(JAI.KEY_IMAGE_LAYOUT) : null;
+        return layout instanceof ImageLayout
+                && ((ImageLayout) layout).isValid(ImageLayout.SAMPLE_MODEL_MASK)
+                && ((ImageLayout) layout).getSampleModel(null).getDataType()
+                        == DataBuffer.TYPE_DOUBLE;
+    }
+
+    /** Returns true if the parameter at the specified index is unset or null */
+    private static boolean isNullParameter(ParameterBlock paramBlock, int index) {
+        return index >= paramBlock.getNumParameters()
+                || paramBlock.getObjectParameter(index) == null;
+    }
+
+    /**
+     * Returns the rendering hints of an operation fused with the previous one, reading from the
+     * source of the previous one. The hints of the previous operation are carried over, along with
+     * the fields of its layout specified by the mask, unless set by the user: without the previous
+     * operation the fused one would not inherit them from its source. The hints of this worker take
+     * precedence. The previous operation is not rendered.
+     */
+    private RenderingHints getFusedRenderingHints(
+            RenderedOp previous, RenderedImage source, int layoutMask) {
+        RenderingHints hints = new RenderingHints(null);
+        RenderingHints previousHints = previous.getRenderingHints();
+        if (previousHints != null) {
+            hints.putAll(previousHints);
+        }
+        RenderingHints workerHints = getRenderingHints(source);
+        hints.putAll(workerHints);
+
+        ImageLayout layout = (ImageLayout) getImageLayout(workerHints).clone();
+        Object userLayout = getRenderingHint(JAI.KEY_IMAGE_LAYOUT);
+        int userMask =
+                userLayout instanceof ImageLayout ? ((ImageLayout) userLayout).getValidMask() : 0;
+        Object previousLayout =
+                previousHints != null ? previousHints.get(JAI.KEY_IMAGE_LAYOUT) : null;
+        if (previousLayout instanceof ImageLayout) {
+            ImageLayout pl = (ImageLayout) previousLayout;
+            int mask = pl.getValidMask() & layoutMask & ~userMask;
+            if ((mask & ImageLayout.TILE_GRID_X_OFFSET_MASK) != 0) {
+                layout.setTileGridXOffset(pl.getTileGridXOffset(null));
+            }
+            if ((mask & ImageLayout.TILE_GRID_Y_OFFSET_MASK) != 0) {
+                layout.setTileGridYOffset(pl.getTileGridYOffset(null));
+            }
+            if ((mask & ImageLayout.TILE_WIDTH_MASK) != 0) {
+                layout.setTileWidth(pl.getTileWidth(null));
+            }
+            if ((mask & ImageLayout.TILE_HEIGHT_MASK) != 0) {
+                layout.setTileHeight(pl.getTileHeight(null));
+            }
+            if ((mask & ImageLayout.SAMPLE_MODEL_MASK) != 0) {
+                layout.setSampleModel(pl.getSampleModel(null));
+            }
+            if ((mask & ImageLayout.COLOR_MODEL_MASK) != 0) {
+                layout.setColorModel(pl.getColorModel(null));
+            }
+        }
+        // never the full layout of the previous operation, it may not fit the fused one
+        hints.put(JAI.KEY_IMAGE_LAYOUT, layout);
+        return hints;
+    }
+
     /**
      * Formats the underlying image to the provided data type.
      *
@@ -5080,8 +5336,45 @@ public ImageWorker piecewise(PiecewiseTransform1D transform, Integer bandIndex)
 
     /** Apply a rescale operation on the underlying image. */
     public ImageWorker rescale(double[] scale, double[] offset) {
+        RenderedImage source = image;
+        RenderingHints hints = null;
+        // rescale over a rescale to doubles? The intermediate values are neither clamped nor
+        // rounded, so a single rescale of the previous source with composed coefficients computes
+        // the same values, without the intermediate image
+        final RenderedOp previous = getOperation("Rescale");
+        if (previous != null && nodata == null) {
+            ParameterBlock paramBlock = previous.getParameterBlock();
+            double[] sScale = (double[]) paramBlock.getObjectParameter(0);
+            double[] sOffset = (double[]) paramBlock.getObjectParameter(1);
+            RenderedImage previousSource = paramBlock.getRenderedSource(0);
+            double[][] fused = composeRescales(sScale, sOffset, scale, offset);
+            if (fused != null
+                    && isNullParameter(paramBlock, 2) // ROI
+                    && isNullParameter(paramBlock, 3) // NoData range
+                    && isDoubleLayout(previous)
+                    && (Boolean.TRUE.equals(getRenderingHint(FUSE_INEXACT_RESCALE))
+                            || isExactRescale(
+                                    previousSource.getSampleModel().getDataType(),
+                                    sScale,
+                                    sOffset,
+                                    scale,
+                                    offset))) {
+                scale = fused[0];
+                offset = fused[1];
+                source = previousSource;
+                // the previous sample model, unless set, as the output would otherwise take the
+                // one of the source
+                hints =
+                        getFusedRenderingHints(
+                                previous,
+                                source,
+                                TILE_LAYOUT_MASK
+                                        | ImageLayout.SAMPLE_MODEL_MASK
+                                        | ImageLayout.COLOR_MODEL_MASK);
+            }
+        }
         ParameterBlock pb = new ParameterBlock();
-        pb.setSource(image, 0); // The source image.
+        pb.setSource(source, 0); // The source image.
         pb.set(scale, 0); // The per-band constants to multiply by.
         pb.set(offset, 1); // The per-band offsets to be added.
         pb.set(roi, 2); // ROI
@@ -5099,7 +5392,7 @@ public ImageWorker rescale(double[] scale, double[] offset) {
         }
 
         pb.set(destNodata, 5);
-        image = JAI.create("Rescale", pb, getRenderingHints());
+        image = JAI.create("Rescale", pb, hints != null ? hints : getRenderingHints());
         if (!Double.isNaN(destNodata)) {
             setNoData(RangeFactory.create((byte) destNodata, (byte) destNodata));
         }
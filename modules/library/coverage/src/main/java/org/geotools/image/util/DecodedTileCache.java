@@ -0,0 +1,319 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2024, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.image.util;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * A memory bounded, least recently used cache of decoded tile images, for readers of tiled formats
+ * storing each tile as a compressed image (GeoPackage, MBTiles). Tiles are keyed by their source,
+ * zoom level, column and row, and weighted by the size of their pixel data.
+ *
+ * <p>The cached images are shared among all readers, they must not be modified. The {@link
+ * #decode(List, Function, TileDecoder)} method also decodes the tiles missing from the cache in
+ * parallel.
+ *
+ * <p>The size of the {@link #getDefault() default cache}, in bytes, is set by the {@link
+ * #CACHE_SIZE_KEY} system property, a size of 0 disabling the caching.
+ */
+public class DecodedTileCache {
+
+    /** The system property setting the size of the default cache, in bytes */
+    public static final String CACHE_SIZE_KEY = "org.geotools.image.decodedTileCacheSize";
+
+    /** The default size of the default cache, 64MB */
+    public static final long DEFAULT_CACHE_SIZE = 64 * 1024 * 1024;
+
+    private static final DecodedTileCache DEFAULT =
+            new DecodedTileCache(Long.getLong(CACHE_SIZE_KEY, DEFAULT_CACHE_SIZE));
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    /** Decodes the tiles missing from the cache, shared by all caches */
+    private static final ExecutorService DECODERS =
+            Executors.newFixedThreadPool(
+                    Runtime.getRuntime().availableProcessors(),
+                    r -> {
+                        Thread thread =
+                                new Thread(r, "TileDecoder-" + THREAD_COUNTER.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+
+    /** Decodes a tile into an image */
+    @FunctionalInterface
+    public interface TileDecoder<T> {
+        BufferedImage decode(T tile) throws IOException;
+    }
+
+    /** Identifies a tile, by its source, zoom level, column and row */
+    public static final class Key {
+
+        private final String source;
+
+        private final long zoom;
+
+        private final long column;
+
+        private final long row;
+
+        /**
+         * @param source identifies the tile set, for example the file path and table name, along
+         *     with the last modification date of the file to avoid returning stale tiles
+         */
+        public Key(String source, long zoom, long column, long row) {
+            this.source = Objects.requireNonNull(source);
+            this.zoom = zoom;
+            this.column = column;
+            this.row = row;
+        }
+
+        public String getSource() {
+            return source;
+        }
+
+        public long getZoom() {
+            return zoom;
+        }
+
+        public long getColumn() {
+            return column;
+        }
+
+        public long getRow() {
+            return row;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return zoom == other.zoom
+                    && column == other.column
+                    && row == other.row
+                    && source.equals(other.source);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(source, zoom, column, row);
+        }
+
+        @Override
+        public String toString() {
+            return source + "/" + zoom + "/" + column + "/" + row;
+        }
+    }
+
+    private final LinkedHashMap<Key, BufferedImage> images = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long maxWeight;
+
+    private long weight;
+
+    private long hits;
+
+    private long misses;
+
+    private long evictions;
+
+    /** @param maxWeight the maximum size of the cached images, in bytes */
+    public DecodedTileCache(long maxWeight) {
+        this.maxWeight = Math.max(0, maxWeight);
+    }
+
+    /** Returns the cache shared by the tile readers */
+    public static DecodedTileCache getDefault() {
+        return DEFAULT;
+    }
+
+    /** Returns the cached image of the tile, or null */
+    public synchronized BufferedImage get(Key key) {
+        BufferedImage image = images.get(key);
+        if (image != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return image;
+    }
+
+    /** Caches the image of the tile, evicting the least recently used ones past the max weight */
+    public synchronized void put(Key key, BufferedImage image) {
+        long imageWeight = getWeight(image);
+        if (imageWeight > maxWeight) {
+            return;
+        }
+        BufferedImage previous = images.put(key, image);
+        if (previous != null) {
+            weight -= getWeight(previous);
+        }
+        weight += imageWeight;
+        evict();
+    }
+
+    /**
+     * Returns the images of the given tiles, in the same order, decoding the ones missing from the
+     * cache in parallel and caching them
+     *
+     * @param tiles the tiles to decode
+     * @param keys returns the cache key of a tile
+     * @param decoder decodes a tile, called from several threads at once
+     */
+    public <T> List<BufferedImage> decode(
+            List<T> tiles, Function<T, Key> keys, TileDecoder<T> decoder) throws IOException {
+        List<BufferedImage> result = new ArrayList<>(tiles.size());
+        List<Integer> missing = new ArrayList<>();
+        for (T tile : tiles) {
+            BufferedImage image = get(keys.apply(tile));
+            if (image == null) {
+                missing.add(result.size());
+            }
+            result.add(image);
+        }
+        if (missing.size() == 1) {
+            int i = missing.get(0);
+            result.set(i, decodeAndCache(tiles.get(i), keys, decoder));
+        } else if (!missing.isEmpty()) {
+            List<Future<BufferedImage>> futures = new ArrayList<>(missing.size());
+            for (int i : missing) {
+                T tile = tiles.get(i);
+                futures.add(DECODERS.submit(() -> decodeAndCache(tile, keys, decoder)));
+            }
+            for (int i = 0; i < missing.size(); i++) {
+                result.set(missing.get(i), getDecoded(futures, i));
+            }
+        }
+        return result;
+    }
+
+    private <T> BufferedImage decodeAndCache(T tile, Function<T, Key> keys, TileDecoder<T> decoder)
+            throws IOException {
+        BufferedImage image = decoder.decode(tile);
+        if (image != null) {
+            put(keys.apply(tile), image);
+        }
+        return image;
+    }
+
+    private static BufferedImage getDecoded(List<Future<BufferedImage>> futures, int i)
+            throws IOException {
+        try {
+            return futures.get(i).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel(futures);
+            throw new IOException("Interrupted while decoding tiles", e);
+        } catch (ExecutionException e) {
+            cancel(futures);
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Failed to decode tile", cause);
+        }
+    }
+
+    private static void cancel(List<Future<BufferedImage>> futures) {
+        for (Future<BufferedImage> future : futures) {
+            future.cancel(true);
+        }
+    }
+
+    /** Removes all the tiles of the given source */
+    public synchronized void clear(String source) {
+        Iterator<Map.Entry<Key, BufferedImage>> it = images.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Key, BufferedImage> entry = it.next();
+            if (entry.getKey().getSource().equals(source)) {
+                weight -= getWeight(entry.getValue());
+                it.remove();
+            }
+        }
+    }
+
+    /** Removes all the tiles */
+    public synchronized void clear() {
+        images.clear();
+        weight = 0;
+    }
+
+    /** Sets the maximum size of the cached images, in bytes, evicting tiles as needed */
+    public synchronized void setMaxWeight(long maxWeight) {
+        this.maxWeight = Math.max(0, maxWeight);
+        evict();
+    }
+
+    public synchronized long getMaxWeight() {
+        return maxWeight;
+    }
+
+    /** Returns the size of the cached images, in bytes */
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    public synchronized int size() {
+        return images.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    private void evict() {
+        Iterator<BufferedImage> it = images.values().iterator();
+        while (weight > maxWeight && it.hasNext()) {
+            weight -= getWeight(it.next());
+            it.remove();
+            evictions++;
+        }
+    }
+
+    /** Returns the size of the pixel data of an image, in bytes */
+    static long getWeight(BufferedImage image) {
+        DataBuffer buffer = image.getRaster().getDataBuffer();
+        long bits =
+                (long) buffer.getSize()
+                        * buffer.getNumBanks()
+                        * DataBuffer.getDataTypeSize(buffer.getDataType());
+        return bits / 8;
+    }
+}
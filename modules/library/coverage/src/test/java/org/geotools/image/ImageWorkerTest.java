@@ -27,6 +27,7 @@
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -84,6 +85,7 @@
 import javax.media.jai.ROIShape;
 import javax.media.jai.RasterFactory;
 import javax.media.jai.RenderedOp;
+import javax.media.jai.TileCache;
 import javax.media.jai.TiledImage;
 import javax.media.jai.Warp;
 import javax.media.jai.WarpAffine;
@@ -2515,6 +2517,148 @@ public void testReattachScaledAlphaChannel() {
         iw.prepareForScaledAlphaChannel(bi, hints, bi.getColorModel(), bi.getSampleModel());
     }
 
+    @Test
+    public void testPrefetch() throws Exception {
+        // a chain with 4x4 tiles, and its own tile cache
+        TileCache cache = JAI.createTileCache(64 * 1024 * 1024);
+        ImageLayout layout = new ImageLayout();
+        layout.setTileWidth(32).setTileHeight(32);
+        RenderingHints hints = new RenderingHints(JAI.KEY_IMAGE_LAYOUT, layout);
+        hints.put(JAI.KEY_TILE_CACHE, cache);
+        ImageWorker worker = new ImageWorker(getSynthetic(1000)).setRenderingHints(hints);
+        worker.format(DataBuffer.TYPE_FLOAT);
+        RenderedOp chain = worker.getRenderedOperation();
+        assertEquals(16, chain.getNumXTiles() * chain.getNumYTiles());
+
+        // prefetch a region covering 2x2 tiles, the chain is left in place
+        worker.prefetch(new Rectangle(40, 40, 40, 40));
+        assertSame(chain, worker.getRenderedImage());
+        PlanarImage rendering = chain.getRendering();
+        assertNotNull(cache.getTile(rendering, 1, 1));
+        assertNotNull(cache.getTile(rendering, 2, 2));
+        assertNull(cache.getTile(rendering, 0, 0));
+        assertNull(cache.getTile(rendering, 3, 3));
+
+        // parallel computation of the buffered image
+        float[] expected = chain.getData().getPixels(0, 0, 128, 128, (float[]) null);
+        BufferedImage bi =
+                new ImageWorker(chain)
+                        .setRenderingHint(ImageWorker.PARALLEL_TILES, true)
+                        .getBufferedImage();
+        assertArrayEquals(expected, bi.getRaster().getPixels(0, 0, 128, 128, (float[]) null), 0f);
+        cache.flush();
+    }
+
+    @Test
+    public void testFuseBandSelect() throws Exception {
+        BufferedImage rgb = getSyntheticRGB(new Color(10, 20, 30));
+        ImageLayout layout = new ImageLayout();
+        layout.setTileWidth(32).setTileHeight(32);
+        ImageWorker worker =
+                new ImageWorker(rgb)
+                        .setRenderingHints(new RenderingHints(JAI.KEY_IMAGE_LAYOUT, layout))
+                        .retainBands(new int[] {2, 1, 0});
+        worker.removeRenderingHint(JAI.KEY_IMAGE_LAYOUT);
+        worker.retainBands(new int[] {0, 1});
+        worker.retainBands(1);
+
+        // a single band select straight from the source, laid out as the first one
+        RenderedOp op = (RenderedOp) worker.getRenderedImage();
+        assertEquals("BandSelect", op.getOperationName());
+        assertSame(rgb, op.getParameterBlock().getRenderedSource(0));
+        assertArrayEquals(new int[] {2}, (int[]) op.getParameterBlock().getObjectParameter(0));
+        assertEquals(32, op.getTileWidth());
+        assertEquals(32, op.getTileHeight());
+        assertEquals(30, op.getData().getSample(0, 0, 0));
+    }
+
+    @Test
+    public void testFuseRescale() throws Exception {
+        // short values, first rescaled to doubles
+        WritableRaster raster =
+                RasterFactory.createBandedRaster(DataBuffer.TYPE_USHORT, 16, 16, 1, null);
+        for (int y = 0; y < 16; y++) {
+            for (int x = 0; x < 16; x++) {
+                raster.setSample(x, y, 0, x * 16 + y);
+            }
+        }
+        BufferedImage source =
+                new BufferedImage(
+                        new ComponentColorModel(
+                                ColorSpace.getInstance(ColorSpace.CS_GRAY),
+                                false,
+                                false,
+                                Transparency.OPAQUE,
+                                DataBuffer.TYPE_USHORT),
+                        raster,
+                        false,
+                        null);
+        // integral coefficients, exactly composed
+        ImageWorker worker = new ImageWorker(source);
+        worker.setRenderingHints(layoutHints(DataBuffer.TYPE_DOUBLE));
+        worker.rescale(new double[] {2}, new double[] {-10});
+        RenderedOp doubles = (RenderedOp) worker.getRenderedImage();
+        worker.setRenderingHints(layoutHints(DataBuffer.TYPE_USHORT));
+        worker.rescale(new double[] {3}, new double[] {20});
+        RenderedOp op = (RenderedOp) worker.getRenderedImage();
+        assertEquals("Rescale", op.getOperationName());
+        assertSame(source, op.getParameterBlock().getRenderedSource(0));
+        assertEquals(DataBuffer.TYPE_USHORT, op.getSampleModel().getDataType());
+        // the previous rescale was never rendered
+        assertNull(doubles.getCurrentRendering());
+        Raster result = op.getData();
+        Raster intermediate = doubles.getData();
+        for (int y = 0; y < 16; y++) {
+            for (int x = 0; x < 16; x++) {
+                double expected = intermediate.getSampleDouble(x, y, 0) * 3 + 20;
+                assertEquals(expected, result.getSample(x, y, 0), 0);
+            }
+        }
+
+        // fractional coefficients are not fused, unless requested
+        worker = new ImageWorker(source);
+        worker.setRenderingHints(layoutHints(DataBuffer.TYPE_DOUBLE));
+        worker.rescale(new double[] {0.5}, new double[] {-10});
+        doubles = (RenderedOp) worker.getRenderedImage();
+        worker.setRenderingHints(layoutHints(DataBuffer.TYPE_BYTE));
+        worker.rescale(new double[] {2}, new double[] {20});
+        op = (RenderedOp) worker.getRenderedImage();
+        assertSame(doubles, op.getParameterBlock().getRenderedSource(0));
+
+        worker = new ImageWorker(source);
+        worker.setRenderingHints(layoutHints(DataBuffer.TYPE_DOUBLE));
+        worker.rescale(new double[] {0.5}, new double[] {-10});
+        doubles = (RenderedOp) worker.getRenderedImage();
+        worker.setRenderingHints(layoutHints(DataBuffer.TYPE_BYTE));
+        worker.setRenderingHint(ImageWorker.FUSE_INEXACT_RESCALE, true);
+        worker.rescale(new double[] {2}, new double[] {20});
+        op = (RenderedOp) worker.getRenderedImage();
+        assertSame(source, op.getParameterBlock().getRenderedSource(0));
+        assertEquals(DataBuffer.TYPE_BYTE, op.getSampleModel().getDataType());
+        // same values as the two steps, up to the rounding to bytes
+        result = op.getData();
+        intermediate = doubles.getData();
+        for (int y = 0; y < 16; y++) {
+            for (int x = 0; x < 16; x++) {
+                double expected = intermediate.getSampleDouble(x, y, 0) * 2 + 20;
+                assertEquals(expected, result.getSample(x, y, 0), 1);
+            }
+        }
+    }
+
+    private static RenderingHints layoutHints(int dataType) {
+        ImageLayout layout = new ImageLayout();
+        layout.setSampleModel(RasterFactory.createBandedSampleModel(dataType, 16, 16, 1));
+        layout.setColorModel(
+                new ComponentColorModelJAI(
+                        ColorSpace.getInstance(ColorSpace.CS_GRAY),
+                        false,
+                        false,
+                        Transparency.OPAQUE,
+                        dataType));
+        return new RenderingHints(JAI.KEY_IMAGE_LAYOUT, layout);
+    }
+
     @Test
     public void testMax() throws Exception {
         BufferedImage red = getSyntheticRGB(Color.RED); // 255 0 0
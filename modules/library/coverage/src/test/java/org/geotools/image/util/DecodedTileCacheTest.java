@@ -0,0 +1,133 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2024, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.image.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+public class DecodedTileCacheTest {
+
+    /** A 16x16 byte image weights 256 bytes */
+    private static final long TILE_WEIGHT = 256;
+
+    @Test
+    public void testLRUEviction() {
+        DecodedTileCache cache = new DecodedTileCache(3 * TILE_WEIGHT);
+        DecodedTileCache.Key k1 = new DecodedTileCache.Key("a", 1, 0, 0);
+        DecodedTileCache.Key k2 = new DecodedTileCache.Key("a", 1, 0, 1);
+        DecodedTileCache.Key k3 = new DecodedTileCache.Key("a", 1, 1, 0);
+        DecodedTileCache.Key k4 = new DecodedTileCache.Key("a", 1, 1, 1);
+        BufferedImage i1 = tile();
+        cache.put(k1, i1);
+        cache.put(k2, tile());
+        cache.put(k3, tile());
+        assertEquals(3 * TILE_WEIGHT, cache.getWeight());
+
+        // touch the first, the second becomes the least recently used
+        assertSame(i1, cache.get(k1));
+        cache.put(k4, tile());
+        assertEquals(3, cache.size());
+        assertNull(cache.get(k2));
+        assertNotNull(cache.get(k1));
+        assertNotNull(cache.get(k4));
+        assertEquals(1, cache.getEvictions());
+        assertEquals(3, cache.getHits());
+        assertEquals(1, cache.getMisses());
+
+        cache.clear("a");
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getWeight());
+    }
+
+    @Test
+    public void testDisabled() {
+        DecodedTileCache cache = new DecodedTileCache(0);
+        DecodedTileCache.Key key = new DecodedTileCache.Key("a", 0, 0, 0);
+        cache.put(key, tile());
+        assertNull(cache.get(key));
+        assertEquals(0, cache.getWeight());
+    }
+
+    @Test
+    public void testDecode() throws IOException {
+        DecodedTileCache cache = new DecodedTileCache(10 * TILE_WEIGHT);
+        List<Integer> tiles = Arrays.asList(0, 1, 2, 3);
+        AtomicInteger decoded = new AtomicInteger();
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        DecodedTileCache.TileDecoder<Integer> decoder =
+                t -> {
+                    decoded.incrementAndGet();
+                    threads.add(Thread.currentThread().getName());
+                    BufferedImage image = tile();
+                    image.getRaster().setSample(0, 0, 0, t);
+                    return image;
+                };
+
+        List<BufferedImage> images =
+                cache.decode(tiles, t -> new DecodedTileCache.Key("a", 2, t, 0), decoder);
+        assertEquals(4, images.size());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(i, images.get(i).getRaster().getSample(0, 0, 0));
+        }
+        assertEquals(4, decoded.get());
+        assertTrue(threads.stream().allMatch(n -> n.startsWith("TileDecoder-")));
+
+        // all hits the second time around
+        List<BufferedImage> cached =
+                cache.decode(tiles, t -> new DecodedTileCache.Key("a", 2, t, 0), decoder);
+        assertEquals(4, decoded.get());
+        for (int i = 0; i < 4; i++) {
+            assertSame(images.get(i), cached.get(i));
+        }
+    }
+
+    @Test
+    public void testDecodeFailure() {
+        DecodedTileCache cache = new DecodedTileCache(10 * TILE_WEIGHT);
+        try {
+            cache.decode(
+                    Arrays.asList(0, 1, 2),
+                    t -> new DecodedTileCache.Key("a", 0, t, 0),
+                    t -> {
+                        if (t == 1) {
+                            throw new IOException("Broken tile");
+                        }
+                        return tile();
+                    });
+            fail("Should have failed decoding tile 1");
+        } catch (IOException e) {
+            assertEquals("Broken tile", e.getMessage());
+        }
+    }
+
+    private static BufferedImage tile() {
+        return new BufferedImage(16, 16, BufferedImage.TYPE_BYTE_GRAY);
+    }
+}
@@ -18,6 +18,7 @@
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.List;
 
 public class DelegateHTTPResponse implements HTTPResponse {
 
@@ -42,6 +43,11 @@ public String getResponseHeader(String headerName) {
         return delegate.getResponseHeader(headerName);
     }
 
+    @Override
+    public List<String> getResponseHeaders(String headerName) {
+        return delegate.getResponseHeaders(headerName);
+    }
+
     @Override
     public InputStream getResponseStream() throws IOException {
         return delegate.getResponseStream();
@@ -18,6 +18,8 @@
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Interface by which an {@link AbstractOpenWebService} retrieves the contents of an HTTP request
@@ -46,6 +48,18 @@ public interface HTTPResponse {
     /** Returns the value of the requested HTTP response header, or {@code null} if not set. */
     public String getResponseHeader(String headerName);
 
+    /**
+     * Returns all the values of the requested HTTP response header, for headers such as {@code
+     * Set-Cookie} that can be sent several times. The default implementation only returns the value
+     * given by {@link #getResponseHeader(String)}.
+     *
+     * @return the header values in the order they were received, or an empty list if not set
+     */
+    public default List<String> getResponseHeaders(String headerName) {
+        String value = getResponseHeader(headerName);
+        return value == null ? Collections.emptyList() : Collections.singletonList(value);
+    }
+
     /**
      * Returns the HTTP response content byte stream, automatically recognizing gzip encoded
      * responses and returning an uncompressing stream if that's the case.
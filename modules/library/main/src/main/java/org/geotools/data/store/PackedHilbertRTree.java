@@ -0,0 +1,694 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2024, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.store;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.IntPredicate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.shape.fractal.HilbertCode;
+
+/**
+ * A packed Hilbert R-tree: the items are sorted by the Hilbert value of the center of their bounds,
+ * and grouped by consecutive runs of {@code nodeSize} items into the nodes of the level above, up
+ * to a single root. The children of a node are implicit, the tree being fully described by the item
+ * bounds and the node size.
+ *
+ * <p>The class holds an in memory tree, and the building blocks of trees stored in files that don't
+ * fit in memory: {@link Sorter} sorts the items along the Hilbert curve with an external merge
+ * sort, and {@link LevelBuilder} computes the nodes of all levels in a single pass over the sorted
+ * items.
+ */
+public class PackedHilbertRTree {
+
+    /** Default number of children of each tree node */
+    public static final int DEFAULT_NODE_SIZE = 16;
+
+    /** Maximum coordinate of the Hilbert grid, which has 2^16 cells on each side */
+    public static final int HILBERT_MAX = (1 << 16) - 1;
+
+    /** Computes the position of a cell of the Hilbert grid along the curve */
+    @FunctionalInterface
+    public interface HilbertCurve {
+
+        /**
+         * Returns the position of the cell along the curve, between 0 and 2^32 - 1
+         *
+         * @param x the column of the cell, between 0 and {@link #HILBERT_MAX}
+         * @param y the row of the cell, between 0 and {@link #HILBERT_MAX}
+         */
+        long encode(int x, int y);
+    }
+
+    /** The Hilbert curve of the JTS library */
+    public static final HilbertCurve JTS_CURVE =
+            (x, y) -> HilbertCode.encode(16, x, y) & 0xFFFFFFFFL;
+
+    /** Number of items sorted in memory at a time by default by a {@link Sorter} */
+    public static final int DEFAULT_RUN_SIZE = 1 << 18;
+
+    private final int numItems;
+
+    private final int nodeSize;
+
+    /** The bounds of the items followed by the ones of the nodes, level by level */
+    private final double[] boxes;
+
+    /** The position past the last node of each level, the items being the first level */
+    private final int[] levelBounds;
+
+    /**
+     * Builds a tree in memory
+     *
+     * @param itemBoxes the bounds of the items, as minX, minY, maxX, maxY, already sorted along the
+     *     Hilbert curve, see {@link #sort(double[], int, HilbertCurve)}
+     * @param numItems the number of items
+     * @param nodeSize the number of children of each node, at least 2
+     */
+    public PackedHilbertRTree(double[] itemBoxes, int numItems, int nodeSize) {
+        if (nodeSize < 2) {
+            throw new IllegalArgumentException("Node size must be at least 2: " + nodeSize);
+        }
+        this.numItems = numItems;
+        this.nodeSize = nodeSize;
+        long[] sizes = levelSizes(numItems, nodeSize);
+        this.levelBounds = new int[sizes.length];
+        long total = 0;
+        for (int i = 0; i < sizes.length; i++) {
+            total += sizes[i];
+            levelBounds[i] = (int) total;
+        }
+        if (total * 4 > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many items for an in memory tree: " + numItems);
+        }
+        this.boxes = new double[(int) total * 4];
+        System.arraycopy(itemBoxes, 0, boxes, 0, numItems * 4);
+        LevelBuilder builder =
+                new LevelBuilder(
+                        numItems,
+                        nodeSize,
+                        (level, index, minX, minY, maxX, maxY, firstChild) -> {
+                            int p = (levelBounds[level - 1] + (int) index) * 4;
+                            boxes[p] = minX;
+                            boxes[p + 1] = minY;
+                            boxes[p + 2] = maxX;
+                            boxes[p + 3] = maxY;
+                        });
+        try {
+            for (int i = 0; i < numItems; i++) {
+                builder.add(boxes[i * 4], boxes[i * 4 + 1], boxes[i * 4 + 2], boxes[i * 4 + 3]);
+            }
+            builder.finish();
+        } catch (IOException e) {
+            // the consumer above does not perform any I/O
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** The number of items in the tree */
+    public int size() {
+        return numItems;
+    }
+
+    /**
+     * Visits the items intersecting the search area
+     *
+     * @param area the search area, or null to visit all the items
+     * @param visitor called with the position of each item in the sorted order, returning false to
+     *     stop the search
+     * @return false if the visitor stopped the search
+     */
+    public boolean search(Envelope area, IntPredicate visitor) {
+        if (numItems == 0) {
+            return true;
+        }
+        int top = levelBounds.length - 1;
+        // pairs of level and position of the first node to check
+        int[] stack = new int[32];
+        int size = 0;
+        int level = top;
+        int first = levelBounds[top] - 1;
+        while (true) {
+            int end = Math.min(first + nodeSize, levelBounds[level]);
+            for (int pos = first; pos < end; pos++) {
+                if (area != null && !intersects(pos, area)) {
+                    continue;
+                }
+                if (level == 0) {
+                    if (!visitor.test(pos)) {
+                        return false;
+                    }
+                } else {
+                    if (size + 2 > stack.length) {
+                        stack = Arrays.copyOf(stack, stack.length * 2);
+                    }
+                    int index = pos - levelBounds[level - 1];
+                    int childStart = level == 1 ? 0 : levelBounds[level - 2];
+                    stack[size++] = childStart + index * nodeSize;
+                    stack[size++] = level - 1;
+                }
+            }
+            if (size == 0) {
+                return true;
+            }
+            level = stack[--size];
+            first = stack[--size];
+        }
+    }
+
+    private boolean intersects(int pos, Envelope area) {
+        int i = pos * 4;
+        return boxes[i] <= area.getMaxX()
+                && boxes[i + 1] <= area.getMaxY()
+                && boxes[i + 2] >= area.getMinX()
+                && boxes[i + 3] >= area.getMinY();
+    }
+
+    /** Number of nodes of each level of a tree over the given number of items, items first */
+    public static long[] levelSizes(long count, int nodeSize) {
+        List<Long> sizes = new ArrayList<>();
+        long n = count;
+        sizes.add(n);
+        while (n > 1) {
+            n = (n + nodeSize - 1) / nodeSize;
+            sizes.add(n);
+        }
+        return sizes.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * The Hilbert value of the center of the bounds, on a grid covering the extent. Empty bounds,
+     * with min greater than max, get 0.
+     */
+    public static long hilbert(
+            double minX,
+            double minY,
+            double maxX,
+            double maxY,
+            Envelope extent,
+            HilbertCurve curve) {
+        if (minX > maxX || minY > maxY || extent == null || extent.isNull()) {
+            return 0;
+        }
+        int x = scale((minX + maxX) / 2, extent.getMinX(), extent.getWidth());
+        int y = scale((minY + maxY) / 2, extent.getMinY(), extent.getHeight());
+        return curve.encode(x, y);
+    }
+
+    private static int scale(double value, double min, double size) {
+        if (size <= 0) {
+            return 0;
+        }
+        return (int)
+                Math.max(0, Math.min(HILBERT_MAX, Math.floor(HILBERT_MAX * (value - min) / size)));
+    }
+
+    /**
+     * Sorts bounds along the Hilbert curve, ties keeping their original order
+     *
+     * @param boxes the bounds, as minX, minY, maxX, maxY
+     * @param count the number of bounds
+     * @return the original position of the bounds, in Hilbert order
+     */
+    public static int[] sort(double[] boxes, int count, HilbertCurve curve) {
+        Envelope extent = new Envelope();
+        for (int i = 0; i < count; i++) {
+            int p = i * 4;
+            if (boxes[p] <= boxes[p + 2] && boxes[p + 1] <= boxes[p + 3]) {
+                extent.expandToInclude(boxes[p], boxes[p + 1]);
+                extent.expandToInclude(boxes[p + 2], boxes[p + 3]);
+            }
+        }
+        // the Hilbert value takes 32 bits, the position the lower 31 ones, so that a plain sort
+        // of positive longs does it
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            int p = i * 4;
+            long h = hilbert(boxes[p], boxes[p + 1], boxes[p + 2], boxes[p + 3], extent, curve);
+            keys[i] = (h << 31) | i;
+        }
+        Arrays.sort(keys);
+        int[] order = new int[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = (int) (keys[i] & Integer.MAX_VALUE);
+        }
+        return order;
+    }
+
+    /** Receives the nodes computed by a {@link LevelBuilder} */
+    @FunctionalInterface
+    public interface NodeConsumer {
+
+        /**
+         * Receives a node. The nodes of each level are received in order, but the ones of different
+         * levels are interleaved.
+         *
+         * @param level the level of the node, 1 for the parents of the items
+         * @param index the position of the node in its level
+         * @param firstChild the position of its first child in the level below
+         */
+        void accept(
+                int level,
+                long index,
+                double minX,
+                double minY,
+                double maxX,
+                double maxY,
+                long firstChild)
+                throws IOException;
+    }
+
+    /**
+     * Computes the nodes of a tree from its items, added in Hilbert order, keeping a single pending
+     * node per level in memory
+     */
+    public static class LevelBuilder {
+
+        private final int nodeSize;
+
+        private final NodeConsumer consumer;
+
+        /** The bounds of the node being filled on each level, level 1 first */
+        private final double[] pending;
+
+        /** The number of children added to the pending node of each level */
+        private final int[] filled;
+
+        /** The number of nodes emitted on each level */
+        private final long[] emitted;
+
+        private final int levels;
+
+        /**
+         * @param count the number of items of the tree
+         * @param nodeSize the number of children of each node
+         * @param consumer receives the nodes
+         */
+        public LevelBuilder(long count, int nodeSize, NodeConsumer consumer) {
+            this.nodeSize = nodeSize;
+            this.consumer = consumer;
+            this.levels = levelSizes(count, nodeSize).length - 1;
+            this.pending = new double[levels * 4];
+            this.filled = new int[levels];
+            this.emitted = new long[levels];
+        }
+
+        /** Adds the next item in Hilbert order */
+        public void add(double minX, double minY, double maxX, double maxY) throws IOException {
+            include(0, minX, minY, maxX, maxY);
+        }
+
+        /** Emits the last, partially filled, nodes */
+        public void finish() throws IOException {
+            for (int l = 0; l < levels; l++) {
+                if (filled[l] > 0) {
+                    emit(l);
+                }
+            }
+        }
+
+        private void include(int l, double minX, double minY, double maxX, double maxY)
+                throws IOException {
+            if (l == levels) {
+                return;
+            }
+            int p = l * 4;
+            if (filled[l] == 0) {
+                pending[p] = minX;
+                pending[p + 1] = minY;
+                pending[p + 2] = maxX;
+                pending[p + 3] = maxY;
+            } else {
+                pending[p] = Math.min(pending[p], minX);
+                pending[p + 1] = Math.min(pending[p + 1], minY);
+                pending[p + 2] = Math.max(pending[p + 2], maxX);
+                pending[p + 3] = Math.max(pending[p + 3], maxY);
+            }
+            if (++filled[l] == nodeSize) {
+                emit(l);
+            }
+        }
+
+        private void emit(int l) throws IOException {
+            int p = l * 4;
+            long index = emitted[l]++;
+            filled[l] = 0;
+            consumer.accept(
+                    l + 1,
+                    index,
+                    pending[p],
+                    pending[p + 1],
+                    pending[p + 2],
+                    pending[p + 3],
+                    index * nodeSize);
+            include(l + 1, pending[p], pending[p + 1], pending[p + 2], pending[p + 3]);
+        }
+    }
+
+    /** Receives the items sorted by a {@link Sorter} */
+    @FunctionalInterface
+    public interface ItemVisitor {
+
+        /**
+         * Receives the next item in Hilbert order
+         *
+         * @param payload the data attached to the item, only valid during the call
+         */
+        void visit(double minX, double minY, double maxX, double maxY, ByteBuffer payload)
+                throws IOException;
+    }
+
+    /**
+     * Sorts items along the Hilbert curve with bounded memory. The items, bounds and a fixed size
+     * payload, are added in any order and buffered in memory; when the buffer fills up they are
+     * spilled to a temporary file. On {@link #sort(ItemVisitor)} the spilled items are sorted in
+     * runs of the buffer size, which are then merged. Items with the same Hilbert value keep the
+     * order they were added in.
+     *
+     * <p>Empty bounds, with min greater than max, are allowed: they are sorted first and don't
+     * contribute to the extent the Hilbert grid covers.
+     */
+    public static class Sorter implements Closeable {
+
+        private final File tempDirectory;
+
+        private final int payloadSize;
+
+        private HilbertCurve curve = JTS_CURVE;
+
+        private int runSize = DEFAULT_RUN_SIZE;
+
+        private double[] boxes;
+
+        private byte[] payloads;
+
+        private int buffered;
+
+        private final Envelope extent = new Envelope();
+
+        private long count;
+
+        private final List<File> tempFiles = new ArrayList<>();
+
+        private File spill;
+
+        private DataOutputStream spillOut;
+
+        /**
+         * @param tempDirectory where to spill the items, or null for the default temporary folder
+         * @param payloadSize the number of bytes of data attached to each item
+         */
+        public Sorter(File tempDirectory, int payloadSize) {
+            this.tempDirectory = tempDirectory;
+            this.payloadSize = payloadSize;
+        }
+
+        /** Sets the Hilbert curve, defaults to {@link #JTS_CURVE} */
+        public void setCurve(HilbertCurve curve) {
+            this.curve = curve;
+        }
+
+        /** Sets the number of items sorted in memory at a time */
+        public void setRunSize(int runSize) {
+            if (runSize < 1) {
+                throw new IllegalArgumentException("Run size must be positive: " + runSize);
+            }
+            if (boxes != null) {
+                throw new IllegalStateException("Items have already been added");
+            }
+            this.runSize = runSize;
+        }
+
+        /** The number of items added */
+        public long getCount() {
+            return count;
+        }
+
+        /** The extent of the non empty bounds added */
+        public Envelope getExtent() {
+            return new Envelope(extent);
+        }
+
+        /**
+         * Adds an item
+         *
+         * @param payload the data attached to the item, its remaining bytes must match the payload
+         *     size
+         */
+        public void add(double minX, double minY, double maxX, double maxY, ByteBuffer payload)
+                throws IOException {
+            if (payload.remaining() != payloadSize) {
+                throw new IllegalArgumentException(
+                        "Expected a payload of " + payloadSize + " bytes: " + payload.remaining());
+            }
+            if (boxes == null) {
+                int capacity = Math.min(runSize, 1024);
+                boxes = new double[capacity * 4];
+                payloads = new byte[capacity * payloadSize];
+            } else if (buffered * 4 == boxes.length) {
+                if (buffered < runSize) {
+                    // grow up to the run size, small sorts don't need the whole buffer
+                    int capacity = (int) Math.min(runSize, buffered * 2L);
+                    boxes = Arrays.copyOf(boxes, capacity * 4);
+                    payloads = Arrays.copyOf(payloads, capacity * payloadSize);
+                } else {
+                    flush();
+                }
+            }
+            int p = buffered * 4;
+            boxes[p] = minX;
+            boxes[p + 1] = minY;
+            boxes[p + 2] = maxX;
+            boxes[p + 3] = maxY;
+            payload.get(payloads, buffered * payloadSize, payloadSize);
+            buffered++;
+            if (minX <= maxX && minY <= maxY) {
+                extent.expandToInclude(minX, minY);
+                extent.expandToInclude(maxX, maxY);
+            }
+            count++;
+        }
+
+        /** Spills the buffered items, unsorted, since the extent is not known yet */
+        private void flush() throws IOException {
+            if (spillOut == null) {
+                spill = createTempFile();
+                spillOut = createData(spill);
+            }
+            for (int i = 0; i < buffered; i++) {
+                for (int j = 0; j < 4; j++) {
+                    spillOut.writeDouble(boxes[i * 4 + j]);
+                }
+                spillOut.write(payloads, i * payloadSize, payloadSize);
+            }
+            buffered = 0;
+        }
+
+        /** Visits the items in Hilbert order. Can be called only once. */
+        public void sort(ItemVisitor visitor) throws IOException {
+            if (count == 0) {
+                return;
+            }
+            if (spillOut == null) {
+                // everything fits in memory
+                visitRun(visitor);
+                return;
+            }
+            flush();
+            spillOut.close();
+            spillOut = null;
+            List<File> runs = new ArrayList<>();
+            try (DataInputStream in = openData(spill)) {
+                long remaining = count;
+                while (remaining > 0) {
+                    buffered = (int) Math.min(runSize, remaining);
+                    for (int i = 0; i < buffered; i++) {
+                        for (int j = 0; j < 4; j++) {
+                            boxes[i * 4 + j] = in.readDouble();
+                        }
+                        in.readFully(payloads, i * payloadSize, payloadSize);
+                    }
+                    File run = createTempFile();
+                    try (DataOutputStream out = createData(run)) {
+                        writeRun(out);
+                    }
+                    runs.add(run);
+                    remaining -= buffered;
+                }
+            }
+            Files.deleteIfExists(spill.toPath());
+            boxes = null;
+            payloads = null;
+            mergeRuns(runs, visitor);
+        }
+
+        private int[] sortBuffer() {
+            // the bounds are sorted against the extent of all the items, not just the buffered ones
+            long[] keys = new long[buffered];
+            for (int i = 0; i < buffered; i++) {
+                keys[i] = (hilbert(i) << 31) | i;
+            }
+            Arrays.sort(keys);
+            int[] order = new int[buffered];
+            for (int i = 0; i < buffered; i++) {
+                order[i] = (int) (keys[i] & Integer.MAX_VALUE);
+            }
+            return order;
+        }
+
+        private long hilbert(int i) {
+            int p = i * 4;
+            return PackedHilbertRTree.hilbert(
+                    boxes[p], boxes[p + 1], boxes[p + 2], boxes[p + 3], extent, curve);
+        }
+
+        private void visitRun(ItemVisitor visitor) throws IOException {
+            ByteBuffer payload = ByteBuffer.wrap(payloads);
+            for (int i : sortBuffer()) {
+                int p = i * 4;
+                payload.limit(i * payloadSize + payloadSize).position(i * payloadSize);
+                visitor.visit(boxes[p], boxes[p + 1], boxes[p + 2], boxes[p + 3], payload.slice());
+            }
+        }
+
+        private void writeRun(DataOutputStream out) throws IOException {
+            for (int i : sortBuffer()) {
+                out.writeLong(hilbert(i));
+                for (int j = 0; j < 4; j++) {
+                    out.writeDouble(boxes[i * 4 + j]);
+                }
+                out.write(payloads, i * payloadSize, payloadSize);
+            }
+        }
+
+        private void mergeRuns(List<File> runs, ItemVisitor visitor) throws IOException {
+            // ties go to the earlier run, which holds the items added first
+            PriorityQueue<RunReader> queue =
+                    new PriorityQueue<>(
+                            runs.size(),
+                            (a, b) ->
+                                    a.hilbert != b.hilbert
+                                            ? Long.compare(a.hilbert, b.hilbert)
+                                            : Integer.compare(a.run, b.run));
+            try {
+                for (int i = 0; i < runs.size(); i++) {
+                    RunReader reader = new RunReader(openData(runs.get(i)), i, payloadSize);
+                    if (reader.advance()) {
+                        queue.add(reader);
+                    } else {
+                        reader.close();
+                    }
+                }
+                while (!queue.isEmpty()) {
+                    RunReader reader = queue.poll();
+                    double[] b = reader.box;
+                    visitor.visit(b[0], b[1], b[2], b[3], ByteBuffer.wrap(reader.payload));
+                    if (reader.advance()) {
+                        queue.add(reader);
+                    } else {
+                        reader.close();
+                    }
+                }
+            } finally {
+                for (RunReader reader : queue) {
+                    reader.close();
+                }
+            }
+        }
+
+        private File createTempFile() throws IOException {
+            File file = File.createTempFile("hilbert", ".tmp", tempDirectory);
+            tempFiles.add(file);
+            return file;
+        }
+
+        /** Deletes the temporary files */
+        @Override
+        public void close() throws IOException {
+            if (spillOut != null) {
+                spillOut.close();
+                spillOut = null;
+            }
+            for (File file : tempFiles) {
+                Files.deleteIfExists(file.toPath());
+            }
+            tempFiles.clear();
+            boxes = null;
+            payloads = null;
+        }
+    }
+
+    /** Reads a sorted run, one item at a time */
+    private static final class RunReader implements Closeable {
+
+        final DataInputStream in;
+
+        final int run;
+
+        long hilbert;
+
+        final double[] box = new double[4];
+
+        final byte[] payload;
+
+        RunReader(DataInputStream in, int run, int payloadSize) {
+            this.in = in;
+            this.run = run;
+            this.payload = new byte[payloadSize];
+        }
+
+        boolean advance() throws IOException {
+            try {
+                hilbert = in.readLong();
+            } catch (EOFException e) {
+                return false;
+            }
+            for (int i = 0; i < 4; i++) {
+                box[i] = in.readDouble();
+            }
+            in.readFully(payload);
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    private static DataInputStream openData(File file) throws IOException {
+        return new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file.toPath()), 1 << 16));
+    }
+
+    private static DataOutputStream createData(File file) throws IOException {
+        return new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(file.toPath()), 1 << 16));
+    }
+}
@@ -0,0 +1,534 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2024, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.store;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.geotools.api.filter.Filter;
+import org.geotools.filter.visitor.ExtractBoundsFilterVisitor;
+import org.geotools.util.logging.Logging;
+import org.locationtech.jts.geom.Envelope;
+
+/**
+ * A spatial index stored next to a text based data file, such as GeoJSON or CSV, locating the
+ * records of the file by byte offset so that a reader can seek straight to the records matching a
+ * bounding box instead of scanning the whole file.
+ *
+ * <p>The index file holds a header, the records sorted along a Hilbert curve, and the bounds of the
+ * nodes of a packed R-tree built on top of them. The size and modification time of the data file
+ * are recorded in the header, an index whose data file changed since is considered stale and
+ * ignored by {@link #open(File)}.
+ *
+ * <p>Records without bounds, such as features without a geometry, are not indexed, since they never
+ * match a bounding box. Searches can run concurrently, and the index can be shared among several
+ * holders, see {@link #retain()}.
+ */
+public class SidecarSpatialIndex implements Closeable {
+
+    static final Logger LOGGER = Logging.getLogger(SidecarSpatialIndex.class);
+
+    /** Extension appended to the data file name to get the index file name */
+    public static final String EXTENSION = ".sidx";
+
+    /** Default number of children of each tree node */
+    public static final int DEFAULT_NODE_SIZE = PackedHilbertRTree.DEFAULT_NODE_SIZE;
+
+    static final byte[] MAGIC = {'G', 'T', 'S', 'I', 'D', 'X', 0, 1};
+
+    static final int HEADER_SIZE = MAGIC.length + 8 + 8 + 8 + 4 + 4 * 8;
+
+    /** Size of a leaf: bounds, offset, length and ordinal */
+    static final int ENTRY_SIZE = 4 * 8 + 8 + 4 + 8;
+
+    /** Size of an inner node: bounds */
+    static final int NODE_SIZE = 4 * 8;
+
+    private final FileChannel channel;
+
+    private final long count;
+
+    private final int nodeSize;
+
+    private final Envelope bounds;
+
+    /** Number of nodes of each level, leaves first */
+    private final long[] levelSizes;
+
+    /** Position of each level in the file, leaves first */
+    private final long[] levelOffsets;
+
+    /** The number of holders of the index, the file is closed when the last one releases it */
+    private int references = 1;
+
+    /** The location of a record in the data file */
+    public static final class Entry {
+        final long offset;
+
+        final int length;
+
+        final long ordinal;
+
+        Entry(long offset, int length, long ordinal) {
+            this.offset = offset;
+            this.length = length;
+            this.ordinal = ordinal;
+        }
+
+        /** Position of the first byte of the record in the data file */
+        public long getOffset() {
+            return offset;
+        }
+
+        /** Number of bytes of the record in the data file */
+        public int getLength() {
+            return length;
+        }
+
+        /** Position of the record among all the records of the data file, indexed or not */
+        public long getOrdinal() {
+            return ordinal;
+        }
+    }
+
+    private SidecarSpatialIndex(FileChannel channel) throws IOException {
+        this.channel = channel;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        readFully(header, 0);
+        header.flip();
+        byte[] magic = new byte[MAGIC.length];
+        header.get(magic);
+        if (!Arrays.equals(MAGIC, magic)) {
+            throw new IOException("Not a spatial index file");
+        }
+        header.getLong(); // data file size
+        header.getLong(); // data file modification time
+        this.count = header.getLong();
+        this.nodeSize = header.getInt();
+        double minX = header.getDouble();
+        double minY = header.getDouble();
+        double maxX = header.getDouble();
+        double maxY = header.getDouble();
+        this.bounds = new Envelope(minX, maxX, minY, maxY);
+        if (count < 0 || nodeSize < 2) {
+            throw new IOException("Invalid spatial index header");
+        }
+        this.levelSizes = PackedHilbertRTree.levelSizes(count, nodeSize);
+        this.levelOffsets = new long[levelSizes.length];
+        long offset = HEADER_SIZE;
+        for (int i = 0; i < levelSizes.length; i++) {
+            levelOffsets[i] = offset;
+            offset += levelSizes[i] * (i == 0 ? ENTRY_SIZE : NODE_SIZE);
+        }
+        if (offset > channel.size()) {
+            throw new IOException("Truncated spatial index file");
+        }
+    }
+
+    /** Returns the index file of a data file */
+    public static File getIndexFile(File dataFile) {
+        return new File(dataFile.getParentFile(), dataFile.getName() + EXTENSION);
+    }
+
+    /** Returns true if the index of the data file exists and is up to date with the data file */
+    public static boolean isCurrent(File dataFile) {
+        File indexFile = getIndexFile(dataFile);
+        if (!indexFile.isFile() || !dataFile.isFile()) {
+            return false;
+        }
+        try (DataInputStream in =
+                new DataInputStream(
+                        new BufferedInputStream(Files.newInputStream(indexFile.toPath())))) {
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            return Arrays.equals(MAGIC, magic)
+                    && in.readLong() == dataFile.length()
+                    && in.readLong() == dataFile.lastModified();
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Could not read spatial index " + indexFile, e);
+            return false;
+        }
+    }
+
+    /**
+     * Opens the index of the data file
+     *
+     * @return the index, or null if there is none or it is stale
+     */
+    public static SidecarSpatialIndex open(File dataFile) throws IOException {
+        if (!isCurrent(dataFile)) {
+            return null;
+        }
+        FileChannel channel =
+                FileChannel.open(getIndexFile(dataFile).toPath(), StandardOpenOption.READ);
+        try {
+            return new SidecarSpatialIndex(channel);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the bounding box a filter restricts the records to, or null if the filter is not
+     * restricted to a finite area and the index is of no use for it
+     */
+    public static Envelope getSearchBounds(Filter filter) {
+        if (filter == null || filter == Filter.INCLUDE) {
+            return null;
+        }
+        Envelope bounds =
+                (Envelope) filter.accept(ExtractBoundsFilterVisitor.BOUNDS_VISITOR, new Envelope());
+        if (bounds == null
+                || Double.isInfinite(bounds.getWidth())
+                || Double.isInfinite(bounds.getHeight())) {
+            return null;
+        }
+        return bounds;
+    }
+
+    /** The number of indexed records */
+    public long getCount() {
+        return count;
+    }
+
+    /** The bounds of the indexed records */
+    public Envelope getBounds() {
+        return new Envelope(bounds);
+    }
+
+    /**
+     * Returns the records whose bounds intersect the search area, sorted by offset so that the data
+     * file is read front to back
+     */
+    public List<Entry> search(Envelope area) throws IOException {
+        List<Entry> result = new ArrayList<>();
+        if (count == 0 || area.isNull() || !area.intersects(bounds)) {
+            return result;
+        }
+        int top = levelSizes.length - 1;
+        ByteBuffer buffer = ByteBuffer.allocate(nodeSize * ENTRY_SIZE);
+        // pairs of level and node index still to visit
+        long[] stack = new long[16];
+        int size = 0;
+        if (top == 0) {
+            searchLeaves(area, 0, count, buffer, result);
+        } else {
+            stack[size++] = top;
+            stack[size++] = 0;
+        }
+        while (size > 0) {
+            long node = stack[--size];
+            int level = (int) stack[--size];
+            int childLevel = level - 1;
+            long first = node * nodeSize;
+            long end = Math.min(first + nodeSize, levelSizes[childLevel]);
+            if (childLevel == 0) {
+                searchLeaves(area, first, end, buffer, result);
+                continue;
+            }
+            buffer.clear();
+            buffer.limit((int) (end - first) * NODE_SIZE);
+            readFully(buffer, levelOffsets[childLevel] + first * NODE_SIZE);
+            buffer.flip();
+            for (long child = first; child < end; child++) {
+                if (intersects(buffer, area)) {
+                    if (size + 2 > stack.length) {
+                        stack = Arrays.copyOf(stack, stack.length * 2);
+                    }
+                    stack[size++] = childLevel;
+                    stack[size++] = child;
+                }
+            }
+        }
+        result.sort(Comparator.comparingLong(Entry::getOffset));
+        return result;
+    }
+
+    private void searchLeaves(
+            Envelope area, long first, long end, ByteBuffer buffer, List<Entry> result)
+            throws IOException {
+        // read the leaves in blocks of at most one node
+        for (long start = first; start < end; start += nodeSize) {
+            long blockEnd = Math.min(end, start + nodeSize);
+            buffer.clear();
+            buffer.limit((int) (blockEnd - start) * ENTRY_SIZE);
+            readFully(buffer, levelOffsets[0] + start * ENTRY_SIZE);
+            buffer.flip();
+            for (long i = start; i < blockEnd; i++) {
+                boolean match = intersects(buffer, area);
+                long offset = buffer.getLong();
+                int length = buffer.getInt();
+                long ordinal = buffer.getLong();
+                if (match) {
+                    result.add(new Entry(offset, length, ordinal));
+                }
+            }
+        }
+    }
+
+    /** Reads bounds from the buffer and checks them against the search area */
+    private static boolean intersects(ByteBuffer buffer, Envelope area) {
+        double minX = buffer.getDouble();
+        double minY = buffer.getDouble();
+        double maxX = buffer.getDouble();
+        double maxY = buffer.getDouble();
+        return !(minX > area.getMaxX()
+                || maxX < area.getMinX()
+                || minY > area.getMaxY()
+                || maxY < area.getMinY());
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of spatial index file");
+            }
+        }
+    }
+
+    /**
+     * Adds a holder to the index, releasing it with {@link #close()}. The index file is closed when
+     * the opener and all the holders released it, so that a stale index can be replaced while
+     * searches on it are still running.
+     *
+     * @return this index
+     * @throws IOException if the index has already been closed
+     */
+    public synchronized SidecarSpatialIndex retain() throws IOException {
+        if (references == 0) {
+            throw new IOException("Spatial index already closed");
+        }
+        references++;
+        return this;
+    }
+
+    /** Releases the index, closing the file if there are no other holders */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (references == 0 || --references > 0) {
+                return;
+            }
+        }
+        channel.close();
+    }
+
+    /**
+     * Writes the index of a data file. Records are added in any order while scanning the data file,
+     * and sorted along the Hilbert curve when {@link #build()} is called, with an external merge
+     * sort spilling to temporary files next to the data file. The tree nodes are computed in the
+     * same pass, so memory usage is bounded by the number of records sorted in memory at a time,
+     * whatever the number of records.
+     */
+    public static class Builder implements Closeable {
+
+        /** Size of the data attached to each record while sorting: offset, length and ordinal */
+        private static final int PAYLOAD_SIZE = 8 + 4 + 8;
+
+        private final File dataFile;
+
+        private final long dataLength;
+
+        private final long dataModified;
+
+        private final PackedHilbertRTree.Sorter sorter;
+
+        private final ByteBuffer payload = ByteBuffer.allocate(PAYLOAD_SIZE);
+
+        private int nodeSize = DEFAULT_NODE_SIZE;
+
+        /**
+         * Prepares the index of the given data file, recording its current size and modification
+         * time: the data file must not change while the index is built
+         */
+        public Builder(File dataFile) throws IOException {
+            this.dataFile = dataFile;
+            this.dataLength = dataFile.length();
+            this.dataModified = dataFile.lastModified();
+            this.sorter = new PackedHilbertRTree.Sorter(dataFile.getParentFile(), PAYLOAD_SIZE);
+        }
+
+        /** Sets the number of children of each tree node */
+        public void setNodeSize(int nodeSize) {
+            if (nodeSize < 2) {
+                throw new IllegalArgumentException("Node size must be at least 2: " + nodeSize);
+            }
+            this.nodeSize = nodeSize;
+        }
+
+        /**
+         * Sets the number of records sorted in memory at a time, about 60 bytes each, defaults to
+         * {@link PackedHilbertRTree#DEFAULT_RUN_SIZE}. Must be called before adding records.
+         */
+        public void setSortBufferSize(int size) {
+            sorter.setRunSize(size);
+        }
+
+        /**
+         * Adds a record to the index
+         *
+         * @param bounds the bounds of the record, records with null bounds are skipped
+         * @param offset the position of the first byte of the record in the data file
+         * @param length the number of bytes of the record
+         * @param ordinal the position of the record among all the records of the data file
+         */
+        public void add(Envelope bounds, long offset, int length, long ordinal) throws IOException {
+            if (bounds == null || bounds.isNull()) {
+                return;
+            }
+            payload.clear();
+            payload.putLong(offset).putInt(length).putLong(ordinal).flip();
+            sorter.add(
+                    bounds.getMinX(),
+                    bounds.getMinY(),
+                    bounds.getMaxX(),
+                    bounds.getMaxY(),
+                    payload);
+        }
+
+        /** Sorts the records and writes the index file, replacing any previous one */
+        public void build() throws IOException {
+            File indexFile = getIndexFile(dataFile);
+            File temp = File.createTempFile("sidx", ".tmp", dataFile.getParentFile());
+            try {
+                try (FileChannel index =
+                        FileChannel.open(temp.toPath(), StandardOpenOption.WRITE)) {
+                    write(index);
+                }
+                Files.move(temp.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temp.toPath());
+                sorter.close();
+            }
+        }
+
+        private void write(FileChannel index) throws IOException {
+            long count = sorter.getCount();
+            Envelope extent = sorter.getExtent();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.put(MAGIC);
+            header.putLong(dataLength);
+            header.putLong(dataModified);
+            header.putLong(count);
+            header.putInt(nodeSize);
+            header.putDouble(extent.getMinX());
+            header.putDouble(extent.getMinY());
+            header.putDouble(extent.getMaxX());
+            header.putDouble(extent.getMaxY());
+            header.flip();
+            writeFully(index, header, 0);
+
+            // the levels are filled concurrently, each through its own buffer
+            long[] sizes = PackedHilbertRTree.levelSizes(count, nodeSize);
+            LevelWriter[] levels = new LevelWriter[sizes.length];
+            long offset = HEADER_SIZE;
+            for (int l = 0; l < sizes.length; l++) {
+                levels[l] = new LevelWriter(index, offset, l == 0 ? ENTRY_SIZE : NODE_SIZE);
+                offset += sizes[l] * (l == 0 ? ENTRY_SIZE : NODE_SIZE);
+            }
+            PackedHilbertRTree.LevelBuilder nodes =
+                    new PackedHilbertRTree.LevelBuilder(
+                            count,
+                            nodeSize,
+                            (level, i, minX, minY, maxX, maxY, firstChild) ->
+                                    levels[level]
+                                            .next()
+                                            .putDouble(minX)
+                                            .putDouble(minY)
+                                            .putDouble(maxX)
+                                            .putDouble(maxY));
+            sorter.sort(
+                    (minX, minY, maxX, maxY, record) -> {
+                        levels[0]
+                                .next()
+                                .putDouble(minX)
+                                .putDouble(minY)
+                                .putDouble(maxX)
+                                .putDouble(maxY)
+                                .put(record);
+                        nodes.add(minX, minY, maxX, maxY);
+                    });
+            nodes.finish();
+            for (LevelWriter level : levels) {
+                level.flush();
+            }
+        }
+
+        /** Discards the index if {@link #build()} was not called */
+        @Override
+        public void close() throws IOException {
+            sorter.close();
+        }
+    }
+
+    /** Writes the nodes of a level sequentially, from its position in the index file */
+    private static final class LevelWriter {
+
+        final FileChannel channel;
+
+        final ByteBuffer buffer;
+
+        final int nodeSize;
+
+        long position;
+
+        LevelWriter(FileChannel channel, long position, int nodeSize) {
+            this.channel = channel;
+            this.position = position;
+            this.nodeSize = nodeSize;
+            this.buffer = ByteBuffer.allocate(nodeSize * 1024);
+        }
+
+        /** Returns the buffer to write the next node into */
+        ByteBuffer next() throws IOException {
+            if (buffer.remaining() < nodeSize) {
+                flush();
+            }
+            return buffer;
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            position += writeFully(channel, buffer, position);
+            buffer.clear();
+        }
+    }
+
+    private static int writeFully(FileChannel channel, ByteBuffer buffer, long position)
+            throws IOException {
+        int written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer, position + written);
+        }
+        return written;
+    }
+}
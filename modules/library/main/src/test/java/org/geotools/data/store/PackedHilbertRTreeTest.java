@@ -0,0 +1,211 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2024, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.store;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.locationtech.jts.geom.Envelope;
+
+public class PackedHilbertRTreeTest {
+
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testSearch() {
+        Random random = new Random(42);
+        int n = 1000;
+        double[] boxes = new double[n * 4];
+        for (int i = 0; i < n; i++) {
+            double x = random.nextDouble() * 360 - 180;
+            double y = random.nextDouble() * 180 - 90;
+            boxes[i * 4] = x;
+            boxes[i * 4 + 1] = y;
+            boxes[i * 4 + 2] = x + random.nextDouble();
+            boxes[i * 4 + 3] = y + random.nextDouble();
+        }
+        int[] order = PackedHilbertRTree.sort(boxes, n, PackedHilbertRTree.JTS_CURVE);
+        double[] sorted = new double[n * 4];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(boxes, order[i] * 4, sorted, i * 4, 4);
+        }
+        PackedHilbertRTree tree = new PackedHilbertRTree(sorted, n, 4);
+        assertEquals(n, tree.size());
+
+        for (int i = 0; i < 50; i++) {
+            double x = random.nextDouble() * 360 - 180;
+            double y = random.nextDouble() * 180 - 90;
+            Envelope area = new Envelope(x, x + i, y, y + i);
+            List<Integer> expected = new ArrayList<>();
+            for (int j = 0; j < n; j++) {
+                Envelope bounds =
+                        new Envelope(
+                                boxes[j * 4], boxes[j * 4 + 2], boxes[j * 4 + 1], boxes[j * 4 + 3]);
+                if (bounds.intersects(area)) {
+                    expected.add(j);
+                }
+            }
+            List<Integer> found = new ArrayList<>();
+            assertTrue(tree.search(area, pos -> found.add(order[pos])));
+            found.sort(null);
+            assertEquals(expected, found);
+        }
+
+        // a null area visits everything, and the visitor can stop the search
+        List<Integer> all = new ArrayList<>();
+        assertTrue(tree.search(null, all::add));
+        assertEquals(n, all.size());
+        List<Integer> some = new ArrayList<>();
+        assertFalse(tree.search(null, pos -> some.add(pos) && some.size() < 10));
+        assertEquals(10, some.size());
+    }
+
+    @Test
+    public void testSingleItem() {
+        PackedHilbertRTree tree = new PackedHilbertRTree(new double[] {0, 0, 1, 1}, 1, 16);
+        List<Integer> found = new ArrayList<>();
+        tree.search(new Envelope(0.5, 2, 0.5, 2), found::add);
+        assertEquals(List.of(0), found);
+        found.clear();
+        tree.search(new Envelope(2, 3, 2, 3), found::add);
+        assertTrue(found.isEmpty());
+    }
+
+    @Test
+    public void testSortCoversWholeExtent() {
+        // a grid covering the extent, Hilbert values using the whole 32 bits range
+        int side = 64;
+        double[] boxes = new double[side * side * 4];
+        for (int i = 0; i < side * side; i++) {
+            double x = i % side;
+            double y = i / side;
+            boxes[i * 4] = x;
+            boxes[i * 4 + 1] = y;
+            boxes[i * 4 + 2] = x;
+            boxes[i * 4 + 3] = y;
+        }
+        Envelope extent = new Envelope(0, side - 1, 0, side - 1);
+        int[] order = PackedHilbertRTree.sort(boxes, side * side, PackedHilbertRTree.JTS_CURVE);
+        long previous = -1;
+        long max = 0;
+        for (int i : order) {
+            long h =
+                    PackedHilbertRTree.hilbert(
+                            boxes[i * 4],
+                            boxes[i * 4 + 1],
+                            boxes[i * 4 + 2],
+                            boxes[i * 4 + 3],
+                            extent,
+                            PackedHilbertRTree.JTS_CURVE);
+            assertTrue(h >= previous);
+            previous = h;
+            max = Math.max(max, h);
+        }
+        assertTrue(max >= 1L << 31);
+    }
+
+    @Test
+    public void testExternalSort() throws Exception {
+        Random random = new Random(42);
+        int n = 1000;
+        double[] boxes = new double[n * 4];
+        for (int i = 0; i < n; i++) {
+            double x = random.nextDouble() * 360 - 180;
+            double y = random.nextDouble() * 180 - 90;
+            boxes[i * 4] = x;
+            boxes[i * 4 + 1] = y;
+            boxes[i * 4 + 2] = x + random.nextDouble();
+            boxes[i * 4 + 3] = y + random.nextDouble();
+        }
+        // a few empty bounds, sorted first
+        for (int i = 0; i < n; i += 100) {
+            boxes[i * 4] = Double.POSITIVE_INFINITY;
+            boxes[i * 4 + 1] = Double.POSITIVE_INFINITY;
+            boxes[i * 4 + 2] = Double.NEGATIVE_INFINITY;
+            boxes[i * 4 + 3] = Double.NEGATIVE_INFINITY;
+        }
+        int[] expected = PackedHilbertRTree.sort(boxes, n, PackedHilbertRTree.JTS_CURVE);
+
+        for (int runSize : new int[] {n, 64, 7}) {
+            List<Integer> sorted = new ArrayList<>();
+            try (PackedHilbertRTree.Sorter sorter =
+                    new PackedHilbertRTree.Sorter(temporaryFolder.getRoot(), Integer.BYTES)) {
+                sorter.setRunSize(runSize);
+                for (int i = 0; i < n; i++) {
+                    ByteBuffer payload = ByteBuffer.allocate(Integer.BYTES).putInt(0, i);
+                    sorter.add(
+                            boxes[i * 4],
+                            boxes[i * 4 + 1],
+                            boxes[i * 4 + 2],
+                            boxes[i * 4 + 3],
+                            payload);
+                }
+                assertEquals(n, sorter.getCount());
+                sorter.sort(
+                        (minX, minY, maxX, maxY, payload) -> {
+                            int i = payload.getInt(0);
+                            assertEquals(boxes[i * 4], minX, 0);
+                            assertEquals(boxes[i * 4 + 3], maxY, 0);
+                            sorted.add(i);
+                        });
+            }
+            assertArrayEquals(expected, sorted.stream().mapToInt(i -> i).toArray());
+            assertEquals(0, temporaryFolder.getRoot().list().length);
+        }
+    }
+
+    @Test
+    public void testLevelBuilder() throws Exception {
+        int n = 37;
+        int nodeSize = 4;
+        long[] sizes = PackedHilbertRTree.levelSizes(n, nodeSize);
+        assertArrayEquals(new long[] {37, 10, 3, 1}, sizes);
+        List<long[]> nodes = new ArrayList<>();
+        PackedHilbertRTree.LevelBuilder builder =
+                new PackedHilbertRTree.LevelBuilder(
+                        n,
+                        nodeSize,
+                        (level, index, minX, minY, maxX, maxY, firstChild) ->
+                                nodes.add(
+                                        new long[] {
+                                            level, index, (long) minX, (long) maxX, firstChild
+                                        }));
+        for (int i = 0; i < n; i++) {
+            builder.add(i, 0, i, 0);
+        }
+        builder.finish();
+        assertEquals(10 + 3 + 1, nodes.size());
+        for (long[] node : nodes) {
+            int level = (int) node[0];
+            long index = node[1];
+            // each node covers nodeSize^level items
+            long span = (long) Math.pow(nodeSize, level);
+            assertEquals(index * span, node[2]);
+            assertEquals(Math.min(n, (index + 1) * span) - 1, node[3]);
+            assertEquals(index * nodeSize, node[4]);
+        }
+    }
+}
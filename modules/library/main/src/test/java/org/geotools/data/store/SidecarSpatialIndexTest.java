@@ -0,0 +1,210 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2024, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.geotools.api.filter.Filter;
+import org.geotools.api.filter.FilterFactory;
+import org.geotools.factory.CommonFactoryFinder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.locationtech.jts.geom.Envelope;
+
+public class SidecarSpatialIndexTest {
+
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testSearch() throws Exception {
+        File data = temporaryFolder.newFile("data.txt");
+        Files.write(data.toPath(), "some data".getBytes(StandardCharsets.UTF_8));
+
+        // records with their offset in the data file being their position in the list
+        Random random = new Random(42);
+        List<Envelope> records = new ArrayList<>();
+        try (SidecarSpatialIndex.Builder builder = new SidecarSpatialIndex.Builder(data)) {
+            builder.setNodeSize(4);
+            for (int i = 0; i < 1000; i++) {
+                Envelope bounds = null;
+                if (i % 10 != 0) {
+                    double x = random.nextDouble() * 360 - 180;
+                    double y = random.nextDouble() * 180 - 90;
+                    bounds = new Envelope(x, x + random.nextDouble(), y, y + random.nextDouble());
+                }
+                records.add(bounds);
+                builder.add(bounds, i, 1, i + 1);
+            }
+            builder.build();
+        }
+        // only the index is left next to the data
+        assertEquals(2, temporaryFolder.getRoot().list().length);
+        assertTrue(SidecarSpatialIndex.isCurrent(data));
+
+        try (SidecarSpatialIndex index = SidecarSpatialIndex.open(data)) {
+            assertNotNull(index);
+            assertEquals(900, index.getCount());
+            for (int i = 0; i < 50; i++) {
+                double x = random.nextDouble() * 360 - 180;
+                double y = random.nextDouble() * 180 - 90;
+                Envelope area = new Envelope(x, x + i, y, y + i);
+                List<Long> expected = new ArrayList<>();
+                for (int j = 0; j < records.size(); j++) {
+                    if (records.get(j) != null && records.get(j).intersects(area)) {
+                        expected.add((long) j);
+                    }
+                }
+                List<SidecarSpatialIndex.Entry> entries = index.search(area);
+                assertEquals(
+                        expected,
+                        entries.stream()
+                                .map(SidecarSpatialIndex.Entry::getOffset)
+                                .collect(Collectors.toList()));
+                for (SidecarSpatialIndex.Entry entry : entries) {
+                    assertEquals(1, entry.getLength());
+                    assertEquals(entry.getOffset() + 1, entry.getOrdinal());
+                }
+            }
+            assertEquals(900, index.search(index.getBounds()).size());
+            assertTrue(index.search(new Envelope(1000, 1001, 1000, 1001)).isEmpty());
+        }
+    }
+
+    @Test
+    public void testSingleRecord() throws Exception {
+        File data = temporaryFolder.newFile("single.txt");
+        try (SidecarSpatialIndex.Builder builder = new SidecarSpatialIndex.Builder(data)) {
+            builder.add(new Envelope(1, 1, 2, 2), 10, 5, 0);
+            builder.build();
+        }
+        try (SidecarSpatialIndex index = SidecarSpatialIndex.open(data)) {
+            assertEquals(1, index.search(new Envelope(0, 1, 0, 2)).size());
+            assertTrue(index.search(new Envelope(0, 0.5, 0, 0.5)).isEmpty());
+        }
+    }
+
+    @Test
+    public void testHilbertOrder() throws Exception {
+        File data = temporaryFolder.newFile("grid.txt");
+        // a grid covering the whole extent, so that the Hilbert values span all their 32 bits,
+        // added in reverse order and sorted in several runs
+        int side = 64;
+        try (SidecarSpatialIndex.Builder builder = new SidecarSpatialIndex.Builder(data)) {
+            builder.setSortBufferSize(100);
+            for (int i = side * side - 1; i >= 0; i--) {
+                double x = i % side;
+                double y = i / side;
+                builder.add(new Envelope(x, x, y, y), i, 1, i);
+            }
+            builder.build();
+        }
+        Envelope extent = new Envelope(0, side - 1, 0, side - 1);
+        ByteBuffer leaves =
+                ByteBuffer.wrap(
+                        Files.readAllBytes(SidecarSpatialIndex.getIndexFile(data).toPath()));
+        leaves.position(SidecarSpatialIndex.HEADER_SIZE);
+        long previous = -1;
+        long max = 0;
+        for (int i = 0; i < side * side; i++) {
+            double minX = leaves.getDouble();
+            double minY = leaves.getDouble();
+            double maxX = leaves.getDouble();
+            double maxY = leaves.getDouble();
+            leaves.position(leaves.position() + SidecarSpatialIndex.ENTRY_SIZE - 32);
+            long h =
+                    PackedHilbertRTree.hilbert(
+                            minX, minY, maxX, maxY, extent, PackedHilbertRTree.JTS_CURVE);
+            assertTrue(h >= previous);
+            previous = h;
+            max = Math.max(max, h);
+        }
+        assertTrue(max >= 1L << 31);
+
+        try (SidecarSpatialIndex index = SidecarSpatialIndex.open(data)) {
+            assertEquals(side * side, index.search(extent).size());
+            assertEquals(4, index.search(new Envelope(40, 41, 50, 51)).size());
+        }
+    }
+
+    @Test
+    public void testRetain() throws Exception {
+        File data = temporaryFolder.newFile("shared.txt");
+        try (SidecarSpatialIndex.Builder builder = new SidecarSpatialIndex.Builder(data)) {
+            builder.add(new Envelope(0, 1, 0, 1), 0, 5, 0);
+            builder.build();
+        }
+        SidecarSpatialIndex index = SidecarSpatialIndex.open(data);
+        SidecarSpatialIndex holder = index.retain();
+        // released by the opener, still usable by the other holder
+        index.close();
+        assertEquals(1, holder.search(new Envelope(0, 1, 0, 1)).size());
+        holder.close();
+        try {
+            index.retain();
+            fail("The index should be closed");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testStale() throws Exception {
+        File data = temporaryFolder.newFile("stale.txt");
+        Files.write(data.toPath(), "first".getBytes(StandardCharsets.UTF_8));
+        assertFalse(SidecarSpatialIndex.isCurrent(data));
+        try (SidecarSpatialIndex.Builder builder = new SidecarSpatialIndex.Builder(data)) {
+            builder.add(new Envelope(0, 1, 0, 1), 0, 5, 0);
+            builder.build();
+        }
+        assertTrue(SidecarSpatialIndex.isCurrent(data));
+
+        Files.write(data.toPath(), "second version".getBytes(StandardCharsets.UTF_8));
+        assertFalse(SidecarSpatialIndex.isCurrent(data));
+        assertNull(SidecarSpatialIndex.open(data));
+    }
+
+    @Test
+    public void testSearchBounds() {
+        FilterFactory ff = CommonFactoryFinder.getFilterFactory();
+        assertNull(SidecarSpatialIndex.getSearchBounds(Filter.INCLUDE));
+        assertNull(
+                SidecarSpatialIndex.getSearchBounds(
+                        ff.equals(ff.property("name"), ff.literal("test"))));
+        Filter bbox = ff.bbox("geom", 0, 0, 10, 10, null);
+        assertEquals(new Envelope(0, 10, 0, 10), SidecarSpatialIndex.getSearchBounds(bbox));
+        assertEquals(
+                new Envelope(0, 10, 0, 10),
+                SidecarSpatialIndex.getSearchBounds(
+                        ff.and(bbox, ff.equals(ff.property("name"), ff.literal("test")))));
+        assertNull(SidecarSpatialIndex.getSearchBounds(ff.not(bbox)));
+    }
+}
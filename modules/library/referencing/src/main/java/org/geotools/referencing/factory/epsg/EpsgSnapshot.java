@@ -0,0 +1,310 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2024, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.referencing.factory.epsg;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.text.ParseException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import org.geotools.api.metadata.extent.GeographicBoundingBox;
+import org.geotools.api.referencing.FactoryException;
+import org.geotools.api.referencing.crs.CRSAuthorityFactory;
+import org.geotools.api.referencing.crs.CoordinateReferenceSystem;
+import org.geotools.metadata.iso.extent.GeographicBoundingBoxImpl;
+import org.geotools.referencing.CRS;
+import org.geotools.referencing.wkt.Formattable;
+import org.geotools.referencing.wkt.Parser;
+import org.geotools.referencing.wkt.UnformattableObjectException;
+import org.geotools.util.URLs;
+
+/**
+ * A compact, read-only binary snapshot of the coordinate reference systems defined in an EPSG
+ * database. The snapshot is generated offline from a SQL backed factory with {@link #write}, and
+ * read by {@link SnapshotEpsgFactory} without any SQL engine.
+ *
+ * <p>The file layout is as below. All numbers are in big endian order:
+ *
+ * <ul>
+ *   <li>A header made of three {@code int}: the {@linkplain #MAGIC magic number}, the {@linkplain
+ *       #VERSION format version} and the number of records.
+ *   <li>One index entry per record, sorted by EPSG code. Each entry is made of three {@code int}:
+ *       the EPSG code, the record offset and the record length in bytes.
+ *   <li>The records. Each record is made of the west, east, south and north bounds of the CRS
+ *       domain of validity as four {@code double} ({@link Double#NaN NaN} if unknown), followed by
+ *       the CRS <cite>Well Known Text</cite> encoded in UTF-8.
+ * </ul>
+ *
+ * Local files are memory mapped, so opening a snapshot only costs the reading of its header and
+ * records are decoded only when requested.
+ */
+final class EpsgSnapshot {
+    /** The magic number at the beginning of every snapshot file. */
+    static final int MAGIC = 0x47544550;
+
+    /** The version of the snapshot file format. */
+    static final int VERSION = 1;
+
+    /** The length of the header, in bytes. */
+    private static final int HEADER_LENGTH = 3 * Integer.BYTES;
+
+    /** The length of an index entry, in bytes. */
+    private static final int ENTRY_LENGTH = 3 * Integer.BYTES;
+
+    /** The length of the bounding box at the beginning of each record, in bytes. */
+    private static final int BOUNDS_LENGTH = 4 * Double.BYTES;
+
+    /** The snapshot content. Only absolute get methods are used, so it can be shared by threads. */
+    private final ByteBuffer buffer;
+
+    /** The number of records. */
+    private final int size;
+
+    /** Creates a snapshot backed by the given buffer. */
+    private EpsgSnapshot(final ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.limit() < HEADER_LENGTH || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not an EPSG snapshot file");
+        }
+        final int version = buffer.getInt(Integer.BYTES);
+        if (version != VERSION) {
+            throw new IOException("Unsupported EPSG snapshot version: " + version);
+        }
+        size = buffer.getInt(2 * Integer.BYTES);
+        if (size < 0 || buffer.limit() < HEADER_LENGTH + (long) size * ENTRY_LENGTH) {
+            throw new IOException("Truncated EPSG snapshot file");
+        }
+    }
+
+    /**
+     * Opens the snapshot at the given location. If the url protocol is file, the file is memory
+     * mapped. Otherwise the whole content is read in memory.
+     *
+     * @param url The snapshot location.
+     * @return The snapshot.
+     * @throws IOException if the snapshot can't be read or is not a valid snapshot.
+     */
+    static EpsgSnapshot open(final URL url) throws IOException {
+        final ByteBuffer buffer;
+        if (url.getProtocol().equals("file")) {
+            final File file = URLs.urlToFile(url);
+            // the mapping stays valid after the channel is closed
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+        } else {
+            try (InputStream in = url.openStream()) {
+                buffer = ByteBuffer.wrap(in.readAllBytes());
+            }
+        }
+        return new EpsgSnapshot(buffer);
+    }
+
+    /** Returns the number of records in this snapshot. */
+    int size() {
+        return size;
+    }
+
+    /** Returns the EPSG code of the record at the given index. */
+    int getCode(final int index) {
+        return buffer.getInt(HEADER_LENGTH + index * ENTRY_LENGTH);
+    }
+
+    /**
+     * Returns the index of the record for the given EPSG code, or a negative value if there is
+     * none.
+     */
+    int indexOf(final int code) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int candidate = getCode(mid);
+            if (candidate < code) {
+                low = mid + 1;
+            } else if (candidate > code) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /** Returns the offset of the record at the given index. */
+    private int getOffset(final int index) {
+        return buffer.getInt(HEADER_LENGTH + index * ENTRY_LENGTH + Integer.BYTES);
+    }
+
+    /** Returns the length of the record at the given index. */
+    private int getLength(final int index) {
+        return buffer.getInt(HEADER_LENGTH + index * ENTRY_LENGTH + 2 * Integer.BYTES);
+    }
+
+    /** Returns the WKT of the record at the given index. */
+    String getWKT(final int index) {
+        final byte[] bytes = new byte[getLength(index) - BOUNDS_LENGTH];
+        final ByteBuffer view = buffer.duplicate();
+        view.position(getOffset(index) + BOUNDS_LENGTH);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the first keyword of the WKT of the record at the given index (e.g. {@code
+     * "PROJCS"}). This is cheaper than decoding the whole WKT.
+     */
+    String getKeyword(final int index) {
+        final StringBuilder keyword = new StringBuilder(8);
+        final int end = getOffset(index) + getLength(index);
+        for (int i = getOffset(index) + BOUNDS_LENGTH; i < end; i++) {
+            final char c = (char) buffer.get(i);
+            if (!Character.isJavaIdentifierPart(c)) {
+                break;
+            }
+            keyword.append(c);
+        }
+        return keyword.toString();
+    }
+
+    /**
+     * Returns the geographic bounding box of the record at the given index, or {@code null} if
+     * unknown.
+     */
+    GeographicBoundingBox getBounds(final int index) {
+        final int offset = getOffset(index);
+        final double west = buffer.getDouble(offset);
+        if (Double.isNaN(west)) {
+            return null;
+        }
+        return new GeographicBoundingBoxImpl(
+                west,
+                buffer.getDouble(offset + Double.BYTES),
+                buffer.getDouble(offset + 2 * Double.BYTES),
+                buffer.getDouble(offset + 3 * Double.BYTES));
+    }
+
+    /**
+     * Writes a snapshot of all the coordinate reference systems provided by the given factory. The
+     * CRS that can't be created, formatted as WKT or parsed back are skipped, and reported to the
+     * given writer.
+     *
+     * @param factory The factory to take the CRS from, usually a {@link ThreadedEpsgFactory}.
+     * @param file The snapshot file to write.
+     * @param out The writer where to report the skipped CRS.
+     * @return The number of CRS written in the snapshot.
+     * @throws FactoryException if the authority codes can't be obtained from the factory.
+     * @throws IOException if the snapshot file can't be written.
+     */
+    static int write(final CRSAuthorityFactory factory, final File file, final PrintWriter out)
+            throws FactoryException, IOException {
+        return write(
+                factory, factory.getAuthorityCodes(CoordinateReferenceSystem.class), file, out);
+    }
+
+    /**
+     * Writes a snapshot of the given coordinate reference systems. The CRS that can't be created,
+     * formatted as WKT or parsed back are skipped, and reported to the given writer.
+     *
+     * @param factory The factory to take the CRS from, usually a {@link ThreadedEpsgFactory}.
+     * @param codes The codes of the CRS to write.
+     * @param file The snapshot file to write.
+     * @param out The writer where to report the skipped CRS.
+     * @return The number of CRS written in the snapshot.
+     * @throws IOException if the snapshot file can't be written.
+     */
+    static int write(
+            final CRSAuthorityFactory factory,
+            final Collection<String> codes,
+            final File file,
+            final PrintWriter out)
+            throws IOException {
+        final Map<Integer, CoordinateReferenceSystem> definitions = new TreeMap<>();
+        final Map<Integer, String> wkts = new TreeMap<>();
+        final Parser parser = new Parser();
+        for (final String code : codes) {
+            final int key;
+            try {
+                key = Integer.parseInt(code.trim());
+            } catch (NumberFormatException e) {
+                out.println(code + ": not a numeric code");
+                continue;
+            }
+            try {
+                final CoordinateReferenceSystem crs = factory.createCoordinateReferenceSystem(code);
+                if (!(crs instanceof Formattable)) {
+                    out.println(code + ": can't be formatted as WKT");
+                    continue;
+                }
+                final String wkt = ((Formattable) crs).toWKT(Formattable.SINGLE_LINE);
+                // make sure the definition can be read back
+                parser.parseCoordinateReferenceSystem(wkt);
+                definitions.put(key, crs);
+                wkts.put(key, wkt);
+            } catch (FactoryException | UnformattableObjectException | ParseException e) {
+                out.println(code + ": " + e.getLocalizedMessage());
+            }
+        }
+        final byte[][] records = new byte[wkts.size()][];
+        int i = 0;
+        for (final String wkt : wkts.values()) {
+            records[i++] = wkt.getBytes(StandardCharsets.UTF_8);
+        }
+        try (DataOutputStream stream =
+                new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            stream.writeInt(MAGIC);
+            stream.writeInt(VERSION);
+            stream.writeInt(records.length);
+            int offset = HEADER_LENGTH + records.length * ENTRY_LENGTH;
+            i = 0;
+            for (final Integer code : wkts.keySet()) {
+                final int length = BOUNDS_LENGTH + records[i++].length;
+                stream.writeInt(code);
+                stream.writeInt(offset);
+                stream.writeInt(length);
+                offset += length;
+            }
+            i = 0;
+            for (final CoordinateReferenceSystem crs : definitions.values()) {
+                final GeographicBoundingBox bounds = CRS.getGeographicBoundingBox(crs);
+                if (bounds != null) {
+                    stream.writeDouble(bounds.getWestBoundLongitude());
+                    stream.writeDouble(bounds.getEastBoundLongitude());
+                    stream.writeDouble(bounds.getSouthBoundLatitude());
+                    stream.writeDouble(bounds.getNorthBoundLatitude());
+                } else {
+                    for (int j = 0; j < 4; j++) {
+                        stream.writeDouble(Double.NaN);
+                    }
+                }
+                stream.write(records[i++]);
+            }
+        }
+        return records.length;
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2024, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.referencing.factory.epsg;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.text.MessageFormat;
+import java.util.Locale;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import org.geotools.api.metadata.citation.Citation;
+import org.geotools.api.referencing.FactoryException;
+import org.geotools.api.referencing.crs.CRSAuthorityFactory;
+import org.geotools.metadata.i18n.ErrorKeys;
+import org.geotools.metadata.i18n.LoggingKeys;
+import org.geotools.metadata.i18n.Loggings;
+import org.geotools.metadata.iso.citation.Citations;
+import org.geotools.referencing.ReferencingFactoryFinder;
+import org.geotools.referencing.factory.AbstractAuthorityFactory;
+import org.geotools.referencing.factory.DeferredAuthorityFactory;
+import org.geotools.referencing.factory.FactoryNotFoundException;
+import org.geotools.referencing.factory.ReferencingFactoryContainer;
+import org.geotools.util.Arguments;
+import org.geotools.util.factory.Hints;
+import org.geotools.util.logging.Logging;
+
+/**
+ * Authority factory for the EPSG {@linkplain
+ * org.geotools.api.referencing.crs.CoordinateReferenceSystem Coordinate Reference Systems} backed
+ * by a precomputed binary snapshot of the EPSG database. The snapshot is memory mapped and each
+ * code is resolved without any SQL engine, which avoids the creation of the EPSG database at
+ * startup.
+ *
+ * <p>The snapshot only keeps what the WKT carries, plus the domain of validity: remarks, scope,
+ * aliases and other metadata of the EPSG database are lost. For this reason the factory defaults to
+ * a priority lower than {@link ThreadedEpsgFactory}, and is only used when no SQL backed EPSG
+ * factory is available. Setting the {@value #PREFERRED} system property to {@code true} gives it a
+ * higher priority instead, trading the metadata for a faster startup. Codes not found in the
+ * snapshot are left to the other EPSG factories in either case.
+ *
+ * <p>The snapshot is a file named {@value #FILENAME}, searched in the directory given by the {@link
+ * Hints#CRS_AUTHORITY_EXTRA_DIRECTORY} hint, then in every {@code
+ * org/geotools/referencing/factory/epsg} directory found on the classpath. If no snapshot is found,
+ * the factory won't be activated.
+ *
+ * <p>A snapshot can be generated from the EPSG database found on the classpath with the {@linkplain
+ * #main main method}, for example:
+ *
+ * <blockquote>
+ *
+ * <pre>
+ * java org.geotools.referencing.factory.epsg.FactoryUsingSnapshot -write epsg.snapshot
+ * </pre>
+ *
+ * </blockquote>
+ *
+ * The snapshot contains the coordinate reference systems that can be formatted as <cite>Well Known
+ * Text</cite>, together with their domain of validity. It should be generated again whenever the
+ * EPSG database is upgraded.
+ */
+public class FactoryUsingSnapshot extends DeferredAuthorityFactory implements CRSAuthorityFactory {
+    /** The default filename of the snapshot. */
+    public static final String FILENAME = "epsg.snapshot";
+
+    /**
+     * The system property that, when set to {@code true}, makes this factory take precedence over
+     * the SQL backed factories.
+     */
+    public static final String PREFERRED = "org.geotools.referencing.epsg.snapshot.preferred";
+
+    /**
+     * Default priority for this factory. Lower than the SQL backed factories but higher than {@link
+     * FactoryUsingWKT}, unless the {@value #PREFERRED} system property is set, in which case the
+     * SQL backed factories are used only for the codes not found in the snapshot.
+     */
+    protected static final int DEFAULT_PRIORITY =
+            Boolean.getBoolean(PREFERRED)
+                    ? ThreadedEpsgFactory.PRIORITY + 5
+                    : ThreadedEpsgFactory.PRIORITY - 5;
+
+    /** The factories to be given to the backing store. */
+    private final ReferencingFactoryContainer factories;
+
+    /** Directory scanned for the snapshot. */
+    private final File directory;
+
+    /** Constructs an authority factory using the default set of factories. */
+    public FactoryUsingSnapshot() {
+        this(null);
+    }
+
+    /**
+     * Constructs an authority factory using a set of factories created from the specified hints.
+     * This constructor recognizes the {@link Hints#CRS_FACTORY CRS}, {@link Hints#CS_FACTORY CS},
+     * {@link Hints#DATUM_FACTORY DATUM} and {@link Hints#MATH_TRANSFORM_FACTORY MATH_TRANSFORM}
+     * {@code FACTORY} hints, in addition of {@link Hints#CRS_AUTHORITY_EXTRA_DIRECTORY}.
+     */
+    public FactoryUsingSnapshot(final Hints userHints) {
+        this(userHints, DEFAULT_PRIORITY);
+    }
+
+    /** Constructs an authority factory using the specified hints and priority. */
+    public FactoryUsingSnapshot(final Hints userHints, final int priority) {
+        super(userHints, priority);
+        factories = ReferencingFactoryContainer.instance(userHints);
+        Object hint = null;
+        if (userHints != null) {
+            hint = userHints.get(Hints.CRS_AUTHORITY_EXTRA_DIRECTORY);
+        }
+        if (hint instanceof File) {
+            directory = (File) hint;
+        } else if (hint instanceof String) {
+            directory = new File((String) hint);
+        } else {
+            directory = null;
+        }
+        if (directory != null) hints.put(Hints.CRS_AUTHORITY_EXTRA_DIRECTORY, directory);
+        // Releases the snapshot mapping after at least 15 minutes of inactivity.
+        setTimeout(15 * 60 * 1000L);
+    }
+
+    /** Returns the EPSG authority. */
+    @Override
+    public Citation getAuthority() {
+        return Citations.EPSG;
+    }
+
+    /**
+     * Returns the URL to the snapshot file. The default implementation searches for {@value
+     * #FILENAME} in the {@link Hints#CRS_AUTHORITY_EXTRA_DIRECTORY} directory, then on the
+     * classpath.
+     *
+     * @return The URL, or {@code null} if none.
+     */
+    protected URL getSnapshotURL() {
+        try {
+            if (directory != null) {
+                final File file = new File(directory, FILENAME);
+                if (file.isFile()) {
+                    return file.toURI().toURL();
+                }
+            }
+        } catch (SecurityException | MalformedURLException exception) {
+            Logging.unexpectedException(LOGGER, exception);
+        }
+        return FactoryUsingSnapshot.class.getResource(FILENAME);
+    }
+
+    /**
+     * Creates the backing store authority factory.
+     *
+     * @return The backing store to uses in {@code createXXX(...)} methods.
+     * @throws FactoryNotFoundException if the no {@value #FILENAME} file has been found.
+     * @throws FactoryException if the snapshot can't be read. This exception usually has an {@link
+     *     IOException} as its cause.
+     */
+    @Override
+    protected AbstractAuthorityFactory createBackingStore() throws FactoryException {
+        final URL url = getSnapshotURL();
+        if (url == null) {
+            throw new FactoryNotFoundException(
+                    MessageFormat.format(ErrorKeys.FILE_DOES_NOT_EXIST_$1, FILENAME));
+        }
+        try {
+            final EpsgSnapshot snapshot = EpsgSnapshot.open(url);
+            final LogRecord record =
+                    Loggings.format(
+                            Level.CONFIG,
+                            LoggingKeys.USING_FILE_AS_FACTORY_$2,
+                            url.getPath(),
+                            "EPSG");
+            record.setLoggerName(LOGGER.getName());
+            LOGGER.log(record);
+            return new SnapshotEpsgFactory(factories, priority, snapshot);
+        } catch (IOException exception) {
+            throw new FactoryException(
+                    MessageFormat.format(ErrorKeys.CANT_READ_$1, url), exception);
+        }
+    }
+
+    /**
+     * Writes a snapshot of the EPSG database registered in {@link ReferencingFactoryFinder}. This
+     * method can be invoked from the command line. Valid arguments are:
+     *
+     * <p>
+     *
+     * <table>
+     *   <tr><td>{@code -write <file>}</td><td>The snapshot file to write.</td></tr>
+     * </table>
+     *
+     * The codes that can't be included in the snapshot are reported on the standard output.
+     *
+     * @param args Command line arguments.
+     * @throws FactoryException if an error occured while reading the EPSG database.
+     * @throws IOException if an error occured while writing the snapshot.
+     */
+    public static void main(final String... args) throws FactoryException, IOException {
+        final Arguments arguments = new Arguments(args);
+        Locale.setDefault(arguments.locale);
+        final File file = new File(arguments.getRequiredString("-write"));
+        arguments.getRemainingArguments(0);
+        final ThreadedEpsgFactory factory =
+                (ThreadedEpsgFactory)
+                        ReferencingFactoryFinder.getCRSAuthorityFactory(
+                                "EPSG",
+                                new Hints(Hints.CRS_AUTHORITY_FACTORY, ThreadedEpsgFactory.class));
+        final int count = EpsgSnapshot.write(factory, file, arguments.out);
+        arguments.out.println(count + " coordinate reference systems written to " + file);
+        arguments.out.flush();
+        factory.dispose();
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2024, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.referencing.factory.epsg;
+
+import java.text.ParseException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import org.geotools.api.metadata.citation.Citation;
+import org.geotools.api.metadata.extent.GeographicBoundingBox;
+import org.geotools.api.referencing.FactoryException;
+import org.geotools.api.referencing.IdentifiedObject;
+import org.geotools.api.referencing.NoSuchAuthorityCodeException;
+import org.geotools.api.referencing.crs.CRSAuthorityFactory;
+import org.geotools.api.referencing.crs.CoordinateReferenceSystem;
+import org.geotools.api.util.InternationalString;
+import org.geotools.metadata.iso.citation.Citations;
+import org.geotools.metadata.iso.extent.ExtentImpl;
+import org.geotools.referencing.factory.DirectAuthorityFactory;
+import org.geotools.referencing.factory.ReferencingFactoryContainer;
+import org.geotools.referencing.wkt.Symbols;
+import org.geotools.util.SimpleInternationalString;
+import org.geotools.util.factory.Hints;
+
+/**
+ * Authority factory for the EPSG coordinate reference systems stored in an {@link EpsgSnapshot}.
+ * This is the backing store of {@link FactoryUsingSnapshot}.
+ *
+ * <p>This factory doesn't cache any result. Any call to a {@code createFoo} method will trig a new
+ * WKT parsing. For caching, this factory should be wrapped in some buffered factory.
+ */
+final class SnapshotEpsgFactory extends DirectAuthorityFactory implements CRSAuthorityFactory {
+    /** The snapshot to read the definitions from. */
+    private final EpsgSnapshot snapshot;
+
+    /** The authority codes, filtered by type. Will be created only when first needed. */
+    private final Map<Class<? extends IdentifiedObject>, Set<String>> filteredCodes =
+            new HashMap<>();
+
+    /** A WKT parser. */
+    private Parser parser;
+
+    /**
+     * Creates a factory reading the definitions from the given snapshot.
+     *
+     * @param factories The underlying factories used for objects creation.
+     * @param priority The priority for this factory.
+     * @param snapshot The snapshot to read the definitions from.
+     */
+    SnapshotEpsgFactory(
+            final ReferencingFactoryContainer factories,
+            final int priority,
+            final EpsgSnapshot snapshot) {
+        super(factories, priority);
+        this.snapshot = snapshot;
+        // The snapshot contains the CRS as defined in the EPSG database.
+        hints.put(Hints.FORCE_LONGITUDE_FIRST_AXIS_ORDER, Boolean.FALSE);
+        hints.put(Hints.FORCE_STANDARD_AXIS_DIRECTIONS, Boolean.FALSE);
+        hints.put(Hints.FORCE_STANDARD_AXIS_UNITS, Boolean.FALSE);
+    }
+
+    /** Returns the EPSG authority. */
+    @Override
+    public Citation getAuthority() {
+        return Citations.EPSG;
+    }
+
+    /**
+     * Returns the set of authority codes of the given type. Filtering is performed on the WKT
+     * keyword of each definition, without parsing the whole WKT.
+     *
+     * @param type The spatial reference objects type (may be {@code Object.class}).
+     * @return The set of authority codes for spatial reference objects of the given type.
+     */
+    @Override
+    public Set<String> getAuthorityCodes(final Class<? extends IdentifiedObject> type) {
+        synchronized (filteredCodes) {
+            Set<String> codes = filteredCodes.get(type);
+            if (codes == null) {
+                final boolean all = (type == null || type.isAssignableFrom(IdentifiedObject.class));
+                codes = new LinkedHashSet<>();
+                for (int i = 0; i < snapshot.size(); i++) {
+                    if (!all) {
+                        Class<?> candidate = Parser.getClassOf(snapshot.getKeyword(i));
+                        if (candidate == null || !type.isAssignableFrom(candidate)) {
+                            continue;
+                        }
+                    }
+                    codes.add(String.valueOf(snapshot.getCode(i)));
+                }
+                codes = Collections.unmodifiableSet(codes);
+                filteredCodes.put(type, codes);
+            }
+            return codes;
+        }
+    }
+
+    /**
+     * Returns the index in the snapshot of the given code.
+     *
+     * @throws NoSuchAuthorityCodeException if the specified {@code code} was not found.
+     */
+    private int indexOf(final String code) throws NoSuchAuthorityCodeException {
+        ensureNonNull("code", code);
+        int index = -1;
+        try {
+            index = snapshot.indexOf(Integer.parseInt(trimAuthority(code)));
+        } catch (NumberFormatException e) {
+            // Not an EPSG code, will be reported below.
+        }
+        if (index < 0) {
+            throw noSuchAuthorityCode(CoordinateReferenceSystem.class, code);
+        }
+        return index;
+    }
+
+    /**
+     * Gets a description of the object corresponding to a code.
+     *
+     * @param code Value allocated by authority.
+     * @return A description of the object, or {@code null} if the object corresponding to the
+     *     specified {@code code} has no description.
+     * @throws NoSuchAuthorityCodeException if the specified {@code code} was not found.
+     */
+    @Override
+    public InternationalString getDescriptionText(final String code)
+            throws NoSuchAuthorityCodeException {
+        final String wkt = snapshot.getWKT(indexOf(code));
+        int start = wkt.indexOf('"');
+        if (start >= 0) {
+            final int end = wkt.indexOf('"', ++start);
+            if (end >= 0) {
+                return new SimpleInternationalString(wkt.substring(start, end).trim());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns an arbitrary object from a code. Since this factory contains only coordinate
+     * reference systems, this is the same as {@link #createCoordinateReferenceSystem}.
+     *
+     * @param code Value allocated by authority.
+     * @throws NoSuchAuthorityCodeException if the specified {@code code} was not found.
+     * @throws FactoryException if the object creation failed for some other reason.
+     */
+    @Override
+    public IdentifiedObject createObject(final String code)
+            throws NoSuchAuthorityCodeException, FactoryException {
+        return createCoordinateReferenceSystem(code);
+    }
+
+    /**
+     * Returns a coordinate reference system from a code.
+     *
+     * @param code Value allocated by authority.
+     * @throws NoSuchAuthorityCodeException if the specified {@code code} was not found.
+     * @throws FactoryException if the object creation failed for some other reason.
+     */
+    @Override
+    public synchronized CoordinateReferenceSystem createCoordinateReferenceSystem(final String code)
+            throws NoSuchAuthorityCodeException, FactoryException {
+        final int index = indexOf(code);
+        if (parser == null) {
+            parser = new Parser();
+        }
+        try {
+            parser.bounds = snapshot.getBounds(index);
+            return parser.parseCoordinateReferenceSystem(snapshot.getWKT(index));
+        } catch (ParseException exception) {
+            throw new FactoryException(exception);
+        } finally {
+            parser.bounds = null;
+        }
+    }
+
+    /**
+     * The WKT parser for this authority factory. This parser restores the domain of validity of the
+     * parsed CRS, which is not part of the WKT.
+     */
+    private final class Parser extends org.geotools.referencing.wkt.Parser {
+        /** For cross-version compatibility. */
+        private static final long serialVersionUID = 2916218541718383734L;
+
+        /** The domain of validity of the CRS to be parsed, or {@code null} if unknown. */
+        GeographicBoundingBox bounds;
+
+        /** Creates the parser. */
+        public Parser() {
+            super(Symbols.DEFAULT, factories);
+        }
+
+        /** Adds the domain of validity to the root element properties. */
+        @Override
+        protected Map<String, Object> alterProperties(Map<String, Object> properties) {
+            if (bounds != null) {
+                final ExtentImpl extent = new ExtentImpl();
+                extent.getGeographicElements().add(bounds);
+                properties = new HashMap<>(properties);
+                properties.put(
+                        CoordinateReferenceSystem.DOMAIN_OF_VALIDITY_KEY, extent.unmodifiable());
+            }
+            return super.alterProperties(properties);
+        }
+    }
+}
@@ -19,22 +19,23 @@
 import java.io.BufferedReader;
 import java.io.EOFException;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.URL;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
-import java.nio.channels.Channels;
-import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.text.MessageFormat;
 import java.util.StringTokenizer;
 import java.util.logging.Logger;
 import org.geotools.api.referencing.FactoryException;
 import org.geotools.metadata.i18n.ErrorKeys;
 import org.geotools.referencing.factory.ReferencingFactory;
-import org.geotools.util.SoftValueHashMap;
+import org.geotools.util.NIOUtilities;
+import org.geotools.util.ObjectCache;
+import org.geotools.util.ObjectCaches;
 import org.geotools.util.URLs;
 import org.geotools.util.factory.BufferedFactory;
 import org.geotools.util.logging.Logging;
@@ -82,36 +83,59 @@ public boolean equals(Object obj) {
         }
     }
 
-    /** The number of hard references to hold internally. */
-    private static final int GRID_CACHE_HARD_REFERENCES = 10;
+    /** The initial capacity of the grid cache. */
+    private static final int GRID_CACHE_SIZE = 10;
 
     /** Logger. */
     protected static final Logger LOGGER = Logging.getLogger(NADCONGridShiftFactory.class);
 
-    /** The soft cache that holds loaded grids. */
-    private SoftValueHashMap<NADCONKey, NADConGridShift> gridCache;
+    /**
+     * The soft cache that holds loaded grids. Lookups do not lock, loading a grid only locks its
+     * own key.
+     */
+    private ObjectCache<NADCONKey, NADConGridShift> gridCache;
+
+    /** The most recently used grids, kept in memory whatever the memory pressure */
+    private final RecentGrids<NADCONKey, NADConGridShift> recentGrids =
+            new RecentGrids<>(GRID_CACHE_SIZE);
 
     /** Constructs a factory with the default priority. */
     public NADCONGridShiftFactory() {
-        gridCache = new SoftValueHashMap<>(GRID_CACHE_HARD_REFERENCES);
+        gridCache = ObjectCaches.create("soft", GRID_CACHE_SIZE);
     }
 
     public NADConGridShift loadGridShift(URL latGridURL, URL longGridURL) throws FactoryException {
         NADCONKey key = new NADCONKey(latGridURL.toExternalForm(), longGridURL.toExternalForm());
-        synchronized (gridCache) { // Prevent simultaneous threads trying to load same grid
-            NADConGridShift grid = gridCache.get(key);
-            if (grid != null) { // Cached:
-                return grid; // - Return
-            } else { // Not cached:
-                grid = loadGridShiftInternal(latGridURL, longGridURL); // - Load
-                if (grid != null) {
-                    gridCache.put(key, grid); // - Cache
-                    return grid; // - Return
+        NADConGridShift grid = recentGrids.get(key);
+        if (grid != null) {
+            return grid;
+        }
+        grid = gridCache.get(key);
+        if (grid == null) {
+            try {
+                // Prevent simultaneous threads trying to load the same grid
+                gridCache.writeLock(key);
+                grid = gridCache.peek(key);
+                if (grid == null) {
+                    grid = loadGridShiftInternal(latGridURL, longGridURL);
+                    if (grid == null) {
+                        throw new FactoryException(
+                                "NTv2 Grid "
+                                        + latGridURL
+                                        + ", "
+                                        + longGridURL
+                                        + " could not be created.");
+                    }
+                    gridCache.put(key, grid);
                 }
+            } finally {
+                gridCache.writeUnLock(key);
             }
-            throw new FactoryException(
-                    "NTv2 Grid " + latGridURL + ", " + longGridURL + " could not be created.");
         }
+        if (grid != null) {
+            recentGrids.put(key, grid);
+        }
+        return grid;
     }
 
     private NADConGridShift loadGridShiftInternal(URL latGridURL, URL longGridURL)
@@ -155,6 +179,10 @@ private NADConGridShift loadGridShiftInternal(URL latGridURL, URL longGridURL)
      * organized from low y (latitude) to high and columns are orderd from low longitude to high.
      * Everything is written in low byte order.
      *
+     * <p>Local files are memory mapped instead of being read whole in a temporary heap buffer. The
+     * shift values are still copied in the arrays of the {@link NADConGridShift}, the mappings are
+     * only used while loading and are released as soon as the grid has been filled.
+     *
      * @param latGridUrl URL to the binary latitude shift file (.las extention).
      * @param longGridUrl URL to the binary longitude shift file (.los extention).
      * @throws IOException if the data files cannot be read.
@@ -165,17 +193,18 @@ private NADConGridShift loadBinaryGrid(final URL latGridUrl, final URL longGridU
         final int HEADER_BYTES = 96;
         final int SEPARATOR_BYTES = 4;
         final int DESCRIPTION_LENGTH = 64;
-        NADConGridShift gridShift = null;
-        ByteBuffer latBuffer;
-        ByteBuffer longBuffer;
 
-        try (ReadableByteChannel latChannel = getReadChannel(latGridUrl);
-                ReadableByteChannel longChannel = getReadChannel(longGridUrl)) {
+        ByteBuffer latBuffer = null;
+        ByteBuffer longBuffer = null;
+        try {
             // //////////////////////
             // setup
             // //////////////////////
-            latBuffer = fillBuffer(latChannel, HEADER_BYTES);
-            longBuffer = fillBuffer(longChannel, HEADER_BYTES);
+            latBuffer = getBuffer(latGridUrl);
+            longBuffer = getBuffer(longGridUrl);
+            if (latBuffer.remaining() < HEADER_BYTES || longBuffer.remaining() < HEADER_BYTES) {
+                throw new EOFException(ErrorKeys.END_OF_DATA_FILE);
+            }
 
             // //////////////////////
             // read header info
@@ -215,16 +244,15 @@ private NADConGridShift loadBinaryGrid(final URL latGridUrl, final URL longGridU
             // read grid shift data into LocalizationGrid
             // //////////////////////
             final int RECORD_LENGTH = (nc * 4) + SEPARATOR_BYTES;
-            final int NUM_BYTES_LEFT = ((nr + 1) * RECORD_LENGTH) - HEADER_BYTES;
-            final int START_OF_DATA = RECORD_LENGTH - HEADER_BYTES;
-
-            latBuffer = fillBuffer(latChannel, NUM_BYTES_LEFT);
-            latBuffer.position(START_OF_DATA); // start of second record (data)
+            final long FILE_LENGTH = (nr + 1L) * RECORD_LENGTH;
+            if (latBuffer.limit() < FILE_LENGTH || longBuffer.limit() < FILE_LENGTH) {
+                throw new EOFException(ErrorKeys.END_OF_DATA_FILE);
+            }
 
-            longBuffer = fillBuffer(longChannel, NUM_BYTES_LEFT);
-            longBuffer.position(START_OF_DATA);
+            latBuffer.position(RECORD_LENGTH); // start of second record (data)
+            longBuffer.position(RECORD_LENGTH);
 
-            gridShift = new NADConGridShift(xmin, ymin, xmax, ymax, dx, dy, nc, nr);
+            NADConGridShift gridShift = new NADConGridShift(xmin, ymin, xmax, ymax, dx, dy, nc, nr);
 
             int i = 0;
             int j = 0;
@@ -240,71 +268,27 @@ private NADConGridShift loadBinaryGrid(final URL latGridUrl, final URL longGridU
 
             assert i == nr : i;
             assert j == nc : j;
-        }
 
-        return gridShift;
-    }
-
-    /**
-     * Returns a new bytebuffer, of numBytes length and little endian byte order, filled from the
-     * channel.
-     *
-     * @param channel the channel to fill the buffer from
-     * @param numBytes number of bytes to read
-     * @return a new bytebuffer filled from the channel
-     * @throws IOException if there is a problem reading the channel
-     * @throws EOFException if the end of the channel is reached
-     */
-    private ByteBuffer fillBuffer(ReadableByteChannel channel, int numBytes) throws IOException {
-        ByteBuffer buf = ByteBuffer.allocate(numBytes);
-
-        if (fill(buf, channel) == -1) {
-            throw new EOFException(ErrorKeys.END_OF_DATA_FILE);
-        }
-
-        buf.flip();
-        buf.order(ByteOrder.LITTLE_ENDIAN);
-
-        return buf;
-    }
-
-    /**
-     * Fills the bytebuffer from the channel. Code was lifted from ShapefileDataStore.
-     *
-     * @param buffer bytebuffer to fill from the channel
-     * @param channel channel to fill the buffer from
-     * @return number of bytes read
-     * @throws IOException if there is a problem reading the channel
-     */
-    private int fill(ByteBuffer buffer, ReadableByteChannel channel) throws IOException {
-        int r = buffer.remaining();
-
-        // channel reads return -1 when EOF or other error
-        // because they a non-blocking reads, 0 is a valid return value!!
-        while ((buffer.remaining() > 0) && (r != -1)) {
-            r = channel.read(buffer);
-        }
-
-        if (r == -1) {
-            buffer.limit(buffer.position());
+            return gridShift;
+        } finally {
+            // release the mappings right away, otherwise the files would stay locked
+            // on some operating systems until the buffers are garbage collected
+            NIOUtilities.clean(latBuffer);
+            NIOUtilities.clean(longBuffer);
         }
-
-        return r;
     }
 
     /**
-     * Obtain a ReadableByteChannel from the given URL. If the url protocol is file, a FileChannel
-     * will be returned. Otherwise a generic channel will be obtained from the urls input stream.
-     * Code swiped from ShapefileDataStore.
+     * Returns a little endian bytebuffer with the whole content of the given URL. If the url
+     * protocol is file, the file is memory mapped. Otherwise the content is read from the url input
+     * stream in a heap buffer.
      *
-     * @param url URL to create the channel from
-     * @return a new PeadableByteChannel from the input url
-     * @throws IOException if there is a problem creating the channel
+     * @param url URL to read
+     * @return a bytebuffer positioned at the start of the data
+     * @throws IOException if there is a problem reading the url
      */
-    @SuppressWarnings("PMD.CloseResource") // returns a Channel, cannot close its input stream
-    private ReadableByteChannel getReadChannel(URL url) throws IOException {
-        ReadableByteChannel channel = null;
-
+    private ByteBuffer getBuffer(URL url) throws IOException {
+        final ByteBuffer buffer;
         if (url.getProtocol().equals("file")) {
             File file = URLs.urlToFile(url);
 
@@ -312,14 +296,18 @@ private ReadableByteChannel getReadChannel(URL url) throws IOException {
                 throw new IOException(MessageFormat.format(ErrorKeys.FILE_DOES_NOT_EXIST_$1, file));
             }
 
-            FileInputStream in = new FileInputStream(file);
-            channel = in.getChannel();
+            // the mapping stays valid after the channel is closed
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
         } else {
-            InputStream in = url.openConnection().getInputStream();
-            channel = Channels.newChannel(in);
+            try (InputStream in = url.openConnection().getInputStream()) {
+                buffer = ByteBuffer.wrap(in.readAllBytes());
+            }
         }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
 
-        return channel;
+        return buffer;
     }
 
     /**
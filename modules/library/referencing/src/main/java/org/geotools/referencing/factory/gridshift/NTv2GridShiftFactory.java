@@ -29,7 +29,8 @@
 import org.geotools.api.referencing.FactoryException;
 import org.geotools.metadata.i18n.ErrorKeys;
 import org.geotools.referencing.factory.ReferencingFactory;
-import org.geotools.util.SoftValueHashMap;
+import org.geotools.util.ObjectCache;
+import org.geotools.util.ObjectCaches;
 import org.geotools.util.URLs;
 import org.geotools.util.factory.AbstractFactory;
 import org.geotools.util.factory.BufferedFactory;
@@ -44,19 +45,26 @@
  */
 public class NTv2GridShiftFactory extends ReferencingFactory implements BufferedFactory {
 
-    /** The number of hard references to hold internally. */
-    private static final int GRID_CACHE_HARD_REFERENCES = 10;
+    /** The initial capacity of the grid cache. */
+    private static final int GRID_CACHE_SIZE = 10;
 
     /** Logger. */
     protected static final Logger LOGGER = Logging.getLogger(NTv2GridShiftFactory.class);
 
-    /** The soft cache that holds loaded grids. */
-    private SoftValueHashMap<String, GridShiftFile> ntv2GridCache;
+    /**
+     * The soft cache that holds loaded grids. Lookups do not lock, loading a grid only locks its
+     * own key.
+     */
+    private ObjectCache<String, GridShiftFile> ntv2GridCache;
+
+    /** The most recently used grids, kept in memory whatever the memory pressure */
+    private final RecentGrids<String, GridShiftFile> recentGrids =
+            new RecentGrids<>(GRID_CACHE_SIZE);
 
     /** Constructs a factory with the default priority. */
     public NTv2GridShiftFactory() {
         super();
-        ntv2GridCache = new SoftValueHashMap<>(GRID_CACHE_HARD_REFERENCES);
+        ntv2GridCache = ObjectCaches.create("soft", GRID_CACHE_SIZE);
     }
 
     /**
@@ -68,7 +76,7 @@ public NTv2GridShiftFactory() {
      */
     public NTv2GridShiftFactory(final int priority) {
         super(priority);
-        ntv2GridCache = new SoftValueHashMap<>(GRID_CACHE_HARD_REFERENCES);
+        ntv2GridCache = ObjectCaches.create("soft", GRID_CACHE_SIZE);
     }
 
     /**
@@ -79,6 +87,11 @@ public NTv2GridShiftFactory(final int priority) {
      */
     public boolean isNTv2Grid(URL location) {
         if (location != null) {
+            // Already loaded grids are known to be valid
+            String key = location.toExternalForm();
+            if (recentGrids.get(key) != null || ntv2GridCache.get(key) != null) {
+                return true;
+            }
             return isNTv2GridFileValid(location); // Check
         } else {
             return false;
@@ -97,21 +110,33 @@ public GridShiftFile createNTv2Grid(URL gridLocation) throws FactoryException {
             throw new FactoryException("The grid location must be not null");
         }
 
-        synchronized (ntv2GridCache) { // Prevent simultaneous threads trying to load same grid
-            GridShiftFile grid = ntv2GridCache.get(gridLocation.toExternalForm());
-            if (grid != null) { // Cached:
-                return grid; // - Return
-            } else { // Not cached:
-                if (gridLocation != null) {
-                    grid = loadNTv2Grid(gridLocation); // - Load
-                    if (grid != null) {
-                        ntv2GridCache.put(gridLocation.toExternalForm(), grid); // - Cache
-                        return grid; // - Return
+        final String key = gridLocation.toExternalForm();
+        GridShiftFile grid = recentGrids.get(key);
+        if (grid != null) {
+            return grid;
+        }
+        grid = ntv2GridCache.get(key);
+        if (grid == null) {
+            try {
+                // Prevent simultaneous threads trying to load the same grid
+                ntv2GridCache.writeLock(key);
+                grid = ntv2GridCache.peek(key);
+                if (grid == null) {
+                    grid = loadNTv2Grid(gridLocation);
+                    if (grid == null) {
+                        throw new FactoryException(
+                                "NTv2 Grid " + gridLocation + " could not be created.");
                     }
+                    ntv2GridCache.put(key, grid);
                 }
-                throw new FactoryException("NTv2 Grid " + gridLocation + " could not be created.");
+            } finally {
+                ntv2GridCache.writeUnLock(key);
             }
         }
+        if (grid != null) {
+            recentGrids.put(key, grid);
+        }
+        return grid;
     }
 
     /**
@@ -0,0 +1,51 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2024, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.referencing.factory.gridshift;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Strong references to the most recently used grids, sitting in front of the soft grid caches so
+ * that the grids in use are not collected, and parsed again, under memory pressure.
+ */
+class RecentGrids<K, V> {
+
+    private final Map<K, V> grids;
+
+    RecentGrids(int size) {
+        this.grids =
+                new LinkedHashMap<K, V>(size * 2, 0.75f, true) {
+                    private static final long serialVersionUID = 1L;
+
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                        return size() > size;
+                    }
+                };
+    }
+
+    /** Returns the grid, marking it as the most recently used one, or null if not held */
+    synchronized V get(K key) {
+        return grids.get(key);
+    }
+
+    /** Holds the grid, releasing the least recently used one if full */
+    synchronized void put(K key, V grid) {
+        grids.put(key, grid);
+    }
+}
@@ -20,6 +20,8 @@
 import java.awt.geom.Point2D;
 import java.io.Serializable;
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
 import org.geotools.api.geometry.Position;
 import org.geotools.api.parameter.ParameterValueGroup;
 import org.geotools.api.referencing.operation.MathTransform;
@@ -156,57 +158,18 @@ public static MathTransform create(MathTransform tr1, MathTransform tr2) {
             return mt;
         }
         /*
-         * If at least one math transform is an instance of ConcatenatedTransform and assuming
-         * that MathTransforms are associatives, tries the following arrangements and select
-         * one one with the fewest amount of steps:
-         *
-         *   Assuming :  tr1 = (A * B)
-         *               tr2 = (C * D)
-         *
-         *   Current  :  (A * B) * (C * D)     Will be the selected one if nothing better.
-         *   Try k=0  :  A * (B * (C * D))     Implies A * ((B * C) * D) through recursivity.
-         *   Try k=1  :  ((A * B) * C) * D     Implies (A * (B * C)) * D through recursivity.
-         *   Try k=2  :                        Tried only if try k=1 changed something.
-         *
-         * TODO: The same combination may be computed more than once (e.g. (B * C) above).
-         *       Should not be a big deal if there is not two many steps. In the even where
-         *       it would appears a performance issue, we could maintains a Map of combinations
-         *       already computed. The map would be local to a "create" method execution.
+         * If at least one math transform is an instance of ConcatenatedTransform, flattens both
+         * of them into a single list of steps and merges every adjacent pair that can be merged
+         * (linear steps, inverse pairs, etc.). This is performed in a single pass over the steps
+         * instead of trying every possible association of them, which would compute the same
+         * combinations many times for long chains like affine, projection, affine, geocentric,
+         * affine.
          */
-        int stepCount = getStepCount(tr1) + getStepCount(tr2);
-        boolean tryAgain = true; // Really 'true' because we want at least 2 iterations.
-        for (int k = 0; ; k++) {
-            MathTransform c1 = tr1;
-            MathTransform c2 = tr2;
-            final boolean first = (k & 1) == 0;
-            MathTransform candidate = first ? c1 : c2;
-            while (candidate instanceof ConcatenatedTransform) {
-                final ConcatenatedTransform ctr = (ConcatenatedTransform) candidate;
-                if (first) {
-                    c1 = candidate = ctr.transform1;
-                    c2 = create(ctr.transform2, c2);
-                } else {
-                    c1 = create(c1, ctr.transform1);
-                    c2 = candidate = ctr.transform2;
-                }
-                final int c = getStepCount(c1) + getStepCount(c2);
-                if (c < stepCount) {
-                    tr1 = c1;
-                    tr2 = c2;
-                    stepCount = c;
-                    tryAgain = true;
-                }
-            }
-            if (!tryAgain) break;
-            tryAgain = false;
-        }
-        /*
-         * Tries again the check for optimized cases (identity, etc.), because a
-         * transform may have been simplified to identity as a result of the above.
-         */
-        mt = createOptimized(tr1, tr2);
-        if (mt != null) {
-            return mt;
+        if (tr1 instanceof ConcatenatedTransform || tr2 instanceof ConcatenatedTransform) {
+            final List<MathTransform> steps = new ArrayList<>();
+            addSteps(steps, tr1);
+            addSteps(steps, tr2);
+            return createChain(steps);
         }
         /*
          * Can't avoid the creation of a ConcatenatedTransform object.
@@ -215,6 +178,44 @@ public static MathTransform create(MathTransform tr1, MathTransform tr2) {
         return createConcatenatedTransform(tr1, tr2);
     }
 
+    /**
+     * Adds the steps of the given transform to the given list. If the transform is a {@link
+     * ConcatenatedTransform}, then its steps are added recursively in order to get a flat list.
+     */
+    private static void addSteps(final List<MathTransform> steps, final MathTransform transform) {
+        if (transform instanceof ConcatenatedTransform) {
+            final ConcatenatedTransform ctr = (ConcatenatedTransform) transform;
+            addSteps(steps, ctr.transform1);
+            addSteps(steps, ctr.transform2);
+        } else {
+            steps.add(transform);
+        }
+    }
+
+    /**
+     * Creates a transform for the given flat list of steps. Adjacent steps are merged using {@link
+     * #createOptimized} until no more simplification is possible, then the remaining steps are
+     * concatenated from left to right. The given list is modified by this method.
+     */
+    private static MathTransform createChain(final List<MathTransform> steps) {
+        for (int i = 0; i < steps.size() - 1; ) {
+            final MathTransform merged = createOptimized(steps.get(i), steps.get(i + 1));
+            if (merged != null && !(merged instanceof ConcatenatedTransform)) {
+                steps.set(i, merged);
+                steps.remove(i + 1);
+                // The merged step may now be mergeable with the previous one.
+                if (i != 0) i--;
+            } else {
+                i++;
+            }
+        }
+        MathTransform chain = steps.get(0);
+        for (int i = 1; i < steps.size(); i++) {
+            chain = createConcatenatedTransform(chain, steps.get(i));
+        }
+        return chain;
+    }
+
     /**
      * Tries to returns an optimized concatenation, for example by merging to affine transforms into
      * a single one. If no optimized cases has been found, returns {@code null}. In the later case,
@@ -0,0 +1,105 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2024, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.referencing.factory.epsg;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Set;
+import org.geotools.api.referencing.NoSuchAuthorityCodeException;
+import org.geotools.api.referencing.crs.CoordinateReferenceSystem;
+import org.geotools.api.referencing.crs.GeographicCRS;
+import org.geotools.api.referencing.crs.ProjectedCRS;
+import org.geotools.referencing.CRS;
+import org.geotools.referencing.ReferencingFactoryFinder;
+import org.geotools.util.factory.Hints;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** Tests {@link FactoryUsingSnapshot} against a snapshot of the {@link FactoryUsingWKT} codes. */
+public final class FactoryUsingSnapshotTest {
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    /** The factory the snapshot is written from. */
+    private FactoryUsingWKT source;
+
+    /** The factory to test. */
+    private FactoryUsingSnapshot factory;
+
+    /** Writes the snapshot and creates the factory reading it. */
+    @Before
+    public void setUp() throws Exception {
+        source =
+                (FactoryUsingWKT)
+                        ReferencingFactoryFinder.getCRSAuthorityFactory(
+                                "EPSG",
+                                new Hints(Hints.CRS_AUTHORITY_FACTORY, FactoryUsingWKT.class));
+        final File directory = folder.getRoot();
+        final StringWriter report = new StringWriter();
+        final int count =
+                EpsgSnapshot.write(
+                        source,
+                        new File(directory, FactoryUsingSnapshot.FILENAME),
+                        new PrintWriter(report));
+        assertTrue(report.toString(), count > 0);
+        factory =
+                new FactoryUsingSnapshot(new Hints(Hints.CRS_AUTHORITY_EXTRA_DIRECTORY, directory));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        factory.dispose();
+    }
+
+    /** Tests that the codes and definitions read from the snapshot match the original ones. */
+    @Test
+    public void testRoundTrip() throws Exception {
+        assertTrue(factory.isAvailable());
+        final Set<String> codes = factory.getAuthorityCodes(CoordinateReferenceSystem.class);
+        assertTrue(codes.contains("42101"));
+        assertTrue(factory.getAuthorityCodes(ProjectedCRS.class).contains("42101"));
+        assertFalse(factory.getAuthorityCodes(GeographicCRS.class).contains("42101"));
+
+        final CoordinateReferenceSystem expected = source.createCoordinateReferenceSystem("42101");
+        final CoordinateReferenceSystem actual =
+                factory.createCoordinateReferenceSystem("EPSG:42101");
+        assertTrue(actual instanceof ProjectedCRS);
+        assertTrue(CRS.equalsIgnoreMetadata(expected, actual));
+        assertEquals(expected.getName().getCode(), factory.getDescriptionText("42101").toString());
+        assertNotNull(CRS.lookupIdentifier(actual, false));
+    }
+
+    /** Tests that codes missing from the snapshot are reported as such. */
+    @Test
+    public void testMissingCode() throws Exception {
+        try {
+            factory.createCoordinateReferenceSystem("EPSG:1");
+            fail("EPSG:1 is not in the snapshot");
+        } catch (NoSuchAuthorityCodeException expected) {
+            assertEquals("EPSG:1", expected.getAuthorityCode());
+        }
+    }
+}
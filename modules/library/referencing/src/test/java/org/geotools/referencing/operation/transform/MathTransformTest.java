@@ -43,6 +43,7 @@
 import org.geotools.referencing.ReferencingFactoryFinder;
 import org.geotools.referencing.WKT;
 import org.geotools.referencing.crs.DefaultGeographicCRS;
+import org.geotools.referencing.datum.DefaultEllipsoid;
 import org.geotools.referencing.operation.DefaultMathTransformFactory;
 import org.geotools.referencing.operation.LinearTransform;
 import org.geotools.referencing.operation.matrix.GeneralMatrix;
@@ -248,6 +249,39 @@ public void testAffineTransformConcatenation() throws FactoryException, Transfor
         }
     }
 
+    /**
+     * Tests that nested concatenated transforms are flattened, and that linear steps which become
+     * adjacent after the removal of an inverse pair are merged in a single step.
+     */
+    @Test
+    public void testNestedConcatenationSimplification()
+            throws FactoryException, TransformException {
+        final MathTransform geocentric = new GeocentricTransform(DefaultEllipsoid.WGS84, true);
+        final XMatrix matrix = MatrixFactory.create(4);
+        matrix.setElement(0, 0, 2);
+        matrix.setElement(1, 3, 10);
+        final MathTransform scale = factory.createAffineTransform(matrix);
+        final MathTransform unscale = scale.inverse();
+        // scale -> geocentric -> scale
+        final MathTransform first =
+                factory.createConcatenatedTransform(
+                        factory.createConcatenatedTransform(scale, geocentric), scale);
+        // unscale -> inverse geocentric -> scale
+        final MathTransform second =
+                factory.createConcatenatedTransform(
+                        factory.createConcatenatedTransform(unscale, geocentric.inverse()), scale);
+        assertEquals(3, ((ConcatenatedTransform) first).getStepCount());
+        assertEquals(3, ((ConcatenatedTransform) second).getStepCount());
+        final MathTransform concatenated = factory.createConcatenatedTransform(first, second);
+        assertTrue(concatenated instanceof LinearTransform);
+        final double[] source = {10, 45, 100};
+        final double[] target = new double[3];
+        concatenated.transform(source, 0, target, 0, 1);
+        assertEquals(40, target[0], 1E-9);
+        assertEquals(65, target[1], 1E-9);
+        assertEquals(100, target[2], 1E-9);
+    }
+
     /**
      * Make sure that linear transformation preserve NaN values. This is required for {@link
      * org.geotools.coverage.Category}.
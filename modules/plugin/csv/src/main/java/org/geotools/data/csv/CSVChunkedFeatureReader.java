@@ -0,0 +1,340 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2024, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.csv;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.geotools.api.data.FeatureReader;
+import org.geotools.api.feature.simple.SimpleFeature;
+import org.geotools.api.feature.simple.SimpleFeatureType;
+import org.geotools.data.csv.parse.CSVStrategy;
+
+/**
+ * Reads a CSV file split in chunks of records decoded concurrently, each thread using its own
+ * {@link CSVRecordDecoder}.
+ *
+ * <p>The file is read sequentially and split at record ends, telling them apart from line ends in
+ * quoted values, which is much cheaper than parsing the records. Features get the same ids as with
+ * {@link CSVFeatureReader}, and are returned in file order unless {@link #setOrdered(boolean)} is
+ * set to false, in which case the chunks are returned as soon as they are decoded. As with {@link
+ * CSVFeatureReader}, the features end at the first record the strategy decodes to null, usually a
+ * blank line: blank records are decoded while splitting the file, and the rest of the file is not
+ * read past one decoded to null. Only the chunks in flight and the chunk being read are held in
+ * memory.
+ */
+public class CSVChunkedFeatureReader implements FeatureReader<SimpleFeatureType, SimpleFeature> {
+
+    /** Default size of the chunks decoded by each thread */
+    public static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private final CSVFileState csvFileState;
+
+    private final CSVStrategy csvStrategy;
+
+    private final int threads;
+
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    private boolean ordered = true;
+
+    private InputStream input;
+
+    private CSVRecordDecoder.RecordScanner scanner;
+
+    /** Bytes read from the file and not submitted yet, scanned up to {@link #length} */
+    private byte[] buffer;
+
+    private int length;
+
+    /** Position following the last record end found in the buffer, 0 if none */
+    private int lastRecordEnd;
+
+    /** Number of records ending before {@link #lastRecordEnd} */
+    private int records;
+
+    /** Positions following the ends of the records in the buffer */
+    private int[] recordEnds = new int[1024];
+
+    /** Position of the record being scanned in the buffer */
+    private int recordStart;
+
+    /** Decodes the blank records while splitting the file, to find the end of the features */
+    private CSVRecordDecoder blankDecoder;
+
+    /** Number of the first record in the buffer, the header being record 0 */
+    private long nextOrdinal;
+
+    private boolean eof;
+
+    private ExecutorService executor;
+
+    private CompletionService<List<SimpleFeature>> completion;
+
+    private ThreadLocal<CSVRecordDecoder> decoders;
+
+    private final Deque<Future<List<SimpleFeature>>> chunks = new ArrayDeque<>();
+
+    private Iterator<SimpleFeature> current = Collections.emptyIterator();
+
+    private boolean started;
+
+    /**
+     * @param csvFileState the CSV file, which cannot be an in memory one
+     * @param csvStrategy the strategy decoding the records
+     * @param threads the number of chunks decoded concurrently
+     */
+    public CSVChunkedFeatureReader(
+            CSVFileState csvFileState, CSVStrategy csvStrategy, int threads) {
+        if (csvFileState.getFile() == null) {
+            throw new IllegalArgumentException("Only CSV files can be read in chunks");
+        }
+        this.csvFileState = csvFileState;
+        this.csvStrategy = csvStrategy;
+        this.threads = Math.max(1, threads);
+    }
+
+    /** Sets the size of the chunks decoded by each thread, extended to the end of a record */
+    public void setChunkSize(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    /** Sets whether features are returned in file order, the default */
+    public void setOrdered(boolean ordered) {
+        this.ordered = ordered;
+    }
+
+    @Override
+    public SimpleFeatureType getFeatureType() {
+        return csvStrategy.getFeatureType();
+    }
+
+    @Override
+    public boolean hasNext() throws IOException {
+        if (!started) {
+            started = true;
+            start();
+        }
+        while (!current.hasNext()) {
+            if (chunks.isEmpty()) {
+                return false;
+            }
+            Future<List<SimpleFeature>> chunk;
+            if (ordered) {
+                chunk = chunks.poll();
+            } else {
+                chunk = take();
+                chunks.remove(chunk);
+            }
+            // keep the pipeline full while this chunk is read
+            submitNextChunk();
+            current = getChunk(chunk).iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public SimpleFeature next() throws IOException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return current.next();
+    }
+
+    private void start() throws IOException {
+        CSVRecordDecoder.loadHeaders(csvFileState);
+        File file = csvFileState.getFile();
+        this.input = Files.newInputStream(file.toPath());
+        this.scanner = new CSVRecordDecoder.RecordScanner(csvFileState);
+        this.buffer = new byte[chunkSize];
+        this.blankDecoder = new CSVRecordDecoder(csvFileState, csvStrategy);
+        this.decoders =
+                ThreadLocal.withInitial(() -> new CSVRecordDecoder(csvFileState, csvStrategy));
+        this.executor =
+                Executors.newFixedThreadPool(
+                        threads,
+                        r -> {
+                            Thread thread =
+                                    new Thread(r, "CSV-parser-" + THREAD_COUNTER.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+        this.completion = new ExecutorCompletionService<>(executor);
+        for (int i = 0; i < threads; i++) {
+            submitNextChunk();
+        }
+    }
+
+    private void submitNextChunk() throws IOException {
+        // read until the buffer holds a chunk and at least a record end, or the file is over
+        while (!eof && (length < chunkSize || lastRecordEnd == 0)) {
+            if (length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            int read = input.read(buffer, length, buffer.length - length);
+            if (read < 0) {
+                eof = true;
+                break;
+            }
+            int limit = length + read;
+            for (int i = length; i < limit; i++) {
+                if (scanner.isRecordEnd(buffer[i])) {
+                    if (records == recordEnds.length) {
+                        recordEnds = Arrays.copyOf(recordEnds, records * 2);
+                    }
+                    recordEnds[records++] = i + 1;
+                    lastRecordEnd = i + 1;
+                    if (endsFeatures(recordStart, i, nextOrdinal + records - 1)) {
+                        // the rest of the file is not read, the chunk ends with this record
+                        limit = i + 1;
+                        eof = true;
+                    }
+                    recordStart = i + 1;
+                }
+            }
+            length = limit;
+        }
+        int end = eof && scanner.hasContent() ? length : lastRecordEnd;
+        if (end == 0) {
+            return;
+        }
+        byte[] bytes = Arrays.copyOf(buffer, end);
+        int[] ends = Arrays.copyOf(recordEnds, records);
+        long firstOrdinal = nextOrdinal;
+        Callable<List<SimpleFeature>> task = () -> decode(bytes, ends, firstOrdinal);
+        // only unordered reads go through the completion queue, which would otherwise fill up
+        chunks.add(ordered ? executor.submit(task) : completion.submit(task));
+
+        // keep the bytes past the chunk, already scanned, for the next one
+        System.arraycopy(buffer, end, buffer, 0, length - end);
+        length -= end;
+        recordStart -= end;
+        nextOrdinal += records;
+        lastRecordEnd = 0;
+        records = 0;
+    }
+
+    /**
+     * Returns true if the record is not the header and decodes to null. Only blank records are
+     * decoded, the others cannot be decoded to null.
+     */
+    private boolean endsFeatures(int start, int end, long ordinal) {
+        if (ordinal == 0 || !scanner.isBlank(buffer, start, end - start)) {
+            return false;
+        }
+        try {
+            return blankDecoder.decode(buffer, start, end - start, ordinal) == null;
+        } catch (IOException | RuntimeException e) {
+            // reported when the chunk is decoded
+            return false;
+        }
+    }
+
+    /**
+     * Decodes the records of a chunk
+     *
+     * @param ends the positions following the record ends, the last record might not have one
+     */
+    private List<SimpleFeature> decode(byte[] bytes, int[] ends, long firstOrdinal)
+            throws IOException {
+        CSVRecordDecoder decoder = decoders.get();
+        List<SimpleFeature> features = new ArrayList<>();
+        long ordinal = firstOrdinal;
+        int start = 0;
+        for (int i = 0; i <= ends.length; i++) {
+            int end = i < ends.length ? ends[i] - 1 : bytes.length;
+            if (i == ends.length && start == bytes.length) {
+                break;
+            }
+            // skip the header
+            if (ordinal > 0) {
+                SimpleFeature feature = decoder.decode(bytes, start, end - start, ordinal);
+                // only the last record of the file can be decoded to null
+                if (feature != null) {
+                    features.add(feature);
+                }
+            }
+            ordinal++;
+            start = end + 1;
+        }
+        return features;
+    }
+
+    private Future<List<SimpleFeature>> take() throws IOException {
+        try {
+            return completion.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while parsing CSV", e);
+        }
+    }
+
+    private List<SimpleFeature> getChunk(Future<List<SimpleFeature>> chunk) throws IOException {
+        try {
+            return chunk.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while parsing CSV", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        started = true;
+        current = Collections.emptyIterator();
+        for (Future<List<SimpleFeature>> chunk : chunks) {
+            chunk.cancel(true);
+        }
+        chunks.clear();
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        if (input != null) {
+            input.close();
+            input = null;
+        }
+    }
+}
@@ -17,9 +17,11 @@
  */
 package org.geotools.data.csv;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
+import java.util.logging.Level;
 import org.geotools.api.data.FeatureReader;
 import org.geotools.api.data.FeatureWriter;
 import org.geotools.api.data.FileDataStore;
@@ -34,14 +36,28 @@
 import org.geotools.data.store.ContentDataStore;
 import org.geotools.data.store.ContentEntry;
 import org.geotools.data.store.ContentFeatureSource;
+import org.geotools.data.store.SidecarSpatialIndex;
 import org.geotools.feature.NameImpl;
+import org.geotools.util.factory.Hints;
 
 public class CSVDataStore extends ContentDataStore implements FileDataStore {
 
+    /**
+     * Query hint allowing the features decoded on several threads to be returned as soon as their
+     * chunk is decoded, instead of in file order, see {@link #setParsingThreads(int)}
+     */
+    public static final Hints.Key UNORDERED = new Hints.Key(Boolean.class);
+
     private final CSVStrategy csvStrategy;
 
     private final CSVFileState csvFileState;
 
+    private boolean createSpatialIndex;
+
+    private SidecarSpatialIndex spatialIndex;
+
+    private int parsingThreads = 1;
+
     public CSVDataStore(CSVFileState csvFileState, CSVStrategy csvStrategy) {
         this.csvFileState = csvFileState;
         this.csvStrategy = csvStrategy;
@@ -116,4 +132,81 @@ public void createSchema(SimpleFeatureType featureType) throws IOException {
         this.csvStrategy.createSchema(featureType);
         this.csvFileState.setCrs(featureType.getCoordinateReferenceSystem());
     }
+
+    CSVFileState getCSVFileState() {
+        return csvFileState;
+    }
+
+    /** @return the number of threads decoding the records of the file */
+    public int getParsingThreads() {
+        return parsingThreads;
+    }
+
+    /**
+     * Sets the number of threads decoding the records of the file, see {@link
+     * CSVChunkedFeatureReader}. Defaults to 1, reading the file with {@link CSVFeatureReader}.
+     */
+    public void setParsingThreads(int parsingThreads) {
+        this.parsingThreads = parsingThreads;
+    }
+
+    /** Returns true if a missing or stale spatial index is built on first access */
+    public boolean isCreateSpatialIndex() {
+        return createSpatialIndex;
+    }
+
+    /**
+     * Sets whether a missing or stale {@link SidecarSpatialIndex} is built when a spatial query
+     * first needs it. An up to date index found next to the file is used either way.
+     */
+    public void setCreateSpatialIndex(boolean createSpatialIndex) {
+        this.createSpatialIndex = createSpatialIndex;
+    }
+
+    /** Builds the spatial index of the file, replacing the existing one */
+    public synchronized void createSpatialIndex() throws IOException {
+        closeSpatialIndex();
+        CSVSpatialIndex.build(csvFileState, csvStrategy);
+    }
+
+    /**
+     * Returns the spatial index of the file, building it if allowed, or null if there is no up to
+     * date index to use. . The caller must close the returned index once done with it, a stale
+     * index being closed only once all its holders released it.
+     */
+    synchronized SidecarSpatialIndex getSpatialIndex() throws IOException {
+        File file = csvFileState.getFile();
+        if (file == null || !file.exists()) {
+            return null;
+        }
+        if (spatialIndex != null && !SidecarSpatialIndex.isCurrent(file)) {
+            closeSpatialIndex();
+        }
+        if (spatialIndex == null) {
+            if (createSpatialIndex && !SidecarSpatialIndex.isCurrent(file)) {
+                CSVSpatialIndex.build(csvFileState, csvStrategy);
+            }
+            spatialIndex = SidecarSpatialIndex.open(file);
+        }
+        return spatialIndex != null ? spatialIndex.retain() : null;
+    }
+
+    private void closeSpatialIndex() throws IOException {
+        if (spatialIndex != null) {
+            spatialIndex.close();
+            spatialIndex = null;
+        }
+    }
+
+    @Override
+    public void dispose() {
+        synchronized (this) {
+            try {
+                closeSpatialIndex();
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Failed to close the spatial index", e);
+            }
+        }
+        super.dispose();
+    }
 }
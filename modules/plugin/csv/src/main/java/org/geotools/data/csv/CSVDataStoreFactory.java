@@ -145,6 +145,25 @@ public class CSVDataStoreFactory implements FileDataStoreFactorySpi {
                     false,
                     false,
                     new KVP(Param.LEVEL, "advanced"));
+
+    public static final Param CREATE_SPATIAL_INDEX =
+            new Param(
+                    "create spatial index",
+                    Boolean.class,
+                    "enable/disable the automatic creation of a spatial index next to the file",
+                    false,
+                    false,
+                    new KVP(Param.LEVEL, "advanced"));
+
+    public static final Param PARSING_THREADS =
+            new Param(
+                    "parsing threads",
+                    Integer.class,
+                    "Number of threads decoding the records of the file",
+                    false,
+                    1,
+                    new KVP(Param.LEVEL, "advanced"));
+
     public static final Param[] parametersInfo = {
         FILE_PARAM,
         NAMESPACEP,
@@ -156,7 +175,9 @@ public class CSVDataStoreFactory implements FileDataStoreFactorySpi {
         QUOTEALL,
         QUOTECHAR,
         SEPERATORCHAR,
-        LINESEPSTRING
+        LINESEPSTRING,
+        CREATE_SPATIAL_INDEX,
+        PARSING_THREADS
     };
 
     @Override
@@ -321,6 +342,14 @@ private FileDataStore createDataStoreFromFile(File file, URI namespace, Map<Stri
         if (namespace != null) {
             store.setNamespaceURI(namespace.toString());
         }
+        Boolean spatialIndex = (Boolean) CREATE_SPATIAL_INDEX.lookUp(params);
+        if (spatialIndex != null) {
+            store.setCreateSpatialIndex(spatialIndex);
+        }
+        Integer threads = (Integer) PARSING_THREADS.lookUp(params);
+        if (threads != null) {
+            store.setParsingThreads(threads);
+        }
         store.setDataStoreFactory(this);
         store.setGeometryFactory(new GeometryFactory());
         store.setFeatureTypeFactory(new FeatureTypeFactoryImpl());
@@ -18,13 +18,18 @@
 package org.geotools.data.csv;
 
 import java.io.IOException;
+import java.util.Set;
 import org.geotools.api.data.FeatureReader;
 import org.geotools.api.data.Query;
 import org.geotools.api.feature.simple.SimpleFeature;
 import org.geotools.api.feature.simple.SimpleFeatureType;
+import org.geotools.data.FilteringFeatureReader;
 import org.geotools.data.store.ContentEntry;
 import org.geotools.data.store.ContentFeatureSource;
+import org.geotools.data.store.SidecarSpatialIndex;
 import org.geotools.geometry.jts.ReferencedEnvelope;
+import org.geotools.util.factory.Hints;
+import org.locationtech.jts.geom.Envelope;
 
 public class CSVFeatureSource extends ContentFeatureSource {
 
@@ -64,8 +69,12 @@ protected ReferencedEnvelope getBoundsInternal(Query query) throws IOException {
 
     @Override
     protected int getCountInternal(Query query) throws IOException {
-        try (FeatureReader<SimpleFeatureType, SimpleFeature> featureReader =
-                getReaderInternal(query)) {
+        FeatureReader<SimpleFeatureType, SimpleFeature> reader = getReaderInternal(query);
+        if (reader instanceof CSVSpatialIndex.Reader) {
+            // the index only narrows down the candidates, the filter still has to be applied
+            reader = new FilteringFeatureReader<>(reader, query.getFilter());
+        }
+        try (FeatureReader<SimpleFeatureType, SimpleFeature> featureReader = reader) {
             int n = 0;
             while (featureReader.hasNext()) {
                 featureReader.next();
@@ -79,9 +88,45 @@ protected int getCountInternal(Query query) throws IOException {
     protected FeatureReader<SimpleFeatureType, SimpleFeature> getReaderInternal(Query query)
             throws IOException {
         CSVDataStore dataStore = getDataStore();
+        try (SidecarSpatialIndex index = getSpatialIndex(query)) {
+            if (index != null) {
+                Envelope area = SidecarSpatialIndex.getSearchBounds(query.getFilter());
+                return new CSVSpatialIndex.Reader(
+                        dataStore.getCSVFileState(),
+                        dataStore.getCSVStrategy(),
+                        index.search(area));
+            }
+        }
+        CSVFileState csvFileState = dataStore.getCSVFileState();
+        if (dataStore.getParsingThreads() > 1 && csvFileState.getFile() != null) {
+            CSVChunkedFeatureReader reader =
+                    new CSVChunkedFeatureReader(
+                            csvFileState,
+                            dataStore.getCSVStrategy(),
+                            dataStore.getParsingThreads());
+            reader.setOrdered(!Boolean.TRUE.equals(query.getHints().get(CSVDataStore.UNORDERED)));
+            return reader;
+        }
         return new CSVFeatureReader(dataStore.getCSVStrategy(), query);
     }
 
+    @Override
+    protected void addHints(Set<Hints.Key> hints) {
+        hints.add(CSVDataStore.UNORDERED);
+    }
+
+    /**
+     * Returns the spatial index to read the query with, to be closed by the caller, or null to scan
+     * the whole file
+     */
+    private SidecarSpatialIndex getSpatialIndex(Query query) throws IOException {
+        if (getSchema().getGeometryDescriptor() == null
+                || SidecarSpatialIndex.getSearchBounds(query.getFilter()) == null) {
+            return null;
+        }
+        return getDataStore().getSpatialIndex();
+    }
+
     @Override
     protected SimpleFeatureType buildFeatureType() throws IOException {
         return getDataStore().getSchema();
@@ -10,6 +10,7 @@
 package org.geotools.data.csv;
 
 import java.io.IOException;
+import java.util.Set;
 import org.geotools.api.data.FeatureReader;
 import org.geotools.api.data.FeatureWriter;
 import org.geotools.api.data.Query;
@@ -24,6 +25,7 @@
 import org.geotools.data.store.ContentFeatureStore;
 import org.geotools.data.store.ContentState;
 import org.geotools.geometry.jts.ReferencedEnvelope;
+import org.geotools.util.factory.Hints;
 
 /**
  * Read-write access to CSV File.
@@ -103,6 +105,12 @@ protected FeatureReader<SimpleFeatureType, SimpleFeature> getReaderInternal(Quer
             throws IOException {
         return delegate.getReaderInternal(query);
     }
+
+    @Override
+    protected void addHints(Set<Hints.Key> hints) {
+        // called by the super constructor, before the delegate is created
+        hints.add(CSVDataStore.UNORDERED);
+    }
     // internal end
 
     // public start
@@ -145,14 +145,8 @@ public CSVReader openCSVReader() throws IOException, CsvValidationException {
             reader = new StringReader(dataInput);
         }
 
-        final CSVParser parser =
-                new CSVParserBuilder()
-                        .withSeparator(separator)
-                        .withEscapeChar(escapechar)
-                        .withQuoteChar(quotechar)
-                        .withIgnoreLeadingWhiteSpace(true)
-                        .build();
-        final CSVReader csvReader = new CSVReaderBuilder(reader).withCSVParser(parser).build();
+        final CSVReader csvReader =
+                new CSVReaderBuilder(reader).withCSVParser(createCSVParser()).build();
 
         String[] tnames;
         if ((tnames = csvReader.readNext()) == null) {
@@ -171,6 +165,16 @@ public CSVReader openCSVReader() throws IOException, CsvValidationException {
         return csvReader;
     }
 
+    /** Creates a parser for the records of the file, using the configured separator and quotes */
+    public CSVParser createCSVParser() {
+        return new CSVParserBuilder()
+                .withSeparator(separator)
+                .withEscapeChar(escapechar)
+                .withQuoteChar(quotechar)
+                .withIgnoreLeadingWhiteSpace(true)
+                .build();
+    }
+
     public String[] getCSVHeaders() {
         if (headers == null) {
             throw new RuntimeException("Attempting to access unopened CSV Reader");
@@ -0,0 +1,187 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2024, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.csv;
+
+import com.opencsv.CSVParser;
+import com.opencsv.exceptions.CsvValidationException;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import org.geotools.api.feature.simple.SimpleFeature;
+import org.geotools.data.csv.parse.CSVStrategy;
+
+/**
+ * Decodes CSV records read as raw bytes into features, for readers locating the records themselves
+ * instead of going through {@link com.opencsv.CSVReader}.
+ *
+ * <p>Records are told apart by {@link RecordScanner}, which looks for line ends outside of quotes
+ * the same way {@link com.opencsv.CSVReader} joins the lines of a quoted value, and the lines of a
+ * record are parsed one at a time as {@link com.opencsv.CSVReader} does, so that the values are the
+ * same. The bytes are decoded with the platform charset, as {@link CSVFileState#openCSVReader()}
+ * does. A decoder holds a {@link CSVParser}, which is not thread safe, so each thread needs its
+ * own.
+ */
+class CSVRecordDecoder {
+
+    private final CSVParser parser;
+
+    private final CSVStrategy csvStrategy;
+
+    private final Charset charset = Charset.defaultCharset();
+
+    CSVRecordDecoder(CSVFileState csvFileState, CSVStrategy csvStrategy) {
+        this.parser = csvFileState.createCSVParser();
+        this.csvStrategy = csvStrategy;
+    }
+
+    /** Makes sure the headers of the file were read, the strategies decode records against them */
+    static void loadHeaders(CSVFileState csvFileState) throws IOException {
+        try {
+            csvFileState.openCSVReader().close();
+        } catch (CsvValidationException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Decodes a record, without its line end, into a feature with the same id {@link
+     * org.geotools.data.csv.parse.CSVIterator} would give it.
+     *
+     * <p>Blank records are decoded too, as {@link org.geotools.data.csv.parse.CSVIterator} does,
+     * and most strategies turn them into null. {@link org.geotools.data.csv.parse.CSVIterator}
+     * stops at the first null feature, so should the callers.
+     *
+     * @param ordinal the number of the record in the file, the header being record 0
+     * @return the feature, or null if the strategy returns null or the record ends within quotes
+     */
+    SimpleFeature decode(byte[] bytes, int offset, int length, long ordinal) throws IOException {
+        String record = new String(bytes, offset, length, charset);
+        // the line feed of a CRLF ending the previous record
+        int lineStart = record.startsWith("\n") ? 1 : 0;
+        String[] values = null;
+        do {
+            int lineEnd = lineStart;
+            while (lineEnd < record.length()
+                    && record.charAt(lineEnd) != '\n'
+                    && record.charAt(lineEnd) != '\r') {
+                lineEnd++;
+            }
+            // the line ends of BufferedReader, as used by CSVReader
+            String[] parsed = parser.parseLineMulti(record.substring(lineStart, lineEnd));
+            if (parsed.length > 0) {
+                values = values == null ? parsed : combine(values, parsed);
+            }
+            if (lineEnd + 1 < record.length()
+                    && record.charAt(lineEnd) == '\r'
+                    && record.charAt(lineEnd + 1) == '\n') {
+                lineEnd++;
+            }
+            lineStart = lineEnd + 1;
+        } while (parser.isPending() && lineStart <= record.length());
+        if (parser.isPending()) {
+            // the file ends within quotes, CSVReader fails on it, clear the pending value
+            parser.parseLineMulti(null);
+            return null;
+        }
+        return csvStrategy.decode("fid" + ordinal, values);
+    }
+
+    /** Joins the values of the lines of a record, as CSVReader does */
+    private static String[] combine(String[] values, String[] parsed) {
+        String[] result = Arrays.copyOf(values, values.length + parsed.length);
+        System.arraycopy(parsed, 0, result, values.length, parsed.length);
+        return result;
+    }
+
+    /**
+     * Tells the end of records apart from line ends within quoted values, with the same rules as
+     * {@link CSVParser}: quotes and escapes can be escaped anywhere, not only within quotes, and
+     * lines end with LF, CRLF or a lone CR, as with {@link java.io.BufferedReader#readLine()}.
+     *
+     * <p>A record ended by a CRLF is reported at the CR, and the LF is left at the start of the
+     * next record, where {@link CSVRecordDecoder#decode(byte[], int, int, long)} skips it.
+     */
+    static final class RecordScanner {
+
+        private final byte quote;
+
+        private final byte escape;
+
+        private boolean inQuotes;
+
+        private boolean escaped;
+
+        /** Whether the last byte was a CR ending a record */
+        private boolean afterCarriageReturn;
+
+        /** Whether the current record has bytes, the LF of a CRLF aside */
+        private boolean content;
+
+        RecordScanner(CSVFileState csvFileState) {
+            this.quote = (byte) csvFileState.getQuotechar();
+            this.escape = (byte) csvFileState.getEscapechar();
+        }
+
+        /** Consumes a byte, returning true if it ends a record */
+        boolean isRecordEnd(byte b) {
+            if (afterCarriageReturn) {
+                afterCarriageReturn = false;
+                if (b == '\n') {
+                    return false;
+                }
+            }
+            if (escaped) {
+                // only quotes and escapes can be escaped, on the same line
+                escaped = false;
+                if (b == quote || b == escape) {
+                    content = true;
+                    return false;
+                }
+            }
+            if (b == escape && escape != quote) {
+                escaped = true;
+            } else if (b == quote) {
+                inQuotes = !inQuotes;
+            } else if ((b == '\n' || b == '\r') && !inQuotes) {
+                afterCarriageReturn = b == '\r';
+                content = false;
+                return true;
+            }
+            content = true;
+            return false;
+        }
+
+        /** Returns true if bytes were consumed since the last record end, the LF of a CRLF aside */
+        boolean hasContent() {
+            return content;
+        }
+
+        /**
+         * Returns true if the record, without its line end, could be decoded as a single empty
+         * value, holding only blanks, quotes and escapes. Such a record might end the features.
+         */
+        boolean isBlank(byte[] bytes, int offset, int length) {
+            for (int i = offset; i < offset + length; i++) {
+                byte b = bytes[i];
+                if (b != quote && b != escape && (b & 0xFF) > ' ') {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
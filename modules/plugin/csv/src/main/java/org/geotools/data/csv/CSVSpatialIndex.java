@@ -0,0 +1,198 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2024, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.csv;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.geotools.api.data.FeatureReader;
+import org.geotools.api.feature.simple.SimpleFeature;
+import org.geotools.api.feature.simple.SimpleFeatureType;
+import org.geotools.data.csv.parse.CSVStrategy;
+import org.geotools.data.store.SidecarSpatialIndex;
+import org.geotools.util.logging.Logging;
+import org.locationtech.jts.geom.Geometry;
+
+/**
+ * Builds and reads the {@link SidecarSpatialIndex} of a CSV file, locating its records with {@link
+ * CSVRecordDecoder.RecordScanner}.
+ */
+final class CSVSpatialIndex {
+
+    static final Logger LOGGER = Logging.getLogger(CSVSpatialIndex.class);
+
+    private CSVSpatialIndex() {}
+
+    /** Scans the CSV file and writes its index, replacing any previous one */
+    static void build(CSVFileState csvFileState, CSVStrategy csvStrategy) throws IOException {
+        File file = csvFileState.getFile();
+        CSVRecordDecoder.loadHeaders(csvFileState);
+        CSVRecordDecoder decoder = new CSVRecordDecoder(csvFileState, csvStrategy);
+        try (SidecarSpatialIndex.Builder builder = new SidecarSpatialIndex.Builder(file);
+                InputStream in = Files.newInputStream(file.toPath())) {
+            CSVRecordDecoder.RecordScanner scanner =
+                    new CSVRecordDecoder.RecordScanner(csvFileState);
+            byte[] buffer = new byte[64 * 1024];
+            // the record being accumulated, usually a single line
+            byte[] record = new byte[1024];
+            int recordLength = 0;
+            long recordStart = 0;
+            long position = 0;
+            // the header is record 0, features are numbered from 1 like CSVIterator does
+            long ordinal = 0;
+            int read;
+            boolean more = true;
+            while (more && (read = in.read(buffer)) > 0) {
+                for (int i = 0; i < read && more; i++) {
+                    byte b = buffer[i];
+                    if (scanner.isRecordEnd(b)) {
+                        if (ordinal > 0) {
+                            more =
+                                    index(
+                                            builder,
+                                            decoder,
+                                            record,
+                                            recordLength,
+                                            recordStart,
+                                            ordinal);
+                        }
+                        ordinal++;
+                        recordLength = 0;
+                        recordStart = position + i + 1;
+                    } else {
+                        if (recordLength == record.length) {
+                            record = Arrays.copyOf(record, record.length * 2);
+                        }
+                        record[recordLength++] = b;
+                    }
+                }
+                position += read;
+            }
+            if (more && scanner.hasContent() && ordinal > 0) {
+                index(builder, decoder, record, recordLength, recordStart, ordinal);
+            }
+            builder.build();
+        }
+    }
+
+    /**
+     * Adds a record to the index, returning false if it ends the features, decoded to null as
+     * {@link org.geotools.data.csv.parse.CSVIterator} stops there
+     */
+    private static boolean index(
+            SidecarSpatialIndex.Builder builder,
+            CSVRecordDecoder decoder,
+            byte[] record,
+            int length,
+            long offset,
+            long ordinal)
+            throws IOException {
+        SimpleFeature feature;
+        try {
+            feature = decoder.decode(record, 0, length, ordinal);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.FINE, "Skipping record " + ordinal, e);
+            return true;
+        }
+        if (feature == null) {
+            return false;
+        }
+        if (feature.getDefaultGeometry() instanceof Geometry) {
+            Geometry geometry = (Geometry) feature.getDefaultGeometry();
+            builder.add(geometry.getEnvelopeInternal(), offset, length, ordinal);
+        }
+        return true;
+    }
+
+    /** Reads the features of the given records, seeking to each of them in the file */
+    static class Reader implements FeatureReader<SimpleFeatureType, SimpleFeature> {
+
+        private final CSVStrategy csvStrategy;
+
+        private final CSVRecordDecoder decoder;
+
+        private final FileChannel channel;
+
+        private final Iterator<SidecarSpatialIndex.Entry> entries;
+
+        private ByteBuffer buffer = ByteBuffer.allocate(1024);
+
+        private SimpleFeature next;
+
+        Reader(
+                CSVFileState csvFileState,
+                CSVStrategy csvStrategy,
+                List<SidecarSpatialIndex.Entry> entries)
+                throws IOException {
+            this.csvStrategy = csvStrategy;
+            this.decoder = new CSVRecordDecoder(csvFileState, csvStrategy);
+            this.entries = entries.iterator();
+            this.channel =
+                    FileChannel.open(csvFileState.getFile().toPath(), StandardOpenOption.READ);
+        }
+
+        @Override
+        public SimpleFeatureType getFeatureType() {
+            return csvStrategy.getFeatureType();
+        }
+
+        @Override
+        public boolean hasNext() throws IOException {
+            while (next == null && entries.hasNext()) {
+                SidecarSpatialIndex.Entry entry = entries.next();
+                if (buffer.capacity() < entry.getLength()) {
+                    buffer = ByteBuffer.allocate(entry.getLength());
+                }
+                buffer.clear();
+                buffer.limit(entry.getLength());
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, entry.getOffset() + buffer.position()) < 0) {
+                        throw new EOFException("Spatial index points past the end of the file");
+                    }
+                }
+                next = decoder.decode(buffer.array(), 0, entry.getLength(), entry.getOrdinal());
+            }
+            return next != null;
+        }
+
+        @Override
+        public SimpleFeature next() throws IOException {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            SimpleFeature result = next;
+            next = null;
+            return result;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
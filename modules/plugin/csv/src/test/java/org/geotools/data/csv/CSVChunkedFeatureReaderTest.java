@@ -0,0 +1,199 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2024, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.csv;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.geotools.api.data.FeatureReader;
+import org.geotools.api.data.Query;
+import org.geotools.api.feature.simple.SimpleFeature;
+import org.geotools.api.feature.simple.SimpleFeatureType;
+import org.geotools.data.csv.parse.CSVAttributesOnlyStrategy;
+import org.geotools.data.csv.parse.CSVIterator;
+import org.geotools.data.csv.parse.CSVLatLonStrategy;
+import org.geotools.data.simple.SimpleFeatureIterator;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CSVChunkedFeatureReaderTest {
+
+    private static final int COUNT = 2000;
+
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = temporaryFolder.newFile("chunks.csv");
+        StringBuilder csv = new StringBuilder("LAT,LON,NAME,NOTE\r\n");
+        for (int i = 0; i < COUNT; i++) {
+            csv.append(i % 90).append(',').append(i % 180).append(",name").append(i).append(',');
+            if (i % 7 == 0) {
+                // a record spanning several lines, with escaped and doubled quotes
+                csv.append("\"first line\nsecond \\\"line\\\", \"\"quoted\"\"\"");
+            } else {
+                csv.append("note ").append(i);
+            }
+            csv.append(i % 2 == 0 ? "\r\n" : "\n");
+        }
+        Files.write(file.toPath(), csv.toString().getBytes(Charset.defaultCharset()));
+    }
+
+    @Test
+    public void testSameAsSequential() throws IOException {
+        List<SimpleFeature> expected = readSequential();
+        assertEquals(COUNT, expected.size());
+
+        CSVFileState state = new CSVFileState(file);
+        CSVLatLonStrategy strategy = new CSVLatLonStrategy(state);
+        List<SimpleFeature> actual = new ArrayList<>();
+        try (CSVChunkedFeatureReader reader = new CSVChunkedFeatureReader(state, strategy, 3)) {
+            // many chunks, whose boundaries fall within records
+            reader.setChunkSize(500);
+            while (reader.hasNext()) {
+                actual.add(reader.next());
+            }
+        }
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            SimpleFeature e = expected.get(i);
+            SimpleFeature a = actual.get(i);
+            assertEquals(e.getID(), a.getID());
+            assertEquals(e.getAttributes(), a.getAttributes());
+        }
+        assertTrue(((String) actual.get(7).getAttribute("NOTE")).contains("\n"));
+    }
+
+    @Test
+    public void testUnordered() throws IOException {
+        Set<String> expected = new HashSet<>();
+        for (SimpleFeature feature : readSequential()) {
+            expected.add(feature.getID() + " " + feature.getAttribute("NAME"));
+        }
+
+        CSVFileState state = new CSVFileState(file);
+        CSVDataStore store = new CSVDataStore(state, new CSVLatLonStrategy(state));
+        store.setParsingThreads(4);
+        try {
+            Query query = new Query(Query.ALL);
+            query.getHints().put(CSVDataStore.UNORDERED, true);
+            Set<String> actual = new HashSet<>();
+            try (SimpleFeatureIterator it =
+                    store.getFeatureSource().getFeatures(query).features()) {
+                while (it.hasNext()) {
+                    SimpleFeature feature = it.next();
+                    assertTrue(actual.add(feature.getID() + " " + feature.getAttribute("NAME")));
+                }
+            }
+            assertEquals(expected, actual);
+            assertEquals(COUNT, store.getFeatureSource().getCount(Query.ALL));
+        } finally {
+            store.dispose();
+        }
+    }
+
+    @Test
+    public void testSameAsIterator() throws IOException {
+        // escapes outside of quotes, doubled quotes, quoted line ends and every kind of line end
+        assertSameAsIterator(
+                "A,B,C\r\n"
+                        + "1,x\\\"y,z\r\n"
+                        + "2,\"multi\r\nline\",z\n"
+                        + "3,a\\\\b,\\\"c\r"
+                        + "4,\"q\"\"d\",e\r\n"
+                        + "5,\"lone\rcr\",\\\r"
+                        + "6,\"\\\"\n\",f\n"
+                        + "7,last,no line end");
+        assertSameAsIterator("A,B,C\n1,2,3\r\n");
+        assertSameAsIterator("A,B,C\r\n1,2,3\r");
+    }
+
+    @Test
+    public void testBlankRecords() throws IOException {
+        // blank records are values with a single attribute
+        List<SimpleFeature> features = assertSameAsIterator("A\n1\n\n2\r\n\r\n3\n\n");
+        assertEquals(6, features.size());
+        assertEquals("", features.get(1).getAttribute("A"));
+        // with more attributes, the features end at the first blank record
+        features = assertSameAsIterator("A,B\n1,2\r\n\r\n3,4\n");
+        assertEquals(1, features.size());
+        assertSameAsIterator("A,B\n1,2\n \"\"\n3,4\n");
+    }
+
+    /** Reads the file with CSVIterator and in chunks of various sizes, comparing the features */
+    private List<SimpleFeature> assertSameAsIterator(String csv) throws IOException {
+        Files.write(file.toPath(), csv.getBytes(Charset.defaultCharset()));
+        CSVFileState state = new CSVFileState(file);
+        CSVAttributesOnlyStrategy strategy = new CSVAttributesOnlyStrategy(state);
+        List<SimpleFeature> expected = new ArrayList<>();
+        try (CSVIterator iterator = new CSVIterator(state, strategy)) {
+            while (iterator.hasNext()) {
+                expected.add(iterator.next());
+            }
+        }
+        for (int chunkSize : new int[] {1, 5, 1024}) {
+            List<SimpleFeature> actual = new ArrayList<>();
+            try (CSVChunkedFeatureReader reader = new CSVChunkedFeatureReader(state, strategy, 2)) {
+                reader.setChunkSize(chunkSize);
+                while (reader.hasNext()) {
+                    actual.add(reader.next());
+                }
+            }
+            assertEquals(csv, expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(csv, expected.get(i).getID(), actual.get(i).getID());
+                assertEquals(csv, expected.get(i).getAttributes(), actual.get(i).getAttributes());
+            }
+        }
+        return expected;
+    }
+
+    @Test
+    public void testEmpty() throws IOException {
+        Files.write(file.toPath(), "LAT,LON,NAME\n".getBytes(Charset.defaultCharset()));
+        CSVFileState state = new CSVFileState(file);
+        try (CSVChunkedFeatureReader reader =
+                new CSVChunkedFeatureReader(state, new CSVLatLonStrategy(state), 2)) {
+            assertFalse(reader.hasNext());
+        }
+    }
+
+    private List<SimpleFeature> readSequential() throws IOException {
+        CSVFileState state = new CSVFileState(file);
+        List<SimpleFeature> features = new ArrayList<>();
+        try (FeatureReader<SimpleFeatureType, SimpleFeature> reader =
+                new CSVFeatureReader(new CSVLatLonStrategy(state))) {
+            while (reader.hasNext()) {
+                features.add(reader.next());
+            }
+        }
+        return features;
+    }
+}
@@ -6,6 +6,7 @@
 package org.geotools.data.csv;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
@@ -19,15 +20,21 @@
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
 import org.geotools.api.data.FeatureReader;
 import org.geotools.api.data.Query;
 import org.geotools.api.data.SimpleFeatureSource;
 import org.geotools.api.feature.simple.SimpleFeature;
 import org.geotools.api.feature.simple.SimpleFeatureType;
 import org.geotools.api.feature.type.Name;
+import org.geotools.api.filter.Filter;
+import org.geotools.api.filter.FilterFactory;
 import org.geotools.data.csv.parse.CSVLatLonStrategy;
 import org.geotools.data.simple.SimpleFeatureCollection;
 import org.geotools.data.simple.SimpleFeatureIterator;
+import org.geotools.data.store.SidecarSpatialIndex;
+import org.geotools.factory.CommonFactoryFinder;
 import org.geotools.geometry.jts.ReferencedEnvelope;
 import org.geotools.referencing.CRS;
 import org.geotools.referencing.CRS.AxisOrder;
@@ -35,12 +42,17 @@
 import org.geotools.test.TestData;
 import org.geotools.util.URLs;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.geom.Point;
 
 public class CSVDataStoreTest {
 
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     private CSVDataStore csvDataStore;
 
     @Before
@@ -254,4 +266,69 @@ public void testLimitOffset() throws FileNotFoundException, IOException {
         assertEquals(3, matches.size());
         assertEquals(3, rows.getCount(query));
     }
+
+    /** Test bounding box queries through the spatial index */
+    @Test
+    public void testSpatialIndex() throws Exception {
+        File file = temporaryFolder.newFile("locations.csv");
+        Files.copy(
+                URLs.urlToFile(TestData.getResource(CSVDataStoreTest.class, "locations.csv"))
+                        .toPath(),
+                file.toPath(),
+                StandardCopyOption.REPLACE_EXISTING);
+        CSVFileState csvFileState = new CSVFileState(file);
+        CSVDataStore store = new CSVDataStore(csvFileState, new CSVLatLonStrategy(csvFileState));
+        store.setCreateSpatialIndex(true);
+        try {
+            SimpleFeatureSource source = store.getFeatureSource();
+            ReferencedEnvelope europe = new ReferencedEnvelope();
+            Set<String> expected = new TreeSet<>();
+            try (SimpleFeatureIterator it = source.getFeatures().features()) {
+                while (it.hasNext()) {
+                    SimpleFeature f = it.next();
+                    String city = (String) f.getAttribute("CITY");
+                    if (city.equals("Trento") || city.equals("Lausanne")) {
+                        expected.add(f.getID() + " " + city);
+                        europe.expandToInclude(
+                                ((Geometry) f.getDefaultGeometry()).getEnvelopeInternal());
+                    }
+                }
+            }
+            // reading everything does not need the index
+            assertFalse(SidecarSpatialIndex.getIndexFile(file).exists());
+
+            FilterFactory ff = CommonFactoryFinder.getFilterFactory();
+            Filter bbox =
+                    ff.bbox(
+                            "location",
+                            europe.getMinX(),
+                            europe.getMinY(),
+                            europe.getMaxX(),
+                            europe.getMaxY(),
+                            null);
+            Set<String> cities = new TreeSet<>();
+            try (SimpleFeatureIterator it = source.getFeatures(bbox).features()) {
+                while (it.hasNext()) {
+                    SimpleFeature f = it.next();
+                    cities.add(f.getID() + " " + f.getAttribute("CITY"));
+                }
+            }
+            assertEquals(2, expected.size());
+            assertEquals(expected, cities);
+            // the index candidates are counted once filtered
+            assertEquals(2, source.getCount(new Query(source.getSchema().getTypeName(), bbox)));
+            assertEquals(2, source.getFeatures(bbox).size());
+            assertTrue(SidecarSpatialIndex.isCurrent(file));
+
+            // a changed file makes the index stale, it is rebuilt on the next query
+            try (FileWriter writer = new FileWriter(file, true)) {
+                writer.write("46.116, 8.29, Domodossola, 100, 2010\n");
+            }
+            assertFalse(SidecarSpatialIndex.isCurrent(file));
+            assertEquals(3, source.getFeatures(bbox).size());
+            assertTrue(SidecarSpatialIndex.isCurrent(file));
+        } finally {
+            store.dispose();
+        }
+    }
 }
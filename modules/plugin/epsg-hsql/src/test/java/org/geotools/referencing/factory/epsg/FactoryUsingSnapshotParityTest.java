@@ -0,0 +1,139 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2024, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.referencing.factory.epsg;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.List;
+import org.geotools.api.metadata.extent.GeographicBoundingBox;
+import org.geotools.api.referencing.crs.CoordinateReferenceSystem;
+import org.geotools.referencing.CRS;
+import org.geotools.referencing.ReferencingFactoryFinder;
+import org.geotools.referencing.factory.epsg.hsql.ThreadedHsqlEpsgFactory;
+import org.geotools.util.factory.Hints;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Checks that the CRS read from a {@link FactoryUsingSnapshot} snapshot match the ones built by
+ * {@link ThreadedEpsgFactory} from the EPSG database, over a sample of commonly used codes.
+ */
+public final class FactoryUsingSnapshotParityTest {
+    /**
+     * Geographic and projected codes covering the most common projections. The 3D CRS and the polar
+     * ones with axes oriented toward a meridian can't be formatted as WKT, so they are left to the
+     * SQL backed factories and are not part of the sample.
+     */
+    private static final List<String> CODES =
+            List.of(
+                    "4326", "4269", "4258", "4230", "3857", "32633", "32733", "27700", "2154",
+                    "3035", "25832", "31370", "28992", "2056", "3003", "26917", "5514", "2193",
+                    "2272", "3395");
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    /** The SQL backed factory the snapshot is written from. */
+    private ThreadedEpsgFactory source;
+
+    /** The factory to test. */
+    private FactoryUsingSnapshot factory;
+
+    @Before
+    public void setUp() throws Exception {
+        source =
+                (ThreadedEpsgFactory)
+                        ReferencingFactoryFinder.getCRSAuthorityFactory(
+                                "EPSG",
+                                new Hints(
+                                        Hints.CRS_AUTHORITY_FACTORY,
+                                        ThreadedHsqlEpsgFactory.class));
+        final File directory = folder.getRoot();
+        final StringWriter report = new StringWriter();
+        final int count =
+                EpsgSnapshot.write(
+                        source,
+                        CODES,
+                        new File(directory, FactoryUsingSnapshot.FILENAME),
+                        new PrintWriter(report));
+        assertEquals(report.toString(), CODES.size(), count);
+        factory =
+                new FactoryUsingSnapshot(new Hints(Hints.CRS_AUTHORITY_EXTRA_DIRECTORY, directory));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        factory.dispose();
+    }
+
+    /** The SQL backed factory must keep precedence unless the snapshot is explicitly preferred. */
+    @Test
+    public void testPriority() {
+        assertTrue(factory.getPriority() < source.getPriority());
+    }
+
+    @Test
+    public void testParity() throws Exception {
+        for (final String code : CODES) {
+            final CoordinateReferenceSystem expected =
+                    source.createCoordinateReferenceSystem("EPSG:" + code);
+            final CoordinateReferenceSystem actual =
+                    factory.createCoordinateReferenceSystem("EPSG:" + code);
+            // the WKT does not keep every operation method name (EPSG:5514 "Krovak North
+            // Orientated" is read back as "Krovak"), but the CRS must be equivalent
+            assertTrue(code, CRS.findMathTransform(expected, actual).isIdentity());
+            assertEquals(code, expected.getName().getCode(), actual.getName().getCode());
+            assertEquals(
+                    code,
+                    expected.getCoordinateSystem().getDimension(),
+                    actual.getCoordinateSystem().getDimension());
+            assertEquals(code, CRS.getAxisOrder(expected), CRS.getAxisOrder(actual));
+            assertEquals(code, "EPSG:" + code, CRS.toSRS(actual));
+
+            final GeographicBoundingBox expectedBounds = CRS.getGeographicBoundingBox(expected);
+            final GeographicBoundingBox actualBounds = CRS.getGeographicBoundingBox(actual);
+            assertNotNull(code, actualBounds);
+            assertEquals(
+                    code,
+                    expectedBounds.getWestBoundLongitude(),
+                    actualBounds.getWestBoundLongitude(),
+                    0);
+            assertEquals(
+                    code,
+                    expectedBounds.getEastBoundLongitude(),
+                    actualBounds.getEastBoundLongitude(),
+                    0);
+            assertEquals(
+                    code,
+                    expectedBounds.getSouthBoundLatitude(),
+                    actualBounds.getSouthBoundLatitude(),
+                    0);
+            assertEquals(
+                    code,
+                    expectedBounds.getNorthBoundLatitude(),
+                    actualBounds.getNorthBoundLatitude(),
+                    0);
+        }
+    }
+}
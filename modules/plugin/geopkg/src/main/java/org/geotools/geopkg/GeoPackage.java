@@ -313,6 +313,10 @@ public void init() throws IOException {
      * <p>This method creates all the necessary metadata tables.
      */
     static void init(Connection cx) throws SQLException {
+        if (GeoPkgDataSource.isRouting(cx)) {
+            // the pooled connections are initialized by the data source
+            return;
+        }
         createFunctions(cx);
         // see if we have to create the table structure
         boolean initialized = false;
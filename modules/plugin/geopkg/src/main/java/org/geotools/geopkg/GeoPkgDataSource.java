@@ -0,0 +1,383 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2024, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.geopkg;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.regex.Pattern;
+import javax.sql.DataSource;
+import org.apache.commons.dbcp.BasicDataSource;
+import org.apache.commons.dbcp.DelegatingConnection;
+import org.geotools.data.jdbc.datasource.AbstractManageableDataSource;
+
+/**
+ * The connections of a pooled GeoPackage store: a pool of read only connections, reading
+ * concurrently in WAL journal mode, and a pool of writer connections, SQLite serializing the
+ * writers on the database lock.
+ *
+ * <p>{@link org.geotools.jdbc.JDBCDataStore} does not tell reads from writes when it borrows a
+ * connection, so the connections handed out route each statement. In auto commit mode queries go to
+ * a read only connection, anything else to a writer, and within a transaction everything goes to
+ * the writer. Connection level calls go to the writer too, savepoints and settings included, unless
+ * they only read the state of the connection. Each of the two is borrowed on first use and returned
+ * when the connection is closed.
+ *
+ * <p>The GeoPackage functions are registered on the pooled connections as they are borrowed, so
+ * {@link GeoPackage#init(Connection)} skips the routing connections.
+ */
+class GeoPkgDataSource extends AbstractManageableDataSource {
+
+    /** Statements that do not write, and can run on a read only connection */
+    static final Pattern QUERY =
+            Pattern.compile(
+                    "^\\s*(SELECT|WITH|VALUES|EXPLAIN)\\b|^\\s*PRAGMA\\s+[^=]*$",
+                    Pattern.CASE_INSENSITIVE);
+
+    private final BasicDataSource readers;
+
+    /** The writer pool, or null for a read only store */
+    private final BasicDataSource writer;
+
+    /** The SQLite connections the GeoPackage functions have been registered on */
+    private final Set<Connection> initialized = Collections.newSetFromMap(new WeakHashMap<>());
+
+    /**
+     * @param readers the pool of read only connections
+     * @param writer the pool of the writer connection, or null if the store is read only
+     */
+    GeoPkgDataSource(BasicDataSource readers, BasicDataSource writer) {
+        super(writer != null ? writer : readers);
+        this.readers = readers;
+        this.writer = writer;
+    }
+
+    DataSource getReaders() {
+        return readers;
+    }
+
+    DataSource getWriter() {
+        return writer;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return (Connection)
+                Proxy.newProxyInstance(
+                        GeoPkgDataSource.class.getClassLoader(),
+                        new Class<?>[] {Connection.class},
+                        new RoutingConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return getConnection();
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try {
+            readers.close();
+        } finally {
+            if (writer != null) {
+                writer.close();
+            }
+        }
+    }
+
+    @Override
+    public boolean isWrapperFor(Class c) throws SQLException {
+        return DataSource.class.isAssignableFrom(c);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(Class<T> c) throws SQLException {
+        if (isWrapperFor(c)) {
+            return (T) wrapped;
+        }
+        return null;
+    }
+
+    /** Returns true if the connection routes its statements, see {@link GeoPkgDataSource} */
+    static boolean isRouting(Connection cx) {
+        return Proxy.isProxyClass(cx.getClass())
+                && Proxy.getInvocationHandler(cx) instanceof RoutingConnection;
+    }
+
+    /** Connection methods that only read its state, and can run on a read only connection */
+    static final Set<String> READ_METHODS =
+            new HashSet<>(
+                    Arrays.asList(
+                            "isReadOnly",
+                            "isValid",
+                            "getWarnings",
+                            "clearWarnings",
+                            "getCatalog",
+                            "getSchema",
+                            "getTransactionIsolation",
+                            "getHoldability",
+                            "getTypeMap",
+                            "getClientInfo",
+                            "getNetworkTimeout",
+                            "nativeSQL",
+                            "unwrap",
+                            "isWrapperFor"));
+
+    static boolean isQuery(String sql) {
+        return sql != null && QUERY.matcher(sql).find();
+    }
+
+    private Connection borrow(BasicDataSource pool) throws SQLException {
+        Connection cx = pool.getConnection();
+        Connection sqlite = cx;
+        while (sqlite instanceof DelegatingConnection) {
+            sqlite = ((DelegatingConnection) sqlite).getDelegate();
+        }
+        synchronized (initialized) {
+            if (initialized.add(sqlite)) {
+                GeoPackage.createFunctions(sqlite);
+            }
+        }
+        return cx;
+    }
+
+    /** Routes the statements of a connection to a read only connection or to the writer */
+    private class RoutingConnection implements InvocationHandler {
+
+        private Connection reader;
+
+        private Connection writer;
+
+        private boolean autoCommit = true;
+
+        private boolean closed;
+
+        private Connection reader() throws SQLException {
+            if (GeoPkgDataSource.this.writer == null) {
+                return writer();
+            }
+            if (reader == null) {
+                reader = borrow(readers);
+            }
+            return reader;
+        }
+
+        private Connection writer() throws SQLException {
+            if (writer == null) {
+                writer =
+                        borrow(
+                                GeoPkgDataSource.this.writer != null
+                                        ? GeoPkgDataSource.this.writer
+                                        : readers);
+                writer.setAutoCommit(autoCommit);
+            }
+            return writer;
+        }
+
+        /** The connection for statements which are not queries, or for the whole transaction */
+        private Connection target(String sql) throws SQLException {
+            return autoCommit && isQuery(sql) ? reader() : writer();
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "GeoPackage routing connection";
+                case "isClosed":
+                    return closed;
+                case "close":
+                    close();
+                    return null;
+                case "getAutoCommit":
+                    return autoCommit;
+                case "setAutoCommit":
+                    autoCommit = (Boolean) args[0];
+                    if (writer != null) {
+                        writer.setAutoCommit(autoCommit);
+                    }
+                    return null;
+                case "commit":
+                case "rollback":
+                    if (writer == null && (args == null || args.length == 0)) {
+                        // nothing written yet
+                        return null;
+                    }
+                    return call(writer(), method, args);
+                case "prepareStatement":
+                case "prepareCall":
+                    return call(target((String) args[0]), method, args);
+                case "createStatement":
+                    if (!autoCommit) {
+                        return call(writer(), method, args);
+                    }
+                    return Proxy.newProxyInstance(
+                            GeoPkgDataSource.class.getClassLoader(),
+                            new Class<?>[] {Statement.class},
+                            new RoutingStatement((Connection) proxy, method, args));
+                case "getMetaData":
+                    return call(autoCommit ? reader() : writer(), method, args);
+                default:
+                    if (READ_METHODS.contains(name)) {
+                        return call(writer != null ? writer : reader(), method, args);
+                    }
+                    // savepoints, settings and anything else affecting a transaction
+                    return call(writer(), method, args);
+            }
+        }
+
+        private void close() throws SQLException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                if (reader != null) {
+                    reader.close();
+                }
+            } finally {
+                if (writer != null) {
+                    writer.close();
+                }
+            }
+        }
+
+        /**
+         * A statement in auto commit mode, running the queries on a read only connection and the
+         * other statements on the writer. The settings are applied to both.
+         */
+        private class RoutingStatement implements InvocationHandler {
+
+            private final Connection connection;
+
+            private final Method create;
+
+            private final Object[] createArgs;
+
+            private final List<Object[]> settings = new ArrayList<>();
+
+            private Statement reading;
+
+            private Statement writing;
+
+            /** The statement that ran last, holding the results */
+            private Statement current;
+
+            private boolean closed;
+
+            RoutingStatement(Connection connection, Method create, Object[] createArgs) {
+                this.connection = connection;
+                this.create = create;
+                this.createArgs = createArgs;
+            }
+
+            private Statement statement(boolean query) throws Throwable {
+                if (query) {
+                    if (reading == null) {
+                        reading = create(reader());
+                    }
+                    current = reading;
+                } else {
+                    if (writing == null) {
+                        writing = create(writer());
+                    }
+                    current = writing;
+                }
+                return current;
+            }
+
+            private Statement create(Connection cx) throws Throwable {
+                Statement st = (Statement) call(cx, create, createArgs);
+                for (Object[] setting : settings) {
+                    call(st, (Method) setting[0], (Object[]) setting[1]);
+                }
+                return st;
+            }
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                String name = method.getName();
+                switch (name) {
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "toString":
+                        return "GeoPackage routing statement";
+                    case "getConnection":
+                        return connection;
+                    case "isClosed":
+                        return closed;
+                    case "close":
+                        closed = true;
+                        for (Statement st : new Statement[] {reading, writing}) {
+                            if (st != null) {
+                                st.close();
+                            }
+                        }
+                        return null;
+                    case "executeQuery":
+                        return call(statement(true), method, args);
+                    case "execute":
+                        return call(statement(isQuery((String) args[0])), method, args);
+                    case "executeUpdate":
+                    case "executeLargeUpdate":
+                    case "addBatch":
+                    case "executeBatch":
+                    case "clearBatch":
+                        return call(statement(false), method, args);
+                    default:
+                        if (name.startsWith("set") || name.equals("closeOnCompletion")) {
+                            settings.add(new Object[] {method, args});
+                            for (Statement st : new Statement[] {reading, writing}) {
+                                if (st != null) {
+                                    call(st, method, args);
+                                }
+                            }
+                            return null;
+                        }
+                        return call(current != null ? current : statement(true), method, args);
+                }
+            }
+        }
+    }
+
+    private static Object call(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
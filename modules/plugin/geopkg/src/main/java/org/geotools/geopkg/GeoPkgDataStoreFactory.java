@@ -18,6 +18,8 @@
 
 import java.io.File;
 import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.Collections;
 import java.util.Map;
 import javax.sql.DataSource;
@@ -72,6 +74,26 @@ public class GeoPkgDataStoreFactory extends JDBCDataStoreFactory {
                     false,
                     null);
 
+    /** Page cache size of each connection, defaults to null */
+    public static final Param CACHE_SIZE =
+            new Param(
+                    "cache size",
+                    Integer.class,
+                    "SQLite page cache size of each connection, in kilobytes",
+                    false,
+                    null,
+                    Collections.singletonMap(Parameter.LEVEL, "advanced"));
+
+    /** Whether connections are pooled, defaults to false */
+    public static final Param POOLED =
+            new Param(
+                    "pooled connections",
+                    Boolean.class,
+                    "Pool read only and writer connections in WAL journal mode, up to max connections each",
+                    false,
+                    Boolean.FALSE,
+                    Collections.singletonMap(Parameter.LEVEL, "advanced"));
+
     /** base location to store database files */
     File baseDirectory = null;
 
@@ -159,9 +181,6 @@ protected void setupParameters(Map<String, Object> parameters) {
         parameters.remove(PORT.key);
         parameters.remove(SCHEMA.key);
         parameters.remove(USER.key); // sqlite has no user, just a password
-        parameters.remove(MAXCONN.key);
-        parameters.remove(MINCONN.key);
-        parameters.remove(MAXWAIT.key);
         parameters.remove(VALIDATECONN.key);
         parameters.remove(TEST_WHILE_IDLE.key);
         parameters.remove(TIME_BETWEEN_EVICTOR_RUNS.key);
@@ -176,6 +195,10 @@ protected void setupParameters(Map<String, Object> parameters) {
         parameters.put(READ_ONLY.key, READ_ONLY);
         // memory mapping
         parameters.put(MEMORY_MAP_SIZE.key, MEMORY_MAP_SIZE);
+        // connection pooling, the pool size is set by MAXCONN and MINCONN
+        parameters.put(POOLED.key, POOLED);
+        parameters.put(CACHE_SIZE.key, CACHE_SIZE);
+        parameters.put(MAX_OPEN_PREPARED_STATEMENTS.key, MAX_OPEN_PREPARED_STATEMENTS);
     }
 
     /**
@@ -203,9 +226,21 @@ public BasicDataSource createDataSource(Map<String, ?> params) throws IOExceptio
         return dataSource;
     }
 
+    /**
+     * By default the store uses a new connection for each request. With {@link #POOLED} the store
+     * uses a {@link GeoPkgDataSource}, pooling read only connections and writer connections, up to
+     * {@link #MAXCONN} each.
+     */
     @Override
     protected DataSource createDataSource(Map<String, ?> params, SQLDialect dialect)
             throws IOException {
+        if (Boolean.TRUE.equals(POOLED.lookUp(params))) {
+            Integer maxConn = (Integer) MAXCONN.lookUp(params);
+            if (maxConn == null || maxConn <= 0) {
+                maxConn = (Integer) MAXCONN.getDefaultValue();
+            }
+            return createPooledDataSource(params, maxConn);
+        }
         SQLiteConfig config = setupSQLiteConfig(params);
 
         // use native "pool", which is actually not pooling anything (that's fast and
@@ -216,6 +251,70 @@ protected DataSource createDataSource(Map<String, ?> params, SQLDialect dialect)
         return ds;
     }
 
+    /**
+     * Creates a pool of read only connections and a pool of writer connections, in WAL journal
+     * mode, where readers run concurrently with each other and with the writers. SQLite lets one
+     * writer at a time in, the others wait for the database lock up to the busy timeout, as they do
+     * with unpooled connections. Read only stores only get the read only connections, and keep the
+     * journal mode of the file.
+     */
+    GeoPkgDataSource createPooledDataSource(Map<String, ?> params, int maxConn) throws IOException {
+        boolean readOnly = Boolean.TRUE.equals(READ_ONLY.lookUp(params));
+        BasicDataSource writer = null;
+        if (!readOnly) {
+            SQLiteConfig config = setupSQLiteConfig(params);
+            // the journal mode is persistent, the readers opening the file use it too
+            config.setJournalMode(SQLiteConfig.JournalMode.WAL);
+            config.setSynchronous(SQLiteConfig.SynchronousMode.NORMAL);
+            writer = createPool(params, config, maxConn, 1);
+            // creates the GeoPackage tables and the WAL file before the readers open the file
+            try (Connection cx = writer.getConnection()) {
+                GeoPackage.init(cx);
+            } catch (SQLException e) {
+                writer.close();
+                throw new IOException(e);
+            }
+        }
+
+        SQLiteConfig config = setupSQLiteConfig(params);
+        config.setReadOnly(true);
+        Integer minConn = (Integer) MINCONN.lookUp(params);
+        BasicDataSource readers =
+                createPool(params, config, maxConn, minConn != null ? minConn : 1);
+        return new GeoPkgDataSource(readers, writer);
+    }
+
+    private BasicDataSource createPool(
+            Map<String, ?> params, SQLiteConfig config, int maxConn, int minConn)
+            throws IOException {
+        // a shared cache serializes the connections on table locks
+        config.setSharedCache(false);
+        BasicDataSource dataSource = new BasicDataSource();
+        dataSource.setDriverClassName(getDriverClassName());
+        dataSource.setUrl(getJDBCUrl(params));
+        for (Map.Entry<Object, Object> e : config.toProperties().entrySet()) {
+            dataSource.addConnectionProperty((String) e.getKey(), (String) e.getValue());
+        }
+        dataSource.setMaxActive(maxConn);
+        dataSource.setMaxIdle(maxConn);
+        dataSource.setMinIdle(Math.min(minConn, maxConn));
+        // waits for a connection at most as long as for a database lock, or the max wait
+        Integer maxWait = (Integer) MAXWAIT.lookUp(params);
+        dataSource.setMaxWait(
+                maxWait != null && maxWait != -1 ? maxWait * 1000L : sqlLiteConnectTimeout);
+        // the GeoPackage functions are registered on the underlying SQLite connection
+        dataSource.setAccessToUnderlyingConnectionAllowed(true);
+
+        Integer maxStatements = (Integer) MAX_OPEN_PREPARED_STATEMENTS.lookUp(params);
+        if (maxStatements == null || maxStatements >= 0) {
+            dataSource.setPoolPreparedStatements(true);
+            if (maxStatements != null && maxStatements > 0) {
+                dataSource.setMaxOpenPreparedStatements(maxStatements);
+            }
+        }
+        return dataSource;
+    }
+
     private static SQLiteConfig setupSQLiteConfig(Map<String, ?> params) throws IOException {
         SQLiteConfig config = new SQLiteConfig();
         config.setSharedCache(true);
@@ -230,6 +329,11 @@ private static SQLiteConfig setupSQLiteConfig(Map<String, ?> params) throws IOEx
             int memoryMB = (Integer) map;
             config.setPragma(SQLiteConfig.Pragma.MMAP_SIZE, String.valueOf(memoryMB * 1024 * 1024));
         }
+        Object cache = CACHE_SIZE.lookUp(params);
+        if (cache instanceof Integer && ((Integer) cache) > 0) {
+            // negative values are a size in kilobytes rather than a number of pages
+            config.setPragma(SQLiteConfig.Pragma.CACHE_SIZE, String.valueOf(-(Integer) cache));
+        }
         config.setBusyTimeout(sqlLiteConnectTimeout);
         return config;
     }
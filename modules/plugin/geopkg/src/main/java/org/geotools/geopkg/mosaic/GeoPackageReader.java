@@ -39,7 +39,10 @@
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -69,6 +72,7 @@
 import org.geotools.geopkg.TileMatrix;
 import org.geotools.geopkg.TileReader;
 import org.geotools.image.ImageWorker;
+import org.geotools.image.util.DecodedTileCache;
 import org.geotools.referencing.CRS;
 import org.geotools.util.Utilities;
 import org.geotools.util.factory.GeoTools;
@@ -87,6 +91,12 @@ public class GeoPackageReader extends AbstractGridCoverage2DReader {
     /** The {@link Logger} for this {@link GeoPackageReader}. */
     private static final Logger LOGGER = Logging.getLogger(GeoPackageReader.class);
 
+    /**
+     * The idle tile image readers of this reader. They are not thread safe, each decoding thread
+     * borrows one and gives it back once done
+     */
+    private final Queue<TileImageReader> tileReaders = new ConcurrentLinkedQueue<>();
+
     protected static final int DEFAULT_TILE_SIZE = 256;
 
     protected static final int ZOOM_LEVEL_BASE = 2;
@@ -97,6 +107,8 @@ public class GeoPackageReader extends AbstractGridCoverage2DReader {
 
     GeoPackage file;
 
+    private DecodedTileCache tileCache = DecodedTileCache.getDefault();
+
     public GeoPackageReader(Object source, Hints hints) throws IOException {
         coverageFactory = CoverageFactoryFinder.getGridCoverageFactory(this.hints);
 
@@ -323,11 +335,10 @@ public GridCoverage2D read(String coverageName, GeneralParameterValue[] paramete
              * RGBA. GDAL in particular defaults to generate a mix of PNG and JPEG to generate the
              * slow and large PNG format only when transparency is actually needed
              */
-            List<ImageInTile> sources = new ArrayList<>();
-            TileImageReader tileReader = new TileImageReader();
-
+            List<Tile> readTiles = new ArrayList<>();
             while (it.hasNext()) {
                 Tile tile = it.next();
+                readTiles.add(tile);
                 // recalculate the envelope we are actually returning (remember y axis is flipped)
                 ReferencedEnvelope tileEnvelope =
                         new ReferencedEnvelope( //
@@ -341,14 +352,25 @@ public GridCoverage2D read(String coverageName, GeneralParameterValue[] paramete
                 } else {
                     resultEnvelope.expandToInclude(tileEnvelope);
                 }
+            }
+            it.close();
 
-                BufferedImage tileImage = tileReader.read(tile.getData());
-
+            // decode the tiles in parallel, reusing the ones already decoded
+            String cacheSource = getCacheSource(entry);
+            List<BufferedImage> tileImages =
+                    tileCache.decode(
+                            readTiles,
+                            t ->
+                                    new DecodedTileCache.Key(
+                                            cacheSource, t.getZoom(), t.getColumn(), t.getRow()),
+                            t -> readTileImage(t.getData()));
+            List<ImageInTile> sources = new ArrayList<>();
+            for (int i = 0; i < readTiles.size(); i++) {
+                Tile tile = readTiles.get(i);
                 int posx = (tile.getColumn() - leftTile) * DEFAULT_TILE_SIZE;
                 int posy = (tile.getRow() - topTile) * DEFAULT_TILE_SIZE;
-                sources.add(new ImageInTile(tileImage, posx, posy));
+                sources.add(new ImageInTile(tileImages.get(i), posx, posy));
             }
-            it.close();
 
             if (sources.isEmpty()) {
                 // no tiles
@@ -363,6 +385,28 @@ public GridCoverage2D read(String coverageName, GeneralParameterValue[] paramete
         return coverageFactory.create(entry.getTableName(), image, resultEnvelope);
     }
 
+    /**
+     * Identifies the tiles of an entry in the tile cache, the modification date of the file keeps
+     * tiles decoded before it was changed from being reused
+     */
+    private String getCacheSource(TileEntry entry) {
+        return sourceFile.getAbsolutePath()
+                + "@"
+                + sourceFile.lastModified()
+                + "#"
+                + entry.getTableName();
+    }
+
+    /** Returns the cache of decoded tiles, by default the shared one */
+    public DecodedTileCache getTileCache() {
+        return tileCache;
+    }
+
+    /** Sets the cache of decoded tiles, cached images are shared and must not be modified */
+    public void setTileCache(DecodedTileCache tileCache) {
+        this.tileCache = Objects.requireNonNull(tileCache);
+    }
+
     private RenderedImage mosaicImages(List<ImageInTile> sources) {
         if (uniformImages(sources.stream().map(it -> it.image).collect(Collectors.toList()))) {
             return mosaicUniformImages(sources);
@@ -482,8 +526,25 @@ public GridCoverage2D read(GeneralParameterValue[] parameters)
         return read(coverageName, parameters);
     }
 
+    /** Decodes a tile image with an idle tile image reader, creating one if none is available */
+    private BufferedImage readTileImage(byte[] data) throws IOException {
+        TileImageReader reader = tileReaders.poll();
+        if (reader == null) {
+            reader = new TileImageReader();
+        }
+        try {
+            return reader.read(data);
+        } finally {
+            tileReaders.add(reader);
+        }
+    }
+
     @Override
     public void dispose() {
+        TileImageReader reader;
+        while ((reader = tileReaders.poll()) != null) {
+            reader.dispose();
+        }
         if (file != null) {
             file.close();
         }
@@ -75,6 +75,15 @@ public BufferedImage read(byte[] data) throws IOException {
         return lastReader.read(0, param);
     }
 
+    /** Disposes the cached image readers, this object cannot be used afterwards */
+    public void dispose() {
+        for (ImageReader reader : readersCache) {
+            reader.dispose();
+        }
+        readersCache.clear();
+        lastReader = null;
+    }
+
     /**
      * Methods to create a {@link ImageInputStream} out of a byte array. Gets called over and over
      * because just marking the stream and resetting it was not working against some sample
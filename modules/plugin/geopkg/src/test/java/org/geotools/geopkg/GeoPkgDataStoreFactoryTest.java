@@ -16,6 +16,7 @@
  */
 package org.geotools.geopkg;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -25,15 +26,26 @@
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Savepoint;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import org.apache.commons.dbcp.BasicDataSource;
 import org.geotools.api.data.DataStore;
+import org.geotools.api.data.Query;
+import org.geotools.api.data.Transaction;
 import org.geotools.feature.simple.SimpleFeatureTypeBuilder;
+import org.geotools.jdbc.JDBCDataStore;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
@@ -115,6 +127,147 @@ public void testConnectTimeout() throws Exception {
         assertTrue(time.get() <= 10000);
     }
 
+    @Test
+    public void testConnectionPool() throws Exception {
+        createGeoPackage(dbName, null, "foo");
+        Map<String, Serializable> map = new HashMap<>();
+        map.put(GeoPkgDataStoreFactory.DBTYPE.key, "geopkg");
+        map.put(GeoPkgDataStoreFactory.DATABASE.key, dbName);
+        map.put(GeoPkgDataStoreFactory.MAXCONN.key, 4);
+        map.put(GeoPkgDataStoreFactory.MINCONN.key, 2);
+        map.put(GeoPkgDataStoreFactory.CACHE_SIZE.key, 4096);
+        GeoPkgDataStoreFactory factory = new GeoPkgDataStoreFactory();
+        factory.setBaseDirectory(tmp.getRoot());
+
+        // pooling is opt-in, the max connections alone do not enable it
+        JDBCDataStore unpooled = factory.createDataStore(map);
+        try {
+            assertFalse(unpooled.getDataSource() instanceof GeoPkgDataSource);
+        } finally {
+            unpooled.dispose();
+        }
+
+        map.put(GeoPkgDataStoreFactory.POOLED.key, true);
+        JDBCDataStore store = factory.createDataStore(map);
+        try {
+            assertTrue(store.getDataSource() instanceof GeoPkgDataSource);
+            GeoPkgDataSource dataSource = (GeoPkgDataSource) store.getDataSource();
+            assertEquals(4, ((BasicDataSource) dataSource.getReaders()).getMaxActive());
+            assertEquals(2, ((BasicDataSource) dataSource.getReaders()).getMinIdle());
+            assertEquals(4, ((BasicDataSource) dataSource.getWriter()).getMaxActive());
+            try (Connection cx = store.getConnection(Transaction.AUTO_COMMIT);
+                    Statement st = cx.createStatement()) {
+                try (ResultSet rs = st.executeQuery("PRAGMA journal_mode")) {
+                    assertTrue(rs.next());
+                    assertEquals("wal", rs.getString(1));
+                }
+                try (ResultSet rs = st.executeQuery("PRAGMA cache_size")) {
+                    assertTrue(rs.next());
+                    assertEquals(-4096, rs.getInt(1));
+                }
+            }
+
+            // queries run on the read only connections, the rest on the writer
+            try (Connection cx = store.getConnection(Transaction.AUTO_COMMIT);
+                    PreparedStatement select = cx.prepareStatement("SELECT count(*) FROM foo");
+                    PreparedStatement insert =
+                            cx.prepareStatement("INSERT INTO foo (name) VALUES (?)")) {
+                assertTrue(select.getConnection().isReadOnly());
+                assertFalse(insert.getConnection().isReadOnly());
+                insert.setString(1, "a");
+                assertEquals(1, insert.executeUpdate());
+                try (ResultSet rs = select.executeQuery()) {
+                    assertTrue(rs.next());
+                    assertEquals(1, rs.getInt(1));
+                }
+            }
+            // a transaction only uses the writer, savepoints included
+            try (Connection cx = store.getConnection(Transaction.AUTO_COMMIT)) {
+                cx.setAutoCommit(false);
+                Savepoint savepoint = cx.setSavepoint();
+                try (PreparedStatement select = cx.prepareStatement("SELECT count(*) FROM foo");
+                        Statement st = cx.createStatement()) {
+                    assertFalse(select.getConnection().isReadOnly());
+                    st.executeUpdate("DELETE FROM foo");
+                    cx.rollback(savepoint);
+                    try (ResultSet rs = select.executeQuery()) {
+                        assertTrue(rs.next());
+                        assertEquals(1, rs.getInt(1));
+                    }
+                    st.executeUpdate("DELETE FROM foo");
+                }
+                cx.commit();
+            }
+
+            // a connection borrowed while another one is writing can read and write
+            try (Connection outer = store.getConnection(Transaction.AUTO_COMMIT)) {
+                outer.setAutoCommit(false);
+                try (Statement st = outer.createStatement()) {
+                    st.executeUpdate("INSERT INTO foo (name) VALUES ('outer')");
+                }
+                try (Connection inner = store.getConnection(Transaction.AUTO_COMMIT);
+                        Statement st = inner.createStatement();
+                        ResultSet rs = st.executeQuery("SELECT count(*) FROM foo")) {
+                    // the uncommitted row is not visible to the readers
+                    assertTrue(rs.next());
+                    assertEquals(0, rs.getInt(1));
+                }
+                outer.rollback();
+            }
+
+            // writers and readers run concurrently
+            ExecutorService writers = Executors.newFixedThreadPool(4);
+            try {
+                List<Future<Integer>> inserts = new ArrayList<>();
+                for (int i = 0; i < 8; i++) {
+                    String name = "w" + i;
+                    inserts.add(
+                            writers.submit(
+                                    () -> {
+                                        try (Connection cx =
+                                                        store.getConnection(
+                                                                Transaction.AUTO_COMMIT);
+                                                PreparedStatement insert =
+                                                        cx.prepareStatement(
+                                                                "INSERT INTO foo (name) VALUES (?)")) {
+                                            insert.setString(1, name);
+                                            insert.executeUpdate();
+                                        }
+                                        return store.getFeatureSource("foo").getCount(Query.ALL);
+                                    }));
+                }
+                for (Future<Integer> insert : inserts) {
+                    assertTrue(insert.get() > 0);
+                }
+                assertEquals(8, store.getFeatureSource("foo").getCount(Query.ALL));
+                try (Connection cx = store.getConnection(Transaction.AUTO_COMMIT);
+                        Statement st = cx.createStatement()) {
+                    st.executeUpdate("DELETE FROM foo");
+                }
+            } finally {
+                writers.shutdown();
+            }
+
+            // readers share the pool concurrently
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            try {
+                List<Future<Integer>> counts = new ArrayList<>();
+                for (int i = 0; i < 8; i++) {
+                    counts.add(
+                            executor.submit(
+                                    () -> store.getFeatureSource("foo").getCount(Query.ALL)));
+                }
+                for (Future<Integer> count : counts) {
+                    assertEquals(0, count.get().intValue());
+                }
+            } finally {
+                executor.shutdown();
+            }
+        } finally {
+            store.dispose();
+        }
+    }
+
     private void createGeoPackage(String geoPackageName, Integer connectTimeout, String tableName)
             throws IOException {
         Map<String, Serializable> map = new HashMap<>();
@@ -128,6 +128,15 @@ public class GeoTiffFormat extends AbstractGridFormat implements Format {
                     new Boolean[] {Boolean.TRUE, Boolean.FALSE},
                     Boolean.FALSE);
 
+    /**
+     * This {@link GeneralParameterValue} can be provided to the {@link GeoTiffWriter}s to compute
+     * the tiles of the image being written on the specified number of threads, ahead of the TIFF
+     * writer encoding them. Default or missing parameter means tiles are computed by the writer
+     * thread, one at a time.
+     */
+    public static final DefaultParameterDescriptor<Integer> WRITE_THREADS =
+            new DefaultParameterDescriptor<>("WRITE_THREADS", Integer.class, null, 1);
+
     /** factory for getting tiff writers. */
     static final TIFFImageWriterSpi IMAGEIO_WRITER_FACTORY = new TIFFImageWriterSpi();
 
@@ -167,6 +176,7 @@ public GeoTiffFormat() {
                                 new GeneralParameterDescriptor[] {
                                     RETAIN_AXES_ORDER,
                                     WRITE_NODATA,
+                                    WRITE_THREADS,
                                     AbstractGridFormat.GEOTOOLS_WRITE_PARAMS,
                                     AbstractGridFormat.PROGRESS_LISTENER
                                 }));
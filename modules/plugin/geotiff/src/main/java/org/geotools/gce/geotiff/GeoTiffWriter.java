@@ -31,6 +31,9 @@
 import java.net.URL;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.imageio.IIOException;
@@ -167,6 +170,7 @@ public void write(final GridCoverage gc, final GeneralParameterValue[] params)
         ProgressListener listener = null;
         boolean retainAxesOrder = false;
         boolean writeNodata = GeoTiffFormat.WRITE_NODATA.getDefaultValue();
+        int writeThreads = GeoTiffFormat.WRITE_THREADS.getDefaultValue();
         // /////////////////////////////////////////////////////////////////////
         //
         // Checking params
@@ -197,6 +201,13 @@ public void write(final GridCoverage gc, final GeneralParameterValue[] params)
                     writeNodata = (Boolean) param.getValue();
                     continue;
                 }
+                if (name.equals(GeoTiffFormat.WRITE_THREADS.getName())) {
+                    Object value = param.getValue();
+                    if (value != null) {
+                        writeThreads = (Integer) value;
+                    }
+                    continue;
+                }
             }
         }
 
@@ -243,7 +254,8 @@ public void write(final GridCoverage gc, final GeneralParameterValue[] params)
         //
         // write image
         //
-        writeImage(gc.getRenderedImage(), this.outStream, metadata, gtParams, listener);
+        writeImage(
+                gc.getRenderedImage(), this.outStream, metadata, gtParams, listener, writeThreads);
 
         //
         // write tfw
@@ -348,14 +360,17 @@ private static void setGeoReference(
 
     /**
      * Writes the provided rendered image to the provided image output stream using the supplied
-     * geotiff metadata.
+     * geotiff metadata. When more than one thread is requested the tiles are computed in parallel
+     * ahead of the writer encoding them, and Deflate compression splits each tile in chunks
+     * compressed in parallel, unless a custom compressor has been set.
      */
     private boolean writeImage(
-            final RenderedImage image,
+            RenderedImage image,
             final ImageOutputStream outputStream,
             final GeoTiffIIOMetadataEncoder geoTIFFMetadata,
             GeoToolsWriteParams gtParams,
-            ProgressListener listener)
+            ProgressListener listener,
+            int threads)
             throws IOException {
         if (image == null || outputStream == null) {
             throw new NullPointerException("Some input parameters are null");
@@ -370,7 +385,47 @@ private boolean writeImage(
         //
         final TIFFImageWriter writer =
                 (TIFFImageWriter) GeoTiffFormat.IMAGEIO_WRITER_FACTORY.createWriterInstance();
+        ExecutorService executor = null;
+        ParallelTileImage parallelImage = null;
+        TIFFImageWriteParam parallelCompression = null;
         try {
+            boolean tiled = image.getNumXTiles() * image.getNumYTiles() > 1;
+            if (threads > 1
+                    && params instanceof TIFFImageWriteParam
+                    && params.getCompressionMode() == ImageWriteParam.MODE_EXPLICIT
+                    && ParallelDeflateCompressor.isSupported(params.getCompressionType())
+                    && ((TIFFImageWriteParam) params).getTIFFCompressor() == null) {
+                parallelCompression = (TIFFImageWriteParam) params;
+            }
+            if (threads > 1 && (tiled || parallelCompression != null)) {
+                AtomicInteger count = new AtomicInteger();
+                executor =
+                        Executors.newFixedThreadPool(
+                                threads,
+                                r -> {
+                                    Thread t =
+                                            new Thread(
+                                                    r,
+                                                    "GeoTiffTileWriter-" + count.incrementAndGet());
+                                    t.setDaemon(true);
+                                    return t;
+                                });
+            }
+            if (executor != null && tiled) {
+                parallelImage = new ParallelTileImage(image, executor, threads * 2);
+                image = parallelImage;
+            }
+            if (parallelCompression != null) {
+                // same level mapping as the imageio-ext deflater
+                int level = (int) (1 + 8 * parallelCompression.getCompressionQuality());
+                parallelCompression.setTIFFCompressor(
+                        new ParallelDeflateCompressor(
+                                parallelCompression.getCompressionType(),
+                                level,
+                                executor,
+                                threads));
+            }
+
             final IIOMetadata metadata =
                     createGeoTiffIIOMetadata(
                             writer,
@@ -396,6 +451,15 @@ private boolean writeImage(
 
             outputStream.flush();
         } finally {
+            if (parallelCompression != null) {
+                parallelCompression.setTIFFCompressor(null);
+            }
+            if (parallelImage != null) {
+                parallelImage.dispose();
+            }
+            if (executor != null) {
+                executor.shutdownNow();
+            }
 
             try {
                 if (!(destination instanceof ImageOutputStream) && outputStream != null)
@@ -0,0 +1,147 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2024, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.gce.geotiff;
+
+import it.geosolutions.imageio.plugins.tiff.BaselineTIFFTagSet;
+import it.geosolutions.imageio.plugins.tiff.TIFFCompressor;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.Adler32;
+import java.util.zip.Deflater;
+
+/**
+ * Deflate compressor splitting each tile, or strip, in chunks compressed in parallel, the way pigz
+ * does.
+ *
+ * <p>Each chunk is compressed on its own, all but the last one ending with a sync flush so that
+ * they can be concatenated in a single zlib stream, which any inflater reads back. The chunks do
+ * not share their dictionary, so the output is slightly larger than a sequential compression.
+ */
+class ParallelDeflateCompressor extends TIFFCompressor {
+
+    /** The smallest chunk worth compressing on its own */
+    static final int MIN_CHUNK_SIZE = 32 * 1024;
+
+    private final int level;
+
+    private final ExecutorService executor;
+
+    private final int threads;
+
+    /**
+     * @param compressionType either "Deflate" or "ZLib", see {@link #isSupported(String)}
+     * @param level the deflate level
+     * @param executor the executor compressing the chunks
+     * @param threads the maximum number of chunks a tile is split in
+     */
+    ParallelDeflateCompressor(
+            String compressionType, int level, ExecutorService executor, int threads) {
+        super(
+                compressionType,
+                "ZLib".equals(compressionType)
+                        ? BaselineTIFFTagSet.COMPRESSION_ZLIB
+                        : BaselineTIFFTagSet.COMPRESSION_DEFLATE,
+                true);
+        this.level = level;
+        this.executor = executor;
+        this.threads = threads;
+    }
+
+    /** Returns true if the compression type is one this compressor can take over */
+    static boolean isSupported(String compressionType) {
+        return "Deflate".equals(compressionType) || "ZLib".equals(compressionType);
+    }
+
+    @Override
+    public int encode(
+            byte[] b, int off, int width, int height, int[] bitsPerSample, int scanlineStride)
+            throws IOException {
+        int length = height * scanlineStride;
+        int chunks = Math.max(1, Math.min(threads, length / MIN_CHUNK_SIZE));
+        int chunkSize = (length + chunks - 1) / chunks;
+
+        List<Future<byte[]>> compressed = new ArrayList<>(chunks);
+        int start = 0;
+        do {
+            int chunkOffset = off + start;
+            int chunkLength = Math.min(chunkSize, length - start);
+            boolean last = start + chunkLength >= length;
+            compressed.add(executor.submit(() -> deflate(b, chunkOffset, chunkLength, last)));
+            start += chunkLength;
+        } while (start < length);
+        Adler32 checksum = new Adler32();
+        checksum.update(b, off, length);
+
+        // zlib header, deflate with a 32K window and the default level flags
+        stream.write(0x78);
+        stream.write(0x9C);
+        int written = 2;
+        try {
+            for (Future<byte[]> future : compressed) {
+                byte[] chunk = future.get();
+                stream.write(chunk);
+                written += chunk.length;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        } finally {
+            for (Future<byte[]> future : compressed) {
+                future.cancel(true);
+            }
+        }
+        // the checksum is big endian whatever the byte order of the stream
+        long adler = checksum.getValue();
+        stream.write((int) (adler >>> 24));
+        stream.write((int) (adler >>> 16));
+        stream.write((int) (adler >>> 8));
+        stream.write((int) adler);
+        return written + 4;
+    }
+
+    /** Compresses a chunk as raw deflate data, ending on a byte boundary unless it's the last */
+    private byte[] deflate(byte[] b, int off, int len, boolean last) {
+        Deflater deflater = new Deflater(level, true);
+        try {
+            deflater.setInput(b, off, len);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(len / 2 + 64);
+            byte[] buffer = new byte[Math.max(1024, Math.min(len, 64 * 1024))];
+            if (last) {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    out.write(buffer, 0, deflater.deflate(buffer));
+                }
+            } else {
+                int n;
+                do {
+                    n = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                    out.write(buffer, 0, n);
+                } while (n == buffer.length);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2024, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.gce.geotiff;
+
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.WritableRaster;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import javax.media.jai.RenderedImageAdapter;
+
+/**
+ * Wraps the image being written, computing its tiles on an executor ahead of the TIFF writer.
+ *
+ * <p>When the output tiles match the image ones the TIFF writer pulls the tiles one at a time, in
+ * row major order, so while it encodes and writes one tile the next ones are computed in parallel.
+ * At most {@code lookahead} tiles are computed in advance, keeping memory usage bounded. Tiles
+ * requested out of order are computed on the spot.
+ *
+ * <p>Otherwise the writer asks for the data of each output tile, or strip. The image tiles covering
+ * it, and the ones covering the next output tile in row major order, are then computed in parallel.
+ * The tiles also covering the row of output tiles below are kept until it's written, so at most one
+ * row of image tiles is held in memory.
+ */
+class ParallelTileImage extends RenderedImageAdapter {
+
+    private final ExecutorService executor;
+
+    private final int lookahead;
+
+    private final int tileCount;
+
+    /** The tiles scheduled and not yet picked up, by linear index */
+    private final Map<Integer, Future<Raster>> pending = new HashMap<>();
+
+    /** Linear index of the next tile to be scheduled */
+    private int nextTile;
+
+    /** The size of the regions requested by the writer, its output tile or strip size */
+    private Dimension regionSize;
+
+    public ParallelTileImage(RenderedImage source, ExecutorService executor, int lookahead) {
+        super(source);
+        this.executor = executor;
+        this.lookahead = lookahead;
+        this.tileCount = source.getNumXTiles() * source.getNumYTiles();
+    }
+
+    @Override
+    public synchronized Raster getTile(int tileX, int tileY) {
+        int index = getIndex(tileX, tileY);
+        if (index < 0 || index >= tileCount) {
+            return super.getTile(tileX, tileY);
+        }
+        // skip forward in case tiles have been requested out of order
+        nextTile = Math.max(nextTile, index);
+        int last = Math.min(tileCount, index + 1 + lookahead);
+        while (nextTile < last) {
+            schedule(nextTile);
+            nextTile++;
+        }
+        return take(index, false);
+    }
+
+    @Override
+    public Raster getData() {
+        return getData(getBounds());
+    }
+
+    @Override
+    public synchronized Raster getData(Rectangle region) {
+        if (region == null) {
+            region = getBounds();
+        }
+        Rectangle bounds = region.intersection(getBounds());
+        if (bounds.isEmpty()) {
+            // let the source report the error
+            return super.getData(region);
+        }
+        if (regionSize == null) {
+            regionSize = region.getSize();
+        }
+        WritableRaster data =
+                createWritableRaster(
+                        getSampleModel().createCompatibleSampleModel(bounds.width, bounds.height),
+                        bounds.getLocation());
+        copy(bounds, data);
+        return data;
+    }
+
+    @Override
+    public synchronized WritableRaster copyData(WritableRaster raster) {
+        if (raster == null) {
+            return (WritableRaster) getData();
+        }
+        Rectangle bounds = raster.getBounds().intersection(getBounds());
+        if (!bounds.isEmpty()) {
+            copy(bounds, raster);
+        }
+        return raster;
+    }
+
+    /**
+     * Copies a region of the image into the target raster, computing the tiles covering it in
+     * parallel, along with the ones covering the region the writer will most likely ask for next
+     */
+    private void copy(Rectangle bounds, WritableRaster target) {
+        Set<Integer> tiles = getTiles(bounds);
+        Set<Integer> next = getTiles(getNextRegion(bounds));
+        for (Integer index : tiles) {
+            schedule(index);
+        }
+        for (Integer index : next) {
+            schedule(index);
+        }
+        int bottom = bounds.y + bounds.height;
+        for (Integer index : tiles) {
+            // tiles overlapping the next region, or the row of regions below, are kept for them
+            int tileY = getMinTileY() + index / getNumXTiles();
+            int tileBottom = Math.min(tileYToY(tileY) + getTileHeight(), getMaxY());
+            target.setRect(take(index, tileBottom > bottom || next.contains(index)));
+        }
+    }
+
+    /** Returns the region following the given one in row major order, or null if none */
+    private Rectangle getNextRegion(Rectangle region) {
+        Rectangle next;
+        if (region.x + region.width < getMaxX()) {
+            next =
+                    new Rectangle(
+                            region.x + region.width, region.y, regionSize.width, regionSize.height);
+        } else {
+            next =
+                    new Rectangle(
+                            getMinX(),
+                            region.y + region.height,
+                            regionSize.width,
+                            regionSize.height);
+        }
+        next = next.intersection(getBounds());
+        return next.isEmpty() ? null : next;
+    }
+
+    /** Returns the linear indexes of the tiles covering a region, in row major order */
+    private Set<Integer> getTiles(Rectangle region) {
+        Set<Integer> tiles = new TreeSet<>();
+        if (region != null) {
+            int minTileX = XToTileX(region.x);
+            int maxTileX = XToTileX(region.x + region.width - 1);
+            int minTileY = YToTileY(region.y);
+            int maxTileY = YToTileY(region.y + region.height - 1);
+            for (int tileY = minTileY; tileY <= maxTileY; tileY++) {
+                for (int tileX = minTileX; tileX <= maxTileX; tileX++) {
+                    tiles.add(getIndex(tileX, tileY));
+                }
+            }
+        }
+        return tiles;
+    }
+
+    private int getIndex(int tileX, int tileY) {
+        return (tileY - getMinTileY()) * getNumXTiles() + (tileX - getMinTileX());
+    }
+
+    /** Starts computing a tile, unless it's already being computed */
+    private void schedule(int index) {
+        if (!pending.containsKey(index)) {
+            int x = getMinTileX() + index % getNumXTiles();
+            int y = getMinTileY() + index / getNumXTiles();
+            pending.put(index, executor.submit(() -> theImage.getTile(x, y)));
+        }
+    }
+
+    /**
+     * Waits for a scheduled tile, computing it on the spot if it was not scheduled
+     *
+     * @param keep true to keep the tile scheduled, as it will be requested again
+     */
+    private Raster take(int index, boolean keep) {
+        Future<Raster> future = keep ? pending.get(index) : pending.remove(index);
+        if (future == null) {
+            return theImage.getTile(
+                    getMinTileX() + index % getNumXTiles(), getMinTileY() + index / getNumXTiles());
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    /** Cancels the tile computations not yet picked up by the writer */
+    @Override
+    public synchronized void dispose() {
+        for (Future<Raster> future : pending.values()) {
+            future.cancel(true);
+        }
+        pending.clear();
+        super.dispose();
+    }
+}
@@ -1120,6 +1120,37 @@ public void testExternalOverviews() throws Exception {
         assertEquals(resolutions[1], availableResolutions[0][1], delta);
     }
 
+    @Test
+    public void testExternalOverviewsReopened() throws Exception {
+        final File file = TestData.file(GeoTiffReaderTest.class, "ovr.tif");
+        GeoTiffReader reader = new GeoTiffReader(file);
+        double[][] expected = reader.getResolutionLevels();
+        reader.dispose();
+
+        // the overview sizes are shared, a new reader finds the same resolutions
+        reader = new GeoTiffReader(file);
+        double[][] resolutions = reader.getResolutionLevels();
+        reader.dispose();
+        assertEquals(expected.length, resolutions.length);
+        for (int i = 0; i < expected.length; i++) {
+            assertArrayEquals(expected[i], resolutions[i], 1e-9);
+        }
+
+        // and they are read again once the overviews file changes
+        File ovr = TestData.file(GeoTiffReaderTest.class, "ovr.tif.ovr");
+        long lastModified = ovr.lastModified();
+        try {
+            assertTrue(ovr.setLastModified(lastModified + 1000));
+            reader = new GeoTiffReader(file);
+            resolutions = reader.getResolutionLevels();
+            reader.dispose();
+            assertEquals(expected.length, resolutions.length);
+            assertArrayEquals(expected[4], resolutions[4], 1e-9);
+        } finally {
+            ovr.setLastModified(lastModified);
+        }
+    }
+
     @Test
     //    @Ignore
     public void testExternalOverviewsDisabled() throws Exception {
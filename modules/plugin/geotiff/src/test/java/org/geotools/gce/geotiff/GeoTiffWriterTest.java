@@ -19,18 +19,25 @@
 import it.geosolutions.imageio.plugins.tiff.BaselineTIFFTagSet;
 import it.geosolutions.io.output.adapter.OutputStreamAdapter;
 import it.geosolutions.jaiext.range.NoDataContainer;
+import java.awt.RenderingHints;
 import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
 import java.awt.image.RenderedImage;
+import java.awt.image.WritableRaster;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.text.ParseException;
 import java.util.Map;
+import java.util.Random;
 import java.util.logging.Logger;
 import javax.imageio.stream.FileImageOutputStream;
+import javax.media.jai.ImageLayout;
+import javax.media.jai.JAI;
 import javax.media.jai.PlanarImage;
+import javax.media.jai.operator.FormatDescriptor;
 import org.geotools.api.coverage.grid.GridCoverageReader;
 import org.geotools.api.coverage.grid.GridCoverageWriter;
 import org.geotools.api.coverage.grid.GridEnvelope;
@@ -844,6 +851,104 @@ public void testWrappedStream() throws Exception {
         writeAndRead(coverage, null, -9999d, geotiff, writer);
     }
 
+    @Test
+    public void testWriteParallelTiles() throws Exception {
+        // a 4x4 tiles image with a different value on each pixel
+        BufferedImage bi = new BufferedImage(256, 256, BufferedImage.TYPE_BYTE_GRAY);
+        WritableRaster raster = bi.getRaster();
+        for (int y = 0; y < 256; y++) {
+            for (int x = 0; x < 256; x++) {
+                raster.setSample(x, y, 0, (x * 7 + y * 13) % 256);
+            }
+        }
+        ImageLayout layout = new ImageLayout();
+        layout.setTileWidth(64).setTileHeight(64);
+        RenderedImage tiled =
+                FormatDescriptor.create(
+                        bi, DataBuffer.TYPE_BYTE, new RenderingHints(JAI.KEY_IMAGE_LAYOUT, layout));
+        assertEquals(16, tiled.getNumXTiles() * tiled.getNumYTiles());
+        ReferencedEnvelope envelope =
+                new ReferencedEnvelope(0, 10, 0, 10, DefaultGeographicCRS.WGS84);
+        GridCoverage2D coverage = new GridCoverageFactory().create("test", tiled, envelope);
+
+        final File geotiff = TestData.temp(this, "parallel.tif");
+        GeoTiffWriter writer = new GeoTiffWriter(geotiff);
+        ParameterValue<Integer> threads = GeoTiffFormat.WRITE_THREADS.createValue();
+        threads.setValue(4);
+        writer.write(coverage, new GeneralParameterValue[] {threads});
+        writer.dispose();
+
+        // the tiles are written in order, no matter the thread that computed them
+        GeoTiffReader reader = new GeoTiffReader(geotiff);
+        RenderedImage written = reader.read(null).getRenderedImage();
+        int[] expected = bi.getData().getPixels(0, 0, 256, 256, (int[]) null);
+        int[] actual = written.getData().getPixels(0, 0, 256, 256, (int[]) null);
+        assertArrayEquals(expected, actual);
+        reader.dispose();
+    }
+
+    @Test
+    public void testWriteParallelRetiledDeflate() throws Exception {
+        // 64x64 source tiles, written as 256x256 deflated tiles
+        BufferedImage bi = new BufferedImage(512, 512, BufferedImage.TYPE_BYTE_GRAY);
+        WritableRaster raster = bi.getRaster();
+        Random random = new Random(42);
+        for (int y = 0; y < 512; y++) {
+            for (int x = 0; x < 512; x++) {
+                raster.setSample(x, y, 0, (x + y) % 256 ^ random.nextInt(4));
+            }
+        }
+        ImageLayout layout = new ImageLayout();
+        layout.setTileWidth(64).setTileHeight(64);
+        RenderedImage tiled =
+                FormatDescriptor.create(
+                        bi, DataBuffer.TYPE_BYTE, new RenderingHints(JAI.KEY_IMAGE_LAYOUT, layout));
+        ReferencedEnvelope envelope =
+                new ReferencedEnvelope(0, 10, 0, 10, DefaultGeographicCRS.WGS84);
+        GridCoverage2D coverage = new GridCoverageFactory().create("test", tiled, envelope);
+
+        final File geotiff = TestData.temp(this, "parallel-deflate.tif");
+        GeoTiffWriter writer = new GeoTiffWriter(geotiff);
+        GeoTiffWriteParams params = new GeoTiffWriteParams();
+        params.setCompressionMode(GeoTiffWriteParams.MODE_EXPLICIT);
+        params.setCompressionType("Deflate");
+        params.setTilingMode(GeoTiffWriteParams.MODE_EXPLICIT);
+        params.setTiling(256, 256);
+        ParameterValue<GeoToolsWriteParams> value =
+                GeoTiffFormat.GEOTOOLS_WRITE_PARAMS.createValue();
+        value.setValue(params);
+        ParameterValue<Integer> threads = GeoTiffFormat.WRITE_THREADS.createValue();
+        threads.setValue(4);
+        writer.write(coverage, new GeneralParameterValue[] {value, threads});
+        writer.dispose();
+        // the parallel compressor is not left behind in the user parameters
+        assertNull(params.getTIFFCompressor());
+
+        GeoTiffReader reader = new GeoTiffReader(geotiff);
+        RenderedImage written = reader.read(null).getRenderedImage();
+        assertEquals(256, written.getTileWidth());
+        int[] expected = bi.getData().getPixels(0, 0, 512, 512, (int[]) null);
+        int[] actual = written.getData().getPixels(0, 0, 512, 512, (int[]) null);
+        assertArrayEquals(expected, actual);
+        reader.dispose();
+    }
+
+    @Test
+    public void testWriteNullThreads() throws Exception {
+        BufferedImage bi = new BufferedImage(16, 16, BufferedImage.TYPE_BYTE_GRAY);
+        ReferencedEnvelope envelope =
+                new ReferencedEnvelope(0, 10, 0, 10, DefaultGeographicCRS.WGS84);
+        GridCoverage2D coverage = new GridCoverageFactory().create("test", bi, envelope);
+
+        final File geotiff = TestData.temp(this, "null-threads.tif");
+        GeoTiffWriter writer = new GeoTiffWriter(geotiff);
+        ParameterValue<Integer> threads = GeoTiffFormat.WRITE_THREADS.createValue();
+        threads.setValue(null);
+        writer.write(coverage, new GeneralParameterValue[] {threads});
+        writer.dispose();
+        assertTrue(geotiff.length() > 0);
+    }
+
     @Test
     public void testIAURoundTrip() throws Exception {
         File vikingSource = org.geotools.TestData.copy(this, "geotiff/viking.tif");
@@ -0,0 +1,89 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2024, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.gce.geotiff;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteOrder;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class ParallelDeflateCompressorTest {
+
+    private static ExecutorService executor;
+
+    @BeforeClass
+    public static void setupExecutor() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterClass
+    public static void shutdownExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        Random random = new Random(42);
+        // empty, single chunk, and a few chunks with a partial one at the end
+        for (int rows : new int[] {0, 1, 100, 1000}) {
+            int stride = 300;
+            byte[] data = new byte[rows * stride + 10];
+            for (int i = 0; i < data.length; i++) {
+                data[i] = (byte) ((i % stride) / 3 + random.nextInt(3));
+            }
+            // little endian streams do not affect the zlib checksum
+            for (ByteOrder order :
+                    new ByteOrder[] {ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                MemoryCacheImageOutputStream stream = new MemoryCacheImageOutputStream(bytes);
+                stream.setByteOrder(order);
+                ParallelDeflateCompressor compressor =
+                        new ParallelDeflateCompressor(
+                                "Deflate", Deflater.DEFAULT_COMPRESSION, executor, 4);
+                compressor.setStream(stream);
+                int written = compressor.encode(data, 10, stride, rows, new int[] {8}, stride);
+                stream.close();
+                assertEquals(bytes.size(), written);
+
+                Inflater inflater = new Inflater();
+                inflater.setInput(bytes.toByteArray());
+                byte[] inflated = new byte[rows * stride + 1];
+                int length = inflater.inflate(inflated);
+                assertTrue(inflater.finished());
+                assertEquals(0, inflater.getRemaining());
+                inflater.end();
+
+                byte[] expected = new byte[rows * stride];
+                System.arraycopy(data, 10, expected, 0, expected.length);
+                byte[] actual = new byte[length];
+                System.arraycopy(inflated, 0, actual, 0, length);
+                assertArrayEquals(expected, actual);
+            }
+        }
+    }
+}
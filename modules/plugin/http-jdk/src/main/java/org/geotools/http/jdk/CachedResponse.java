@@ -0,0 +1,305 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2024, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.http.jdk;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A response stored in a {@link HTTPCache}, with the freshness rules of RFC 9111.
+ *
+ * <p>The body is stored as received, so a gzip encoded response is stored encoded, and the headers
+ * are stored with all their values, in the order they were received.
+ *
+ * @since 32
+ */
+public final class CachedResponse {
+
+    /** The upper bound of the heuristic freshness lifetime, as suggested by RFC 9111. */
+    static final long MAX_HEURISTIC_LIFETIME = 24 * 60 * 60 * 1000L;
+
+    /** Marks the serialized form, so that entries written in an older format are dropped. */
+    private static final int FORMAT = 0x47544832;
+
+    private final Map<String, List<String>> headers;
+
+    private final byte[] body;
+
+    private final long requestTime;
+
+    private final long responseTime;
+
+    /**
+     * Creates a cached response.
+     *
+     * @param headers the response headers, with all their values
+     * @param body the response body, as received
+     * @param requestTime the time the request was sent, in milliseconds
+     * @param responseTime the time the response was received, in milliseconds
+     */
+    public CachedResponse(
+            Map<String, List<String>> headers, byte[] body, long requestTime, long responseTime) {
+        TreeMap<String, List<String>> copy = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        headers.forEach((name, values) -> copy.put(name, List.copyOf(values)));
+        this.headers = Collections.unmodifiableMap(copy);
+        this.body = body;
+        this.requestTime = requestTime;
+        this.responseTime = responseTime;
+    }
+
+    /** The response headers with all their values, looked up ignoring case. */
+    public Map<String, List<String>> getHeaders() {
+        return headers;
+    }
+
+    /** The first value of the given header, or {@code null} if not set. */
+    public String getHeader(String name) {
+        return getFirst(headers, name);
+    }
+
+    /** The response body, as received. */
+    public byte[] getBody() {
+        return body;
+    }
+
+    /** The time the response was received, in milliseconds. */
+    public long getResponseTime() {
+        return responseTime;
+    }
+
+    /** The entity tag of the response, or {@code null}. */
+    public String getETag() {
+        return getHeader("ETag");
+    }
+
+    /** The last modification date of the response, as sent by the server, or {@code null}. */
+    public String getLastModified() {
+        return getHeader("Last-Modified");
+    }
+
+    /** Returns true if the response can be revalidated with a conditional request. */
+    public boolean hasValidators() {
+        return getETag() != null || getLastModified() != null;
+    }
+
+    /** Returns true if the response can be used without revalidation at the given time. */
+    public boolean isFresh(long now) {
+        if (hasDirective(getHeader("Cache-Control"), "no-cache")
+                || "no-cache".equalsIgnoreCase(getHeader("Pragma"))) {
+            return false;
+        }
+        return getFreshnessLifetime() > getCurrentAge(now);
+    }
+
+    /** The time the response stays fresh, in milliseconds, see RFC 9111 section 4.2.1. */
+    long getFreshnessLifetime() {
+        long maxAge = getDirectiveValue(getHeader("Cache-Control"), "max-age");
+        if (maxAge >= 0) {
+            return maxAge * 1000;
+        }
+        long date = parseDate(getHeader("Date"), responseTime);
+        String expires = getHeader("Expires");
+        if (expires != null) {
+            // an invalid date means already expired
+            return Math.max(0, parseDate(expires, date) - date);
+        }
+        long lastModified = parseDate(getLastModified(), -1);
+        if (lastModified >= 0 && lastModified < date) {
+            return Math.min((date - lastModified) / 10, MAX_HEURISTIC_LIFETIME);
+        }
+        return 0;
+    }
+
+    /** The age of the response at the given time, in milliseconds, see RFC 9111 section 4.2.3. */
+    long getCurrentAge(long now) {
+        long date = parseDate(getHeader("Date"), responseTime);
+        long apparentAge = Math.max(0, responseTime - date);
+        long ageValue = Math.max(0, parseLong(getHeader("Age")) * 1000);
+        long correctedAge = ageValue + (responseTime - requestTime);
+        return Math.max(apparentAge, correctedAge) + (now - responseTime);
+    }
+
+    /**
+     * Returns the response updated with the headers of a 304 (Not Modified) response, see RFC 9111
+     * section 4.3.4.
+     */
+    CachedResponse revalidated(Map<String, List<String>> notModified, long requestTime, long now) {
+        TreeMap<String, List<String>> updated = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        updated.putAll(headers);
+        for (Map.Entry<String, List<String>> header : notModified.entrySet()) {
+            String name = header.getKey();
+            // these describe the 304 itself, not the stored body
+            if (!"Content-Length".equalsIgnoreCase(name)
+                    && !"Content-Encoding".equalsIgnoreCase(name)
+                    && !"Transfer-Encoding".equalsIgnoreCase(name)) {
+                updated.put(name, header.getValue());
+            }
+        }
+        return new CachedResponse(updated, body, requestTime, now);
+    }
+
+    /**
+     * Returns true if a response to a GET request with the given status and headers can be stored,
+     * see RFC 9111 section 3. This is a private cache, so {@code private} responses are stored.
+     */
+    static boolean isCacheable(int status, Map<String, List<String>> headers) {
+        if (status != 200) {
+            return false;
+        }
+        String cacheControl = getFirst(headers, "Cache-Control");
+        if (hasDirective(cacheControl, "no-store")
+                || "*".equals(normalize(getFirst(headers, "Vary")))) {
+            return false;
+        }
+        return getDirectiveValue(cacheControl, "max-age") >= 0
+                || headers.containsKey("Expires")
+                || headers.containsKey("Last-Modified")
+                || headers.containsKey("ETag")
+                || hasDirective(cacheControl, "no-cache");
+    }
+
+    /** Returns the first value of the given header, or {@code null} if not set. */
+    static String getFirst(Map<String, List<String>> headers, String name) {
+        List<String> values = headers.get(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    /** Returns true if the Cache-Control header contains the given directive. */
+    static boolean hasDirective(String cacheControl, String directive) {
+        if (cacheControl == null) {
+            return false;
+        }
+        for (String token : cacheControl.split(",")) {
+            String name = token.trim();
+            int equals = name.indexOf('=');
+            if (equals >= 0) {
+                name = name.substring(0, equals).trim();
+            }
+            if (directive.equalsIgnoreCase(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Returns the numeric value of a Cache-Control directive, or -1 if missing or invalid. */
+    static long getDirectiveValue(String cacheControl, String directive) {
+        if (cacheControl == null) {
+            return -1;
+        }
+        for (String token : cacheControl.split(",")) {
+            int equals = token.indexOf('=');
+            if (equals > 0 && directive.equalsIgnoreCase(token.substring(0, equals).trim())) {
+                String value = token.substring(equals + 1).trim();
+                if (value.startsWith("\"") && value.endsWith("\"") && value.length() > 1) {
+                    value = value.substring(1, value.length() - 1);
+                }
+                long result = parseLong(value);
+                return result >= 0 ? result : -1;
+            }
+        }
+        return -1;
+    }
+
+    /** Parses an HTTP date, returning the default value if missing or invalid. */
+    static long parseDate(String value, long defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME)
+                    .toInstant()
+                    .toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return defaultValue;
+        }
+    }
+
+    private static long parseLong(String value) {
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static String normalize(String value) {
+        return value == null ? null : value.trim().toLowerCase(Locale.ENGLISH);
+    }
+
+    /** The approximate memory and disk footprint of the response. */
+    long size() {
+        long size = body.length;
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            for (String value : header.getValue()) {
+                size += header.getKey().length() + value.length();
+            }
+        }
+        return size;
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        out.writeInt(FORMAT);
+        out.writeLong(requestTime);
+        out.writeLong(responseTime);
+        out.writeInt(headers.size());
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            out.writeUTF(header.getKey());
+            out.writeInt(header.getValue().size());
+            for (String value : header.getValue()) {
+                out.writeUTF(value);
+            }
+        }
+        out.writeInt(body.length);
+        out.write(body);
+    }
+
+    static CachedResponse read(DataInputStream in) throws IOException {
+        if (in.readInt() != FORMAT) {
+            throw new IOException("Unsupported cached response format");
+        }
+        long requestTime = in.readLong();
+        long responseTime = in.readLong();
+        int count = in.readInt();
+        Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (int i = 0; i < count; i++) {
+            String name = in.readUTF();
+            int valueCount = in.readInt();
+            List<String> values = new ArrayList<>(valueCount);
+            for (int j = 0; j < valueCount; j++) {
+                values.add(in.readUTF());
+            }
+            headers.put(name, values);
+        }
+        byte[] body = new byte[in.readInt()];
+        in.readFully(body);
+        return new CachedResponse(headers, body, requestTime, responseTime);
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2024, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.http.jdk;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.geotools.util.logging.Logging;
+
+/**
+ * An {@link HTTPCache} storing each response in a file named after a digest of its key, so that the
+ * responses survive the client and can be shared by several clients. When the directory grows past
+ * its size limit the least recently used files are deleted.
+ *
+ * <p>Files are written to a temporary file and then moved in place, so a concurrent reader never
+ * sees a partial response.
+ */
+public class DiskHTTPCache implements HTTPCache {
+
+    static final Logger LOGGER = Logging.getLogger(DiskHTTPCache.class);
+
+    static final String EXTENSION = ".http";
+
+    /** The default disk limit, 256MB. */
+    public static final long DEFAULT_MAX_BYTES = 256 * 1024 * 1024;
+
+    private final File directory;
+
+    private final long maxBytes;
+
+    /** Guarded by this. */
+    private long size = -1;
+
+    /**
+     * Creates a cache holding up to {@link #DEFAULT_MAX_BYTES}.
+     *
+     * @param directory the cache directory, created if missing
+     */
+    public DiskHTTPCache(File directory) throws IOException {
+        this(directory, DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * @param directory the cache directory, created if missing
+     * @param maxBytes the maximum size of the cache files, a negative value means no limit
+     */
+    public DiskHTTPCache(File directory, long maxBytes) throws IOException {
+        Files.createDirectories(directory.toPath());
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public CachedResponse get(String key) throws IOException {
+        File file = getFile(key);
+        try (DataInputStream in =
+                new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+            CachedResponse response = CachedResponse.read(in);
+            // keep track of the use for eviction
+            file.setLastModified(System.currentTimeMillis());
+            return response;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Dropping unreadable cache file " + file, e);
+            delete(file);
+            return null;
+        }
+    }
+
+    @Override
+    public void put(String key, CachedResponse response) throws IOException {
+        File file = getFile(key);
+        File temp = File.createTempFile("response", ".tmp", directory);
+        try {
+            try (DataOutputStream out =
+                    new DataOutputStream(
+                            new BufferedOutputStream(Files.newOutputStream(temp.toPath())))) {
+                response.write(out);
+            }
+            synchronized (this) {
+                long current = getSize();
+                long previous = file.length();
+                Files.move(
+                        temp.toPath(),
+                        file.toPath(),
+                        StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+                size = current - previous + file.length();
+                evict();
+            }
+        } finally {
+            Files.deleteIfExists(temp.toPath());
+        }
+    }
+
+    @Override
+    public void remove(String key) {
+        delete(getFile(key));
+    }
+
+    @Override
+    public synchronized void clear() {
+        for (File file : listFiles()) {
+            delete(file);
+        }
+        size = 0;
+    }
+
+    private synchronized void delete(File file) {
+        long length = file.length();
+        if (file.delete() && size >= 0) {
+            size -= length;
+        }
+    }
+
+    /** Deletes the least recently used files until the directory fits its limit. */
+    private void evict() {
+        if (maxBytes < 0 || size <= maxBytes) {
+            return;
+        }
+        File[] files = listFiles();
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (int i = 0; i < files.length && size > maxBytes; i++) {
+            delete(files[i]);
+        }
+    }
+
+    private long getSize() {
+        if (size < 0) {
+            long total = 0;
+            for (File file : listFiles()) {
+                total += file.length();
+            }
+            size = total;
+        }
+        return size;
+    }
+
+    private File[] listFiles() {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(EXTENSION));
+        return files == null ? new File[0] : files;
+    }
+
+    private File getFile(String key) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(key.getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder(hash.length * 2 + EXTENSION.length());
+            for (byte b : hash) {
+                name.append(Character.forDigit((b >> 4) & 0xF, 16));
+                name.append(Character.forDigit(b & 0xF, 16));
+            }
+            return new File(directory, name.append(EXTENSION).toString());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2024, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.http.jdk;
+
+import java.io.IOException;
+
+/**
+ * Stores the responses to GET requests made by a {@link JdkHttpClient}, so that they can be reused
+ * while fresh, and revalidated with a conditional request once stale.
+ *
+ * <p>Implementations must be safe for use by multiple threads.
+ *
+ * @see JdkHttpClient#setCache(HTTPCache)
+ * @since 32
+ */
+public interface HTTPCache {
+
+    /**
+     * Returns the response stored under the given key.
+     *
+     * @param key the request key
+     * @return the stored response, or {@code null} if not found
+     */
+    CachedResponse get(String key) throws IOException;
+
+    /** Stores a response, replacing any response stored under the same key. */
+    void put(String key, CachedResponse response) throws IOException;
+
+    /** Removes the response stored under the given key, if any. */
+    void remove(String key) throws IOException;
+
+    /** Removes all responses. */
+    void clear() throws IOException;
+}
@@ -0,0 +1,642 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2024, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.http.jdk;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.MalformedURLException;
+import java.net.ProxySelector;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import org.geotools.http.AbstractHttpClient;
+import org.geotools.http.HTTPClient;
+import org.geotools.http.HTTPConnectionPooling;
+import org.geotools.http.HTTPProxy;
+import org.geotools.http.HTTPResponse;
+import org.geotools.util.factory.GeoTools;
+import org.geotools.util.logging.Logging;
+
+/**
+ * An {@link HTTPClient} based on the JDK {@link HttpClient}. Connections are kept alive and reused,
+ * the HTTP version is negotiated by the JDK client unless one is set with {@link
+ * #setVersion(HttpClient.Version)}, and the number of concurrent requests to the same host is
+ * limited by {@link #setMaxConnections(int)}.
+ *
+ * <p>When a {@link #setCache(HTTPCache) cache} is set, the responses to GET requests are stored
+ * following the rules of RFC 9111: fresh responses are served without contacting the server, stale
+ * ones are revalidated with a conditional request using their {@code ETag} and {@code
+ * Last-Modified} headers.
+ *
+ * <p>Java System properties {@code http.proxyHost} and {@code http.proxyPort} are respected.
+ *
+ * <p>The response stream of each request must be consumed or the response disposed, otherwise the
+ * request keeps counting against the limit of its host.
+ *
+ * @since 32
+ */
+public class JdkHttpClient extends AbstractHttpClient implements HTTPConnectionPooling, HTTPProxy {
+
+    private static final Logger LOGGER = Logging.getLogger(JdkHttpClient.class);
+
+    /** The default number of concurrent requests to the same host. */
+    public static final int DEFAULT_MAX_CONNECTIONS = 6;
+
+    /** The default size above which responses are not cached, 4MB. */
+    public static final long DEFAULT_MAX_CACHE_ENTRY_SIZE = 4 * 1024 * 1024;
+
+    /** Headers managed by the JDK client, that cannot be set on a request. */
+    private static final Set<String> RESTRICTED_HEADERS =
+            new HashSet<>(
+                    Arrays.asList("connection", "content-length", "expect", "host", "upgrade"));
+
+    private final String userAgent =
+            String.format("GeoTools/%s (%s)", GeoTools.getVersion(), getClass().getSimpleName());
+
+    private HttpClient client;
+
+    private HttpClient.Version version;
+
+    private int maxConnections = DEFAULT_MAX_CONNECTIONS;
+
+    /** The permits available for each host. Guarded by itself. */
+    private final Map<String, Semaphore> hosts = new HashMap<>();
+
+    private volatile HTTPCache cache;
+
+    private long maxCacheEntrySize = DEFAULT_MAX_CACHE_ENTRY_SIZE;
+
+    public JdkHttpClient() {
+        connectTimeout = 30;
+        readTimeout = 30;
+    }
+
+    /** Returns the response cache, or {@code null} if responses are not cached. */
+    public HTTPCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Sets the cache used for the responses to GET requests. The same cache can be shared by
+     * several clients.
+     *
+     * @param cache the response cache, or {@code null} to disable caching
+     */
+    public void setCache(HTTPCache cache) {
+        this.cache = cache;
+    }
+
+    /** Returns the size above which responses are not cached. */
+    public long getMaxCacheEntrySize() {
+        return maxCacheEntrySize;
+    }
+
+    /** Sets the size above which responses are not cached. */
+    public void setMaxCacheEntrySize(long maxCacheEntrySize) {
+        this.maxCacheEntrySize = maxCacheEntrySize;
+    }
+
+    @Override
+    public HTTPResponse get(URL url) throws IOException {
+        return get(url, null);
+    }
+
+    @Override
+    public HTTPResponse get(URL url, Map<String, String> headers) throws IOException {
+        if (isFile(url)) {
+            return createFileResponse(url);
+        }
+        headers = headers == null ? new HashMap<>() : new HashMap<>(headers);
+        Map<String, String> extraParams = getExtraParams();
+        if (!extraParams.isEmpty()) {
+            url = appendURL(url, extraParams);
+        }
+        if (tryGzip) {
+            headers.put("Accept-Encoding", "gzip");
+        }
+
+        HTTPCache cache = this.cache;
+        String requestCacheControl = getHeader(headers, "Cache-Control");
+        if (cache == null || CachedResponse.hasDirective(requestCacheControl, "no-store")) {
+            return execute(url, newRequest(url, headers).GET().build(), null, null, null);
+        }
+
+        String key = getCacheKey(url, headers);
+        CachedResponse cached = cache.get(key);
+        if (cached != null) {
+            boolean revalidate =
+                    CachedResponse.hasDirective(requestCacheControl, "no-cache")
+                            || "no-cache".equalsIgnoreCase(getHeader(headers, "Pragma"));
+            if (!revalidate && cached.isFresh(System.currentTimeMillis())) {
+                LOGGER.fine(() -> "Serving fresh cached response for " + key);
+                return new JdkHttpResponse(cached.getHeaders(), cached.getBody());
+            }
+            if (cached.getETag() != null && getHeader(headers, "If-None-Match") == null) {
+                headers.put("If-None-Match", cached.getETag());
+            }
+            if (cached.getLastModified() != null
+                    && getHeader(headers, "If-Modified-Since") == null) {
+                headers.put("If-Modified-Since", cached.getLastModified());
+            }
+        }
+        return execute(url, newRequest(url, headers).GET().build(), cache, key, cached);
+    }
+
+    @Override
+    public HTTPResponse post(URL url, InputStream postContent, String postContentType)
+            throws IOException {
+        return post(url, postContent, postContentType, null);
+    }
+
+    @Override
+    public HTTPResponse post(
+            URL url, InputStream postContent, String postContentType, Map<String, String> headers)
+            throws IOException {
+        headers = headers == null ? new HashMap<>() : new HashMap<>(headers);
+        if (tryGzip) {
+            headers.put("Accept-Encoding", "gzip");
+        }
+        if (postContentType != null) {
+            headers.put("Content-Type", postContentType);
+        }
+        HttpRequest request =
+                newRequest(url, headers)
+                        .POST(HttpRequest.BodyPublishers.ofInputStream(() -> postContent))
+                        .build();
+        return execute(url, request, null, null, null);
+    }
+
+    /**
+     * Sends the request, waiting for a permit of the target host, and handles the response to a
+     * conditional request.
+     */
+    @SuppressWarnings("PMD.CloseResource") // the stream is closed by the response dispose
+    private HTTPResponse execute(
+            URL url, HttpRequest request, HTTPCache cache, String key, CachedResponse cached)
+            throws IOException {
+        Permit permit = acquire(url);
+        long requestTime = System.currentTimeMillis();
+        HttpResponse<InputStream> response;
+        try {
+            response = getClient().send(request, HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException e) {
+            permit.release();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while requesting " + url);
+        } catch (IOException | RuntimeException e) {
+            permit.release();
+            throw e;
+        }
+        long responseTime = System.currentTimeMillis();
+        Map<String, List<String>> headers = toMap(response.headers());
+        int status = response.statusCode();
+
+        if (status == 304 && cached != null) {
+            response.body().close();
+            permit.release();
+            CachedResponse revalidated = cached.revalidated(headers, requestTime, responseTime);
+            store(cache, key, revalidated);
+            LOGGER.fine(() -> "Serving revalidated cached response for " + key);
+            return new JdkHttpResponse(revalidated.getHeaders(), revalidated.getBody());
+        }
+        if (status < 200 || status >= 300) {
+            response.body().close();
+            permit.release();
+            throw new IOException("Server returned HTTP error code " + status + " for URL " + url);
+        }
+
+        ResponseStream body = new ResponseStream(response.body(), permit);
+        if (cache != null) {
+            long length = parseLength(CachedResponse.getFirst(headers, "Content-Length"));
+            if (CachedResponse.isCacheable(status, headers) && length <= maxCacheEntrySize) {
+                body.capture(
+                        maxCacheEntrySize,
+                        bytes ->
+                                store(
+                                        cache,
+                                        key,
+                                        new CachedResponse(
+                                                headers, bytes, requestTime, responseTime)));
+            } else if (cached != null) {
+                remove(cache, key);
+            }
+        }
+        return new JdkHttpResponse(headers, body);
+    }
+
+    private HttpRequest.Builder newRequest(URL url, Map<String, String> headers)
+            throws IOException {
+        URI uri;
+        try {
+            uri = url.toURI();
+        } catch (URISyntaxException e) {
+            MalformedURLException mue = new MalformedURLException("Invalid URL " + url);
+            mue.initCause(e);
+            throw mue;
+        }
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri);
+        if (readTimeout > 0) {
+            builder.timeout(Duration.ofSeconds(readTimeout));
+        }
+        if (user != null && password != null) {
+            String userpassword = user + ":" + password;
+            builder.setHeader(
+                    "Authorization",
+                    "Basic "
+                            + Base64.getEncoder()
+                                    .encodeToString(userpassword.getBytes(StandardCharsets.UTF_8)));
+        }
+        builder.setHeader("User-Agent", userAgent);
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            if (RESTRICTED_HEADERS.contains(header.getKey().toLowerCase(Locale.ENGLISH))) {
+                LOGGER.fine(() -> "Skipping restricted header " + header.getKey());
+                continue;
+            }
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.log(
+                        Level.FINE,
+                        "Setting header " + header.getKey() + " = " + header.getValue());
+            }
+            builder.setHeader(header.getKey(), header.getValue());
+        }
+        return builder;
+    }
+
+    /**
+     * The cache key of a GET request. The request headers are part of the key, so that responses
+     * varying on them are never mixed up, and so is the user, in place of the credentials.
+     */
+    private String getCacheKey(URL url, Map<String, String> headers) {
+        StringBuilder key = new StringBuilder(url.toExternalForm());
+        Map<String, String> sorted = new TreeMap<>();
+        headers.forEach((name, value) -> sorted.put(name.toLowerCase(Locale.ENGLISH), value));
+        sorted.remove("authorization");
+        sorted.forEach((name, value) -> key.append('\n').append(name).append(": ").append(value));
+        if (user != null) {
+            key.append("\nuser: ").append(user);
+        }
+        return key.toString();
+    }
+
+    private static void store(HTTPCache cache, String key, CachedResponse response) {
+        try {
+            cache.put(key, response);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to cache response for " + key, e);
+        }
+    }
+
+    private static void remove(HTTPCache cache, String key) {
+        try {
+            cache.remove(key);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to remove cached response for " + key, e);
+        }
+    }
+
+    private static String getHeader(Map<String, String> headers, String name) {
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            if (name.equalsIgnoreCase(header.getKey())) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static Map<String, List<String>> toMap(HttpHeaders headers) {
+        Map<String, List<String>> result = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (Map.Entry<String, List<String>> header : headers.map().entrySet()) {
+            // skips the HTTP/2 pseudo headers
+            if (!header.getKey().startsWith(":") && !header.getValue().isEmpty()) {
+                result.put(header.getKey(), header.getValue());
+            }
+        }
+        return result;
+    }
+
+    private static long parseLength(String value) {
+        try {
+            return value == null ? -1 : Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private synchronized HttpClient getClient() {
+        if (client == null) {
+            HttpClient.Builder builder =
+                    HttpClient.newBuilder().followRedirects(HttpClient.Redirect.NORMAL);
+            if (version != null) {
+                builder.version(version);
+            }
+            if (connectTimeout > 0) {
+                builder.connectTimeout(Duration.ofSeconds(connectTimeout));
+            }
+            ProxySelector proxySelector = ProxySelector.getDefault();
+            if (proxySelector != null) {
+                builder.proxy(proxySelector);
+            }
+            client = builder.build();
+        }
+        return client;
+    }
+
+    private Permit acquire(URL url) throws IOException {
+        String host = url.getHost() + ":" + url.getPort();
+        Semaphore semaphore;
+        synchronized (hosts) {
+            semaphore = hosts.computeIfAbsent(host, h -> new Semaphore(maxConnections));
+        }
+        try {
+            semaphore.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to connect to " + host);
+        }
+        return new Permit(semaphore);
+    }
+
+    @Override
+    public synchronized void setConnectTimeout(int connectTimeout) {
+        if (connectTimeout != this.connectTimeout) {
+            super.setConnectTimeout(connectTimeout);
+            // the connect timeout is a client setting, the next request gets a new client
+            client = null;
+        }
+    }
+
+    /** Returns the HTTP version requested, or {@code null} if left to the JDK client. */
+    public synchronized HttpClient.Version getVersion() {
+        return version;
+    }
+
+    /**
+     * Sets the HTTP version to request. By default the version is left to the JDK client, which
+     * tries to upgrade to HTTP/2 and falls back to HTTP/1.1. {@link HttpClient.Version#HTTP_1_1}
+     * can be used for servers or proxies that do not cope with the upgrade.
+     *
+     * @param version the HTTP version, or {@code null} for the JDK client default
+     */
+    public synchronized void setVersion(HttpClient.Version version) {
+        if (version != this.version) {
+            this.version = version;
+            // the version is a client setting, the next request gets a new client
+            client = null;
+        }
+    }
+
+    @Override
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    @Override
+    public void setMaxConnections(int maxConnections) {
+        if (maxConnections < 1) {
+            throw new IllegalArgumentException("The number of connections must be positive");
+        }
+        synchronized (hosts) {
+            this.maxConnections = maxConnections;
+            // requests in progress release their permits to the previous semaphores
+            hosts.clear();
+        }
+    }
+
+    /**
+     * Releases the client, the idle connections are closed once the client is garbage collected.
+     * The client can still be used, a new one is created on the next request.
+     */
+    @Override
+    public synchronized void close() {
+        client = null;
+    }
+
+    /** A permit of a host semaphore, released at most once. */
+    private static final class Permit {
+
+        private final Semaphore semaphore;
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        Permit(Semaphore semaphore) {
+            this.semaphore = semaphore;
+        }
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                semaphore.release();
+            }
+        }
+    }
+
+    /** Receives the body of a response read to its end. */
+    private interface BodyConsumer {
+        void accept(byte[] body);
+    }
+
+    /**
+     * The response body, releasing the host permit when read to its end or closed, and optionally
+     * capturing the bytes read to store them in the cache once the body is complete.
+     */
+    private static final class ResponseStream extends FilterInputStream {
+
+        private final Permit permit;
+
+        private ByteArrayOutputStream captured;
+
+        private long maxCaptured;
+
+        private BodyConsumer consumer;
+
+        ResponseStream(InputStream in, Permit permit) {
+            super(in);
+            this.permit = permit;
+        }
+
+        void capture(long maxCaptured, BodyConsumer consumer) {
+            this.captured = new ByteArrayOutputStream();
+            this.maxCaptured = maxCaptured;
+            this.consumer = consumer;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b < 0) {
+                complete();
+            } else if (captured != null) {
+                captured.write(b);
+                checkCaptured();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n < 0) {
+                complete();
+            } else if (captured != null) {
+                captured.write(b, off, n);
+                checkCaptured();
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // the skipped bytes would be missing from the cached body
+            captured = null;
+            return super.skip(n);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                if (captured != null) {
+                    // a gzip stream stops before the end of the body, read what is left so that
+                    // the body can be cached, unless it turns out to be too large
+                    byte[] buffer = new byte[8192];
+                    while (captured != null && read(buffer, 0, buffer.length) >= 0) {}
+                }
+            } finally {
+                captured = null;
+                try {
+                    super.close();
+                } finally {
+                    permit.release();
+                }
+            }
+        }
+
+        private void checkCaptured() {
+            if (captured.size() > maxCaptured) {
+                captured = null;
+            }
+        }
+
+        private void complete() {
+            if (captured != null) {
+                byte[] body = captured.toByteArray();
+                captured = null;
+                consumer.accept(body);
+            }
+            permit.release();
+        }
+    }
+
+    /** A response read from the network or from the cache. */
+    static final class JdkHttpResponse implements HTTPResponse {
+
+        private final Map<String, List<String>> headers;
+
+        private InputStream body;
+
+        private InputStream responseStream;
+
+        JdkHttpResponse(Map<String, List<String>> headers, byte[] body) {
+            this(headers, new ByteArrayInputStream(body));
+        }
+
+        JdkHttpResponse(Map<String, List<String>> headers, InputStream body) {
+            this.headers = headers;
+            this.body = body;
+        }
+
+        @Override
+        public void dispose() {
+            InputStream stream = responseStream != null ? responseStream : body;
+            if (stream != null) {
+                try {
+                    stream.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+            body = null;
+            responseStream = null;
+        }
+
+        @Override
+        public String getContentType() {
+            return getResponseHeader("Content-Type");
+        }
+
+        @Override
+        public String getResponseHeader(String headerName) {
+            return CachedResponse.getFirst(headers, headerName);
+        }
+
+        @Override
+        public List<String> getResponseHeaders(String headerName) {
+            return headers.getOrDefault(headerName, Collections.emptyList());
+        }
+
+        @Override
+        public InputStream getResponseStream() throws IOException {
+            if (responseStream == null && body != null) {
+                String encoding = getResponseHeader("Content-Encoding");
+                responseStream =
+                        encoding != null && encoding.contains("gzip")
+                                ? new GZIPInputStream(body)
+                                : body;
+            }
+            return responseStream;
+        }
+
+        @Override
+        public String getResponseCharset() {
+            String contentType = getContentType();
+            if (null == contentType) {
+                return null;
+            }
+            String[] split = contentType.split(";");
+            for (int i = 1; i < split.length; i++) {
+                String[] mimeParam = split[i].split("=");
+                if (mimeParam.length == 2 && "charset".equalsIgnoreCase(mimeParam[0].trim())) {
+                    return mimeParam[1].trim();
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2024, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.http.jdk;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/** An {@link HTTPCache} keeping the responses in memory, evicting the least recently used first. */
+public class MemoryHTTPCache implements HTTPCache {
+
+    /** The default memory limit, 32MB. */
+    public static final long DEFAULT_MAX_BYTES = 32 * 1024 * 1024;
+
+    private final long maxBytes;
+
+    /** Guarded by itself. */
+    private final LinkedHashMap<String, CachedResponse> responses =
+            new LinkedHashMap<>(16, 0.75f, true);
+
+    private long size;
+
+    /** Creates a cache holding up to {@link #DEFAULT_MAX_BYTES}. */
+    public MemoryHTTPCache() {
+        this(DEFAULT_MAX_BYTES);
+    }
+
+    /** @param maxBytes the maximum size of the stored responses */
+    public MemoryHTTPCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public CachedResponse get(String key) {
+        synchronized (responses) {
+            return responses.get(key);
+        }
+    }
+
+    @Override
+    public void put(String key, CachedResponse response) {
+        if (response.size() > maxBytes) {
+            remove(key);
+            return;
+        }
+        synchronized (responses) {
+            CachedResponse previous = responses.put(key, response);
+            if (previous != null) {
+                size -= previous.size();
+            }
+            size += response.size();
+            Iterator<Map.Entry<String, CachedResponse>> it = responses.entrySet().iterator();
+            while (size > maxBytes && it.hasNext()) {
+                size -= it.next().getValue().size();
+                it.remove();
+            }
+        }
+    }
+
+    @Override
+    public void remove(String key) {
+        synchronized (responses) {
+            CachedResponse previous = responses.remove(key);
+            if (previous != null) {
+                size -= previous.size();
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        synchronized (responses) {
+            responses.clear();
+            size = 0;
+        }
+    }
+}
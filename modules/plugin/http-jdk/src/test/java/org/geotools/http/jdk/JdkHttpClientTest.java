@@ -0,0 +1,394 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2024, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.http.jdk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+import org.geotools.http.HTTPClient;
+import org.geotools.http.HTTPClientFinder;
+import org.geotools.http.HTTPConnectionPooling;
+import org.geotools.http.HTTPResponse;
+import org.geotools.util.factory.Hints;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class JdkHttpClientTest {
+
+    private static final String BODY = "<WMS_Capabilities/>";
+
+    private static final String LAST_MODIFIED = "Mon, 01 Jan 2024 00:00:00 GMT";
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    private HttpServer server;
+
+    private ExecutorService executor;
+
+    private JdkHttpClient client;
+
+    /** Requests received by the stub server. */
+    private final AtomicInteger requests = new AtomicInteger();
+
+    /** Requests answered with a 304. */
+    private final AtomicInteger notModified = new AtomicInteger();
+
+    private final AtomicInteger running = new AtomicInteger();
+
+    private final AtomicInteger maxRunning = new AtomicInteger();
+
+    @Before
+    public void setUp() throws Exception {
+        executor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/fresh", e -> respond(e, "max-age=60", null, null, false));
+        server.createContext("/etag", e -> respond(e, "no-cache", "\"v1\"", null, false));
+        server.createContext("/modified", e -> respond(e, "max-age=0", null, LAST_MODIFIED, false));
+        server.createContext("/nostore", e -> respond(e, "no-store", "\"v1\"", null, false));
+        server.createContext("/gzip", e -> respond(e, "max-age=60", null, null, true));
+        server.createContext("/error", e -> send(e, 500, new byte[0]));
+        server.createContext(
+                "/nonauthoritative",
+                e -> {
+                    requests.incrementAndGet();
+                    e.getResponseHeaders().set("Cache-Control", "max-age=60");
+                    send(e, 203, BODY.getBytes(StandardCharsets.UTF_8));
+                });
+        server.createContext("/slow", this::slow);
+        server.createContext("/echo", this::echo);
+        server.createContext(
+                "/cookies",
+                e -> {
+                    e.getResponseHeaders().add("Set-Cookie", "a=1");
+                    e.getResponseHeaders().add("Set-Cookie", "b=2");
+                    respond(e, "max-age=60", null, null, false);
+                });
+        server.start();
+        client = new JdkHttpClient();
+    }
+
+    @After
+    public void tearDown() {
+        client.close();
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testGet() throws Exception {
+        HTTPResponse response = client.get(url("/fresh"));
+        assertEquals(BODY, read(response));
+        assertEquals("text/xml", response.getContentType().split(";")[0]);
+        assertEquals("UTF-8", response.getResponseCharset());
+        assertEquals("max-age=60", response.getResponseHeader("cache-control"));
+        // no cache set
+        read(client.get(url("/fresh")));
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    public void testMultiValuedHeaders() throws Exception {
+        HTTPResponse response = client.get(url("/cookies"));
+        read(response);
+        assertEquals(List.of("a=1", "b=2"), response.getResponseHeaders("set-cookie"));
+        assertEquals("a=1", response.getResponseHeader("Set-Cookie"));
+        assertTrue(response.getResponseHeaders("X-Missing").isEmpty());
+
+        // all the values survive the memory and disk caches
+        client.setCache(new MemoryHTTPCache());
+        read(client.get(url("/cookies")));
+        response = client.get(url("/cookies"));
+        read(response);
+        assertEquals(List.of("a=1", "b=2"), response.getResponseHeaders("Set-Cookie"));
+
+        client.setCache(new DiskHTTPCache(folder.getRoot()));
+        read(client.get(url("/cookies")));
+        JdkHttpClient other = new JdkHttpClient();
+        other.setCache(new DiskHTTPCache(folder.getRoot()));
+        response = other.get(url("/cookies"));
+        read(response);
+        assertEquals(List.of("a=1", "b=2"), response.getResponseHeaders("Set-Cookie"));
+        assertEquals(3, requests.get());
+    }
+
+    @Test
+    public void testVersion() throws Exception {
+        // left to the JDK client by default
+        assertNull(client.getVersion());
+        client.setVersion(HttpClient.Version.HTTP_1_1);
+        assertEquals(HttpClient.Version.HTTP_1_1, client.getVersion());
+        assertEquals(BODY, read(client.get(url("/fresh"))));
+    }
+
+    @Test
+    public void testErrorStatus() throws Exception {
+        try {
+            client.get(url("/error"));
+            fail("Expected an exception");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("500"));
+        }
+    }
+
+    @Test
+    public void testSuccessStatus() throws Exception {
+        client.setCache(new MemoryHTTPCache());
+        assertEquals(BODY, read(client.get(url("/nonauthoritative"))));
+        // accepted, but only 200 responses are cached
+        assertEquals(BODY, read(client.get(url("/nonauthoritative"))));
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    public void testFreshResponseFromCache() throws Exception {
+        client.setCache(new MemoryHTTPCache());
+        assertEquals(BODY, read(client.get(url("/fresh"))));
+        assertEquals(BODY, read(client.get(url("/fresh"))));
+        assertEquals(1, requests.get());
+
+        // a different request header makes a different entry
+        read(client.get(url("/fresh"), Collections.singletonMap("Accept", "text/xml")));
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    public void testRevalidateWithETag() throws Exception {
+        client.setCache(new MemoryHTTPCache());
+        assertEquals(BODY, read(client.get(url("/etag"))));
+        assertEquals(BODY, read(client.get(url("/etag"))));
+        assertEquals(2, requests.get());
+        assertEquals(1, notModified.get());
+    }
+
+    @Test
+    public void testRevalidateWithLastModified() throws Exception {
+        client.setCache(new MemoryHTTPCache());
+        assertEquals(BODY, read(client.get(url("/modified"))));
+        HTTPResponse response = client.get(url("/modified"));
+        assertEquals(BODY, read(response));
+        assertEquals(LAST_MODIFIED, response.getResponseHeader("Last-Modified"));
+        assertEquals(1, notModified.get());
+    }
+
+    @Test
+    public void testNoStore() throws Exception {
+        client.setCache(new MemoryHTTPCache());
+        read(client.get(url("/nostore")));
+        read(client.get(url("/nostore")));
+        assertEquals(2, requests.get());
+        assertEquals(0, notModified.get());
+    }
+
+    @Test
+    public void testPartialReadNotCached() throws Exception {
+        client.setCache(new MemoryHTTPCache());
+        client.setMaxCacheEntrySize(5);
+        read(client.get(url("/fresh")));
+        read(client.get(url("/fresh")));
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    public void testGzipFromCache() throws Exception {
+        client.setCache(new MemoryHTTPCache());
+        client.setTryGzip(true);
+        assertEquals(BODY, read(client.get(url("/gzip"))));
+        HTTPResponse cached = client.get(url("/gzip"));
+        assertEquals("gzip", cached.getResponseHeader("Content-Encoding"));
+        assertEquals(BODY, read(cached));
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    public void testDiskCache() throws Exception {
+        DiskHTTPCache cache = new DiskHTTPCache(folder.getRoot());
+        client.setCache(cache);
+        read(client.get(url("/fresh")));
+        read(client.get(url("/etag")));
+        assertEquals(2, folder.getRoot().list((dir, name) -> name.endsWith(".http")).length);
+
+        // another client, reading the same directory
+        JdkHttpClient other = new JdkHttpClient();
+        other.setCache(new DiskHTTPCache(folder.getRoot()));
+        assertEquals(BODY, read(other.get(url("/fresh"))));
+        assertEquals(BODY, read(other.get(url("/etag"))));
+        assertEquals(3, requests.get());
+        assertEquals(1, notModified.get());
+
+        cache.clear();
+        assertEquals(0, folder.getRoot().list((dir, name) -> name.endsWith(".http")).length);
+    }
+
+    @Test
+    public void testDiskCacheLimit() throws Exception {
+        // room for one response only
+        client.setCache(new DiskHTTPCache(folder.getRoot(), 200));
+        read(client.get(url("/fresh")));
+        read(client.get(url("/etag")));
+        assertEquals(1, folder.getRoot().list((dir, name) -> name.endsWith(".http")).length);
+    }
+
+    @Test
+    public void testMaxConnections() throws Exception {
+        client.setMaxConnections(2);
+        ExecutorService threads = Executors.newFixedThreadPool(6);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                results.add(threads.submit(() -> read(client.get(url("/slow")))));
+            }
+            for (Future<String> result : results) {
+                assertEquals(BODY, result.get());
+            }
+        } finally {
+            threads.shutdown();
+        }
+        assertEquals(6, requests.get());
+        assertTrue(maxRunning.get() <= 2);
+    }
+
+    @Test
+    public void testPost() throws Exception {
+        InputStream content =
+                new ByteArrayInputStream("<GetFeature/>".getBytes(StandardCharsets.UTF_8));
+        HTTPResponse response = client.post(url("/echo"), content, "text/xml");
+        assertEquals("text/xml:<GetFeature/>", read(response));
+    }
+
+    @Test
+    public void testFactory() throws Exception {
+        Hints.putSystemDefault(Hints.HTTP_CLIENT_FACTORY, JdkHttpClientFactory.class);
+        try {
+            HTTPClient created = HTTPClientFinder.createClient();
+            assertTrue(created instanceof JdkHttpClient);
+            ((HTTPConnectionPooling) created).setMaxConnections(3);
+            assertEquals(3, ((HTTPConnectionPooling) created).getMaxConnections());
+            ((HTTPConnectionPooling) created).close();
+
+            HTTPClient logging =
+                    HTTPClientFinder.createClient(new Hints(Hints.HTTP_LOGGING, "True"));
+            assertTrue(logging instanceof JdkHttpClientFactory.LoggingConnectionPoolingHTTPClient);
+        } finally {
+            Hints.removeSystemDefault(Hints.HTTP_CLIENT_FACTORY);
+        }
+    }
+
+    private URL url(String path) throws IOException {
+        return new URL("http://localhost:" + server.getAddress().getPort() + path);
+    }
+
+    private static String read(HTTPResponse response) throws IOException {
+        try {
+            return new String(response.getResponseStream().readAllBytes(), StandardCharsets.UTF_8);
+        } finally {
+            response.dispose();
+        }
+    }
+
+    private void respond(
+            HttpExchange exchange,
+            String cacheControl,
+            String etag,
+            String lastModified,
+            boolean gzip)
+            throws IOException {
+        requests.incrementAndGet();
+        exchange.getResponseHeaders().set("Cache-Control", cacheControl);
+        if (etag != null) {
+            exchange.getResponseHeaders().set("ETag", etag);
+        }
+        if (lastModified != null) {
+            exchange.getResponseHeaders().set("Last-Modified", lastModified);
+        }
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        String ifModifiedSince = exchange.getRequestHeaders().getFirst("If-Modified-Since");
+        if ((etag != null && etag.equals(ifNoneMatch))
+                || (lastModified != null && lastModified.equals(ifModifiedSince))) {
+            notModified.incrementAndGet();
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+        byte[] body = BODY.getBytes(StandardCharsets.UTF_8);
+        if (gzip
+                && String.valueOf(exchange.getRequestHeaders().getFirst("Accept-Encoding"))
+                        .contains("gzip")) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (OutputStream out = new GZIPOutputStream(bytes)) {
+                out.write(body);
+            }
+            body = bytes.toByteArray();
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        send(exchange, 200, body);
+    }
+
+    private void slow(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        int current = running.incrementAndGet();
+        maxRunning.accumulateAndGet(current, Math::max);
+        try {
+            Thread.sleep(100);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        running.decrementAndGet();
+        send(exchange, 200, BODY.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void echo(HttpExchange exchange) throws IOException {
+        byte[] content = exchange.getRequestBody().readAllBytes();
+        String body =
+                exchange.getRequestHeaders().getFirst("Content-Type")
+                        + ":"
+                        + new String(content, StandardCharsets.UTF_8);
+        send(exchange, 200, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/xml; charset=UTF-8");
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
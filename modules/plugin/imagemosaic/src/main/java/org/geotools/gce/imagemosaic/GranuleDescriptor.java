@@ -1075,6 +1075,14 @@ public GranuleLoadingResult loadRaster(
         ImageInputStream inStream = null;
         ImageReader reader = null;
         boolean cleanupInFinally = request.getReadType() != ReadType.JAI_IMAGEREAD;
+        // stage timestamps, for the request statistics
+        final long loadStart = System.nanoTime();
+        long readStart = 0;
+        long readEnd = 0;
+        // an open reader and stream to return to the pool once read, if not deferred
+        GranuleReaderPool readerPool = GranuleReaderPool.getInstance();
+        GranuleReaderPool.PooledReader pooled = null;
+        boolean reused = false;
         try { // NOPMD for UseTryWithResources, closure is conditional
             //
             // get info about the raster we have to read
@@ -1147,9 +1155,23 @@ public GranuleLoadingResult loadRaster(
             } else {
                 ovrIndex = ovrProvider.getOverviewIndex(imageIndex);
 
-                // get a stream from the granuleAccessProvider
-                assert cachedStreamSPI != null : "no cachedStreamSPI available!";
-                inStream = granuleAccessProvider.getImageInputStream();
+                // reuse an open reader if possible, it has already parsed the granule headers
+                final File granuleFile =
+                        cleanupInFinally && readerPool.isEnabled()
+                                ? URLs.urlToFile(granuleUrl)
+                                : null;
+                if (granuleFile != null && cachedReaderSPI != null) {
+                    pooled = readerPool.borrow(granuleFile, cachedReaderSPI);
+                }
+                if (pooled != null) {
+                    reused = true;
+                    inStream = pooled.getStream();
+                    reader = pooled.getReader();
+                } else {
+                    // get a stream from the granuleAccessProvider
+                    assert cachedStreamSPI != null : "no cachedStreamSPI available!";
+                    inStream = granuleAccessProvider.getImageInputStream();
+                }
 
                 if (inStream == null) return null;
 
@@ -1157,7 +1179,7 @@ public GranuleLoadingResult loadRaster(
                 if (cachedReaderSPI == null) {
                     reader = ImageIOExt.getImageioReader(inStream);
                     if (reader != null) cachedReaderSPI = reader.getOriginatingProvider();
-                } else {
+                } else if (!reused) {
                     reader = granuleAccessProvider.getImageReader();
                 }
                 if (reader == null) {
@@ -1174,15 +1196,33 @@ public GranuleLoadingResult loadRaster(
                 }
             }
             // set input
-            if (reader instanceof InitializingReader) {
-                ((InitializingReader) reader).init(hints);
+            if (!reused) {
+                if (reader instanceof InitializingReader) {
+                    ((InitializingReader) reader).init(hints);
+                }
+                reader.setInput(inStream);
             }
-            reader.setInput(inStream);
 
             // check if the reader wants to be aware of the current request
-            if (MethodUtils.getAccessibleMethod(
-                            reader.getClass(), "setRasterLayerRequest", RasterLayerRequest.class)
-                    != null) {
+            boolean requestAware =
+                    MethodUtils.getAccessibleMethod(
+                                    reader.getClass(),
+                                    "setRasterLayerRequest",
+                                    RasterLayerRequest.class)
+                            != null;
+            // readers depending on the request hints or the request itself cannot be shared
+            if (!reused
+                    && !isExternal
+                    && cleanupInFinally
+                    && readerPool.isEnabled()
+                    && !(reader instanceof InitializingReader)
+                    && !requestAware) {
+                File granuleFile = URLs.urlToFile(granuleUrl);
+                if (granuleFile != null) {
+                    pooled = new GranuleReaderPool.PooledReader(granuleFile, reader, inStream);
+                }
+            }
+            if (requestAware) {
                 try {
                     MethodUtils.invokeMethod(reader, "setRasterLayerRequest", request);
                 } catch (Exception exception) {
@@ -1289,6 +1329,7 @@ && getRawColorModel(reader, ovrIndex) instanceof IndexColorModel
             }
 
             RenderedImage raster;
+            readStart = System.nanoTime();
             try {
                 // read
                 raster =
@@ -1303,6 +1344,8 @@ && getRawColorModel(reader, ovrIndex) instanceof IndexColorModel
                                         false);
 
             } catch (Throwable e) {
+                // the reader state is unknown, do not share it
+                pooled = null;
                 if (LOGGER.isLoggable(java.util.logging.Level.FINE)) {
                     LOGGER.log(
                             java.util.logging.Level.FINE,
@@ -1315,6 +1358,7 @@ && getRawColorModel(reader, ovrIndex) instanceof IndexColorModel
                 }
                 return null;
             }
+            readEnd = System.nanoTime();
 
             // perform band selection if necessary, so far netcdf is the only low level reader that
             // handles bands selection, if more readers start to support it a decent approach should
@@ -1481,14 +1525,23 @@ && getRawColorModel(reader, ovrIndex) instanceof IndexColorModel
                         e);
             }
             return null;
+        } catch (IOException | RuntimeException e) {
+            // the reader state is unknown, do not share it
+            pooled = null;
+            throw e;
         } finally {
-            try {
-                if (cleanupInFinally && inStream != null) {
-                    inStream.close();
-                }
-            } finally {
-                if (cleanupInFinally && reader != null) {
-                    reader.dispose();
+            request.getLoadingStatistics().addGranule(loadStart, readStart, readEnd);
+            if (pooled != null) {
+                readerPool.release(pooled);
+            } else {
+                try {
+                    if (cleanupInFinally && inStream != null) {
+                        inStream.close();
+                    }
+                } finally {
+                    if (cleanupInFinally && reader != null) {
+                        reader.dispose();
+                    }
                 }
             }
         }
@@ -0,0 +1,127 @@
+/*
+ * GeoTools - The Open Source Java GIS Toolkit
+ * http://geotools.org
+ *
+ * (C) 2024, Open Source Geospatial Foundation (OSGeo)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation;
+ * version 2.1 of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ */
+
+package org.geotools.gce.imagemosaic;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects the time spent in each stage of a {@link RasterLayerRequest}, summed over the granules
+ * loaded, possibly concurrently.
+ *
+ * <p>With a deferred {@link ReadType#JAI_IMAGEREAD} the pixels are read and decoded only when the
+ * final image is rendered, the {@link Stage#READ} stage then just sets up the read.
+ */
+public class GranuleLoadingStatistics {
+
+    /** The stages of a mosaic read */
+    public enum Stage {
+        /** Querying the catalog, excluding the dispatch of the granules found */
+        CATALOG,
+        /** Opening the granule streams and readers, and reading their headers */
+        OPEN,
+        /** Reading the granule pixels */
+        READ,
+        /** Band selection, rescaling, footprint masking and affine transformation of granules */
+        PROCESS,
+        /**
+         * Preparing the loaded granules for the mosaic: color expansion, transparency, ROI and
+         * artifacts filtering
+         */
+        PREPARE,
+        /** Collecting the prepared granules and mosaicking them */
+        MOSAIC
+    }
+
+    private final Map<Stage, LongAdder> times = new EnumMap<>(Stage.class);
+
+    private final Map<Stage, LongAdder> counts = new EnumMap<>(Stage.class);
+
+    private final LongAdder cancelled = new LongAdder();
+
+    public GranuleLoadingStatistics() {
+        for (Stage stage : Stage.values()) {
+            times.put(stage, new LongAdder());
+            counts.put(stage, new LongAdder());
+        }
+    }
+
+    /** Adds the time spent in a stage, in nanoseconds */
+    public void add(Stage stage, long nanos) {
+        times.get(stage).add(nanos);
+        counts.get(stage).increment();
+    }
+
+    /**
+     * Records the load of a granule from its {@link System#nanoTime()} timestamps
+     *
+     * @param start when the granule started to be opened
+     * @param readStart when the granule started to be read, 0 if it was not
+     * @param readEnd when the granule was read, 0 if it was not
+     */
+    void addGranule(long start, long readStart, long readEnd) {
+        long now = System.nanoTime();
+        if (readStart == 0) {
+            add(Stage.OPEN, now - start);
+            return;
+        }
+        add(Stage.OPEN, readStart - start);
+        if (readEnd != 0) {
+            add(Stage.READ, readEnd - readStart);
+            add(Stage.PROCESS, now - readEnd);
+        } else {
+            add(Stage.READ, now - readStart);
+        }
+    }
+
+    /** Counts granules whose loading was cancelled, as they were not needed any longer */
+    public void addCancelled(int granules) {
+        cancelled.add(granules);
+    }
+
+    /** Returns the time spent in a stage */
+    public long getTime(Stage stage, TimeUnit unit) {
+        return unit.convert(times.get(stage).sum(), TimeUnit.NANOSECONDS);
+    }
+
+    /** Returns how many times a stage was entered */
+    public long getCount(Stage stage) {
+        return counts.get(stage).sum();
+    }
+
+    /** Returns the number of granules whose loading was cancelled */
+    public long getCancelled() {
+        return cancelled.sum();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("GranuleLoadingStatistics[");
+        for (Stage stage : Stage.values()) {
+            sb.append(stage)
+                    .append('=')
+                    .append(getTime(stage, TimeUnit.MILLISECONDS))
+                    .append("ms/")
+                    .append(getCount(stage))
+                    .append(", ");
+        }
+        return sb.append("cancelled=").append(getCancelled()).append(']').toString();
+    }
+}
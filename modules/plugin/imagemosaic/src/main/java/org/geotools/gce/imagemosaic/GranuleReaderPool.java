@@ -0,0 +1,341 @@
+/*
+ * GeoTools - The Open Source Java GIS Toolkit
+ * http://geotools.org
+ *
+ * (C) 2024, Open Source Geospatial Foundation (OSGeo)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation;
+ * version 2.1 of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ */
+
+package org.geotools.gce.imagemosaic;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.imageio.ImageReader;
+import javax.imageio.spi.ImageReaderSpi;
+import javax.imageio.stream.ImageInputStream;
+import org.geotools.util.logging.Logging;
+
+/**
+ * A pool of open {@link ImageReader} and {@link ImageInputStream} pairs on granule files, shared by
+ * all the mosaics, so that granules read over and over are not opened, and their headers parsed, at
+ * each request.
+ *
+ * <p>A pair is borrowed by a single request at a time, and returned once the granule pixels have
+ * been read, which restricts pooling to {@link
+ * org.geotools.coverage.grid.io.imageio.ReadType#DIRECT_READ}, deferred reads keeping the reader
+ * until the image is rendered. Pairs are discarded when their file was modified since they were
+ * opened, when they have been idle longer than the max idle time, and when the pool is full, least
+ * recently used granules first. Idle pairs are also evicted in the background while the pool is not
+ * empty, so that their files do not stay open when no more requests come in.
+ *
+ * <p>Each pair keeps a file open, the pool is thus disabled unless the {@link #MAX_SIZE_KEY} system
+ * property sets its size. Open files cannot be deleted on some operating systems, mosaics removing
+ * granules should call {@link #clear(File)}.
+ */
+public class GranuleReaderPool {
+
+    static final Logger LOGGER = Logging.getLogger(GranuleReaderPool.class);
+
+    /** The system property setting the maximum number of pooled pairs, 0 by default */
+    public static final String MAX_SIZE_KEY = "org.geotools.imagemosaic.readerPool.maxSize";
+
+    /** The system property setting the maximum idle time of pooled pairs, in milliseconds */
+    public static final String MAX_IDLE_KEY = "org.geotools.imagemosaic.readerPool.maxIdleTime";
+
+    /** The default maximum idle time, one minute */
+    public static final long DEFAULT_MAX_IDLE = 60 * 1000;
+
+    /** The minimum delay between background evictions, in milliseconds */
+    static final long MIN_EVICTION_PERIOD = 1000;
+
+    /** Evicts the idle pairs of the pools in the background */
+    private static final ScheduledExecutorService EVICTOR =
+            Executors.newSingleThreadScheduledExecutor(
+                    r -> {
+                        Thread t = new Thread(r, "GranuleReaderPoolEvictor");
+                        t.setDaemon(true);
+                        return t;
+                    });
+
+    private static final GranuleReaderPool INSTANCE =
+            new GranuleReaderPool(
+                    Integer.getInteger(MAX_SIZE_KEY, 0),
+                    Long.getLong(MAX_IDLE_KEY, DEFAULT_MAX_IDLE),
+                    Runtime.getRuntime().availableProcessors());
+
+    /** An open reader and stream pair, on a granule file */
+    public static final class PooledReader {
+
+        private final File file;
+
+        private final String key;
+
+        private final ImageReader reader;
+
+        private final ImageInputStream stream;
+
+        private final long lastModified;
+
+        private final long length;
+
+        private long lastUsed;
+
+        /**
+         * Wraps a reader just opened on a file, which must have its input set to the stream
+         *
+         * @param file the granule file
+         * @param reader the reader, with its input set to the stream
+         * @param stream the stream on the file
+         */
+        public PooledReader(File file, ImageReader reader, ImageInputStream stream) {
+            this.file = file;
+            this.key = getKey(file, reader.getOriginatingProvider());
+            this.reader = reader;
+            this.stream = stream;
+            this.lastModified = file.lastModified();
+            this.length = file.length();
+        }
+
+        public ImageReader getReader() {
+            return reader;
+        }
+
+        public ImageInputStream getStream() {
+            return stream;
+        }
+
+        /** Returns true if the file was modified, or removed, since the pair was opened */
+        boolean isStale() {
+            return file.lastModified() != lastModified || file.length() != length;
+        }
+
+        void dispose() {
+            try {
+                stream.close();
+            } catch (Exception e) {
+                LOGGER.log(Level.FINE, "Failed to close the stream on " + file, e);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /** The idle pairs of each granule, least recently used granules first */
+    private final LinkedHashMap<String, Deque<PooledReader>> pairs =
+            new LinkedHashMap<>(16, 0.75f, true);
+
+    private final int maxSize;
+
+    private final long maxIdle;
+
+    private final int maxPerGranule;
+
+    private int size;
+
+    private long lastSweep = System.currentTimeMillis();
+
+    /** The background eviction, scheduled while the pool is not empty */
+    private ScheduledFuture<?> eviction;
+
+    /**
+     * @param maxSize the maximum number of pooled pairs, 0 disabling the pool
+     * @param maxIdle the time after which idle pairs are discarded, in milliseconds
+     * @param maxPerGranule the maximum number of pooled pairs on a single granule
+     */
+    public GranuleReaderPool(int maxSize, long maxIdle, int maxPerGranule) {
+        this.maxSize = Math.max(0, maxSize);
+        this.maxIdle = maxIdle;
+        this.maxPerGranule = Math.max(1, maxPerGranule);
+    }
+
+    /** Returns the pool shared by all mosaics */
+    public static GranuleReaderPool getInstance() {
+        return INSTANCE;
+    }
+
+    public boolean isEnabled() {
+        return maxSize > 0;
+    }
+
+    /**
+     * Borrows an idle pair on the given granule file, whose reader is to be created by the given
+     * SPI
+     *
+     * @return the pair, with the reader input already set, or null if none is available
+     */
+    public PooledReader borrow(File file, ImageReaderSpi spi) {
+        if (!isEnabled()) {
+            return null;
+        }
+        List<PooledReader> discarded = new ArrayList<>();
+        PooledReader result = null;
+        synchronized (this) {
+            String key = getKey(file, spi);
+            Deque<PooledReader> idle = pairs.get(key);
+            while (result == null && idle != null && !idle.isEmpty()) {
+                PooledReader pooled = idle.pollLast();
+                size--;
+                if (pooled.isStale()) {
+                    discarded.add(pooled);
+                } else {
+                    result = pooled;
+                }
+            }
+            if (idle != null && idle.isEmpty()) {
+                pairs.remove(key);
+            }
+            sweep(discarded);
+            scheduleEviction();
+        }
+        disposeAll(discarded);
+        return result;
+    }
+
+    /** Returns a pair to the pool, disposing it if the pool is full or disabled */
+    public void release(PooledReader pooled) {
+        List<PooledReader> discarded = new ArrayList<>();
+        synchronized (this) {
+            Deque<PooledReader> idle = pairs.computeIfAbsent(pooled.key, k -> new ArrayDeque<>());
+            if (!isEnabled() || idle.size() >= maxPerGranule) {
+                discarded.add(pooled);
+            } else {
+                pooled.lastUsed = System.currentTimeMillis();
+                idle.addLast(pooled);
+                size++;
+            }
+            if (idle.isEmpty()) {
+                pairs.remove(pooled.key);
+            }
+            // evict the least recently used granules
+            Iterator<Deque<PooledReader>> it = pairs.values().iterator();
+            while (size > maxSize && it.hasNext()) {
+                Deque<PooledReader> eldest = it.next();
+                while (size > maxSize && !eldest.isEmpty()) {
+                    discarded.add(eldest.pollFirst());
+                    size--;
+                }
+                if (eldest.isEmpty()) {
+                    it.remove();
+                }
+            }
+            sweep(discarded);
+            scheduleEviction();
+        }
+        disposeAll(discarded);
+    }
+
+    /** Disposes the pooled pairs on the given granule file */
+    public void clear(File file) {
+        List<PooledReader> discarded = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Deque<PooledReader>> it = pairs.values().iterator();
+            while (it.hasNext()) {
+                Deque<PooledReader> idle = it.next();
+                if (!idle.isEmpty() && idle.peekFirst().file.equals(file)) {
+                    discarded.addAll(idle);
+                    size -= idle.size();
+                    it.remove();
+                }
+            }
+            scheduleEviction();
+        }
+        disposeAll(discarded);
+    }
+
+    /** Disposes all the pooled pairs */
+    public void clear() {
+        List<PooledReader> discarded = new ArrayList<>();
+        synchronized (this) {
+            pairs.values().forEach(discarded::addAll);
+            pairs.clear();
+            size = 0;
+            scheduleEviction();
+        }
+        disposeAll(discarded);
+    }
+
+    /** Returns the number of pooled pairs */
+    public synchronized int size() {
+        return size;
+    }
+
+    /** Disposes the pairs idle for too long, run in the background while the pool is not empty */
+    void evictIdle() {
+        List<PooledReader> discarded = new ArrayList<>();
+        synchronized (this) {
+            lastSweep = 0;
+            sweep(discarded);
+            scheduleEviction();
+        }
+        disposeAll(discarded);
+    }
+
+    /** Starts the background eviction when pairs are pooled, stops it once the pool is empty */
+    private void scheduleEviction() {
+        if (size > 0 && eviction == null) {
+            long period = Math.max(maxIdle / 2, MIN_EVICTION_PERIOD);
+            eviction =
+                    EVICTOR.scheduleWithFixedDelay(
+                            this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+        } else if (size == 0 && eviction != null) {
+            eviction.cancel(false);
+            eviction = null;
+        }
+    }
+
+    /** Collects the pairs idle for too long, checking at most twice per max idle time */
+    private void sweep(List<PooledReader> discarded) {
+        long now = System.currentTimeMillis();
+        if (now - lastSweep < maxIdle / 2) {
+            return;
+        }
+        lastSweep = now;
+        Iterator<Deque<PooledReader>> it = pairs.values().iterator();
+        while (it.hasNext()) {
+            Deque<PooledReader> idle = it.next();
+            // pairs are released at the end of the deque, the oldest are at the start
+            while (!idle.isEmpty() && now - idle.peekFirst().lastUsed > maxIdle) {
+                discarded.add(idle.pollFirst());
+                size--;
+            }
+            if (idle.isEmpty()) {
+                it.remove();
+            }
+        }
+    }
+
+    private static void disposeAll(List<PooledReader> discarded) {
+        for (PooledReader pooled : discarded) {
+            pooled.dispose();
+        }
+    }
+
+    private static String getKey(File file, ImageReaderSpi spi) {
+        return file.getAbsolutePath() + "#" + (spi == null ? "" : spi.getClass().getName());
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "GranuleReaderPool[size=" + size + ", maxSize=" + maxSize + "]";
+    }
+}
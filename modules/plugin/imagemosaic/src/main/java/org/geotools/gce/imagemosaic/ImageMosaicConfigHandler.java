@@ -151,7 +151,8 @@ public class ImageMosaicConfigHandler {
 
     private ImageReaderSpi cachedReaderSPI;
 
-    private AbstractGridFormat cachedFormat;
+    /** Read by the threads opening granules in parallel, see {@link Prop#HARVEST_THREADS} */
+    private volatile AbstractGridFormat cachedFormat;
 
     private ReferencedEnvelope imposedBBox;
 
@@ -1396,6 +1397,26 @@ public void updateConfiguration(
             DefaultTransaction transaction)
             throws IOException, GranuleHandlingException, NoSuchAuthorityCodeException,
                     FactoryException, TransformException {
+        updateConfiguration(
+                coverageReader, inputCoverageName, element, fileIndex, numFiles, transaction, true);
+    }
+
+    /**
+     * Creates or updates the configurations as {@link #updateConfiguration(GridCoverage2DReader,
+     * String, ImageMosaicSourceElement, int, double, DefaultTransaction)} does, only adding the
+     * granule to the catalog if {@code harvest} is true. Otherwise the granule is expected to be in
+     * the catalog already, as are the coverage types, harvested by a previous interrupted harvest.
+     */
+    void updateConfiguration(
+            GridCoverage2DReader coverageReader,
+            final String inputCoverageName,
+            ImageMosaicSourceElement element,
+            int fileIndex,
+            double numFiles,
+            DefaultTransaction transaction,
+            boolean harvest)
+            throws IOException, GranuleHandlingException, NoSuchAuthorityCodeException,
+                    FactoryException, TransformException {
 
         final String targetCoverageName = getTargetCoverageName(coverageReader, inputCoverageName);
 
@@ -1554,8 +1575,8 @@ public void updateConfiguration(
             // Creating a rasterManager which will be initialized after populating the catalog
             getParentReader().addRasterManager(currentConfigurationBean, false);
 
-            // Creating a granuleStore
-            if (!useExistingSchema) {
+            // Creating a granuleStore, unless it holds the granules of a previous harvest
+            if (!useExistingSchema && harvest) {
                 // creating the schema
                 SimpleFeatureType indexSchema =
                         createSchema(
@@ -1615,7 +1636,7 @@ public void updateConfiguration(
             }
         }
         // STEP 3
-        if (!useExistingSchema) {
+        if (!useExistingSchema && harvest) {
             // create and store features
             updateCatalog(
                     targetCoverageName,
@@ -19,11 +19,26 @@
 import java.io.File;
 import java.io.FileFilter;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOCase;
@@ -33,8 +48,16 @@
 import org.apache.commons.io.filefilter.IOFileFilter;
 import org.apache.commons.io.filefilter.TrueFileFilter;
 import org.apache.commons.io.filefilter.WildcardFileFilter;
+import org.geotools.api.data.Query;
+import org.geotools.api.filter.Filter;
+import org.geotools.data.simple.SimpleFeatureIterator;
 import org.geotools.gce.image.WorldImageFormat;
+import org.geotools.gce.imagemosaic.ImageMosaicFileFeatureConsumer.ImageMosaicFileConsumer.OpenedGranule;
 import org.geotools.gce.imagemosaic.Utils.Prop;
+import org.geotools.gce.imagemosaic.catalog.GranuleCatalog;
+import org.geotools.gce.imagemosaic.catalog.index.Indexer;
+import org.geotools.gce.imagemosaic.catalog.index.IndexerUtils;
+import org.geotools.gce.imagemosaic.catalogbuilder.CatalogBuilderConfiguration;
 
 /**
  * This class is in responsible for creating the index for a mosaic of images that we want to tie
@@ -66,6 +89,8 @@ final class MosaicDirectoryWalker extends org.apache.commons.io.DirectoryWalker
 
         private ImageMosaicElementConsumer consumer;
 
+        private ParallelHarvester harvester;
+
         @Override
         protected void handleCancelled(
                 File startDirectory, Collection results, CancelException cancel)
@@ -96,7 +121,15 @@ protected void handleFile(
                 final File fileBeingProcessed, final int depth, final Collection results)
                 throws IOException {
 
-            handleElement(fileBeingProcessed, walker);
+            if (checkpointed.contains(fileBeingProcessed.getAbsolutePath())) {
+                // already committed by a previous, interrupted, harvest
+                setElementIndex(getElementIndex() + 1);
+            } else if (harvester != null) {
+                harvester.submit(fileBeingProcessed);
+            } else {
+                handleElement(fileBeingProcessed, walker);
+                harvested(fileBeingProcessed);
+            }
             super.handleFile(fileBeingProcessed, depth, results);
         }
 
@@ -114,7 +147,20 @@ public MosaicDirectoryWalker(
             startTransaction();
             configHandler.indexingPreamble();
 
+            Indexer indexer = configHandler.getRunConfiguration().getIndexer();
+            Integer threads = IndexerUtils.getParameterAsInteger(Prop.HARVEST_THREADS, indexer);
+            if (threads != null
+                    && threads > 1
+                    && consumer instanceof ImageMosaicFileFeatureConsumer.ImageMosaicFileConsumer) {
+                harvester =
+                        new ParallelHarvester(
+                                threads,
+                                (ImageMosaicFileFeatureConsumer.ImageMosaicFileConsumer) consumer);
+            }
+
             try {
+                loadCheckpoint(consumer);
+
                 // start walking directories
                 for (String indexingDirectory : indexingDirectories) {
                     walk(new File(indexingDirectory), null);
@@ -124,16 +170,23 @@ public MosaicDirectoryWalker(
                         break;
                     }
                 }
+                if (harvester != null) {
+                    harvester.drain();
+                }
                 // did we cancel?
                 if (getStop()) {
                     rollbackTransaction();
                 } else {
                     commitTransaction();
+                    completeCheckpoint();
                 }
             } catch (Exception e) {
                 LOGGER.log(Level.WARNING, "Failure occurred while collecting the granules", e);
                 rollbackTransaction();
             } finally {
+                if (harvester != null) {
+                    harvester.dispose();
+                }
                 try {
                     configHandler.indexingPostamble(!getStop());
                 } catch (Exception e) {
@@ -169,8 +222,330 @@ public void handleElement(File element, ImageMosaicWalker provider) throws IOExc
         }
     }
 
+    /**
+     * Opens the granule files on a pool of threads, ahead of the walk, and harvests them in the
+     * walking thread, in the order they were found. Only the opening (format lookup, reader
+     * creation and header parsing) runs in parallel, the harvest itself is serial: the catalog and
+     * the mosaic configurations are updated by a single thread, as when harvesting serially.
+     */
+    private final class ParallelHarvester {
+
+        private final ImageMosaicFileFeatureConsumer.ImageMosaicFileConsumer consumer;
+
+        private final ExecutorService executor;
+
+        /** The files submitted, and not yet harvested, in walking order */
+        private final Deque<File> files = new ArrayDeque<>();
+
+        private final Deque<Future<OpenedGranule>> granules = new ArrayDeque<>();
+
+        /** The number of files opened ahead of the one being harvested */
+        private final int maxPending;
+
+        private volatile boolean disposed;
+
+        ParallelHarvester(
+                int threads, ImageMosaicFileFeatureConsumer.ImageMosaicFileConsumer consumer) {
+            this.consumer = consumer;
+            this.maxPending = threads * 2;
+            AtomicInteger count = new AtomicInteger();
+            this.executor =
+                    Executors.newFixedThreadPool(
+                            threads,
+                            r -> {
+                                Thread t =
+                                        new Thread(r, "MosaicHarvester-" + count.incrementAndGet());
+                                t.setDaemon(true);
+                                return t;
+                            });
+        }
+
+        /** Starts opening a file, harvesting the oldest ones if too many are pending */
+        void submit(File file) throws IOException {
+            files.add(file);
+            granules.add(
+                    executor.submit(
+                            () -> disposed ? null : consumer.openGranule(file, configHandler)));
+            while (granules.size() > maxPending && !getStop()) {
+                harvestNext();
+            }
+        }
+
+        /** Harvests all the pending files */
+        void drain() throws IOException {
+            while (!granules.isEmpty() && !getStop()) {
+                harvestNext();
+            }
+        }
+
+        private void harvestNext() throws IOException {
+            File file = files.poll();
+            Future<OpenedGranule> granule = granules.poll();
+            try {
+                consumer.handleElement(file, () -> get(granule), ImageMosaicDirectoryWalker.this);
+            } finally {
+                // the consumer did not get to the reader if the file was rejected early
+                dispose(granule);
+            }
+            harvested(file);
+        }
+
+        private OpenedGranule get(Future<OpenedGranule> granule) throws Exception {
+            try {
+                return granule.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                throw cause instanceof Exception ? (Exception) cause : e;
+            }
+        }
+
+        /**
+         * Stops the threads, disposing the readers opened for files that were not harvested. Only
+         * the files already being opened are waited for, the others are skipped.
+         */
+        void dispose() {
+            disposed = true;
+            executor.shutdown();
+            for (Future<OpenedGranule> granule : granules) {
+                dispose(granule);
+            }
+            files.clear();
+            granules.clear();
+        }
+
+        private void dispose(Future<OpenedGranule> granule) {
+            try {
+                OpenedGranule opened = granule.get();
+                if (opened != null) {
+                    opened.dispose();
+                }
+            } catch (ExecutionException e) {
+                // failed to open, nothing to release
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /** The name of the file listing the granules committed by a harvest still in progress */
+    public static final String CHECKPOINT_FILE = "harvest.checkpoint";
+
     private IOFileFilter fileFilter;
 
+    /** The files committed, according to the checkpoint of a previous harvest */
+    private Set<String> checkpointed = Collections.emptySet();
+
+    /** The files harvested since the last commit */
+    private final List<String> uncommitted = new ArrayList<>();
+
+    private int batchSize;
+
+    private File checkpointFile;
+
+    private long startTime;
+
+    /**
+     * Records a file as harvested, committing the transaction and updating the checkpoint once
+     * {@link Prop#HARVEST_BATCH_SIZE} files have been harvested
+     */
+    private void harvested(File file) throws IOException {
+        if (batchSize <= 0 || getStop()) {
+            return;
+        }
+        uncommitted.add(file.getAbsolutePath());
+        if (uncommitted.size() >= batchSize) {
+            commitTransaction();
+            Files.write(
+                    checkpointFile.toPath(),
+                    uncommitted,
+                    StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND);
+            uncommitted.clear();
+            fireProgress();
+        }
+    }
+
+    /**
+     * Loads the files committed by a previous harvest, stopped or failed, so that they are not
+     * harvested again. Only the files the catalog holds a granule for are skipped, the others, for
+     * instance when the index has been recreated or the checkpoint was not fully written, are
+     * harvested again. The configurations of the coverages are restored from the skipped files, or
+     * when that is not possible, none is skipped. The checkpoint is then rewritten with the skipped
+     * files only.
+     */
+    private void loadCheckpoint(ImageMosaicElementConsumer<?> consumer) throws IOException {
+        CatalogBuilderConfiguration runConfiguration = configHandler.getRunConfiguration();
+        Integer size =
+                IndexerUtils.getParameterAsInteger(
+                        Prop.HARVEST_BATCH_SIZE, runConfiguration.getIndexer());
+        batchSize = size != null ? size : 0;
+        startTime = System.currentTimeMillis();
+        if (batchSize <= 0) {
+            return;
+        }
+        checkpointFile =
+                new File(runConfiguration.getParameter(Prop.ROOT_MOSAIC_DIR), CHECKPOINT_FILE);
+        if (!checkpointFile.isFile()) {
+            return;
+        }
+        List<String> files = Files.readAllLines(checkpointFile.toPath(), StandardCharsets.UTF_8);
+        Set<String> locations = getCatalogLocations();
+        Set<String> committed = new LinkedHashSet<>();
+        for (String path : files) {
+            try {
+                String location =
+                        new ImageMosaicSourceElement.FileElement(new File(path))
+                                .getLocation(runConfiguration);
+                if (locations.contains(location)) {
+                    committed.add(path);
+                }
+            } catch (IOException | RuntimeException e) {
+                // a truncated line, or a file out of the mosaic directory, harvest it again
+                LOGGER.log(Level.FINE, "Unable to locate " + path + " in the catalog", e);
+            }
+        }
+        if (!committed.isEmpty() && !restoreConfigurations(committed, consumer)) {
+            LOGGER.info(
+                    "Unable to restore the mosaic configuration from the files listed in "
+                            + checkpointFile
+                            + ", harvesting them again");
+            committed.clear();
+        }
+        LOGGER.info(
+                "Resuming the harvest, skipping the "
+                        + committed.size()
+                        + " of the "
+                        + files.size()
+                        + " files listed in "
+                        + checkpointFile
+                        + " found in the catalog");
+        checkpointed = committed;
+
+        // rewrite the checkpoint atomically, dropping the files to be harvested again
+        File tmp = new File(checkpointFile.getParentFile(), CHECKPOINT_FILE + ".tmp");
+        Files.write(tmp.toPath(), committed, StandardCharsets.UTF_8);
+        Files.move(
+                tmp.toPath(),
+                checkpointFile.toPath(),
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Restores the configurations of the coverages the catalog holds granules for, but the mosaic
+     * has no configuration for yet, as when the interrupted harvest was adding a new coverage. Each
+     * configuration is restored from the first committed file holding the coverage, without
+     * harvesting it again, so that the skipped files are not missing from the properties files and
+     * sample images written at the end of the harvest.
+     *
+     * @return false if some of the configurations could not be restored
+     */
+    private boolean restoreConfigurations(
+            Set<String> committed, ImageMosaicElementConsumer<?> consumer) throws IOException {
+        if (getUnconfiguredTypeNames().isEmpty()) {
+            return true;
+        }
+        if (!(consumer instanceof ImageMosaicFileFeatureConsumer.ImageMosaicFileConsumer)) {
+            return false;
+        }
+        ImageMosaicFileFeatureConsumer.ImageMosaicFileConsumer fileConsumer =
+                (ImageMosaicFileFeatureConsumer.ImageMosaicFileConsumer) consumer;
+        for (String path : committed) {
+            try {
+                fileConsumer.updateConfiguration(new File(path), this);
+            } catch (Exception e) {
+                LOGGER.log(Level.FINE, "Unable to restore the configuration from " + path, e);
+            }
+            if (getUnconfiguredTypeNames().isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Returns the types of the catalog that no coverage of the mosaic is configured for */
+    private Set<String> getUnconfiguredTypeNames() throws IOException {
+        Set<String> typeNames = new HashSet<>();
+        String[] catalogTypeNames = configHandler.getCatalog().getTypeNames();
+        if (catalogTypeNames != null) {
+            typeNames.addAll(Arrays.asList(catalogTypeNames));
+        }
+        ImageMosaicReader reader = configHandler.getParentReader();
+        for (String coverageName : reader.getGridCoverageNames()) {
+            RasterManager manager = reader.getRasterManager(coverageName);
+            if (manager != null) {
+                typeNames.remove(manager.getTypeName());
+            }
+        }
+        return typeNames;
+    }
+
+    /** Returns the locations of the granules in the catalog, as committed so far */
+    private Set<String> getCatalogLocations() throws IOException {
+        String attribute =
+                configHandler.getRunConfiguration().getParameter(Prop.LOCATION_ATTRIBUTE);
+        if (attribute == null) {
+            attribute = Utils.DEFAULT_LOCATION_ATTRIBUTE;
+        }
+        Set<String> locations = new HashSet<>();
+        GranuleCatalog catalog = configHandler.getCatalog();
+        String[] typeNames = catalog.getTypeNames();
+        if (typeNames != null) {
+            for (String typeName : typeNames) {
+                Query query = new Query(typeName, Filter.INCLUDE, attribute);
+                try (SimpleFeatureIterator it = catalog.getGranules(query).features()) {
+                    while (it.hasNext()) {
+                        Object location = Utils.getAttribute(it.next(), attribute);
+                        if (location != null) {
+                            locations.add(location.toString());
+                        }
+                    }
+                }
+            }
+        }
+        return locations;
+    }
+
+    /** Removes the checkpoint once the whole harvest has been committed */
+    private void completeCheckpoint() throws IOException {
+        if (checkpointFile != null) {
+            Files.deleteIfExists(checkpointFile.toPath());
+        }
+        uncommitted.clear();
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.fine(getProgress());
+        }
+    }
+
+    private void fireProgress() {
+        int total = getNumElements();
+        double percentage = total > 0 ? (getElementIndex() * 100.0) / total : 0;
+        eventHandler.fireEvent(Level.INFO, getProgress(), percentage);
+    }
+
+    /** Returns the number of files harvested so far, along with the harvesting rate */
+    private String getProgress() {
+        int index = getElementIndex();
+        double seconds = Math.max(1, System.currentTimeMillis() - startTime) / 1000d;
+        double rate = (index - checkpointed.size()) / seconds;
+        String progress =
+                String.format(
+                        Locale.ENGLISH,
+                        "Harvested %d of %d files, %.1f files/s",
+                        index,
+                        getNumElements(),
+                        rate);
+        if (rate > 0 && index < getNumElements()) {
+            progress +=
+                    String.format(
+                            Locale.ENGLISH,
+                            ", about %.0f s left",
+                            (getNumElements() - index) / rate);
+        }
+        return progress;
+    }
+
     /** run the directory walker */
     @Override
     public void run() {
@@ -260,6 +635,7 @@ private IOFileFilter createDefaultGranuleExclusionFilter() {
                         FileFilterUtils.suffixFileFilter("ncx"),
                         FileFilterUtils.nameFileFilter("error.txt"),
                         FileFilterUtils.nameFileFilter("error.txt.lck"),
+                        FileFilterUtils.nameFileFilter(CHECKPOINT_FILE),
                         FileFilterUtils.suffixFileFilter("properties"),
                         FileFilterUtils.suffixFileFilter("svn-base"));
         filesFilter =
@@ -19,6 +19,9 @@
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.imageio.ImageIO;
@@ -135,6 +138,47 @@ public void handleElement(SimpleFeature feature, ImageMosaicWalker provider)
 
     static class ImageMosaicFileConsumer implements ImageMosaicElementConsumer<File> {
 
+        /** A granule file, along with the format and the reader opened on it */
+        static final class OpenedGranule {
+
+            final File file;
+
+            /** The format of the file, or null if not supported */
+            final AbstractGridFormat format;
+
+            final GridCoverage2DReader reader;
+
+            final String[] coverageNames;
+
+            private boolean disposed;
+
+            OpenedGranule(
+                    File file,
+                    AbstractGridFormat format,
+                    GridCoverage2DReader reader,
+                    String[] coverageNames) {
+                this.file = file;
+                this.format = format;
+                this.reader = reader;
+                this.coverageNames = coverageNames;
+            }
+
+            /** Releases the reader, can be called more than once */
+            synchronized void dispose() {
+                if (disposed || reader == null) {
+                    return;
+                }
+                disposed = true;
+                try {
+                    reader.dispose();
+                } catch (Throwable e) {
+                    // ignore exception
+                    if (LOGGER.isLoggable(Level.FINEST))
+                        LOGGER.log(Level.FINEST, e.getLocalizedMessage(), e);
+                }
+            }
+        }
+
         @Override
         public boolean checkElement(File file, ImageMosaicWalker provider) {
             if (file == null || !file.exists() || !file.canRead() || !file.isFile()) {
@@ -145,6 +189,56 @@ public boolean checkElement(File file, ImageMosaicWalker provider) {
 
         @Override
         public void handleElement(File file, ImageMosaicWalker provider) throws IOException {
+            ImageMosaicConfigHandler configHandler = provider.getConfigHandler();
+            handleElement(file, () -> openGranule(file, configHandler), provider);
+        }
+
+        /**
+         * Finds the format of a granule file, and opens a reader on it. Parsing the file headers is
+         * the most expensive part of harvesting, this method can thus be called from several
+         * threads at once, ahead of {@link #handleElement(File, Callable, ImageMosaicWalker)}.
+         *
+         * @return the opened granule, with a null format if the file is not supported
+         */
+        OpenedGranule openGranule(File file, ImageMosaicConfigHandler configHandler)
+                throws IOException {
+            // Getting a coverage reader for this coverage.
+            final AbstractGridFormat format;
+            final AbstractGridFormat cachedFormat = configHandler.getCachedFormat();
+            if (cachedFormat == null) {
+                // When looking for formats which may parse this file, make sure to exclude the
+                // ImageMosaicFormat as return
+                format = GridFormatFinder.findFormat(file, Utils.EXCLUDE_MOSAIC_HINTS);
+            } else {
+                if (cachedFormat.accepts(file)) {
+                    format = cachedFormat;
+                } else {
+                    format = GridFormatFinder.findFormat(file, Utils.EXCLUDE_MOSAIC_HINTS);
+                }
+            }
+            if ((format instanceof UnknownFormat) || format == null) {
+                return new OpenedGranule(file, null, null, null);
+            }
+
+            final Hints configurationHints = configHandler.getRunConfiguration().getHints();
+            GridCoverage2DReader coverageReader =
+                    (GridCoverage2DReader) format.getReader(file, configurationHints);
+            try {
+                // Getting available coverageNames from the reader
+                String[] coverageNames = coverageReader.getGridCoverageNames();
+                return new OpenedGranule(file, format, coverageReader, coverageNames);
+            } catch (IOException | RuntimeException e) {
+                new OpenedGranule(file, format, coverageReader, null).dispose();
+                throw e;
+            }
+        }
+
+        /**
+         * Harvests a granule file, whose reader is provided by the given callable, either opening
+         * it, or waiting for another thread to do so.
+         */
+        void handleElement(File file, Callable<OpenedGranule> opener, ImageMosaicWalker provider)
+                throws IOException {
 
             // increment counter
             int elementIndex = provider.getElementIndex() + 1;
@@ -178,23 +272,11 @@ public void handleElement(File file, ImageMosaicWalker provider) throws IOExcept
                     Level.INFO,
                     "Now indexing file " + validFileName,
                     ((elementIndex * 100.0) / numElements));
-            GridCoverage2DReader coverageReader = null;
+            OpenedGranule granule = null;
             try {
-                // Getting a coverage reader for this coverage.
-                final AbstractGridFormat format;
-                final AbstractGridFormat cachedFormat = configHandler.getCachedFormat();
-                if (cachedFormat == null) {
-                    // When looking for formats which may parse this file, make sure to exclude the
-                    // ImageMosaicFormat as return
-                    format = GridFormatFinder.findFormat(file, Utils.EXCLUDE_MOSAIC_HINTS);
-                } else {
-                    if (cachedFormat.accepts(file)) {
-                        format = cachedFormat;
-                    } else {
-                        format = GridFormatFinder.findFormat(file, Utils.EXCLUDE_MOSAIC_HINTS);
-                    }
-                }
-                if ((format instanceof UnknownFormat) || format == null) {
+                granule = opener.call();
+                final AbstractGridFormat format = granule.format;
+                if (format == null) {
                     if (!Utils.LOG_EXCLUDES.contains(extension)) {
                         eventHandler.fireFileEvent(
                                 Level.INFO,
@@ -205,45 +287,11 @@ public void handleElement(File file, ImageMosaicWalker provider) throws IOExcept
                     }
                     return;
                 }
-
-                final Hints configurationHints = configHandler.getRunConfiguration().getHints();
-                coverageReader = (GridCoverage2DReader) format.getReader(file, configurationHints);
-
+                GridCoverage2DReader coverageReader = granule.reader;
                 // Setting of the ReaderSPI to use
-                if (configHandler.getCachedReaderSPI() == null) {
-                    // Get the URL associated to the file
-                    URL granuleUrl = URLs.fileToUrl(file);
-                    // Get the ImageInputStreamSPI associated to the URL
-                    ImageInputStreamSpi inStreamSpi = Utils.getInputStreamSPIFromURL(granuleUrl);
-                    // Ensure that the ImageInputStreamSPI is available
-                    if (inStreamSpi == null) {
-                        throw new IllegalArgumentException("no inputStreamSPI available!");
-                    }
-                    try (ImageInputStream inStream =
-                            inStreamSpi.createInputStreamInstance(
-                                    granuleUrl,
-                                    ImageIO.getUseCache(),
-                                    ImageIO.getCacheDirectory())) {
-                        // Get the ImageInputStream from the SPI
-                        // Throws an Exception if the ImageInputStream is not present
-                        if (inStream == null) {
-                            if (LOGGER.isLoggable(Level.WARNING)) {
-                                LOGGER.log(Level.WARNING, Utils.getFileInfo(file));
-                            }
-                            throw new IllegalArgumentException(
-                                    "Unable to get an input stream for the provided file "
-                                            + granuleUrl.toString());
-                        }
-                        // Selection of the ImageReaderSpi from the Stream
-                        ImageReaderSpi spi = Utils.getReaderSpiFromStream(null, inStream);
-                        configHandler.setCachedReaderSPI(spi);
-                    }
-                }
-
-                // Getting available coverageNames from the reader
-                String[] coverageNames = coverageReader.getGridCoverageNames();
+                cacheReaderSPI(file, configHandler);
 
-                for (String cvName : coverageNames) {
+                for (String cvName : granule.coverageNames) {
                     ImageMosaicSourceElement element =
                             new ImageMosaicSourceElement.FileElement(file);
                     boolean shouldAccept = true;
@@ -293,15 +341,76 @@ public void handleElement(File file, ImageMosaicWalker provider) throws IOExcept
             } finally {
                 // STEP 5
                 // release resources
-                try {
-                    if (coverageReader != null)
-                        // release resources
-                        coverageReader.dispose();
-                } catch (Throwable e) {
-                    // ignore exception
-                    if (LOGGER.isLoggable(Level.FINEST))
-                        LOGGER.log(Level.FINEST, e.getLocalizedMessage(), e);
+                if (granule != null) {
+                    granule.dispose();
+                }
+            }
+        }
+
+        /**
+         * Updates the mosaic configurations with a granule file committed by a previous,
+         * interrupted, harvest, without adding it to the catalog again, so that a resumed harvest
+         * skipping the file still writes the configurations and sample images of its coverages.
+         *
+         * @return the names of the coverages the file was found to hold
+         */
+        List<String> updateConfiguration(File file, ImageMosaicWalker provider) throws Exception {
+            ImageMosaicConfigHandler configHandler = provider.getConfigHandler();
+            List<String> names = new ArrayList<>();
+            OpenedGranule granule = openGranule(file, configHandler);
+            try {
+                if (granule.format == null) {
+                    return names;
+                }
+                cacheReaderSPI(file, configHandler);
+                configHandler.setCachedFormat(granule.format);
+                for (String cvName : granule.coverageNames) {
+                    configHandler.updateConfiguration(
+                            granule.reader,
+                            cvName,
+                            new ImageMosaicSourceElement.FileElement(file),
+                            provider.getElementIndex(),
+                            provider.getNumElements(),
+                            provider.getTransaction(),
+                            false);
+                    names.add(cvName);
+                }
+                return names;
+            } finally {
+                granule.dispose();
+            }
+        }
+
+        /** Sets the ReaderSPI to use, from the first granule file, if not set already */
+        private void cacheReaderSPI(File file, ImageMosaicConfigHandler configHandler)
+                throws IOException {
+            if (configHandler.getCachedReaderSPI() != null) {
+                return;
+            }
+            // Get the URL associated to the file
+            URL granuleUrl = URLs.fileToUrl(file);
+            // Get the ImageInputStreamSPI associated to the URL
+            ImageInputStreamSpi inStreamSpi = Utils.getInputStreamSPIFromURL(granuleUrl);
+            // Ensure that the ImageInputStreamSPI is available
+            if (inStreamSpi == null) {
+                throw new IllegalArgumentException("no inputStreamSPI available!");
+            }
+            try (ImageInputStream inStream =
+                    inStreamSpi.createInputStreamInstance(
+                            granuleUrl, ImageIO.getUseCache(), ImageIO.getCacheDirectory())) {
+                // Get the ImageInputStream from the SPI
+                // Throws an Exception if the ImageInputStream is not present
+                if (inStream == null) {
+                    if (LOGGER.isLoggable(Level.WARNING)) {
+                        LOGGER.log(Level.WARNING, Utils.getFileInfo(file));
+                    }
+                    throw new IllegalArgumentException(
+                            "Unable to get an input stream for the provided file "
+                                    + granuleUrl.toString());
                 }
+                // Selection of the ImageReaderSpi from the Stream
+                ImageReaderSpi spi = Utils.getReaderSpiFromStream(null, inStream);
+                configHandler.setCachedReaderSPI(spi);
             }
         }
     }
@@ -309,6 +309,7 @@ public void visit(GranuleDescriptor granule, SimpleFeature feature) {
 
         private void removeFile(File file) {
             if (file.exists()) {
+                GranuleReaderPool.getInstance().clear(file);
                 try {
                     Files.delete(file.toPath());
                 } catch (IOException e) {
@@ -167,6 +167,13 @@ public class RasterLayerRequest {
 
     private GridGeometry2D requestedGridGeometry;
 
+    private final GranuleLoadingStatistics loadingStatistics = new GranuleLoadingStatistics();
+
+    /** Returns the time spent in each stage of this request, filled while it is processed */
+    public GranuleLoadingStatistics getLoadingStatistics() {
+        return loadingStatistics;
+    }
+
     public List<?> getElevation() {
         return elevation;
     }
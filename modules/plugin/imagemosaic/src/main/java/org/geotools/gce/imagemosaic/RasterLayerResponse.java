@@ -284,6 +284,9 @@ private class MosaicProducer implements GranuleCatalogVisitor {
 
         private boolean heterogeneousCRS;
 
+        /** Time spent dispatching granules, in nanoseconds, to tell it apart from the catalog's */
+        private long dispatchTime;
+
         /** Default {@link Constructor} */
         private MosaicProducer(List<SubmosaicProducer> collectors) {
             this(false, collectors);
@@ -316,6 +319,15 @@ private MosaicProducer(final boolean dryRun, List<SubmosaicProducer> collectors)
          */
         @Override
         public void visit(GranuleDescriptor granuleDescriptor, SimpleFeature sf) {
+            long start = System.nanoTime();
+            try {
+                dispatch(granuleDescriptor);
+            } finally {
+                dispatchTime += System.nanoTime() - start;
+            }
+        }
+
+        private void dispatch(GranuleDescriptor granuleDescriptor) {
             //
             // load raster data
             //
@@ -668,11 +680,21 @@ private MosaicOutput prepareResponse() throws DataSourceException {
                 producer.init(query);
             }
             final MosaicProducer visitor = new MosaicProducer(producers);
+            GranuleLoadingStatistics statistics = request.getLoadingStatistics();
+            long catalogStart = System.nanoTime();
             rasterManager.getGranuleDescriptors(query, visitor);
+            statistics.add(
+                    GranuleLoadingStatistics.Stage.CATALOG,
+                    System.nanoTime() - catalogStart - visitor.dispatchTime);
 
             // get those granules and create the final mosaic
             heterogeneousCRS = visitor.heterogeneousCRS;
+            long mosaicStart = System.nanoTime();
             MosaicOutput returnValue = visitor.produce();
+            statistics.add(GranuleLoadingStatistics.Stage.MOSAIC, System.nanoTime() - mosaicStart);
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.fine("Read " + request + " with " + statistics);
+            }
 
             //
             // Did we actually load anything?? Notice that it might happen that
@@ -1501,7 +1501,9 @@ private void cleanupGranules(Query query, boolean checkForReferences, boolean de
                             reader.removeCoverage(coverageName, false);
                         }
                     } else if (deleteData) {
-                        FileUtils.deleteQuietly(URLs.urlToFile(rasterPath));
+                        File rasterFile = URLs.urlToFile(rasterPath);
+                        GranuleReaderPool.getInstance().clear(rasterFile);
+                        FileUtils.deleteQuietly(rasterFile);
                     }
                 } finally {
                     if (coverageReader != null) {
@@ -430,6 +430,20 @@ public static class Prop {
         public static final String QUERY_CACHE_MAX_FEATURES = "QueryCacheMaxFeatures";
 
         public static final String COLLECT_RAT = "CollectAttributeTables";
+
+        /**
+         * The number of threads opening the granule files ahead of the walk when harvesting a
+         * directory. Only the opening is parallel, the granules are still harvested one at a time,
+         * in walking order. Defaults to 1, no parallelism.
+         */
+        public static final String HARVEST_THREADS = "HarvestThreads";
+
+        /**
+         * The number of files harvested from a directory before committing them to the catalog, and
+         * recording them in a checkpoint file, so that a failed or stopped harvest can be resumed.
+         * Defaults to 0, all the files being committed at once.
+         */
+        public static final String HARVEST_BATCH_SIZE = "HarvestBatchSize";
     }
 
     /**
@@ -424,31 +424,44 @@ public void getGranuleDescriptors(Query query, final GranuleCatalogVisitor visit
         try (SimpleFeatureIterator fi = features.features()) {
             while (fi.hasNext() && !visitor.isVisitComplete()) {
                 final SimpleFeature sf = fi.next();
-                MultiLevelROI footprint = getGranuleFootprint(sf);
-                if (footprint == null || !footprint.isEmpty()) {
-                    try {
-                        final GranuleDescriptor granule =
-                                new GranuleDescriptor(
-                                        sf,
-                                        configuration.suggestedFormat(),
-                                        configuration.suggestedSPI(),
-                                        configuration.suggestedIsSPI(),
-                                        configuration.getPathType(),
-                                        configuration.getLocationAttribute(),
-                                        parentLocation,
-                                        footprint,
-                                        configuration.isHeterogeneous(),
-                                        q.getHints());
-
-                        visitor.visit(granule, sf);
-                    } catch (Exception e) {
-                        LOGGER.log(Level.FINE, "Skipping invalid granule", e);
-                    }
+                final GranuleDescriptor granule =
+                        createGranuleDescriptor(sf, configuration, q.getHints());
+                if (granule != null) {
+                    visitor.visit(granule, sf);
                 }
             }
         }
     }
 
+    /**
+     * Creates the descriptor of a granule feature
+     *
+     * @return the descriptor, or null if the granule is invalid or its footprint is empty
+     */
+    GranuleDescriptor createGranuleDescriptor(
+            SimpleFeature sf, CatalogConfigurationBean configuration, Hints hints) {
+        MultiLevelROI footprint = getGranuleFootprint(sf);
+        if (footprint != null && footprint.isEmpty()) {
+            return null;
+        }
+        try {
+            return new GranuleDescriptor(
+                    sf,
+                    configuration.suggestedFormat(),
+                    configuration.suggestedSPI(),
+                    configuration.suggestedIsSPI(),
+                    configuration.getPathType(),
+                    configuration.getLocationAttribute(),
+                    parentLocation,
+                    footprint,
+                    configuration.isHeterogeneous(),
+                    hints);
+        } catch (Exception e) {
+            LOGGER.log(Level.FINE, "Skipping invalid granule", e);
+            return null;
+        }
+    }
+
     @Override
     public SimpleFeatureCollection getGranules(Query q) throws IOException {
         return getGranules(q, Transaction.AUTO_COMMIT);
@@ -83,7 +83,7 @@ public static GranuleCatalog createGranuleCatalog(
             if (configurations.size() != 1)
                 throw new IllegalArgumentException(
                         "Cannot perform in complete memory caching of granules when having multiple coverages");
-            catalog = new STRTreeGranuleCatalog(params, gtCatalog, hints);
+            catalog = new PackedGranuleCatalog(params, gtCatalog, hints);
         } else {
             Integer maxAge =
                     Converters.convert(params.get(Utils.Prop.QUERY_CACHE_MAX_AGE), Integer.class);
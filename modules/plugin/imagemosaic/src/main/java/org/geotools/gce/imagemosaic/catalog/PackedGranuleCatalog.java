@@ -20,13 +20,11 @@
 import static org.geotools.coverage.grid.io.GranuleSource.NATIVE_BOUNDS_KEY;
 import static org.geotools.geometry.jts.ReferencedEnvelope.reference;
 
-import java.awt.geom.Rectangle2D;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Properties;
 import java.util.concurrent.locks.Lock;
@@ -34,7 +32,6 @@
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 import org.geotools.api.data.Query;
 import org.geotools.api.data.QueryCapabilities;
 import org.geotools.api.data.Transaction;
@@ -42,30 +39,32 @@
 import org.geotools.api.feature.simple.SimpleFeatureType;
 import org.geotools.api.filter.Filter;
 import org.geotools.api.geometry.BoundingBox;
-import org.geotools.coverage.util.FeatureUtilities;
+import org.geotools.api.referencing.FactoryException;
+import org.geotools.api.referencing.crs.CoordinateReferenceSystem;
+import org.geotools.api.referencing.operation.TransformException;
 import org.geotools.data.collection.ListFeatureCollection;
 import org.geotools.data.simple.SimpleFeatureCollection;
 import org.geotools.data.sort.SortedFeatureReader;
-import org.geotools.feature.FeatureCollection;
 import org.geotools.feature.SchemaException;
 import org.geotools.feature.visitor.FeatureCalc;
+import org.geotools.filter.visitor.ExtractBoundsFilterVisitor;
 import org.geotools.gce.imagemosaic.GranuleDescriptor;
 import org.geotools.gce.imagemosaic.ImageMosaicReader;
-import org.geotools.gce.imagemosaic.Utils;
 import org.geotools.geometry.jts.ReferencedEnvelope;
+import org.geotools.referencing.CRS;
 import org.geotools.util.SuppressFBWarnings;
 import org.geotools.util.Utilities;
 import org.geotools.util.factory.Hints;
-import org.locationtech.jts.geom.Geometry;
-import org.locationtech.jts.index.ItemVisitor;
-import org.locationtech.jts.index.strtree.STRtree;
+import org.locationtech.jts.geom.Envelope;
 
 /**
- * This class simply builds an SRTREE spatial index in memory for fast indexed geometric queries.
+ * This class keeps all the granules in a {@link PackedGranuleIndex} in memory, for fast spatial,
+ * temporal and elevation queries.
  *
  * <p>Since the {@link ImageMosaicReader} heavily uses spatial queries to find out which are the
  * involved tiles during mosaic creation, it is better to do some caching and keep the index in
- * memory as much as possible, hence we came up with this index.
+ * memory as much as possible, hence we came up with this index. Granules added and removed through
+ * the catalog are added and removed from the index as well, without building it again.
  *
  * @author Simone Giannecchini, S.A.S.
  * @author Stefan Alfons Krueger (alfonx), Wikisquare.de : Support for
@@ -73,69 +72,17 @@
  * @since 2.5
  * @version 10.0
  */
-@SuppressWarnings("unused")
-class STRTreeGranuleCatalog extends GranuleCatalog {
+class PackedGranuleCatalog extends GranuleCatalog {
 
     /** Logger. */
     static final Logger LOGGER =
-            org.geotools.util.logging.Logging.getLogger(STRTreeGranuleCatalog.class);
+            org.geotools.util.logging.Logging.getLogger(PackedGranuleCatalog.class);
 
-    private static class JTSIndexVisitorAdapter implements ItemVisitor {
-
-        private GranuleCatalogVisitor adaptee;
-
-        private Filter filter;
-
-        private int maxGranules = -1;
-
-        private int granuleIndex = 0;
-
-        public JTSIndexVisitorAdapter(final GranuleCatalogVisitor adaptee) {
-            this(adaptee, (Query) null);
-        }
-
-        public JTSIndexVisitorAdapter(final GranuleCatalogVisitor adaptee, Query q) {
-            this.adaptee = adaptee;
-            this.filter = q == null ? Query.ALL.getFilter() : q.getFilter();
-            this.maxGranules = q == null ? -1 : q.getMaxFeatures();
-        }
-
-        public JTSIndexVisitorAdapter(final GranuleCatalogVisitor adaptee, Filter filter) {
-            this.adaptee = adaptee;
-            this.filter = filter == null ? Query.ALL.getFilter() : filter;
-        }
-
-        /*
-         * (non-Javadoc)
-         *
-         * @see org.locationtech.jts.index.ItemVisitor#visitItem(java.lang.Object)
-         */
-        @Override
-        public void visitItem(Object o) {
-            if (maxGranules > 0 && granuleIndex > maxGranules) {
-                return; // Skip
-            }
-            if (adaptee.isVisitComplete()) {
-                return; // Skipt
-            }
-            if (o instanceof GranuleDescriptor) {
-                final GranuleDescriptor g = (GranuleDescriptor) o;
-                final SimpleFeature originator = g.getOriginator();
-                if (originator != null && filter.evaluate(originator)) {
-                    adaptee.visit(g, null);
-                    granuleIndex++;
-                }
-                return;
-            }
-            throw new IllegalArgumentException("Unable to visit provided item" + o);
-        }
-    }
-
-    private GranuleCatalog wrappedCatalogue;
+    private AbstractGTDataStoreGranuleCatalog wrappedCatalogue;
 
     private String typeName;
 
-    public STRTreeGranuleCatalog(
+    public PackedGranuleCatalog(
             final Properties params,
             AbstractGTDataStoreGranuleCatalog wrappedCatalogue,
             final Hints hints) {
@@ -148,14 +95,42 @@ public STRTreeGranuleCatalog(
         }
     }
 
-    /** The {@link STRtree} index. */
-    private STRtree index;
+    /** The {@link PackedGranuleIndex} index. */
+    private PackedGranuleIndex<GranuleDescriptor> index;
 
     private final ReadWriteLock rwLock = new ReentrantReadWriteLock(true);
 
-    /** Constructs a {@link STRTreeGranuleCatalog} out of a {@link FeatureCollection}. */
+    /** Drops the index once a transaction modifying the granules is committed */
+    private final Transaction.State indexInvalidator =
+            new Transaction.State() {
+
+                @Override
+                public void setTransaction(Transaction transaction) {}
+
+                @Override
+                public void addAuthorization(String AuthID) {}
+
+                @Override
+                public void commit() {
+                    final Lock lock = rwLock.writeLock();
+                    try {
+                        lock.lock();
+                        index = null;
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+
+                @Override
+                public void rollback() {}
+            };
+
+    /** Creates the index if missing, upgrading the read lock to a write lock meanwhile. */
     @SuppressFBWarnings("UL_UNRELEASED_LOCK")
     private void checkIndex(Lock readLock) throws IOException {
+        if (index != null) {
+            return;
+        }
         final Lock writeLock = rwLock.writeLock();
         try {
             // upgrade the read lock to write lock
@@ -181,66 +156,28 @@ private void checkIndex(Lock readLock) throws IOException {
         }
     }
 
-    /**
-     * This method shall only be called when the <code>indexLocation</code> is of protocol <code>
-     * file:</code>
-     */
+    /** Loads all the granules from the wrapped catalog, and indexes them */
     private void createIndex() {
-
-        Iterator<GranuleDescriptor> it = null;
-        final Collection<GranuleDescriptor> features = new ArrayList<>();
-        //
-        // Load tiles informations, especially the bounds, which will be
-        // reused
-        //
+        final List<GranuleDescriptor> granules = new ArrayList<>();
         try {
-
             wrappedCatalogue.getGranuleDescriptors(
-                    new Query(typeName), (granule, o) -> features.add(granule));
-            if (features == null)
-                throw new NullPointerException(
-                        "The provided SimpleFeatureCollection is null, it's impossible to create an index!");
-
+                    new Query(typeName), (granule, o) -> granules.add(granule));
             if (LOGGER.isLoggable(Level.FINE)) LOGGER.fine("Index Loaded");
 
-            // load the feature from the shapefile and create JTS index
-            it = features.iterator();
-
-            // now build the index
-            // TODO make it configurable as far the index is involved
-            STRtree tree = new STRtree();
-            long size = 0;
-            while (it.hasNext()) {
-                final GranuleDescriptor granule = it.next();
-                final ReferencedEnvelope env = reference(granule.getGranuleBBOX());
-                final Geometry g =
-                        FeatureUtilities.getPolygon(
-                                new Rectangle2D.Double(
-                                        env.getMinX(),
-                                        env.getMinY(),
-                                        env.getWidth(),
-                                        env.getHeight()),
-                                0);
-                tree.insert(g.getEnvelopeInternal(), granule);
-            }
-
-            // force index construction --> STRTrees are built on first call to
-            // query
-            tree.build();
-
-            // save the soft reference
-            index = tree;
+            CatalogConfigurationBean configuration =
+                    configurations != null ? configurations.getByTypeName(typeName) : null;
+            index =
+                    new PackedGranuleIndex<>(
+                            wrappedCatalogue.getType(typeName),
+                            g -> reference(g.getGranuleBBOX()),
+                            GranuleDescriptor::getOriginator,
+                            configuration != null ? configuration.getLocationAttribute() : null,
+                            granules);
         } catch (Throwable e) {
             throw new IllegalArgumentException(e);
         }
     }
 
-    /*
-     * (non-Javadoc)
-     *
-     * @see org.geotools.gce.imagemosaic.FeatureIndex#findFeatures(org.locationtech.jts.geom.Envelope)
-     */
-    @SuppressWarnings("unchecked")
     public List<GranuleDescriptor> getGranules(final BoundingBox envelope) throws IOException {
         Utilities.ensureNonNull("envelope", envelope);
         final Lock lock = rwLock.readLock();
@@ -248,17 +185,12 @@ public List<GranuleDescriptor> getGranules(final BoundingBox envelope) throws IO
             lock.lock();
             checkStore();
             checkIndex(lock);
-            return index.query(reference(envelope));
+            return index.query(reference(envelope), null);
         } finally {
             lock.unlock();
         }
     }
 
-    /*
-     * (non-Javadoc)
-     *
-     * @see org.geotools.gce.imagemosaic.FeatureIndex#findFeatures(org.locationtech.jts.geom.Envelope, org.locationtech.jts.index.ItemVisitor)
-     */
     public void getGranules(final BoundingBox envelope, final GranuleCatalogVisitor visitor)
             throws IOException {
         Utilities.ensureNonNull("envelope", envelope);
@@ -270,7 +202,16 @@ public void getGranules(final BoundingBox envelope, final GranuleCatalogVisitor
 
             checkIndex(lock);
 
-            index.query(reference(envelope), new JTSIndexVisitorAdapter(visitor));
+            index.query(
+                    reference(envelope),
+                    null,
+                    g -> {
+                        if (visitor.isVisitComplete()) {
+                            return false;
+                        }
+                        visitor.visit(g, null);
+                        return true;
+                    });
         } finally {
             lock.unlock();
         }
@@ -302,7 +243,6 @@ public void dispose() {
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public SimpleFeatureCollection getGranules(Query q) throws IOException {
         q = mergeHints(q);
         Utilities.ensureNonNull("q", q);
@@ -311,41 +251,39 @@ public SimpleFeatureCollection getGranules(Query q) throws IOException {
             lock.lock();
             checkStore();
 
-            // get filter and check bbox
-            final Filter filter = q.getFilter();
-            // try to combine the index bbox with the one that may come from the query.
-            ReferencedEnvelope requestedBBox = extractAndCombineBBox(filter);
-
             // load what we need to load
             checkIndex(lock);
-            final List<GranuleDescriptor> features = index.query(requestedBBox);
-            List<SimpleFeature> filtered = new ArrayList<>();
+            final Filter filter = q.getFilter();
             final int maxGranules = q.getMaxFeatures();
-            int numGranules = 0;
-            for (GranuleDescriptor g : features) {
-                // check how many tiles we are returning
-                if (q.getSortBy() == null && maxGranules > 0 && numGranules >= maxGranules) break;
-                final SimpleFeature originator = g.getOriginator();
-                if (originator != null && filter.evaluate(originator)) {
-                    if (Boolean.TRUE.equals(q.getHints().get(NATIVE_BOUNDS))) {
-                        originator
-                                .getUserData()
-                                .put(NATIVE_BOUNDS_KEY, reference(g.getGranuleBBOX()));
-                    }
-                    filtered.add(originator);
-                }
-            }
-            if (q.getSortBy() != null) {
+            final boolean nativeBounds = Boolean.TRUE.equals(q.getHints().get(NATIVE_BOUNDS));
+            final boolean sorting = q.getSortBy() != null;
+            List<SimpleFeature> filtered = new ArrayList<>();
+            index.query(
+                    getQueryEnvelope(filter),
+                    filter,
+                    g -> {
+                        final SimpleFeature originator = g.getOriginator();
+                        if (nativeBounds) {
+                            originator
+                                    .getUserData()
+                                    .put(NATIVE_BOUNDS_KEY, reference(g.getGranuleBBOX()));
+                        }
+                        filtered.add(originator);
+                        // check how many tiles we are returning
+                        return sorting || maxGranules <= 0 || filtered.size() < maxGranules;
+                    });
+            List<SimpleFeature> result = filtered;
+            if (sorting) {
                 Comparator<SimpleFeature> comparator =
                         SortedFeatureReader.getComparator(q.getSortBy());
                 if (comparator != null) {
-                    Collections.sort(filtered, comparator);
+                    Collections.sort(result, comparator);
                 }
-                if (maxGranules > 0 && filtered.size() > maxGranules) {
-                    filtered = filtered.subList(0, maxGranules);
+                if (maxGranules > 0 && result.size() > maxGranules) {
+                    result = result.subList(0, maxGranules);
                 }
             }
-            return new ListFeatureCollection(wrappedCatalogue.getType(typeName), filtered);
+            return new ListFeatureCollection(wrappedCatalogue.getType(typeName), result);
         } finally {
             lock.unlock();
         }
@@ -357,11 +295,44 @@ public SimpleFeatureCollection getGranules(Query q, Transaction t) throws IOExce
         return getGranules(q);
     }
 
-    private ReferencedEnvelope extractAndCombineBBox(Filter filter) {
-        final Utils.BBOXFilterExtractor bboxExtractor = new Utils.BBOXFilterExtractor();
-        filter.accept(bboxExtractor, null);
-        BoundingBox bbox = wrappedCatalogue.getBounds(typeName);
-        return reference(bbox);
+    /**
+     * Returns the envelope the filter is bound to, in the catalog CRS, or null to scan all the
+     * granules: when the filter matches anywhere, or its envelope cannot be expressed in the
+     * catalog CRS. The filter is evaluated against each granule anyway.
+     */
+    private Envelope getQueryEnvelope(Filter filter) throws IOException {
+        if (filter == null || filter == Filter.INCLUDE) {
+            return null;
+        }
+        Envelope envelope =
+                (Envelope) filter.accept(ExtractBoundsFilterVisitor.BOUNDS_VISITOR, null);
+        if (envelope == null
+                || envelope.isNull()
+                || Double.isInfinite(envelope.getWidth())
+                || Double.isInfinite(envelope.getHeight())) {
+            return null;
+        }
+        CoordinateReferenceSystem filterCRS =
+                envelope instanceof ReferencedEnvelope
+                        ? ((ReferencedEnvelope) envelope).getCoordinateReferenceSystem()
+                        : null;
+        CoordinateReferenceSystem catalogCRS =
+                wrappedCatalogue.getType(typeName).getCoordinateReferenceSystem();
+        if (filterCRS == null
+                || catalogCRS == null
+                || CRS.equalsIgnoreMetadata(filterCRS, catalogCRS)) {
+            return envelope;
+        }
+        try {
+            return ((ReferencedEnvelope) envelope).transform(catalogCRS, true);
+        } catch (TransformException | FactoryException e) {
+            LOGGER.log(
+                    Level.FINE,
+                    "Could not reproject the query envelope to the catalog CRS, scanning all"
+                            + " granules",
+                    e);
+            return null;
+        }
     }
 
     public List<GranuleDescriptor> getGranules() throws IOException {
@@ -376,24 +347,29 @@ public void getGranuleDescriptors(Query q, GranuleCatalogVisitor visitor) throws
             lock.lock();
             checkStore();
 
-            // get filter and check bbox
-            final Filter filter = q.getFilter();
-            ReferencedEnvelope requestedBBox = extractAndCombineBBox(filter);
-
             // get filter and check bbox
             checkIndex(lock);
+            final Filter filter = q.getFilter();
+            final Envelope envelope = getQueryEnvelope(filter);
+            final int maxGranules = q.getMaxFeatures();
             Comparator<SimpleFeature> comparator =
                     q.getSortBy() == null ? null : SortedFeatureReader.getComparator(q.getSortBy());
             if (comparator == null) {
-                index.query(requestedBBox, new JTSIndexVisitorAdapter(visitor, q));
+                int[] visited = {0};
+                index.query(
+                        envelope,
+                        filter,
+                        g -> {
+                            if (visitor.isVisitComplete()
+                                    || (maxGranules > 0 && visited[0] >= maxGranules)) {
+                                return false;
+                            }
+                            visitor.visit(g, null);
+                            visited[0]++;
+                            return true;
+                        });
             } else {
-                @SuppressWarnings("unchecked")
-                final List<GranuleDescriptor> unfilteredGranules = index.query(requestedBBox);
-                List<GranuleDescriptor> granules =
-                        unfilteredGranules.stream()
-                                .filter(gd -> filter.evaluate(gd.getOriginator()))
-                                .collect(Collectors.toList());
-
+                List<GranuleDescriptor> granules = index.query(envelope, filter);
                 Comparator<GranuleDescriptor> granuleComparator =
                         (gd1, gd2) -> {
                             SimpleFeature sf1 = gd1.getOriginator();
@@ -401,7 +377,6 @@ public void getGranuleDescriptors(Query q, GranuleCatalogVisitor visitor) throws
                             return comparator.compare(sf1, sf2);
                         };
                 Collections.sort(granules, granuleComparator);
-                int maxGranules = q.getMaxFeatures();
                 if (maxGranules > 0 && granules.size() > maxGranules) {
                     granules = granules.subList(0, maxGranules);
                 }
@@ -491,17 +466,42 @@ public int getGranulesCount(Query q) throws IOException {
         return wrappedCatalogue.getGranulesCount(mergeHints(q));
     }
 
-    @Override
-    public void addGranule(String typeName, SimpleFeature granule, Transaction transaction)
-            throws IOException {
-        throw new UnsupportedOperationException("Unsupported operation");
-    }
-
     @Override
     public void addGranules(
             String typeName, Collection<SimpleFeature> granules, Transaction transaction)
             throws IOException {
-        throw new UnsupportedOperationException("Unsupported operation");
+        final Lock lock = rwLock.writeLock();
+        try {
+            lock.lock();
+            checkStore();
+            wrappedCatalogue.addGranules(typeName, granules, transaction);
+            if (index == null) {
+                return;
+            }
+            if (transaction != null && transaction != Transaction.AUTO_COMMIT) {
+                // granules become visible on commit, the index will be rebuilt then
+                invalidateOnCommit(transaction);
+                return;
+            }
+            CatalogConfigurationBean configuration = configurations.getByTypeName(typeName);
+            List<GranuleDescriptor> descriptors = new ArrayList<>(granules.size());
+            for (SimpleFeature granule : granules) {
+                GranuleDescriptor descriptor =
+                        wrappedCatalogue.createGranuleDescriptor(granule, configuration, hints);
+                if (descriptor != null) {
+                    descriptors.add(descriptor);
+                }
+            }
+            index.add(descriptors);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void invalidateOnCommit(Transaction transaction) {
+        if (transaction.getState(this) == null) {
+            transaction.putState(this, indexInvalidator);
+        }
     }
 
     @Override
@@ -532,7 +532,29 @@ public QueryCapabilities getQueryCapabilities(String typeName) {
     @Override
     @SuppressWarnings("deprecation")
     public int removeGranules(Query query) {
-        throw new UnsupportedOperationException("Unsupported operation");
+        return removeGranules(query, Transaction.AUTO_COMMIT);
+    }
+
+    @Override
+    public int removeGranules(Query query, Transaction transaction) {
+        final Lock lock = rwLock.writeLock();
+        try {
+            lock.lock();
+            checkStore();
+            int removed = wrappedCatalogue.removeGranules(query, transaction);
+            if (index == null || removed <= 0) {
+                return removed;
+            }
+            if (transaction != null && transaction != Transaction.AUTO_COMMIT) {
+                invalidateOnCommit(transaction);
+            } else if (index.remove(query.getFilter()) != removed) {
+                // the indexed features do not match the stored ones, start over
+                index = null;
+            }
+            return removed;
+        } finally {
+            lock.unlock();
+        }
     }
 
     @Override
@@ -0,0 +1,500 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2024, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.gce.imagemosaic.catalog;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import org.geotools.api.feature.simple.SimpleFeature;
+import org.geotools.api.feature.simple.SimpleFeatureType;
+import org.geotools.api.feature.type.AttributeDescriptor;
+import org.geotools.api.filter.And;
+import org.geotools.api.filter.BinaryComparisonOperator;
+import org.geotools.api.filter.Filter;
+import org.geotools.api.filter.Or;
+import org.geotools.api.filter.PropertyIsBetween;
+import org.geotools.api.filter.PropertyIsEqualTo;
+import org.geotools.api.filter.PropertyIsGreaterThan;
+import org.geotools.api.filter.PropertyIsGreaterThanOrEqualTo;
+import org.geotools.api.filter.PropertyIsLessThan;
+import org.geotools.api.filter.PropertyIsLessThanOrEqualTo;
+import org.geotools.api.filter.expression.Expression;
+import org.geotools.api.filter.expression.Literal;
+import org.geotools.api.filter.expression.PropertyName;
+import org.geotools.data.store.PackedHilbertRTree;
+import org.locationtech.jts.geom.Envelope;
+
+/**
+ * A compact in memory index of granules. The granule envelopes are sorted along a Hilbert curve and
+ * packed in a {@link PackedHilbertRTree}, and the values of the numeric and temporal attributes
+ * (time, elevation, ...) are kept in primitive arrays, so that granules outside of the ranges
+ * requested by a filter are skipped without evaluating it. The locations are dictionary encoded:
+ * granules sharing a location, such as the slices of a multidimensional file, share the same string
+ * instance, and filters on the location only evaluate the granules with a matching code.
+ *
+ * <p>Granules added after the tree was packed are scanned linearly, and removed ones are flagged,
+ * until they are numerous enough to pack the tree again. The index is not thread safe.
+ *
+ * @param <T> the type of the indexed granules
+ */
+class PackedGranuleIndex<T> {
+
+    /** The number of children of each tree node */
+    static final int NODE_SIZE = 16;
+
+    /** The minimum number of granules added or removed before the tree is packed again */
+    static final int MIN_REPACK = 256;
+
+    private final Function<T, Envelope> bounds;
+
+    private final Function<T, SimpleFeature> features;
+
+    /** The names of the attributes whose values are kept */
+    private final String[] columns;
+
+    /** Whether the attribute values are dates, kept as milliseconds */
+    private final boolean[] temporal;
+
+    /** The name of the location attribute, null if the granules have none */
+    private final String location;
+
+    /** The packed granules, in Hilbert order */
+    private Object[] items = new Object[0];
+
+    /** The tree over the packed granules, null if there are none */
+    private PackedHilbertRTree tree;
+
+    /** The attribute values of the packed granules, NaN if missing */
+    private double[][] values;
+
+    /** The distinct locations of the packed granules */
+    private Map<String, Integer> dictionary = new HashMap<>();
+
+    /** The location code of each packed granule, -1 if missing */
+    private int[] locations = new int[0];
+
+    private final BitSet removed = new BitSet();
+
+    private int removedCount;
+
+    private final List<T> pending = new ArrayList<>();
+
+    /**
+     * @param schema the type of the granule features, whose numeric and temporal attributes are
+     *     kept
+     * @param bounds returns the envelope of a granule
+     * @param features returns the feature of a granule, filters are evaluated against it
+     * @param location the name of the location attribute, or null
+     * @param granules the granules to index
+     */
+    PackedGranuleIndex(
+            SimpleFeatureType schema,
+            Function<T, Envelope> bounds,
+            Function<T, SimpleFeature> features,
+            String location,
+            Collection<T> granules) {
+        this.bounds = bounds;
+        this.features = features;
+        AttributeDescriptor locationDescriptor =
+                location != null ? schema.getDescriptor(location) : null;
+        this.location =
+                locationDescriptor != null
+                                && String.class.equals(locationDescriptor.getType().getBinding())
+                        ? location
+                        : null;
+        List<String> names = new ArrayList<>();
+        List<Boolean> dates = new ArrayList<>();
+        for (AttributeDescriptor ad : schema.getAttributeDescriptors()) {
+            Class<?> binding = ad.getType().getBinding();
+            if (Date.class.isAssignableFrom(binding) || Number.class.isAssignableFrom(binding)) {
+                names.add(ad.getLocalName());
+                dates.add(Date.class.isAssignableFrom(binding));
+            }
+        }
+        this.columns = names.toArray(new String[names.size()]);
+        this.temporal = new boolean[columns.length];
+        for (int i = 0; i < temporal.length; i++) {
+            temporal[i] = dates.get(i);
+        }
+        this.values = new double[columns.length][0];
+        pack(new ArrayList<>(granules));
+    }
+
+    /** Returns the number of granules in the index */
+    int size() {
+        return items.length - removedCount + pending.size();
+    }
+
+    /** Adds granules to the index */
+    void add(Collection<T> granules) {
+        pending.addAll(granules);
+        repackIfNeeded();
+    }
+
+    /**
+     * Removes the granules whose feature matches the filter
+     *
+     * @return the number of granules removed
+     */
+    int remove(Filter filter) {
+        int count = 0;
+        BitSet codes = getLocationCodes(filter);
+        for (int i = 0; i < items.length; i++) {
+            if (!removed.get(i) && hasLocation(i, codes) && matches(getItem(i), filter)) {
+                removed.set(i);
+                count++;
+            }
+        }
+        removedCount += count;
+        int pendingSize = pending.size();
+        pending.removeIf(g -> matches(g, filter));
+        count += pendingSize - pending.size();
+        repackIfNeeded();
+        return count;
+    }
+
+    /** Returns the granules intersecting the envelope, and whose feature matches the filter */
+    List<T> query(Envelope envelope, Filter filter) {
+        List<T> result = new ArrayList<>();
+        query(envelope, filter, result::add);
+        return result;
+    }
+
+    /**
+     * Visits the granules intersecting the envelope, and whose feature matches the filter
+     *
+     * @param envelope the envelope, or null to visit all granules
+     * @param filter the filter, or null to skip filtering
+     * @param visitor called for each granule, returning false to stop the query
+     */
+    void query(Envelope envelope, Filter filter, Predicate<T> visitor) {
+        if (filter == null) {
+            filter = Filter.INCLUDE;
+        }
+        if (tree != null && !queryTree(envelope, filter, visitor)) {
+            return;
+        }
+        for (T granule : pending) {
+            if ((envelope == null || envelope.intersects(bounds.apply(granule)))
+                    && matches(granule, filter)
+                    && !visitor.test(granule)) {
+                return;
+            }
+        }
+    }
+
+    private boolean queryTree(Envelope envelope, Filter filter, Predicate<T> visitor) {
+        double[][] ranges = getRanges(filter);
+        BitSet codes = getLocationCodes(filter);
+        return tree.search(
+                envelope,
+                pos -> {
+                    if (removed.get(pos) || !inRanges(pos, ranges) || !hasLocation(pos, codes)) {
+                        return true;
+                    }
+                    T granule = getItem(pos);
+                    return !matches(granule, filter) || visitor.test(granule);
+                });
+    }
+
+    /** Checks the location of a packed granule against the codes allowed by a filter, if any */
+    private boolean hasLocation(int pos, BitSet codes) {
+        return codes == null || (locations[pos] >= 0 && codes.get(locations[pos]));
+    }
+
+    private boolean inRanges(int pos, double[][] ranges) {
+        for (int c = 0; c < ranges.length; c++) {
+            double[] range = ranges[c];
+            // missing values are left to the filter
+            if (range != null && (values[c][pos] < range[0] || values[c][pos] > range[1])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean matches(T granule, Filter filter) {
+        SimpleFeature feature = features.apply(granule);
+        return feature != null && filter.evaluate(feature);
+    }
+
+    @SuppressWarnings("unchecked")
+    private T getItem(int pos) {
+        return (T) items[pos];
+    }
+
+    private void repackIfNeeded() {
+        int changes = pending.size() + removedCount;
+        if (changes > Math.max(MIN_REPACK, items.length / 8)) {
+            List<T> granules = new ArrayList<>(size());
+            for (int i = 0; i < items.length; i++) {
+                if (!removed.get(i)) {
+                    granules.add(getItem(i));
+                }
+            }
+            granules.addAll(pending);
+            pack(granules);
+        }
+    }
+
+    /** Packs the granules in a Hilbert R-tree, clearing the pending changes */
+    private void pack(List<T> granules) {
+        pending.clear();
+        removed.clear();
+        removedCount = 0;
+        int n = granules.size();
+        dictionary = new HashMap<>();
+        if (n == 0) {
+            items = new Object[0];
+            tree = null;
+            values = new double[columns.length][0];
+            locations = new int[0];
+            return;
+        }
+
+        // sort the granules by the Hilbert value of the center of their envelope
+        double[] granuleBoxes = new double[n * 4];
+        for (int i = 0; i < n; i++) {
+            Envelope envelope = bounds.apply(granules.get(i));
+            granuleBoxes[i * 4] = envelope.getMinX();
+            granuleBoxes[i * 4 + 1] = envelope.getMinY();
+            granuleBoxes[i * 4 + 2] = envelope.getMaxX();
+            granuleBoxes[i * 4 + 3] = envelope.getMaxY();
+        }
+        int[] order = PackedHilbertRTree.sort(granuleBoxes, n, PackedHilbertRTree.JTS_CURVE);
+
+        // the granules and their attribute values, in Hilbert order
+        items = new Object[n];
+        double[] boxes = new double[n * 4];
+        values = new double[columns.length][n];
+        locations = new int[n];
+        List<String> canonical = new ArrayList<>();
+        for (int pos = 0; pos < n; pos++) {
+            int i = order[pos];
+            T granule = granules.get(i);
+            items[pos] = granule;
+            System.arraycopy(granuleBoxes, i * 4, boxes, pos * 4, 4);
+            SimpleFeature feature = features.apply(granule);
+            for (int c = 0; c < columns.length; c++) {
+                values[c][pos] =
+                        feature == null
+                                ? Double.NaN
+                                : toDouble(feature.getAttribute(columns[c]), temporal[c]);
+            }
+            locations[pos] = encodeLocation(feature, canonical);
+        }
+        tree = new PackedHilbertRTree(boxes, n, NODE_SIZE);
+    }
+
+    /**
+     * Returns the code of the location of a granule, adding it to the dictionary if new, and makes
+     * the feature share the string instance of the dictionary
+     */
+    private int encodeLocation(SimpleFeature feature, List<String> canonical) {
+        Object value = feature != null && location != null ? feature.getAttribute(location) : null;
+        if (!(value instanceof String)) {
+            return -1;
+        }
+        Integer code = dictionary.get(value);
+        if (code == null) {
+            code = canonical.size();
+            dictionary.put((String) value, code);
+            canonical.add((String) value);
+        } else if (canonical.get(code) != value) {
+            feature.setAttribute(location, canonical.get(code));
+        }
+        return code;
+    }
+
+    /**
+     * Returns the codes of the locations the filter can match, or null if the filter does not
+     * constrain the location
+     */
+    private BitSet getLocationCodes(Filter filter) {
+        if (location == null) {
+            return null;
+        }
+        if (filter instanceof And) {
+            BitSet result = null;
+            for (Filter child : ((And) filter).getChildren()) {
+                BitSet codes = getLocationCodes(child);
+                if (codes != null) {
+                    if (result == null) {
+                        result = codes;
+                    } else {
+                        result.and(codes);
+                    }
+                }
+            }
+            return result;
+        } else if (filter instanceof Or) {
+            BitSet result = new BitSet();
+            for (Filter child : ((Or) filter).getChildren()) {
+                BitSet codes = getLocationCodes(child);
+                if (codes == null) {
+                    return null;
+                }
+                result.or(codes);
+            }
+            return result;
+        } else if (filter instanceof PropertyIsEqualTo) {
+            PropertyIsEqualTo equal = (PropertyIsEqualTo) filter;
+            Expression other;
+            if (isLocation(equal.getExpression1())) {
+                other = equal.getExpression2();
+            } else if (isLocation(equal.getExpression2())) {
+                other = equal.getExpression1();
+            } else {
+                return null;
+            }
+            if (!equal.isMatchingCase()
+                    || !(other instanceof Literal)
+                    || !(((Literal) other).getValue() instanceof String)) {
+                return null;
+            }
+            BitSet result = new BitSet();
+            Integer code = dictionary.get(((Literal) other).getValue());
+            if (code != null) {
+                result.set(code);
+            }
+            return result;
+        }
+        return null;
+    }
+
+    private boolean isLocation(Expression expression) {
+        return expression instanceof PropertyName
+                && location.equals(((PropertyName) expression).getPropertyName());
+    }
+
+    /** Returns the range of values allowed by the filter for each attribute, null if any */
+    private double[][] getRanges(Filter filter) {
+        double[][] ranges = new double[columns.length][];
+        for (int c = 0; c < columns.length; c++) {
+            ranges[c] = getRange(filter, c);
+        }
+        return ranges;
+    }
+
+    /**
+     * Returns the range of values of an attribute outside of which the filter cannot match, or null
+     * if the filter does not constrain the attribute. Strict comparisons are handled as inclusive
+     * ones, the range being only used to skip granules before evaluating the filter.
+     */
+    private double[] getRange(Filter filter, int column) {
+        if (filter instanceof And) {
+            double[] result = null;
+            for (Filter child : ((And) filter).getChildren()) {
+                double[] range = getRange(child, column);
+                if (range != null) {
+                    result =
+                            result == null
+                                    ? range
+                                    : new double[] {
+                                        Math.max(result[0], range[0]), Math.min(result[1], range[1])
+                                    };
+                }
+            }
+            return result;
+        } else if (filter instanceof Or) {
+            double[] result = null;
+            for (Filter child : ((Or) filter).getChildren()) {
+                double[] range = getRange(child, column);
+                if (range == null) {
+                    return null;
+                }
+                result =
+                        result == null
+                                ? range
+                                : new double[] {
+                                    Math.min(result[0], range[0]), Math.max(result[1], range[1])
+                                };
+            }
+            return result;
+        } else if (filter instanceof PropertyIsBetween) {
+            PropertyIsBetween between = (PropertyIsBetween) filter;
+            if (!isColumn(between.getExpression(), column)) {
+                return null;
+            }
+            double lower = getLiteral(between.getLowerBoundary(), column);
+            double upper = getLiteral(between.getUpperBoundary(), column);
+            return Double.isNaN(lower) || Double.isNaN(upper) ? null : new double[] {lower, upper};
+        } else if (filter instanceof BinaryComparisonOperator) {
+            BinaryComparisonOperator comparison = (BinaryComparisonOperator) filter;
+            boolean greater =
+                    filter instanceof PropertyIsGreaterThan
+                            || filter instanceof PropertyIsGreaterThanOrEqualTo;
+            if (!greater
+                    && !(filter instanceof PropertyIsLessThan)
+                    && !(filter instanceof PropertyIsLessThanOrEqualTo)
+                    && !(filter instanceof PropertyIsEqualTo)) {
+                return null;
+            }
+            double value;
+            if (isColumn(comparison.getExpression1(), column)) {
+                value = getLiteral(comparison.getExpression2(), column);
+            } else if (isColumn(comparison.getExpression2(), column)) {
+                value = getLiteral(comparison.getExpression1(), column);
+                greater = !greater;
+            } else {
+                return null;
+            }
+            if (Double.isNaN(value)) {
+                return null;
+            } else if (filter instanceof PropertyIsEqualTo) {
+                return new double[] {value, value};
+            } else if (greater) {
+                return new double[] {value, Double.POSITIVE_INFINITY};
+            } else {
+                return new double[] {Double.NEGATIVE_INFINITY, value};
+            }
+        }
+        return null;
+    }
+
+    private boolean isColumn(Expression expression, int column) {
+        return expression instanceof PropertyName
+                && columns[column].equals(((PropertyName) expression).getPropertyName());
+    }
+
+    /** Returns the value of a literal, or NaN if it's not a literal of the attribute type */
+    private double getLiteral(Expression expression, int column) {
+        if (!(expression instanceof Literal)) {
+            return Double.NaN;
+        }
+        Object value = ((Literal) expression).getValue();
+        if (temporal[column] ? value instanceof Date : value instanceof Number) {
+            return toDouble(value, temporal[column]);
+        }
+        return Double.NaN;
+    }
+
+    private static double toDouble(Object value, boolean temporal) {
+        if (temporal && value instanceof Date) {
+            return ((Date) value).getTime();
+        } else if (!temporal && value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        return Double.NaN;
+    }
+}
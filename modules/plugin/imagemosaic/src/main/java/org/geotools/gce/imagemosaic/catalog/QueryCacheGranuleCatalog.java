@@ -18,7 +18,10 @@
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.logging.Level;
@@ -27,18 +30,42 @@
 import org.geotools.api.data.Transaction;
 import org.geotools.api.feature.simple.SimpleFeature;
 import org.geotools.api.feature.simple.SimpleFeatureType;
+import org.geotools.api.filter.And;
+import org.geotools.api.filter.Filter;
+import org.geotools.api.filter.FilterFactory;
+import org.geotools.api.filter.spatial.BinarySpatialOperator;
+import org.geotools.api.referencing.crs.CoordinateReferenceSystem;
 import org.geotools.data.collection.ListFeatureCollection;
 import org.geotools.data.simple.SimpleFeatureCollection;
 import org.geotools.data.simple.SimpleFeatureIterator;
+import org.geotools.data.sort.SortedFeatureReader;
+import org.geotools.factory.CommonFactoryFinder;
 import org.geotools.feature.collection.DecoratingSimpleFeatureCollection;
 import org.geotools.feature.collection.DecoratingSimpleFeatureIterator;
+import org.geotools.filter.visitor.ExtractBoundsFilterVisitor;
+import org.geotools.geometry.jts.ReferencedEnvelope;
+import org.geotools.referencing.CRS;
 import org.geotools.util.SoftValueHashMap;
 import org.geotools.util.logging.Logging;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
 
+/**
+ * Caches the granules returned by the wrapped catalog. Queries made of spatial filters and'ed with
+ * other filters (time, elevation, ...) are answered from the granules of a larger region, loaded on
+ * the first query and indexed in memory, so that the slightly different extents requested by
+ * panning clients hit the cache. The other queries are cached as is, and answered only when
+ * repeated exactly.
+ */
 public class QueryCacheGranuleCatalog extends DelegatingGranuleCatalog {
 
     static final Logger LOGGER = Logging.getLogger(QueryCacheGranuleCatalog.class);
 
+    static final FilterFactory FF = CommonFactoryFinder.getFilterFactory();
+
+    /** How much the requested extent is expanded on each side when loading a region, in share */
+    static final double PREFETCH_RATIO = 0.5;
+
     class CachingFeatureIterator extends DecoratingSimpleFeatureIterator {
 
         private final Query query;
@@ -94,6 +121,28 @@ public boolean isExpired(int maxAge) {
         }
     }
 
+    /** The granules of a region, for a given non spatial filter, indexed if not too many */
+    private static class CachedRegion {
+        private final ReferencedEnvelope envelope;
+        private final SimpleFeatureType schema;
+        private final PackedGranuleIndex<SimpleFeature> index;
+        private final long created;
+
+        public CachedRegion(
+                ReferencedEnvelope envelope,
+                SimpleFeatureType schema,
+                PackedGranuleIndex<SimpleFeature> index) {
+            this.envelope = envelope;
+            this.schema = schema;
+            this.index = index;
+            this.created = System.currentTimeMillis();
+        }
+
+        public boolean isExpired(int maxAge) {
+            return System.currentTimeMillis() - maxAge > created;
+        }
+    }
+
     private class CachingFeatureCollection extends DecoratingSimpleFeatureCollection {
 
         private final Query query;
@@ -116,8 +165,9 @@ public SimpleFeatureIterator features() {
     private final SoftValueHashMap<Query, ExpiringFeatureCollection> queryCache =
             new SoftValueHashMap<>();
 
-    public QueryCacheGranuleCatalog(
-            AbstractGTDataStoreGranuleCatalog adaptee, int maxCachedFeatures, int maxAge) {
+    private final SoftValueHashMap<Query, CachedRegion> regionCache = new SoftValueHashMap<>();
+
+    public QueryCacheGranuleCatalog(GranuleCatalog adaptee, int maxCachedFeatures, int maxAge) {
         super(adaptee);
         this.maxCachedFeatures = maxCachedFeatures;
         this.maxAge = maxAge;
@@ -131,6 +181,10 @@ public SimpleFeatureCollection getGranules(Query q) throws IOException {
     @Override
     public SimpleFeatureCollection getGranules(Query q, Transaction t) throws IOException {
         if (maxAge > 0 && t == Transaction.AUTO_COMMIT) {
+            SimpleFeatureCollection regionGranules = getRegionGranules(q);
+            if (regionGranules != null) {
+                return regionGranules;
+            }
             ExpiringFeatureCollection cached = queryCache.get(getCacheKey(q));
             if (cached != null) {
                 if (!cached.isExpired(maxAge)) {
@@ -149,6 +203,160 @@ public SimpleFeatureCollection getGranules(Query q, Transaction t) throws IOExce
         return adaptee.getGranules(q);
     }
 
+    /**
+     * Answers a query from the granules of a cached region containing the requested extent, loading
+     * the region if needed
+     *
+     * @return the granules, or null if the query cannot be answered this way
+     */
+    private SimpleFeatureCollection getRegionGranules(Query q) throws IOException {
+        Filter filter = q.getFilter();
+        if (q.getPropertyNames() != null
+                || q.getMaxFeatures() != Query.DEFAULT_MAX
+                || q.getStartIndex() != null
+                || !(filter instanceof And || filter instanceof BinarySpatialOperator)) {
+            return null;
+        }
+        Comparator<SimpleFeature> comparator = null;
+        if (q.getSortBy() != null && q.getSortBy().length > 0) {
+            comparator = SortedFeatureReader.getComparator(q.getSortBy());
+            if (comparator == null) {
+                return null;
+            }
+        }
+
+        // split the spatial filters from the others
+        List<Filter> spatial = new ArrayList<>();
+        List<Filter> others = new ArrayList<>();
+        List<Filter> children =
+                filter instanceof And
+                        ? ((And) filter).getChildren()
+                        : Collections.singletonList(filter);
+        for (Filter child : children) {
+            if (child instanceof BinarySpatialOperator) {
+                spatial.add(child);
+            } else {
+                others.add(child);
+            }
+        }
+        if (spatial.isEmpty()) {
+            return null;
+        }
+        Envelope requested =
+                (Envelope) and(spatial).accept(ExtractBoundsFilterVisitor.BOUNDS_VISITOR, null);
+        if (requested == null
+                || requested.isNull()
+                || Double.isInfinite(requested.getWidth())
+                || Double.isInfinite(requested.getHeight())) {
+            return null;
+        }
+
+        // the cached granules are compared to the requested extent in their native CRS
+        if (requested instanceof ReferencedEnvelope) {
+            CoordinateReferenceSystem crs =
+                    ((ReferencedEnvelope) requested).getCoordinateReferenceSystem();
+            SimpleFeatureType schema = adaptee.getType(q.getTypeName());
+            if (crs != null
+                    && schema != null
+                    && !CRS.equalsIgnoreMetadata(crs, schema.getCoordinateReferenceSystem())) {
+                return null;
+            }
+        }
+
+        Query key = getCacheKey(q);
+        key.setFilter(and(others));
+        key.setSortBy();
+        CachedRegion region = regionCache.get(key);
+        if (region != null && region.index == null && !region.isExpired(maxAge)) {
+            // too many granules to cache a region, recently
+            return null;
+        } else if (region == null
+                || region.isExpired(maxAge)
+                || !region.envelope.contains(requested)) {
+            LOGGER.log(Level.FINE, () -> "Region cache miss on query: " + q);
+            region = loadRegion(q, key.getFilter(), requested);
+            if (region == null) {
+                return null;
+            }
+            regionCache.put(key, region);
+            if (region.index == null) {
+                return null;
+            }
+        } else {
+            LOGGER.log(Level.FINE, () -> "Region cache hit on query: " + q);
+        }
+
+        List<SimpleFeature> features = region.index.query(requested, filter);
+        if (comparator != null) {
+            Collections.sort(features, comparator);
+        }
+        return new ListFeatureCollection(region.schema, features);
+    }
+
+    /**
+     * Loads the granules around the requested extent matching the non spatial filter
+     *
+     * @return the region, without index if it has more than the max cached granules, or null if the
+     *     granules have no geometry
+     */
+    private CachedRegion loadRegion(Query q, Filter filter, Envelope requested) throws IOException {
+        SimpleFeatureType schema = adaptee.getType(q.getTypeName());
+        if (schema == null || schema.getGeometryDescriptor() == null) {
+            return null;
+        }
+        ReferencedEnvelope envelope =
+                new ReferencedEnvelope(ReferencedEnvelope.reference(requested));
+        envelope.expandBy(
+                envelope.getWidth() * PREFETCH_RATIO, envelope.getHeight() * PREFETCH_RATIO);
+        Query regionQuery = new Query(q);
+        regionQuery.setSortBy();
+        regionQuery.setFilter(
+                and(
+                        Arrays.asList(
+                                filter,
+                                FF.bbox(
+                                        FF.property(schema.getGeometryDescriptor().getLocalName()),
+                                        envelope))));
+
+        List<SimpleFeature> features = new ArrayList<>();
+        try (SimpleFeatureIterator it =
+                adaptee.getGranules(regionQuery, Transaction.AUTO_COMMIT).features()) {
+            while (it.hasNext()) {
+                if (features.size() >= maxCachedFeatures) {
+                    LOGGER.log(Level.FINE, () -> "Too many granules to cache region " + envelope);
+                    return new CachedRegion(envelope, schema, null);
+                }
+                features.add(it.next());
+            }
+        }
+        CatalogConfigurationBean configuration =
+                configurations != null ? configurations.getByTypeName(q.getTypeName()) : null;
+        PackedGranuleIndex<SimpleFeature> index =
+                new PackedGranuleIndex<>(
+                        schema,
+                        QueryCacheGranuleCatalog::getBounds,
+                        f -> f,
+                        configuration != null ? configuration.getLocationAttribute() : null,
+                        features);
+        return new CachedRegion(envelope, schema, index);
+    }
+
+    private static Envelope getBounds(SimpleFeature feature) {
+        Object geometry = feature.getDefaultGeometry();
+        return geometry instanceof Geometry
+                ? ((Geometry) geometry).getEnvelopeInternal()
+                : new Envelope();
+    }
+
+    private static Filter and(List<Filter> filters) {
+        List<Filter> children = new ArrayList<>(filters);
+        children.removeIf(f -> f == Filter.INCLUDE);
+        if (children.isEmpty()) {
+            return Filter.INCLUDE;
+        }
+        return children.size() == 1 ? children.get(0) : FF.and(children);
+    }
+
     private Query getCacheKey(Query q) {
         Query key = new Query(q);
         // clean up hints that do not affect which features are loaded
@@ -160,32 +368,37 @@ private Query getCacheKey(Query q) {
     public void addGranules(
             String typeName, Collection<SimpleFeature> granules, Transaction transaction)
             throws IOException {
-        queryCache.clear();
+        clearCaches();
         super.addGranules(typeName, granules, transaction);
     }
 
     @Override
     public void removeType(String typeName) throws IOException {
-        queryCache.clear();
+        clearCaches();
         super.removeType(typeName);
     }
 
     @Override
     public void addGranule(String typeName, SimpleFeature granule, Transaction transaction)
             throws IOException {
-        queryCache.clear();
+        clearCaches();
         super.addGranule(typeName, granule, transaction);
     }
 
     @Override
     public int removeGranules(Query query) {
-        queryCache.clear();
+        clearCaches();
         return super.removeGranules(query);
     }
 
     @Override
     public int removeGranules(Query query, Transaction transaction) {
-        queryCache.clear();
+        clearCaches();
         return super.removeGranules(query, transaction);
     }
+
+    private void clearCaches() {
+        queryCache.clear();
+        regionCache.clear();
+    }
 }
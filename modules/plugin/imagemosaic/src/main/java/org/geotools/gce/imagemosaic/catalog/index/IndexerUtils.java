@@ -669,6 +669,8 @@ private static Indexer createIndexer(Properties props, ParametersType params) {
         addProperty(Utils.Prop.MAX_INIT_TILES, props, parameters);
         addProperty(Utils.Prop.QUERY_CACHE_MAX_AGE, props, parameters);
         addProperty(Utils.Prop.QUERY_CACHE_MAX_FEATURES, props, parameters);
+        addProperty(Utils.Prop.HARVEST_THREADS, props, parameters);
+        addProperty(Utils.Prop.HARVEST_BATCH_SIZE, props, parameters);
 
         return indexer;
     }
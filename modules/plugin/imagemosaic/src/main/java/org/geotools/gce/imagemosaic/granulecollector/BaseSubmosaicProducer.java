@@ -33,8 +33,10 @@
 import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.media.jai.Histogram;
@@ -46,6 +48,7 @@
 import org.geotools.gce.imagemosaic.GranuleDescriptor;
 import org.geotools.gce.imagemosaic.GranuleDescriptor.GranuleLoadingResult;
 import org.geotools.gce.imagemosaic.GranuleLoader;
+import org.geotools.gce.imagemosaic.GranuleLoadingStatistics;
 import org.geotools.gce.imagemosaic.MosaicElement;
 import org.geotools.gce.imagemosaic.MosaicInputs;
 import org.geotools.gce.imagemosaic.Mosaicker;
@@ -64,6 +67,26 @@ public class BaseSubmosaicProducer implements SubmosaicProducer {
     static final Logger LOGGER =
             org.geotools.util.logging.Logging.getLogger(DefaultSubmosaicProducer.class);
 
+    /**
+     * The bounded pool preparing the granules for the mosaic in multithreaded loading mode. Each
+     * granule is prepared as soon as it's loaded, while the next ones are still being loaded by the
+     * reader's multithreaded loader.
+     */
+    static final ExecutorService PREPARATION_EXECUTOR;
+
+    static {
+        AtomicInteger count = new AtomicInteger();
+        PREPARATION_EXECUTOR =
+                Executors.newFixedThreadPool(
+                        Runtime.getRuntime().availableProcessors(),
+                        r -> {
+                            Thread t =
+                                    new Thread(r, "MosaicPreparation-" + count.incrementAndGet());
+                            t.setDaemon(true);
+                            return t;
+                        });
+    }
+
     /** The final lists for granules to be computed, splitted per dimension value. */
     protected final List<Future<GranuleDescriptor.GranuleLoadingResult>> granulesFutures =
             new ArrayList<>();
@@ -113,9 +136,12 @@ protected MosaicInputs collectGranules() throws IOException {
         final StringBuilder paths = new StringBuilder();
         URL sourceUrl = null;
         final List<MosaicElement> returnValues = new ArrayList<>();
+        // the granules being prepared for the mosaic, in catalog order
+        final List<Future<MosaicElement>> inputs = new ArrayList<>();
+        final boolean multithreadedLoading = isMultithreadedLoadingEnabled();
         // collect sources for the current dimension and then process them
-        for (Future<GranuleDescriptor.GranuleLoadingResult> future : granulesFutures) {
-
+        for (int i = 0; i < granulesFutures.size(); i++) {
+            Future<GranuleDescriptor.GranuleLoadingResult> future = granulesFutures.get(i);
             try {
                 // get the resulting RenderedImage
                 final GranuleDescriptor.GranuleLoadingResult result = future.get();
@@ -142,10 +168,11 @@ protected MosaicInputs collectGranules() throws IOException {
                 }
 
                 // perform excess granule removal in case multithreaded loading is enabled
-                if (isMultithreadedLoadingEnabled()) {
+                if (multithreadedLoading) {
                     ROIExcessGranuleRemover remover = rasterLayerResponse.getExcessGranuleRemover();
                     if (remover != null) {
                         if (remover.isRenderingAreaComplete()) {
+                            cancelGranules(i + 1);
                             break;
                         }
                         if (!remover.addGranule(result)) {
@@ -210,11 +237,19 @@ protected MosaicInputs collectGranules() throws IOException {
                     sourceUrl = result.getGranuleUrl();
                 }
 
-                // add to the mosaic collection, with preprocessing
+                // add to the mosaic collection, with preprocessing, in parallel with the loading
+                // of the next granules when multithreaded, the transparency and threshold settings
+                // are already fixed by the first granule
                 // TODO pluggable mechanism for processing (artifacts,etc...)
-                MosaicElement input =
-                        preProcessGranuleRaster(loadedImage, result, fileCanonicalPath);
-                returnValues.add(input);
+                final String canonicalPath = fileCanonicalPath;
+                FutureTask<MosaicElement> preparation =
+                        new FutureTask<>(() -> prepareGranule(loadedImage, result, canonicalPath));
+                if (multithreadedLoading) {
+                    PREPARATION_EXECUTOR.execute(preparation);
+                } else {
+                    preparation.run();
+                }
+                inputs.add(preparation);
 
             } catch (Exception e) {
                 if (LOGGER.isLoggable(Level.INFO)) {
@@ -222,10 +257,31 @@ protected MosaicInputs collectGranules() throws IOException {
                             "Adding to mosaic failed, original request was "
                                     + rasterLayerResponse.getRequest());
                 }
+                cancelGranules(i + 1);
+                cancelPreparations(inputs, 0);
                 throw new IOException(e);
             }
         }
 
+        // gather the prepared granules, in catalog order
+        for (int i = 0; i < inputs.size(); i++) {
+            try {
+                returnValues.add(inputs.get(i).get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancelPreparations(inputs, i + 1);
+                throw new IOException(e);
+            } catch (ExecutionException e) {
+                if (LOGGER.isLoggable(Level.INFO)) {
+                    LOGGER.info(
+                            "Adding to mosaic failed, original request was "
+                                    + rasterLayerResponse.getRequest());
+                }
+                cancelPreparations(inputs, i + 1);
+                throw new IOException(e.getCause());
+            }
+        }
+
         // collect paths
         rasterLayerResponse.addGranulePaths(
                 paths.length() > 1 ? paths.substring(0, paths.length() - 1) : "");
@@ -239,6 +295,48 @@ protected MosaicInputs collectGranules() throws IOException {
         return new MosaicInputs(doInputTransparency, hasAlpha, returnValues, sourceThreshold);
     }
 
+    /**
+     * Cancels the loading of the granules from the given index on, the ones not started yet are
+     * skipped, the ones being loaded complete in the background
+     */
+    private void cancelGranules(int from) {
+        int cancelled = 0;
+        for (int i = from; i < granulesFutures.size(); i++) {
+            if (granulesFutures.get(i).cancel(false)) {
+                cancelled++;
+            }
+        }
+        if (cancelled > 0) {
+            rasterLayerResponse.getRequest().getLoadingStatistics().addCancelled(cancelled);
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.fine("Cancelled the loading of " + cancelled + " granules");
+            }
+        }
+    }
+
+    /** Cancels the preparation of the granules from the given index on */
+    private void cancelPreparations(List<Future<MosaicElement>> inputs, int from) {
+        for (int i = from; i < inputs.size(); i++) {
+            inputs.get(i).cancel(false);
+        }
+    }
+
+    /** Prepares a loaded granule for the mosaic, recording the time spent doing it */
+    private MosaicElement prepareGranule(
+            RenderedImage granule,
+            GranuleDescriptor.GranuleLoadingResult result,
+            String canonicalPath) {
+        long start = System.nanoTime();
+        try {
+            return preProcessGranuleRaster(granule, result, canonicalPath);
+        } finally {
+            rasterLayerResponse
+                    .getRequest()
+                    .getLoadingStatistics()
+                    .add(GranuleLoadingStatistics.Stage.PREPARE, System.nanoTime() - start);
+        }
+    }
+
     private MosaicElement preProcessGranuleRaster(
             RenderedImage granule,
             final GranuleDescriptor.GranuleLoadingResult result,
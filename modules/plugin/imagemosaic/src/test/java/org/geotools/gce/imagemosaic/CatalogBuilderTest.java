@@ -355,7 +355,7 @@ public void buildCachingIndex() throws FileNotFoundException, IOException {
             reader = new ImageMosaicReader(relativeMosaic);
 
             GranuleCatalog catalog = reader.getRasterManager(reader.defaultName).granuleCatalog;
-            assertTrue(catalog.getClass().toString().endsWith("STRTreeGranuleCatalog"));
+            assertTrue(catalog.getClass().toString().endsWith("PackedGranuleCatalog"));
 
         } finally {
             try {
@@ -0,0 +1,165 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2024, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.gce.imagemosaic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class GranuleReaderPoolTest {
+
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testReuse() throws IOException {
+        File file = createGranule("granule.png");
+        GranuleReaderPool pool = new GranuleReaderPool(10, 60000, 2);
+        GranuleReaderPool.PooledReader pooled = open(file);
+        ImageReader reader = pooled.getReader();
+        pool.release(pooled);
+        assertEquals(1, pool.size());
+
+        GranuleReaderPool.PooledReader borrowed =
+                pool.borrow(file, reader.getOriginatingProvider());
+        assertSame(pooled, borrowed);
+        assertEquals(0, pool.size());
+        // still usable, without setting the input again
+        assertEquals(16, borrowed.getReader().read(0).getWidth());
+        pool.release(borrowed);
+
+        // no more than two pairs per granule
+        pool.release(open(file));
+        GranuleReaderPool.PooledReader third = open(file);
+        pool.release(third);
+        assertEquals(2, pool.size());
+        assertClosed(third);
+        pool.clear();
+    }
+
+    @Test
+    public void testFileChange() throws IOException {
+        File file = createGranule("granule.png");
+        GranuleReaderPool pool = new GranuleReaderPool(10, 60000, 2);
+        GranuleReaderPool.PooledReader pooled = open(file);
+        pool.release(pooled);
+
+        ImageIO.write(new BufferedImage(32, 32, BufferedImage.TYPE_BYTE_GRAY), "png", file);
+        assertTrue(file.setLastModified(file.lastModified() + 2000));
+        assertNull(pool.borrow(file, pooled.getReader().getOriginatingProvider()));
+        assertEquals(0, pool.size());
+        assertClosed(pooled);
+    }
+
+    @Test
+    public void testEviction() throws IOException {
+        GranuleReaderPool pool = new GranuleReaderPool(2, 60000, 2);
+        GranuleReaderPool.PooledReader p1 = open(createGranule("g1.png"));
+        GranuleReaderPool.PooledReader p2 = open(createGranule("g2.png"));
+        GranuleReaderPool.PooledReader p3 = open(createGranule("g3.png"));
+        pool.release(p1);
+        pool.release(p2);
+        pool.release(p3);
+        // the least recently used granule went away
+        assertEquals(2, pool.size());
+        assertClosed(p1);
+        assertFalse(isClosed(p2));
+
+        pool.clear(temporaryFolder.getRoot().toPath().resolve("g2.png").toFile());
+        assertEquals(1, pool.size());
+        assertClosed(p2);
+        pool.clear();
+        assertClosed(p3);
+    }
+
+    @Test
+    public void testIdle() throws Exception {
+        GranuleReaderPool pool = new GranuleReaderPool(10, 0, 2);
+        GranuleReaderPool.PooledReader p1 = open(createGranule("g1.png"));
+        pool.release(p1);
+        Thread.sleep(10);
+        File other = createGranule("g2.png");
+        assertNull(pool.borrow(other, p1.getReader().getOriginatingProvider()));
+        assertEquals(0, pool.size());
+        assertClosed(p1);
+    }
+
+    @Test
+    public void testBackgroundEviction() throws Exception {
+        GranuleReaderPool pool = new GranuleReaderPool(10, 50, 2);
+        GranuleReaderPool.PooledReader p1 = open(createGranule("g1.png"));
+        pool.release(p1);
+        assertEquals(1, pool.size());
+        // no more borrows nor releases, the pair is evicted anyway
+        long timeout = System.currentTimeMillis() + 10 * GranuleReaderPool.MIN_EVICTION_PERIOD;
+        while (!isClosed(p1) && System.currentTimeMillis() < timeout) {
+            Thread.sleep(50);
+        }
+        assertEquals(0, pool.size());
+        assertClosed(p1);
+    }
+
+    @Test
+    public void testDisabled() throws IOException {
+        File file = createGranule("granule.png");
+        GranuleReaderPool pool = new GranuleReaderPool(0, 60000, 2);
+        assertFalse(pool.isEnabled());
+        GranuleReaderPool.PooledReader pooled = open(file);
+        pool.release(pooled);
+        assertEquals(0, pool.size());
+        assertClosed(pooled);
+        assertNull(pool.borrow(file, pooled.getReader().getOriginatingProvider()));
+    }
+
+    private File createGranule(String name) throws IOException {
+        File file = temporaryFolder.newFile(name);
+        ImageIO.write(new BufferedImage(16, 16, BufferedImage.TYPE_BYTE_GRAY), "png", file);
+        return file;
+    }
+
+    private static GranuleReaderPool.PooledReader open(File file) throws IOException {
+        ImageInputStream stream = ImageIO.createImageInputStream(file);
+        ImageReader reader = ImageIO.getImageReaders(stream).next();
+        reader.setInput(stream);
+        return new GranuleReaderPool.PooledReader(file, reader, stream);
+    }
+
+    private static void assertClosed(GranuleReaderPool.PooledReader pooled) {
+        assertTrue(isClosed(pooled));
+    }
+
+    private static boolean isClosed(GranuleReaderPool.PooledReader pooled) {
+        try {
+            pooled.getStream().length();
+            pooled.getStream().seek(0);
+            return false;
+        } catch (IOException e) {
+            return true;
+        }
+    }
+}
@@ -68,6 +68,7 @@
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.Statement;
 import java.text.ParseException;
@@ -2100,6 +2101,60 @@ public void testRequestInHoleNoData() throws Exception {
         assertNoData(coverage, 0d);
     }
 
+    @Test
+    public void testParallelHarvest() throws Exception {
+        File mosaicSource = TestData.file(this, "rgb");
+        File targetRgb = new File("target", "rgb_parallel");
+        FileUtils.deleteQuietly(targetRgb);
+        FileUtils.copyDirectory(mosaicSource, targetRgb);
+
+        // open granules on 4 threads, committing them 5 at a time
+        Properties properties = new Properties();
+        properties.put(Prop.HARVEST_THREADS, "4");
+        properties.put(Prop.HARVEST_BATCH_SIZE, "5");
+        try (FileOutputStream fos =
+                new FileOutputStream(new File(targetRgb, "indexer.properties"))) {
+            properties.store(fos, null);
+        }
+        // a leftover checkpoint is ignored, the index does not exist yet
+        File checkpoint = new File(targetRgb, ImageMosaicDirectoryWalker.CHECKPOINT_FILE);
+        FileUtils.writeStringToFile(
+                checkpoint,
+                new File(targetRgb, "global_mosaic_0.png").getAbsolutePath(),
+                StandardCharsets.UTF_8);
+
+        ImageMosaicReader reader = getReader(fileToUrl(targetRgb));
+        try {
+            String name = reader.getGridCoverageNames()[0];
+            assertEquals(24, reader.getGranules(name, true).getCount(Query.ALL));
+            assertFalse(checkpoint.exists());
+
+            // resume a harvest whose checkpoint lists a granule missing from the catalog
+            GranuleStore store = (GranuleStore) reader.getGranules(name, false);
+            store.removeGranules(ECQL.toFilter("location = 'global_mosaic_0.png'"));
+            assertEquals(23, reader.getGranules(name, true).getCount(Query.ALL));
+            FileUtils.writeLines(
+                    checkpoint,
+                    StandardCharsets.UTF_8.name(),
+                    Arrays.asList(
+                            new File(targetRgb, "global_mosaic_0.png").getAbsolutePath(),
+                            new File(targetRgb, "global_mosaic_1.png").getAbsolutePath()));
+            List<HarvestedSource> harvested = reader.harvest(null, targetRgb, null);
+            Set<String> ingested =
+                    harvested.stream()
+                            .filter(HarvestedSource::success)
+                            .map(h -> ((File) h.getSource()).getName())
+                            .collect(Collectors.toSet());
+            // the missing one was harvested again, the one in the catalog was skipped
+            assertTrue(ingested.contains("global_mosaic_0.png"));
+            assertFalse(ingested.contains("global_mosaic_1.png"));
+            assertEquals(24, reader.getGranules(name, true).getCount(Query.ALL));
+            assertFalse(checkpoint.exists());
+        } finally {
+            reader.dispose();
+        }
+    }
+
     private GridCoverage2D testMosaicHoleOn(URL testMosaicUrl)
             throws FactoryException, IOException {
         final ImageMosaicReader reader = getReader(testMosaicUrl);
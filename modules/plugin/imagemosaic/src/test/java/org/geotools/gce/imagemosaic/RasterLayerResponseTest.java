@@ -25,6 +25,8 @@
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.net.URL;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.geotools.api.parameter.GeneralParameterValue;
 import org.geotools.api.parameter.ParameterValue;
 import org.geotools.api.referencing.operation.MathTransform2D;
@@ -38,6 +40,7 @@
 import org.geotools.referencing.operation.matrix.XAffineTransform;
 import org.geotools.referencing.operation.transform.AffineTransform2D;
 import org.geotools.test.TestData;
+import org.geotools.util.factory.Hints;
 import org.junit.Test;
 
 public class RasterLayerResponseTest {
@@ -143,4 +146,53 @@ public void testSourceUrl() throws Exception {
             }
         }
     }
+
+    @Test
+    public void testLoadingStatistics() throws Exception {
+        assertLoadingStatistics(null, null);
+    }
+
+    @Test
+    public void testMultithreadedLoadingStatistics() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            ParameterValue<Boolean> multithreading =
+                    ImageMosaicFormat.ALLOW_MULTITHREADING.createValue();
+            multithreading.setValue(true);
+            ParameterValue<Boolean> imageRead = ImageMosaicFormat.USE_JAI_IMAGEREAD.createValue();
+            imageRead.setValue(false);
+            assertLoadingStatistics(
+                    new Hints(Hints.EXECUTOR_SERVICE, executor),
+                    new GeneralParameterValue[] {multithreading, imageRead});
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void assertLoadingStatistics(Hints hints, GeneralParameterValue[] params)
+            throws Exception {
+        final URL testMosaic = TestData.url(this, "heterogeneous");
+        ImageMosaicReader reader = new ImageMosaicFormat().getReader(testMosaic, hints);
+        try {
+            RasterManager manager = reader.getRasterManager(reader.getGridCoverageNames()[0]);
+            RasterLayerRequest request = new RasterLayerRequest(params, manager);
+            RasterLayerResponse response =
+                    new RasterLayerResponse(
+                            request, manager, new DefaultSubmosaicProducerFactory());
+            assertNotNull(response.createResponse());
+
+            GranuleLoadingStatistics statistics = request.getLoadingStatistics();
+            assertEquals(1, statistics.getCount(GranuleLoadingStatistics.Stage.CATALOG));
+            assertEquals(1, statistics.getCount(GranuleLoadingStatistics.Stage.MOSAIC));
+            long opened = statistics.getCount(GranuleLoadingStatistics.Stage.OPEN);
+            long read = statistics.getCount(GranuleLoadingStatistics.Stage.READ);
+            long prepared = statistics.getCount(GranuleLoadingStatistics.Stage.PREPARE);
+            assertTrue(opened > 1);
+            assertTrue(read > 0 && read <= opened);
+            assertTrue(prepared > 0 && prepared <= read);
+            assertEquals(0, statistics.getCancelled());
+        } finally {
+            reader.dispose();
+        }
+    }
 }
@@ -0,0 +1,219 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2024, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.gce.imagemosaic.catalog;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.geotools.api.feature.simple.SimpleFeature;
+import org.geotools.api.feature.simple.SimpleFeatureType;
+import org.geotools.api.filter.Filter;
+import org.geotools.api.filter.FilterFactory;
+import org.geotools.data.DataUtilities;
+import org.geotools.factory.CommonFactoryFinder;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.geotools.geometry.jts.JTS;
+import org.junit.Before;
+import org.junit.Test;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+
+public class PackedGranuleIndexTest {
+
+    private static final FilterFactory FF = CommonFactoryFinder.getFilterFactory();
+
+    private SimpleFeatureType schema;
+
+    private List<SimpleFeature> granules;
+
+    @Before
+    public void setup() throws Exception {
+        schema =
+                DataUtilities.createType(
+                        "granules",
+                        "the_geom:Polygon,location:String,time:java.util.Date,elevation:Double");
+        granules = createGranules(0, 1000);
+    }
+
+    @Test
+    public void testSpatialQuery() {
+        PackedGranuleIndex<SimpleFeature> index = createIndex(granules);
+        assertEquals(1000, index.size());
+        Random random = new Random(0);
+        for (int i = 0; i < 50; i++) {
+            double x = random.nextDouble() * 100;
+            double y = random.nextDouble() * 100;
+            Envelope envelope = new Envelope(x, x + random.nextDouble() * 20, y, y + 5);
+            assertEquals(bruteForce(envelope, Filter.INCLUDE), ids(index.query(envelope, null)));
+        }
+        assertEquals(1000, index.query(null, null).size());
+    }
+
+    @Test
+    public void testRangeQuery() {
+        PackedGranuleIndex<SimpleFeature> index = createIndex(granules);
+        Envelope envelope = new Envelope(10, 60, 10, 60);
+        List<Filter> filters = new ArrayList<>();
+        filters.add(FF.between(FF.property("elevation"), FF.literal(100d), FF.literal(300d)));
+        filters.add(
+                FF.and(
+                        FF.lessOrEqual(FF.property("time"), FF.literal(new Date(50000))),
+                        FF.greaterOrEqual(FF.property("time"), FF.literal(new Date(20000)))));
+        filters.add(FF.equals(FF.literal(new Date(42000)), FF.property("time")));
+        filters.add(
+                FF.or(
+                        FF.less(FF.property("elevation"), FF.literal(10)),
+                        FF.greater(FF.property("elevation"), FF.literal(990))));
+        filters.add(
+                FF.or(
+                        FF.less(FF.property("elevation"), FF.literal(10)),
+                        FF.like(FF.property("location"), "granule_5*")));
+        for (Filter filter : filters) {
+            assertEquals(
+                    filter.toString(), bruteForce(null, filter), ids(index.query(null, filter)));
+            assertEquals(
+                    filter.toString(),
+                    bruteForce(envelope, filter),
+                    ids(index.query(envelope, filter)));
+        }
+    }
+
+    @Test
+    public void testAddRemove() {
+        PackedGranuleIndex<SimpleFeature> index = createIndex(granules);
+        // a few additions are kept pending
+        List<SimpleFeature> added = createGranules(1000, 10);
+        index.add(added);
+        granules.addAll(added);
+        assertEquals(1010, index.size());
+        Envelope envelope = new Envelope(0, 50, 0, 50);
+        assertEquals(bruteForce(envelope, Filter.INCLUDE), ids(index.query(envelope, null)));
+
+        // remove from both the packed and pending granules
+        Filter removal =
+                FF.or(
+                        FF.less(FF.property("elevation"), FF.literal(100)),
+                        FF.greaterOrEqual(FF.property("elevation"), FF.literal(1005)));
+        int expected = bruteForce(null, removal).size();
+        assertEquals(expected, index.remove(removal));
+        granules.removeIf(removal::evaluate);
+        assertEquals(1010 - expected, index.size());
+        assertEquals(bruteForce(envelope, Filter.INCLUDE), ids(index.query(envelope, null)));
+
+        // many more additions pack the tree again
+        added = createGranules(2000, 500);
+        index.add(added);
+        granules.addAll(added);
+        assertEquals(granules.size(), index.size());
+        assertEquals(bruteForce(envelope, Filter.INCLUDE), ids(index.query(envelope, null)));
+    }
+
+    @Test
+    public void testLocationQuery() {
+        // granules sharing locations, as the slices of multidimensional files do
+        for (int i = 0; i < granules.size(); i++) {
+            granules.get(i).setAttribute("location", new String("file_" + (i % 10)));
+        }
+        PackedGranuleIndex<SimpleFeature> index = createIndex(granules);
+        Set<Object> instances = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (SimpleFeature granule : granules) {
+            instances.add(granule.getAttribute("location"));
+        }
+        assertEquals(10, instances.size());
+
+        Envelope envelope = new Envelope(10, 60, 10, 60);
+        List<Filter> filters = new ArrayList<>();
+        filters.add(FF.equals(FF.property("location"), FF.literal("file_3")));
+        filters.add(FF.equals(FF.literal("file_3"), FF.property("location")));
+        filters.add(FF.equals(FF.property("location"), FF.literal("missing")));
+        filters.add(
+                FF.or(
+                        FF.equals(FF.property("location"), FF.literal("file_1")),
+                        FF.equals(FF.property("location"), FF.literal("file_2"))));
+        filters.add(
+                FF.and(
+                        FF.equals(FF.property("location"), FF.literal("file_1")),
+                        FF.less(FF.property("elevation"), FF.literal(500))));
+        filters.add(FF.equal(FF.property("location"), FF.literal("FILE_1"), false));
+        for (Filter filter : filters) {
+            assertEquals(
+                    filter.toString(), bruteForce(null, filter), ids(index.query(null, filter)));
+            assertEquals(
+                    filter.toString(),
+                    bruteForce(envelope, filter),
+                    ids(index.query(envelope, filter)));
+        }
+
+        Filter removal = FF.equals(FF.property("location"), FF.literal("file_7"));
+        assertEquals(100, index.remove(removal));
+        assertEquals(900, index.size());
+        assertEquals(0, index.query(null, removal).size());
+    }
+
+    @Test
+    public void testEmpty() {
+        PackedGranuleIndex<SimpleFeature> index = createIndex(Collections.emptyList());
+        assertEquals(0, index.size());
+        assertEquals(0, index.query(new Envelope(0, 10, 0, 10), null).size());
+        index.add(createGranules(0, 1));
+        assertEquals(1, index.query(null, null).size());
+    }
+
+    private PackedGranuleIndex<SimpleFeature> createIndex(List<SimpleFeature> granules) {
+        return new PackedGranuleIndex<>(
+                schema, PackedGranuleIndexTest::bounds, f -> f, "location", granules);
+    }
+
+    private List<SimpleFeature> createGranules(int start, int count) {
+        Random random = new Random(start);
+        SimpleFeatureBuilder fb = new SimpleFeatureBuilder(schema);
+        List<SimpleFeature> result = new ArrayList<>();
+        for (int i = start; i < start + count; i++) {
+            double x = random.nextDouble() * 100;
+            double y = random.nextDouble() * 100;
+            fb.add(JTS.toGeometry(new Envelope(x, x + 2, y, y + 2)));
+            fb.add("granule_" + i);
+            fb.add(new Date(i * 1000L));
+            fb.add((double) i);
+            result.add(fb.buildFeature("granules." + i));
+        }
+        return result;
+    }
+
+    private Set<String> bruteForce(Envelope envelope, Filter filter) {
+        return granules.stream()
+                .filter(f -> envelope == null || envelope.intersects(bounds(f)))
+                .filter(filter::evaluate)
+                .map(SimpleFeature::getID)
+                .collect(Collectors.toSet());
+    }
+
+    private static Envelope bounds(SimpleFeature feature) {
+        return ((Geometry) feature.getDefaultGeometry()).getEnvelopeInternal();
+    }
+
+    private static Set<String> ids(List<SimpleFeature> features) {
+        return features.stream().map(SimpleFeature::getID).collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2024, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.gce.imagemosaic.catalog;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.geotools.api.data.Query;
+import org.geotools.api.data.QueryCapabilities;
+import org.geotools.api.data.Transaction;
+import org.geotools.api.feature.simple.SimpleFeature;
+import org.geotools.api.feature.simple.SimpleFeatureType;
+import org.geotools.api.filter.Filter;
+import org.geotools.api.filter.FilterFactory;
+import org.geotools.api.geometry.BoundingBox;
+import org.geotools.data.DataUtilities;
+import org.geotools.data.collection.ListFeatureCollection;
+import org.geotools.data.simple.SimpleFeatureCollection;
+import org.geotools.factory.CommonFactoryFinder;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.geotools.feature.visitor.FeatureCalc;
+import org.geotools.geometry.jts.JTS;
+import org.geotools.geometry.jts.ReferencedEnvelope;
+import org.junit.Before;
+import org.junit.Test;
+import org.locationtech.jts.geom.Envelope;
+
+public class QueryCacheGranuleCatalogTest {
+
+    private static final FilterFactory FF = CommonFactoryFinder.getFilterFactory();
+
+    private ListGranuleCatalog granules;
+
+    private QueryCacheGranuleCatalog cache;
+
+    @Before
+    public void setup() throws Exception {
+        SimpleFeatureType schema =
+                DataUtilities.createType("granules", "the_geom:Polygon,time:java.util.Date");
+        // a 20x20 grid of granules, at two times
+        SimpleFeatureBuilder fb = new SimpleFeatureBuilder(schema);
+        List<SimpleFeature> features = new ArrayList<>();
+        for (int t = 0; t < 2; t++) {
+            for (int x = 0; x < 20; x++) {
+                for (int y = 0; y < 20; y++) {
+                    fb.add(JTS.toGeometry(new Envelope(x, x + 1, y, y + 1)));
+                    fb.add(new Date(t * 1000L));
+                    features.add(fb.buildFeature(null));
+                }
+            }
+        }
+        granules = new ListGranuleCatalog(schema, features);
+        cache = new QueryCacheGranuleCatalog(granules, 10000, 60000);
+    }
+
+    @Test
+    public void testOverlappingExtents() throws IOException {
+        // first query loads a larger region
+        assertQuery(new Envelope(4, 6, 4, 6), 0);
+        assertEquals(1, granules.queries);
+
+        // panning within the region hits the cache
+        assertQuery(new Envelope(4.5, 6.5, 3.5, 5.5), 0);
+        assertQuery(new Envelope(3, 5, 4, 6), 0);
+        assertEquals(1, granules.queries);
+
+        // another time is a different region
+        assertQuery(new Envelope(4, 6, 4, 6), 1000);
+        assertEquals(2, granules.queries);
+
+        // so is an extent outside of the region
+        assertQuery(new Envelope(14, 16, 14, 16), 0);
+        assertEquals(3, granules.queries);
+        assertQuery(new Envelope(14.5, 16, 14, 16), 0);
+        assertEquals(3, granules.queries);
+    }
+
+    @Test
+    public void testInvalidation() throws IOException {
+        assertQuery(new Envelope(4, 6, 4, 6), 0);
+        assertEquals(1, granules.queries);
+
+        // harvesting drops the cached regions
+        cache.addGranules("granules", new ArrayList<>(), Transaction.AUTO_COMMIT);
+        assertQuery(new Envelope(4, 6, 4, 6), 0);
+        assertEquals(2, granules.queries);
+
+        // and so does purging
+        cache.removeGranules(new Query("granules", Filter.EXCLUDE), Transaction.AUTO_COMMIT);
+        assertQuery(new Envelope(4, 6, 4, 6), 0);
+        assertEquals(3, granules.queries);
+    }
+
+    @Test
+    public void testTooManyGranules() throws IOException {
+        cache = new QueryCacheGranuleCatalog(granules, 5, 60000);
+        assertQuery(new Envelope(4, 6, 4, 6), 0);
+        assertQuery(new Envelope(4, 6, 4, 6), 0);
+        // region loading gives up once, the exact query cache is not big enough either
+        assertEquals(3, granules.queries);
+    }
+
+    private void assertQuery(Envelope envelope, long time) throws IOException {
+        Filter filter =
+                FF.and(
+                        FF.bbox(FF.property("the_geom"), new ReferencedEnvelope(envelope, null)),
+                        FF.equals(FF.property("time"), FF.literal(new Date(time))));
+        Query query = new Query("granules", filter);
+        assertEquals(ids(granules.getGranules(query)), ids(cache.getGranules(query)));
+        // do not count the reference query
+        granules.queries--;
+    }
+
+    private static Set<String> ids(SimpleFeatureCollection features) {
+        return DataUtilities.list(features).stream()
+                .map(SimpleFeature::getID)
+                .collect(Collectors.toSet());
+    }
+
+    /** A catalog filtering a list of granules, counting the queries */
+    private static class ListGranuleCatalog extends GranuleCatalog {
+
+        private final SimpleFeatureType schema;
+
+        private final List<SimpleFeature> features;
+
+        private int queries;
+
+        public ListGranuleCatalog(SimpleFeatureType schema, List<SimpleFeature> features) {
+            super(null, null);
+            this.schema = schema;
+            this.features = features;
+        }
+
+        @Override
+        public SimpleFeatureCollection getGranules(Query q) throws IOException {
+            queries++;
+            List<SimpleFeature> result =
+                    features.stream()
+                            .filter(f -> q.getFilter().evaluate(f))
+                            .collect(Collectors.toList());
+            return new ListFeatureCollection(schema, result);
+        }
+
+        @Override
+        public SimpleFeatureType getType(String typeName) throws IOException {
+            return schema;
+        }
+
+        @Override
+        public void addGranules(
+                String typeName, Collection<SimpleFeature> granules, Transaction transaction) {}
+
+        @Override
+        public int removeGranules(Query query) {
+            return 0;
+        }
+
+        @Override
+        public void computeAggregateFunction(Query q, FeatureCalc function) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void createType(String namespace, String typeName, String typeSpec) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void createType(SimpleFeatureType featureType) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void createType(String identification, String typeSpec) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void dispose() {}
+
+        @Override
+        public BoundingBox getBounds(String typeName) {
+            return DataUtilities.bounds(new ListFeatureCollection(schema, features));
+        }
+
+        @Override
+        public int getGranulesCount(Query q) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void getGranuleDescriptors(Query q, GranuleCatalogVisitor visitor) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public QueryCapabilities getQueryCapabilities(String typeName) {
+            return new QueryCapabilities();
+        }
+
+        @Override
+        public void removeType(String typeName) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String[] getTypeNames() {
+            return new String[] {schema.getTypeName()};
+        }
+
+        @Override
+        public void drop() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        protected String getParentLocation() {
+            return null;
+        }
+    }
+}
@@ -266,11 +266,23 @@ public static SimpleFeature deserialize(
             Feature feature, SimpleFeatureBuilder fb, HeaderMeta headerMeta, long fid) {
         Geometry geometry = feature.geometry();
         byte geometryType = headerMeta.geometryType;
+        org.locationtech.jts.geom.Geometry jtsGeometry = null;
         if (geometry != null) {
             if (geometryType == GeometryType.Unknown) geometryType = (byte) geometry.type();
-            org.locationtech.jts.geom.Geometry jtsGeometry =
-                    GeometryConversions.deserialize(geometry, geometryType);
-            fb.add(jtsGeometry);
+            jtsGeometry = GeometryConversions.deserialize(geometry, geometryType);
+        }
+        return deserialize(feature, jtsGeometry, fb, headerMeta, fid);
+    }
+
+    /** Builds a feature with the given geometry and the properties of the FlatGeobuf feature */
+    static SimpleFeature deserialize(
+            Feature feature,
+            org.locationtech.jts.geom.Geometry geometry,
+            SimpleFeatureBuilder fb,
+            HeaderMeta headerMeta,
+            long fid) {
+        if (geometry != null) {
+            fb.add(geometry);
         }
         int propertiesLength = feature.propertiesLength();
         if (propertiesLength > 0) {
@@ -20,7 +20,10 @@
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.Collections;
 import java.util.List;
 import org.geotools.api.data.Query;
@@ -46,6 +49,11 @@ public class FlatGeobufDataStore extends ContentDataStore {
     HeaderMeta headerMeta;
     SimpleFeatureType phantomFeatureType;
 
+    boolean memoryMapped;
+    ByteBuffer mappedBuffer;
+
+    boolean spatialIndex;
+
     public FlatGeobufDataStore(URL url) {
         this.url = url;
         this.file = getFile(url);
@@ -93,6 +101,71 @@ protected HeaderMeta getHeaderMeta() throws IOException {
         return headerMeta;
     }
 
+    /**
+     * Enables reading the file through a memory mapped buffer, shared by all the readers.
+     *
+     * <p>The features read share the buffer too, their geometries are views of the mapped
+     * ordinates. The buffer is unmapped when the file is written through this store, or when the
+     * store is disposed, so the features must not be used past that point: copy the geometries that
+     * need to outlive the store.
+     */
+    public void setMemoryMapped(boolean memoryMapped) {
+        this.memoryMapped = memoryMapped;
+    }
+
+    public boolean isMemoryMapped() {
+        return memoryMapped;
+    }
+
+    /** Enables writing a packed Hilbert R-tree, see {@link FlatGeobufIndexedWriter} */
+    public void setSpatialIndex(boolean spatialIndex) {
+        this.spatialIndex = spatialIndex;
+    }
+
+    public boolean isSpatialIndex() {
+        return spatialIndex;
+    }
+
+    /**
+     * Returns the file mapped in memory, read only, or null if memory mapping is disabled, the data
+     * is not a local file, or the file is too large to be mapped in a single buffer
+     */
+    synchronized ByteBuffer getMappedBuffer() throws IOException {
+        if (mappedBuffer == null && memoryMapped && file != null && file.exists()) {
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                long size = channel.size();
+                if (size > Integer.MAX_VALUE) {
+                    return null;
+                }
+                mappedBuffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+        }
+        return mappedBuffer;
+    }
+
+    /** Returns a reader of the mapped buffer, or null if the file is not mapped */
+    synchronized MappedFeatureReader openMappedReader(
+            SimpleFeatureType featureType, Query query, HeaderMeta headerMeta) throws IOException {
+        ByteBuffer buffer = getMappedBuffer();
+        if (buffer == null) {
+            return null;
+        }
+        return new MappedFeatureReader(featureType, query, headerMeta, buffer);
+    }
+
+    /**
+     * Drops the mapped buffer, so that the file gets mapped again with its new content on the next
+     * read.
+     *
+     * <p>The buffer is not unmapped explicitly: the readers still open and the geometries they
+     * returned, whose {@link MappedCoordinateSequence} are views of the buffer, keep reading the
+     * old mapping, which the garbage collector releases once they are all gone. Some platforms,
+     * Windows in particular, refuse to replace the file until then.
+     */
+    synchronized void releaseMappedBuffer() {
+        mappedBuffer = null;
+    }
+
     protected URL getURL() {
         return url;
     }
@@ -168,4 +241,10 @@ public void removeSchema(String typeName) throws IOException {
     void clearHeaderMeta() {
         this.headerMeta = null;
     }
+
+    @Override
+    public void dispose() {
+        releaseMappedBuffer();
+        super.dispose();
+    }
 }
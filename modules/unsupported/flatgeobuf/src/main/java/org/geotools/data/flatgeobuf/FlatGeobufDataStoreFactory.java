@@ -47,6 +47,28 @@ public class FlatGeobufDataStoreFactory implements DataStoreFactorySpi {
                     null, // not required
                     new KVP(Param.LEVEL, "advanced"));
 
+    /** Optional - enable/disable reading the files through memory mapped buffers */
+    public static final Param MEMORY_MAPPED =
+            new Param(
+                    "memory mapped buffer",
+                    Boolean.class,
+                    "read local files through a memory mapped buffer, searching the spatial index"
+                            + " and decoding the features in place",
+                    false,
+                    false,
+                    new KVP(Param.LEVEL, "advanced"));
+
+    /** Optional - enable/disable writing a packed Hilbert R-tree with the features */
+    public static final Param SPATIAL_INDEX =
+            new Param(
+                    "create spatial index",
+                    Boolean.class,
+                    "write the features sorted along a Hilbert curve with a packed R-tree, using"
+                            + " temporary files to bound the memory used",
+                    false,
+                    false,
+                    new KVP(Param.LEVEL, "advanced"));
+
     public FlatGeobufDataStoreFactory() {}
 
     @Override
@@ -55,11 +77,22 @@ public DataStore createDataStore(Map<String, ?> map) throws IOException {
         URI namespace = (URI) NAMESPACE_PARAM.lookUp(map);
         File file = FlatGeobufDataStore.getFile(url);
 
+        Boolean memoryMapped = (Boolean) MEMORY_MAPPED.lookUp(map);
+        boolean mapped = memoryMapped != null && memoryMapped;
+        Boolean spatialIndex = (Boolean) SPATIAL_INDEX.lookUp(map);
+        boolean indexed = spatialIndex != null && spatialIndex;
+
         ContentDataStore store;
         if (file != null && file.isDirectory()) {
-            store = new FlatGeobufDirectoryDataStore(file);
+            FlatGeobufDirectoryDataStore directoryStore = new FlatGeobufDirectoryDataStore(file);
+            directoryStore.setMemoryMapped(mapped);
+            directoryStore.setSpatialIndex(indexed);
+            store = directoryStore;
         } else {
-            store = new FlatGeobufDataStore(url);
+            FlatGeobufDataStore fileStore = new FlatGeobufDataStore(url);
+            fileStore.setMemoryMapped(mapped);
+            fileStore.setSpatialIndex(indexed);
+            store = fileStore;
         }
         if (namespace != null) {
             store.setNamespaceURI(namespace.toString());
@@ -84,7 +117,7 @@ public String getDescription() {
 
     @Override
     public Param[] getParametersInfo() {
-        return new Param[] {URL_PARAM, NAMESPACE_PARAM};
+        return new Param[] {URL_PARAM, NAMESPACE_PARAM, MEMORY_MAPPED, SPATIAL_INDEX};
     }
 
     @Override
@@ -36,11 +36,25 @@ public class FlatGeobufDirectoryDataStore extends ContentDataStore {
 
     private HashMap<String, SimpleFeatureType> createFeatureTypes;
 
+    private boolean memoryMapped;
+
+    private boolean spatialIndex;
+
     public FlatGeobufDirectoryDataStore(File directory) {
         this.directory = directory;
         createFeatureTypes = new HashMap<>();
     }
 
+    /** Enables reading the files through memory mapped buffers */
+    public void setMemoryMapped(boolean memoryMapped) {
+        this.memoryMapped = memoryMapped;
+    }
+
+    /** Enables writing packed Hilbert R-trees with the features */
+    public void setSpatialIndex(boolean spatialIndex) {
+        this.spatialIndex = spatialIndex;
+    }
+
     protected File getDirectory() {
         return directory;
     }
@@ -69,6 +83,8 @@ protected FlatGeobufDataStore getDataStore(String name) {
         try {
             url = file.toURI().toURL();
             FlatGeobufDataStore store = new FlatGeobufDataStore(url);
+            store.setMemoryMapped(memoryMapped);
+            store.setSpatialIndex(spatialIndex);
             if (createFeatureTypes.containsKey(name) && !file.exists()) {
                 SimpleFeatureType featureType = createFeatureTypes.get(name);
                 store.createSchema(featureType);
@@ -19,6 +19,7 @@
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.nio.ByteBuffer;
 import org.geotools.api.data.DataStore;
 import org.geotools.api.data.FeatureReader;
 import org.geotools.api.data.Query;
@@ -56,7 +57,16 @@ public FlatGeobufDataStore getDataStore() {
     @Override
     protected FeatureReader<SimpleFeatureType, SimpleFeature> getReaderInternal(Query query)
             throws IOException {
-        return new FlatGeobufFeatureReader(getState(), query, getDataStore().getHeaderMeta());
+        FlatGeobufDataStore dataStore = getDataStore();
+        HeaderMeta headerMeta = dataStore.getHeaderMeta();
+        MappedFeatureReader mapped =
+                headerMeta != null
+                        ? dataStore.openMappedReader(getState().getFeatureType(), query, headerMeta)
+                        : null;
+        if (mapped != null) {
+            return mapped;
+        }
+        return new FlatGeobufFeatureReader(getState(), query, headerMeta);
     }
 
     @Override
@@ -138,6 +148,17 @@ protected int getCountInternal(Query query) throws IOException {
                 }
 
                 // otherwise scan the index (might be fooled by features crossing the dateline)
+                FlatGeobufDataStore dataStore = getDataStore();
+                ByteBuffer mapped = dataStore.getMappedBuffer();
+                if (mapped != null) {
+                    return new MappedPackedRTree(
+                                    mapped,
+                                    headerMeta.offset,
+                                    headerMeta.featuresCount,
+                                    headerMeta.indexNodeSize)
+                            .search(bounds)
+                            .length;
+                }
                 URL url = getDataStore().getURL();
                 try (InputStream is = url.openStream()) {
                     FlatGeobufFeatureReader.skipNBytes(is, headerMeta.offset);
@@ -50,6 +50,9 @@ public class FlatGeobufFeatureWriter implements FeatureWriter<SimpleFeatureType,
 
     private FlatGeobufWriter writer;
 
+    /** Used instead of the streaming writer when the data store creates a spatial index */
+    private FlatGeobufIndexedWriter indexedWriter;
+
     private OutputStream outputStream;
 
     private FlatBufferBuilder builder;
@@ -74,7 +77,13 @@ public FlatGeobufFeatureWriter(ContentState state, Query query) throws IOExcepti
         this.outputStream = new FileOutputStream(this.temp);
         this.builder = FlatBuffers.newBuilder(4096);
         this.writer = new FlatGeobufWriter(this.outputStream, this.builder);
-        this.writer.writeFeatureType(state.getFeatureType());
+        if (flatGeobufDataStore.isSpatialIndex()) {
+            this.indexedWriter =
+                    new FlatGeobufIndexedWriter(
+                            this.outputStream, state.getFeatureType(), directory);
+        } else {
+            this.writer.writeFeatureType(state.getFeatureType());
+        }
         this.delegate = new FlatGeobufFeatureReader(state, query);
     }
 
@@ -120,7 +129,11 @@ public void write() throws IOException {
         if (this.currentFeature == null) {
             return;
         }
-        this.writer.writeFeature(this.currentFeature);
+        if (indexedWriter != null) {
+            indexedWriter.writeFeature(this.currentFeature);
+        } else {
+            this.writer.writeFeature(this.currentFeature);
+        }
         nextRow++;
         this.currentFeature = null;
     }
@@ -148,6 +161,10 @@ public void close() throws IOException {
             next();
             write();
         }
+        if (indexedWriter != null) {
+            indexedWriter.close();
+            indexedWriter = null;
+        }
         this.outputStream.flush();
         this.outputStream.close();
         this.writer = null;
@@ -156,6 +173,8 @@ public void close() throws IOException {
             this.delegate.close();
             this.delegate = null;
         }
+        // the mapped readers see the old content, and might prevent replacing the file
+        flatGeobufDataStore.releaseMappedBuffer();
         Files.copy(temp.toPath(), this.file.toPath(), StandardCopyOption.REPLACE_EXISTING);
         temp.delete();
 
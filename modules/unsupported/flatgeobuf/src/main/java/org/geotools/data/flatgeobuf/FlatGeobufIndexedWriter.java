@@ -0,0 +1,439 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2024, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.flatgeobuf;
+
+import com.google.common.io.LittleEndianDataOutputStream;
+import com.google.flatbuffers.FlatBufferBuilder;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.geotools.api.feature.simple.SimpleFeature;
+import org.geotools.api.feature.simple.SimpleFeatureType;
+import org.geotools.data.store.PackedHilbertRTree;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.wololo.flatgeobuf.Constants;
+import org.wololo.flatgeobuf.HeaderMeta;
+import org.wololo.flatgeobuf.PackedRTree;
+
+/**
+ * Writes a FlatGeobuf file with a packed Hilbert R-tree, using bounded memory whatever the number
+ * of features.
+ *
+ * <p>The features are encoded as they come, optionally on several threads, and spilled to a
+ * temporary file, while their bounds are handed to a {@link PackedHilbertRTree.Sorter}. On {@link
+ * #close()} the bounds are sorted by Hilbert value with an external merge sort, all the levels of
+ * the R-tree are built in a single pass over the sorted bounds, and the header, the tree and the
+ * features in Hilbert order are written to the output stream.
+ *
+ * <p>When encoding on several threads the features are encoded after {@link
+ * #writeFeature(SimpleFeature)} returns, so they must not be modified afterwards.
+ */
+public class FlatGeobufIndexedWriter implements Closeable {
+
+    /** Default number of children of the R-tree nodes */
+    public static final int DEFAULT_NODE_SIZE = 16;
+
+    /** Default number of features sorted in memory at a time */
+    public static final int DEFAULT_SORT_BUFFER_SIZE = 1 << 20;
+
+    /** Number of features encoded by each task of the parallel encoding stage */
+    static final int ENCODING_BATCH_SIZE = 512;
+
+    /** Position in the data file and size of a spilled feature */
+    static final int RECORD_BYTES = Long.BYTES + Integer.BYTES;
+
+    /** The Hilbert curve of the FlatGeobuf reference implementation */
+    static final PackedHilbertRTree.HilbertCurve CURVE =
+            (x, y) -> PackedRTree.hilbert(x, y) & 0xFFFFFFFFL;
+
+    private final OutputStream outputStream;
+
+    private final HeaderMeta headerMeta;
+
+    private final File tempDirectory;
+
+    private int nodeSize = DEFAULT_NODE_SIZE;
+
+    private int sortBufferSize = DEFAULT_SORT_BUFFER_SIZE;
+
+    private int threads = 1;
+
+    private ExecutorService executor;
+
+    private final List<File> tempFiles = new ArrayList<>();
+
+    private File dataFile;
+
+    private OutputStream data;
+
+    private long dataSize;
+
+    private PackedHilbertRTree.Sorter sorter;
+
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+
+    private List<SimpleFeature> batch = new ArrayList<>();
+
+    private FlatBufferBuilder builder;
+
+    private boolean closed;
+
+    /**
+     * @param outputStream where to write the FlatGeobuf file, not closed by this writer
+     * @param featureType the type of the features
+     * @param tempDirectory where to spill the features, or null for the default temporary folder
+     */
+    public FlatGeobufIndexedWriter(
+            OutputStream outputStream, SimpleFeatureType featureType, File tempDirectory) {
+        this.outputStream = outputStream;
+        this.headerMeta = HeaderMetaUtil.fromFeatureType(featureType, 0);
+        this.tempDirectory = tempDirectory;
+    }
+
+    /** Sets the number of children of the R-tree nodes, at least 2 */
+    public void setNodeSize(int nodeSize) {
+        if (nodeSize < 2) {
+            throw new IllegalArgumentException("Node size must be at least 2");
+        }
+        this.nodeSize = nodeSize;
+    }
+
+    /** Sets the number of features sorted in memory at a time, about 50 bytes each */
+    public void setSortBufferSize(int sortBufferSize) {
+        if (sortBufferSize < 1) {
+            throw new IllegalArgumentException("Sort buffer size must be positive");
+        }
+        this.sortBufferSize = sortBufferSize;
+    }
+
+    /** Sets the number of threads encoding the features, defaults to 1 */
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    /** Adds a feature to the file */
+    public void writeFeature(SimpleFeature feature) throws IOException {
+        if (closed) {
+            throw new IOException("Writer already closed");
+        }
+        if (data == null) {
+            dataFile = createTempFile("data");
+            data = new BufferedOutputStream(Files.newOutputStream(dataFile.toPath()), 1 << 16);
+            sorter = new PackedHilbertRTree.Sorter(tempDirectory, RECORD_BYTES);
+            sorter.setCurve(CURVE);
+            sorter.setRunSize(sortBufferSize);
+        }
+        if (threads == 1) {
+            if (builder == null) {
+                builder = FlatBuffers.newBuilder(16 * 1024);
+            }
+            spill(encode(feature, builder));
+        } else {
+            batch.add(feature);
+            if (batch.size() >= ENCODING_BATCH_SIZE * threads) {
+                encodeBatch();
+            }
+        }
+    }
+
+    /**
+     * Sorts the features, and writes the header, the R-tree and the features to the output stream.
+     * The temporary files are deleted.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try (PackedHilbertRTree.Sorter spilledBounds = sorter) {
+            try (OutputStream spilledData = data) {
+                if (!batch.isEmpty()) {
+                    encodeBatch();
+                }
+            }
+            writeFile();
+        } finally {
+            if (builder != null) {
+                FlatBuffers.release(builder);
+                builder = null;
+            }
+            if (executor != null) {
+                executor.shutdownNow();
+                executor = null;
+            }
+            for (File file : tempFiles) {
+                Files.deleteIfExists(file.toPath());
+            }
+            tempFiles.clear();
+        }
+    }
+
+    /** An encoded feature */
+    private static final class Encoded {
+        final byte[] bytes;
+        final Envelope bounds;
+
+        Encoded(byte[] bytes, Envelope bounds) {
+            this.bytes = bytes;
+            this.bounds = bounds;
+        }
+    }
+
+    private Encoded encode(SimpleFeature feature, FlatBufferBuilder builder) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        FeatureConversions.serialize(feature, headerMeta, bytes, builder);
+        builder.clear();
+        Geometry geometry = (Geometry) feature.getDefaultGeometry();
+        Envelope bounds = geometry == null ? null : geometry.getEnvelopeInternal();
+        return new Encoded(bytes.toByteArray(), bounds);
+    }
+
+    /** Encodes the pending features on the executor, and spills them in order */
+    private void encodeBatch() throws IOException {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(threads);
+        }
+        List<Future<List<Encoded>>> tasks = new ArrayList<>();
+        for (int start = 0; start < batch.size(); start += ENCODING_BATCH_SIZE) {
+            List<SimpleFeature> features =
+                    batch.subList(start, Math.min(batch.size(), start + ENCODING_BATCH_SIZE));
+            tasks.add(
+                    executor.submit(
+                            () -> {
+                                FlatBufferBuilder taskBuilder = FlatBuffers.newBuilder(16 * 1024);
+                                try {
+                                    List<Encoded> result = new ArrayList<>(features.size());
+                                    for (SimpleFeature feature : features) {
+                                        result.add(encode(feature, taskBuilder));
+                                    }
+                                    return result;
+                                } finally {
+                                    FlatBuffers.release(taskBuilder);
+                                }
+                            }));
+        }
+        try {
+            for (Future<List<Encoded>> task : tasks) {
+                for (Encoded encoded : task.get()) {
+                    spill(encoded);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while encoding features", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+        batch = new ArrayList<>();
+    }
+
+    private void spill(Encoded encoded) throws IOException {
+        Envelope bounds = encoded.bounds;
+        record.clear();
+        record.putLong(dataSize).putInt(encoded.bytes.length).flip();
+        if (bounds == null || bounds.isNull()) {
+            // never matches a search, and does not affect the parent bounds
+            sorter.add(
+                    Double.POSITIVE_INFINITY,
+                    Double.POSITIVE_INFINITY,
+                    Double.NEGATIVE_INFINITY,
+                    Double.NEGATIVE_INFINITY,
+                    record);
+        } else {
+            sorter.add(
+                    bounds.getMinX(), bounds.getMinY(), bounds.getMaxX(), bounds.getMaxY(), record);
+        }
+        data.write(encoded.bytes);
+        dataSize += encoded.bytes.length;
+    }
+
+    private void writeFile() throws IOException {
+        long featuresCount = sorter == null ? 0 : sorter.getCount();
+        Envelope extent = sorter == null ? new Envelope() : sorter.getExtent();
+        headerMeta.featuresCount = featuresCount;
+        headerMeta.indexNodeSize = featuresCount > 0 ? nodeSize : 0;
+        headerMeta.envelope = extent.isNull() ? null : extent;
+        outputStream.write(Constants.MAGIC_BYTES);
+        FlatBufferBuilder headerBuilder = FlatBuffers.newBuilder(16 * 1024);
+        try {
+            HeaderMeta.write(headerMeta, outputStream, headerBuilder);
+        } finally {
+            FlatBuffers.release(headerBuilder);
+        }
+        if (featuresCount == 0) {
+            return;
+        }
+
+        // the number of nodes of each level, leaves first, the root being a node of its own even
+        // with a single feature
+        List<Long> levelNumNodes = new ArrayList<>();
+        long n = featuresCount;
+        levelNumNodes.add(n);
+        do {
+            n = (n + nodeSize - 1) / nodeSize;
+            levelNumNodes.add(n);
+        } while (n != 1);
+        // the tree is stored root first, each node pointing to its first child
+        long[] levelStarts = new long[levelNumNodes.size()];
+        for (int level = levelNumNodes.size() - 2; level >= 0; level--) {
+            levelStarts[level] = levelStarts[level + 1] + levelNumNodes.get(level + 1);
+        }
+
+        // sort the features, writing the levels of the tree and the order of the features
+        List<File> levelFiles = new ArrayList<>();
+        List<LittleEndianDataOutputStream> levels = new ArrayList<>();
+        File orderFile = createTempFile("order");
+        try (DataOutputStream order = createData(orderFile)) {
+            for (int level = 0; level < levelNumNodes.size(); level++) {
+                File file = createTempFile("level");
+                levelFiles.add(file);
+                levels.add(
+                        new LittleEndianDataOutputStream(
+                                new BufferedOutputStream(
+                                        Files.newOutputStream(file.toPath()), 1 << 16)));
+            }
+            PackedHilbertRTree.LevelBuilder parents =
+                    new PackedHilbertRTree.LevelBuilder(
+                            featuresCount,
+                            nodeSize,
+                            (level, index, minX, minY, maxX, maxY, firstChild) ->
+                                    writeNode(
+                                            levels.get(level),
+                                            minX,
+                                            minY,
+                                            maxX,
+                                            maxY,
+                                            levelStarts[level - 1] + firstChild));
+            long[] featureOffset = {0};
+            sorter.sort(
+                    (minX, minY, maxX, maxY, record) -> {
+                        writeNode(levels.get(0), minX, minY, maxX, maxY, featureOffset[0]);
+                        long position = record.getLong();
+                        int size = record.getInt();
+                        order.writeLong(position);
+                        order.writeInt(size);
+                        featureOffset[0] += size;
+                        parents.add(minX, minY, maxX, maxY);
+                    });
+            parents.finish();
+            if (featuresCount == 1) {
+                Envelope bounds = extent.isNull() ? null : extent;
+                writeNode(
+                        levels.get(1),
+                        bounds == null ? Double.POSITIVE_INFINITY : bounds.getMinX(),
+                        bounds == null ? Double.POSITIVE_INFINITY : bounds.getMinY(),
+                        bounds == null ? Double.NEGATIVE_INFINITY : bounds.getMaxX(),
+                        bounds == null ? Double.NEGATIVE_INFINITY : bounds.getMaxY(),
+                        levelStarts[0]);
+            }
+        } finally {
+            for (LittleEndianDataOutputStream level : levels) {
+                level.close();
+            }
+        }
+
+        for (int level = levelFiles.size() - 1; level >= 0; level--) {
+            Files.copy(levelFiles.get(level).toPath(), outputStream);
+        }
+        writeFeatures(orderFile, featuresCount);
+        outputStream.flush();
+    }
+
+    private static void writeNode(
+            LittleEndianDataOutputStream out,
+            double minX,
+            double minY,
+            double maxX,
+            double maxY,
+            long offset)
+            throws IOException {
+        out.writeDouble(minX);
+        out.writeDouble(minY);
+        out.writeDouble(maxX);
+        out.writeDouble(maxY);
+        out.writeLong(offset);
+    }
+
+    /** Copies the encoded features from the data file, in the order of the leaves */
+    private void writeFeatures(File order, long featuresCount) throws IOException {
+        // Closing is caller responsibility
+        @SuppressWarnings("PMD.CloseResource")
+        WritableByteChannel target = Channels.newChannel(outputStream);
+        try (DataInputStream in = openData(order);
+                FileChannel source = FileChannel.open(dataFile.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+            for (long i = 0; i < featuresCount; i++) {
+                long position = in.readLong();
+                int size = in.readInt();
+                if (buffer.capacity() < size) {
+                    buffer = ByteBuffer.allocate(size);
+                }
+                buffer.clear().limit(size);
+                while (buffer.hasRemaining()) {
+                    if (source.read(buffer, position + buffer.position()) < 0) {
+                        throw new EOFException("Truncated temporary feature file");
+                    }
+                }
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    target.write(buffer);
+                }
+            }
+        }
+    }
+
+    private File createTempFile(String suffix) throws IOException {
+        File file = File.createTempFile("fgb", "." + suffix, tempDirectory);
+        tempFiles.add(file);
+        return file;
+    }
+
+    private static DataInputStream openData(File file) throws IOException {
+        InputStream in = Files.newInputStream(file.toPath());
+        return new DataInputStream(new BufferedInputStream(in, 1 << 16));
+    }
+
+    private static DataOutputStream createData(File file) throws IOException {
+        OutputStream out = Files.newOutputStream(file.toPath());
+        return new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+    }
+}
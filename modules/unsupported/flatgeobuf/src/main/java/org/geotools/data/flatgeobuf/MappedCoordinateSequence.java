@@ -0,0 +1,226 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2024, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.flatgeobuf;
+
+import java.nio.DoubleBuffer;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.impl.PackedCoordinateSequence;
+
+/**
+ * A {@link CoordinateSequence} reading the ordinates straight from the xy, z and m vectors of a
+ * FlatGeobuf geometry, without copying them.
+ *
+ * <p>The vectors are usually views of a read only memory mapped file, so the ordinates are copied
+ * to the heap the first time the sequence is modified.
+ */
+final class MappedCoordinateSequence implements CoordinateSequence {
+
+    private final DoubleBuffer xy;
+
+    private final DoubleBuffer z;
+
+    private final DoubleBuffer m;
+
+    /** Index of the first coordinate of the sequence in the vectors */
+    private final int offset;
+
+    private final int size;
+
+    private final int dimension;
+
+    private final int measures;
+
+    /** The ordinates, once the sequence has been modified */
+    private double[] copy;
+
+    /**
+     * @param xy the interleaved x and y ordinates
+     * @param z the z ordinates, or null
+     * @param m the m ordinates, or null
+     * @param offset index of the first coordinate in the vectors
+     * @param size number of coordinates
+     */
+    MappedCoordinateSequence(
+            DoubleBuffer xy, DoubleBuffer z, DoubleBuffer m, int offset, int size) {
+        this.xy = xy;
+        this.z = z;
+        this.m = m;
+        this.offset = offset;
+        this.size = size;
+        this.measures = m == null ? 0 : 1;
+        this.dimension = 2 + (z == null ? 0 : 1) + measures;
+    }
+
+    @Override
+    public int getDimension() {
+        return dimension;
+    }
+
+    @Override
+    public int getMeasures() {
+        return measures;
+    }
+
+    @Override
+    public Coordinate getCoordinate(int i) {
+        Coordinate coordinate = createCoordinate();
+        getCoordinate(i, coordinate);
+        return coordinate;
+    }
+
+    @Override
+    public Coordinate getCoordinateCopy(int i) {
+        return getCoordinate(i);
+    }
+
+    @Override
+    public void getCoordinate(int index, Coordinate coord) {
+        coord.x = getX(index);
+        coord.y = getY(index);
+        if (hasZ()) {
+            coord.setZ(getZ(index));
+        }
+        if (hasM()) {
+            coord.setM(getM(index));
+        }
+    }
+
+    @Override
+    public double getX(int index) {
+        if (copy != null) {
+            return copy[index * dimension];
+        }
+        return xy.get(2 * (offset + index));
+    }
+
+    @Override
+    public double getY(int index) {
+        if (copy != null) {
+            return copy[index * dimension + 1];
+        }
+        return xy.get(2 * (offset + index) + 1);
+    }
+
+    @Override
+    public double getZ(int index) {
+        if (z == null) {
+            return Double.NaN;
+        }
+        if (copy != null) {
+            return copy[index * dimension + 2];
+        }
+        return z.get(offset + index);
+    }
+
+    @Override
+    public double getM(int index) {
+        if (m == null) {
+            return Double.NaN;
+        }
+        if (copy != null) {
+            return copy[index * dimension + dimension - 1];
+        }
+        return m.get(offset + index);
+    }
+
+    @Override
+    public double getOrdinate(int index, int ordinateIndex) {
+        switch (ordinateIndex) {
+            case 0:
+                return getX(index);
+            case 1:
+                return getY(index);
+            case 2:
+                return z != null ? getZ(index) : getM(index);
+            case 3:
+                return getM(index);
+            default:
+                return Double.NaN;
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void setOrdinate(int index, int ordinateIndex, double value) {
+        if (ordinateIndex < 0 || ordinateIndex >= dimension) {
+            throw new IllegalArgumentException("Invalid ordinate index: " + ordinateIndex);
+        }
+        if (copy == null) {
+            copy = toDoubleArray();
+        }
+        copy[index * dimension + ordinateIndex] = value;
+    }
+
+    @Override
+    public Coordinate[] toCoordinateArray() {
+        Coordinate[] coordinates = new Coordinate[size];
+        for (int i = 0; i < size; i++) {
+            coordinates[i] = getCoordinate(i);
+        }
+        return coordinates;
+    }
+
+    @Override
+    public Envelope expandEnvelope(Envelope env) {
+        for (int i = 0; i < size; i++) {
+            env.expandToInclude(getX(i), getY(i));
+        }
+        return env;
+    }
+
+    @Override
+    @Deprecated
+    public Object clone() {
+        return copy();
+    }
+
+    @Override
+    public CoordinateSequence copy() {
+        return new PackedCoordinateSequence.Double(toDoubleArray(), dimension, measures);
+    }
+
+    /** Returns the ordinates, interleaved as expected by {@link PackedCoordinateSequence} */
+    private double[] toDoubleArray() {
+        if (copy != null) {
+            return copy.clone();
+        }
+        double[] ordinates = new double[size * dimension];
+        for (int i = 0, j = 0; i < size; i++) {
+            int p = offset + i;
+            ordinates[j++] = xy.get(2 * p);
+            ordinates[j++] = xy.get(2 * p + 1);
+            if (z != null) {
+                ordinates[j++] = z.get(p);
+            }
+            if (m != null) {
+                ordinates[j++] = m.get(p);
+            }
+        }
+        return ordinates;
+    }
+
+    @Override
+    public String toString() {
+        return "MappedCoordinateSequence[size=" + size + ", dimension=" + dimension + "]";
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2024, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.flatgeobuf;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.NoSuchElementException;
+import org.geotools.api.data.FeatureReader;
+import org.geotools.api.data.Query;
+import org.geotools.api.feature.simple.SimpleFeature;
+import org.geotools.api.feature.simple.SimpleFeatureType;
+import org.geotools.api.filter.Filter;
+import org.geotools.api.filter.Id;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.geotools.filter.visitor.ExtractBoundsFilterVisitor;
+import org.geotools.geometry.jts.ReferencedEnvelope;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.wololo.flatgeobuf.HeaderMeta;
+import org.wololo.flatgeobuf.generated.Feature;
+import org.wololo.flatgeobuf.generated.Geometry;
+
+/**
+ * Reads the features of a memory mapped FlatGeobuf file, searching the spatial index in place and
+ * decoding the features straight from the mapped buffer, with geometries backed by {@link
+ * MappedCoordinateSequence} views.
+ *
+ * <p>Supports the same query shortcuts as {@link FlatGeobufFeatureReader}: bounding box and feature
+ * id lookups through the index, and start index.
+ *
+ * <p>The buffer is never unmapped explicitly, as the geometries read keep views of it, see {@link
+ * FlatGeobufDataStore#releaseMappedBuffer()}.
+ */
+class MappedFeatureReader implements FeatureReader<SimpleFeatureType, SimpleFeature> {
+
+    private final SimpleFeatureType featureType;
+
+    private final HeaderMeta headerMeta;
+
+    private final SimpleFeatureBuilder builder;
+
+    private final GeometryFactory geometryFactory = new GeometryFactory();
+
+    /** The whole file, shared by all the features read */
+    private final ByteBuffer buffer;
+
+    /** Position of the first feature in the buffer */
+    private final int featuresOffset;
+
+    private final MappedPackedRTree index;
+
+    /** The sorted indexes of the features to read, or null to read them all sequentially */
+    private long[] indexes;
+
+    private int next;
+
+    /** Index and position of the next feature, when reading sequentially */
+    private long sequentialIndex;
+
+    private long sequentialPosition;
+
+    MappedFeatureReader(
+            SimpleFeatureType featureType, Query q, HeaderMeta headerMeta, ByteBuffer buffer) {
+        this.featureType = featureType;
+        this.headerMeta = headerMeta;
+        this.builder = new SimpleFeatureBuilder(featureType);
+        this.buffer = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        long treeSize = MappedPackedRTree.size(headerMeta.featuresCount, headerMeta.indexNodeSize);
+        this.featuresOffset = Math.toIntExact(headerMeta.offset + treeSize);
+        this.index =
+                treeSize > 0
+                        ? new MappedPackedRTree(
+                                buffer,
+                                headerMeta.offset,
+                                headerMeta.featuresCount,
+                                headerMeta.indexNodeSize)
+                        : null;
+        this.sequentialPosition = featuresOffset;
+
+        Filter filter = q.getFilter();
+        Envelope bbox = new ReferencedEnvelope();
+        Id id = null;
+        if (filter != null) {
+            bbox = (Envelope) filter.accept(ExtractBoundsFilterVisitor.BOUNDS_VISITOR, bbox);
+            if (filter instanceof Id) id = (Id) filter;
+        }
+        if (bbox == null
+                || bbox.isNull()
+                || Double.isInfinite(bbox.getWidth())
+                || Double.isInfinite(bbox.getHeight())) {
+            bbox = null;
+        }
+        Integer startIndex = q.getStartIndex();
+        if (index == null) {
+            // no index, read everything and let the caller filter
+            return;
+        }
+        if (bbox != null) {
+            indexes = index.search(bbox);
+        } else if (id != null) {
+            long featuresCount = headerMeta.featuresCount;
+            indexes =
+                    id.getIdentifiers().stream()
+                            .mapToLong(i -> extractFid(i.getID().toString()))
+                            .filter(l -> l >= 0 && l < featuresCount)
+                            .sorted()
+                            .distinct()
+                            .toArray();
+        } else if (startIndex != null && startIndex > 0) {
+            if (startIndex >= headerMeta.featuresCount) throw new IndexOutOfBoundsException();
+            sequentialIndex = startIndex;
+            sequentialPosition = featuresOffset + index.getFeatureOffset(startIndex);
+        }
+    }
+
+    static long extractFid(String id) {
+        int dotIndex = id.indexOf('.');
+        try {
+            return Long.parseLong(id.substring(dotIndex + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    @Override
+    public SimpleFeatureType getFeatureType() {
+        return featureType;
+    }
+
+    @Override
+    public boolean hasNext() throws IOException {
+        if (indexes != null) {
+            return next < indexes.length;
+        }
+        if (headerMeta.featuresCount > 0 && sequentialIndex >= headerMeta.featuresCount) {
+            return false;
+        }
+        // the features count is optional, the end of the file also ends the features
+        return sequentialPosition + Integer.BYTES <= buffer.limit();
+    }
+
+    @Override
+    public SimpleFeature next() throws IOException, NoSuchElementException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        long fid;
+        int position;
+        if (indexes != null) {
+            fid = indexes[next++];
+            position = Math.toIntExact(featuresOffset + index.getFeatureOffset(fid));
+        } else {
+            fid = sequentialIndex++;
+            position = (int) sequentialPosition;
+        }
+        int featureSize = buffer.getInt(position);
+        if (indexes == null) {
+            sequentialPosition += Integer.BYTES + featureSize;
+        }
+        buffer.position(position + Integer.BYTES);
+        Feature feature = Feature.getRootAsFeature(buffer);
+        Geometry geometry = feature.geometry();
+        org.locationtech.jts.geom.Geometry jtsGeometry =
+                geometry == null
+                        ? null
+                        : MappedGeometryConversions.deserialize(
+                                geometry, headerMeta.geometryType, geometryFactory);
+        return FeatureConversions.deserialize(feature, jtsGeometry, builder, headerMeta, fid);
+    }
+
+    @Override
+    public void close() throws IOException {
+        // the buffer is shared with the other readers, and released by the garbage collector
+        indexes = null;
+        sequentialPosition = buffer.limit();
+    }
+}
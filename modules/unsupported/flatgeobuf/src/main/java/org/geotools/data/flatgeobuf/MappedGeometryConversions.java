@@ -0,0 +1,181 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2024, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.flatgeobuf;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.LinearRing;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.Polygon;
+import org.wololo.flatgeobuf.GeometryConversions;
+import org.wololo.flatgeobuf.generated.GeometryType;
+
+/**
+ * Builds JTS geometries whose coordinate sequences are {@link MappedCoordinateSequence} views of
+ * the FlatGeobuf geometry vectors. Geometry types other than the simple features ones are delegated
+ * to {@link GeometryConversions}, which copies the coordinates.
+ */
+final class MappedGeometryConversions {
+
+    private MappedGeometryConversions() {}
+
+    static Geometry deserialize(
+            org.wololo.flatgeobuf.generated.Geometry geometry,
+            byte geometryType,
+            GeometryFactory factory) {
+        if (geometryType == GeometryType.Unknown) {
+            geometryType = (byte) geometry.type();
+        }
+        switch (geometryType) {
+            case GeometryType.MultiPolygon:
+                {
+                    int partsLength = geometry.partsLength();
+                    Polygon[] polygons = new Polygon[partsLength];
+                    for (int i = 0; i < partsLength; i++) {
+                        Ordinates part = Ordinates.of(geometry.parts(i));
+                        if (part == null) {
+                            return GeometryConversions.deserialize(geometry, geometryType);
+                        }
+                        polygons[i] = polygon(part, factory);
+                    }
+                    return factory.createMultiPolygon(polygons);
+                }
+            case GeometryType.GeometryCollection:
+                {
+                    int partsLength = geometry.partsLength();
+                    Geometry[] geometries = new Geometry[partsLength];
+                    for (int i = 0; i < partsLength; i++) {
+                        org.wololo.flatgeobuf.generated.Geometry part = geometry.parts(i);
+                        geometries[i] = deserialize(part, (byte) part.type(), factory);
+                    }
+                    return factory.createGeometryCollection(geometries);
+                }
+            default:
+                break;
+        }
+        Ordinates ordinates = Ordinates.of(geometry);
+        if (ordinates == null) {
+            // empty or not a simple feature geometry
+            return GeometryConversions.deserialize(geometry, geometryType);
+        }
+        switch (geometryType) {
+            case GeometryType.Point:
+                return factory.createPoint(ordinates.sequence(0, 1));
+            case GeometryType.MultiPoint:
+                {
+                    Point[] points = new Point[ordinates.size];
+                    for (int i = 0; i < points.length; i++) {
+                        points[i] = factory.createPoint(ordinates.sequence(i, 1));
+                    }
+                    return factory.createMultiPoint(points);
+                }
+            case GeometryType.LineString:
+                return factory.createLineString(ordinates.sequence(0, ordinates.size));
+            case GeometryType.MultiLineString:
+                {
+                    int endsLength = geometry.endsLength();
+                    if (endsLength == 0) {
+                        return factory.createMultiLineString(
+                                new LineString[] {
+                                    factory.createLineString(ordinates.sequence(0, ordinates.size))
+                                });
+                    }
+                    LineString[] lines = new LineString[endsLength];
+                    int start = 0;
+                    for (int i = 0; i < endsLength; i++) {
+                        int end = (int) geometry.ends(i);
+                        lines[i] = factory.createLineString(ordinates.sequence(start, end - start));
+                        start = end;
+                    }
+                    return factory.createMultiLineString(lines);
+                }
+            case GeometryType.Polygon:
+                return polygon(ordinates, factory);
+            default:
+                return GeometryConversions.deserialize(geometry, geometryType);
+        }
+    }
+
+    private static Polygon polygon(Ordinates ordinates, GeometryFactory factory) {
+        org.wololo.flatgeobuf.generated.Geometry geometry = ordinates.geometry;
+        int endsLength = geometry.endsLength();
+        if (endsLength <= 1) {
+            return factory.createPolygon(ordinates.sequence(0, ordinates.size));
+        }
+        LinearRing shell = null;
+        LinearRing[] holes = new LinearRing[endsLength - 1];
+        int start = 0;
+        for (int i = 0; i < endsLength; i++) {
+            int end = (int) geometry.ends(i);
+            LinearRing ring = factory.createLinearRing(ordinates.sequence(start, end - start));
+            if (i == 0) {
+                shell = ring;
+            } else {
+                holes[i - 1] = ring;
+            }
+            start = end;
+        }
+        return factory.createPolygon(shell, holes);
+    }
+
+    /** The ordinate vectors of a geometry */
+    private static final class Ordinates {
+
+        final org.wololo.flatgeobuf.generated.Geometry geometry;
+
+        final DoubleBuffer xy;
+
+        final DoubleBuffer z;
+
+        final DoubleBuffer m;
+
+        final int size;
+
+        private Ordinates(org.wololo.flatgeobuf.generated.Geometry geometry, DoubleBuffer xy) {
+            this.geometry = geometry;
+            this.xy = xy;
+            this.size = geometry.xyLength() / 2;
+            this.z = geometry.zLength() > 0 ? asDoubleBuffer(geometry.zAsByteBuffer()) : null;
+            this.m = geometry.mLength() > 0 ? asDoubleBuffer(geometry.mAsByteBuffer()) : null;
+        }
+
+        /** Returns the ordinates of the geometry, or null if it has no coordinates */
+        static Ordinates of(org.wololo.flatgeobuf.generated.Geometry geometry) {
+            if (geometry == null || geometry.xyLength() == 0) {
+                return null;
+            }
+            DoubleBuffer xy = asDoubleBuffer(geometry.xyAsByteBuffer());
+            return xy == null ? null : new Ordinates(geometry, xy);
+        }
+
+        CoordinateSequence sequence(int offset, int count) {
+            return new MappedCoordinateSequence(xy, z, m, offset, count);
+        }
+
+        private static DoubleBuffer asDoubleBuffer(ByteBuffer vector) {
+            if (vector == null) {
+                return null;
+            }
+            return vector.slice().order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+        }
+    }
+}
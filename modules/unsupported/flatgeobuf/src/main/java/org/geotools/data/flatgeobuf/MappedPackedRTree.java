@@ -0,0 +1,153 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2024, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.flatgeobuf;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.locationtech.jts.geom.Envelope;
+
+/**
+ * The packed Hilbert R-tree of a FlatGeobuf file, searched in place in a memory mapped buffer.
+ *
+ * <p>The tree is stored root first, one level after the other, each node item being its bounds
+ * followed by the offset of its first child, or of the feature for the leaves. The leaves are in
+ * the same order as the features, so the leaf of the feature at index {@code i} is {@code i} items
+ * after the first leaf.
+ */
+final class MappedPackedRTree {
+
+    /** Size of a node item: four doubles for the bounds and an unsigned long offset */
+    static final int NODE_ITEM_BYTES = 40;
+
+    private final ByteBuffer buffer;
+
+    private final int treeOffset;
+
+    private final long numItems;
+
+    private final int nodeSize;
+
+    /** Start and end node of each level, the leaves first */
+    private final long[][] levelBounds;
+
+    /**
+     * @param buffer the whole file
+     * @param treeOffset position of the tree in the file
+     * @param numItems the number of features
+     * @param nodeSize the maximum number of children of a node
+     */
+    MappedPackedRTree(ByteBuffer buffer, int treeOffset, long numItems, int nodeSize) {
+        if (nodeSize < 2) {
+            throw new IllegalArgumentException("Node size must be at least 2");
+        }
+        if (numItems <= 0) {
+            throw new IllegalArgumentException("Number of items must be positive");
+        }
+        this.buffer = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        this.treeOffset = treeOffset;
+        this.numItems = numItems;
+        this.nodeSize = nodeSize;
+
+        List<Long> levelNumNodes = new ArrayList<>();
+        long n = numItems;
+        long nodes = n;
+        levelNumNodes.add(n);
+        do {
+            n = (n + nodeSize - 1) / nodeSize;
+            nodes += n;
+            levelNumNodes.add(n);
+        } while (n != 1);
+        this.levelBounds = new long[levelNumNodes.size()][];
+        n = nodes;
+        for (int i = 0; i < levelBounds.length; i++) {
+            long size = levelNumNodes.get(i);
+            levelBounds[i] = new long[] {n - size, n};
+            n -= size;
+        }
+    }
+
+    /** Returns the size of the tree in bytes */
+    static long size(long numItems, int nodeSize) {
+        if (numItems <= 0 || nodeSize < 2) {
+            return 0;
+        }
+        long n = numItems;
+        long nodes = n;
+        do {
+            n = (n + nodeSize - 1) / nodeSize;
+            nodes += n;
+        } while (n != 1);
+        return nodes * NODE_ITEM_BYTES;
+    }
+
+    /** Returns the offset of a feature, relative to the first feature */
+    long getFeatureOffset(long index) {
+        if (index < 0 || index >= numItems) {
+            throw new IndexOutOfBoundsException("Invalid feature index " + index);
+        }
+        return buffer.getLong(itemPosition(levelBounds[0][0] + index) + 32);
+    }
+
+    /** Returns the index of the features intersecting the given bounds, sorted */
+    long[] search(Envelope bounds) {
+        long[] hits = new long[16];
+        int hitCount = 0;
+        // pending nodes, as pairs of first child and level
+        long[] queue = new long[16];
+        int queueSize = 0;
+        queue[queueSize++] = 0;
+        queue[queueSize++] = levelBounds.length - 1;
+        final long leavesStart = levelBounds[0][0];
+        while (queueSize > 0) {
+            int level = (int) queue[--queueSize];
+            long nodeIndex = queue[--queueSize];
+            boolean isLeaf = nodeIndex >= leavesStart;
+            long end = Math.min(nodeIndex + nodeSize, levelBounds[level][1]);
+            for (long pos = nodeIndex; pos < end; pos++) {
+                int item = itemPosition(pos);
+                if (bounds.getMaxX() < buffer.getDouble(item)
+                        || bounds.getMaxY() < buffer.getDouble(item + 8)
+                        || bounds.getMinX() > buffer.getDouble(item + 16)
+                        || bounds.getMinY() > buffer.getDouble(item + 24)) {
+                    continue;
+                }
+                if (isLeaf) {
+                    if (hitCount == hits.length) {
+                        hits = Arrays.copyOf(hits, hitCount * 2);
+                    }
+                    hits[hitCount++] = pos - leavesStart;
+                } else {
+                    if (queueSize + 2 > queue.length) {
+                        queue = Arrays.copyOf(queue, queue.length * 2);
+                    }
+                    queue[queueSize++] = buffer.getLong(item + 32);
+                    queue[queueSize++] = level - 1;
+                }
+            }
+        }
+        long[] result = Arrays.copyOf(hits, hitCount);
+        Arrays.sort(result);
+        return result;
+    }
+
+    private int itemPosition(long node) {
+        return Math.toIntExact(treeOffset + node * NODE_ITEM_BYTES);
+    }
+}
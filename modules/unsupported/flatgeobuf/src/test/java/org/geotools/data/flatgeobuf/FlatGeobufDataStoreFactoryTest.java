@@ -47,8 +47,10 @@ public void metadata() {
         assertTrue(dataStoreFactory.isAvailable());
         assertNull(dataStoreFactory.getImplementationHints());
         DataAccessFactory.Param[] params = dataStoreFactory.getParametersInfo();
-        assertEquals(2, params.length);
+        assertEquals(4, params.length);
         assertEquals(FlatGeobufDataStoreFactory.URL_PARAM, params[0]);
+        assertEquals(FlatGeobufDataStoreFactory.MEMORY_MAPPED, params[2]);
+        assertEquals(FlatGeobufDataStoreFactory.SPATIAL_INDEX, params[3]);
     }
 
     @Test
@@ -19,6 +19,8 @@
 import static org.geotools.referencing.crs.DefaultGeographicCRS.WGS84;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
@@ -26,12 +28,15 @@
 import java.io.Serializable;
 import java.net.URL;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import org.geotools.api.data.DataStore;
 import org.geotools.api.data.DataStoreFinder;
+import org.geotools.api.data.FeatureReader;
 import org.geotools.api.data.Query;
 import org.geotools.api.data.SimpleFeatureSource;
 import org.geotools.api.data.SimpleFeatureStore;
+import org.geotools.api.data.Transaction;
 import org.geotools.api.feature.simple.SimpleFeature;
 import org.geotools.api.feature.simple.SimpleFeatureType;
 import org.geotools.api.filter.Filter;
@@ -1007,6 +1012,58 @@ private SimpleFeatureSource getFeatureSource(String name) throws IOException {
         return store.getFeatureSource(name);
     }
 
+    @Test
+    public void writeAfterMappedRead() throws Exception {
+        File file = temporaryFolder.newFile("points.fgb");
+        file.delete();
+        Map<String, Serializable> params = new HashMap<>();
+        params.put(FlatGeobufDataStoreFactory.URL_PARAM.key, file.toURI().toURL());
+        params.put(FlatGeobufDataStoreFactory.MEMORY_MAPPED.key, true);
+        FlatGeobufDataStore store = (FlatGeobufDataStore) DataStoreFinder.getDataStore(params);
+        SimpleFeatureType featureType = DataUtilities.createType("points", "geom:Point,id:int");
+        store.createSchema(featureType);
+        SimpleFeatureStore featureStore = (SimpleFeatureStore) store.getFeatureSource("points");
+        GeometryFactory gf = JTSFactoryFinder.getGeometryFactory();
+        featureStore.addFeatures(
+                DataUtilities.collection(
+                        SimpleFeatureBuilder.build(
+                                featureType,
+                                new Object[] {gf.createPoint(new Coordinate(1, 1)), 1},
+                                "points.1")));
+
+        // read through the mapped buffer, leaving a reader open
+        Query query = new Query("points");
+        List<SimpleFeature> read =
+                DataUtilities.list(store.getFeatureSource("points").getFeatures());
+        assertEquals(1, read.size());
+        FeatureReader<SimpleFeatureType, SimpleFeature> open =
+                store.getFeatureReader(query, Transaction.AUTO_COMMIT);
+        assertNotNull(store.mappedBuffer);
+
+        // the write drops the buffer, without unmapping it under the open reader and geometries
+        featureStore.addFeatures(
+                DataUtilities.collection(
+                        SimpleFeatureBuilder.build(
+                                featureType,
+                                new Object[] {gf.createPoint(new Coordinate(2, 2)), 2},
+                                "points.2")));
+        assertNull(store.mappedBuffer);
+        assertEquals("POINT (1 1)", read.get(0).getDefaultGeometry().toString());
+        assertTrue(open.hasNext());
+        assertEquals("POINT (1 1)", open.next().getDefaultGeometry().toString());
+        assertFalse(open.hasNext());
+        open.close();
+
+        // the file is mapped again with the new content
+        List<SimpleFeature> features =
+                DataUtilities.list(store.getFeatureSource("points").getFeatures());
+        assertEquals(2, features.size());
+        assertEquals("POINT (2 2)", features.get(1).getDefaultGeometry().toString());
+        assertNotNull(store.mappedBuffer);
+        store.dispose();
+        assertNull(store.mappedBuffer);
+    }
+
     @Test
     public void removeSchema() throws Exception {
         File file = temporaryFolder.newFile("points.fgb");
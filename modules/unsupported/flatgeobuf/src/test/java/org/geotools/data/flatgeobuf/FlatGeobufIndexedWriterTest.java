@@ -0,0 +1,184 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2024, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.flatgeobuf;
+
+import static org.geotools.referencing.crs.DefaultGeographicCRS.WGS84;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.geotools.api.data.DataStore;
+import org.geotools.api.data.DataStoreFinder;
+import org.geotools.api.data.FeatureWriter;
+import org.geotools.api.data.Query;
+import org.geotools.api.data.SimpleFeatureSource;
+import org.geotools.api.data.Transaction;
+import org.geotools.api.feature.simple.SimpleFeature;
+import org.geotools.api.feature.simple.SimpleFeatureType;
+import org.geotools.api.filter.FilterFactory;
+import org.geotools.api.filter.spatial.BBOX;
+import org.geotools.data.DataUtilities;
+import org.geotools.factory.CommonFactoryFinder;
+import org.geotools.geometry.jts.ReferencedEnvelope;
+import org.geotools.test.TestData;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.locationtech.jts.geom.Geometry;
+
+public class FlatGeobufIndexedWriterTest {
+
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final FilterFactory ff = CommonFactoryFinder.getFilterFactory();
+
+    @Test
+    public void writeSortedWithIndex() throws Exception {
+        DataStore source = getDataStore(TestData.url(FlatGeobufDataStore.class, "countries.fgb"));
+        File file = temporaryFolder.newFile("countries.fgb");
+        try {
+            List<SimpleFeature> expected =
+                    DataUtilities.list(source.getFeatureSource("countries").getFeatures());
+            SimpleFeatureType featureType = source.getSchema("countries");
+            try (OutputStream out = Files.newOutputStream(file.toPath());
+                    FlatGeobufIndexedWriter writer =
+                            new FlatGeobufIndexedWriter(
+                                    out, featureType, temporaryFolder.getRoot())) {
+                // several runs to merge, several nodes per level and parallel encoding
+                writer.setSortBufferSize(17);
+                writer.setNodeSize(4);
+                writer.setThreads(3);
+                for (SimpleFeature feature : expected) {
+                    writer.writeFeature(feature);
+                }
+            }
+            // only the output is left
+            assertEquals(1, temporaryFolder.getRoot().list().length);
+
+            for (boolean mapped : new boolean[] {false, true}) {
+                DataStore indexed = getDataStore(file.toURI().toURL(), mapped);
+                try {
+                    FlatGeobufDataStore store = (FlatGeobufDataStore) indexed;
+                    assertTrue(store.hasIndex());
+                    SimpleFeatureSource fs = indexed.getFeatureSource("countries");
+                    List<SimpleFeature> actual = DataUtilities.list(fs.getFeatures());
+                    assertEquals(geometries(expected), geometries(actual));
+
+                    BBOX bbox =
+                            ff.bbox(
+                                    ff.property(""),
+                                    new ReferencedEnvelope(112, 154, -44, -11, WGS84));
+                    Query q = new Query("countries", bbox);
+                    // the index returns the candidates, Australia and Fiji crossing the dateline
+                    assertEquals(2, fs.getCount(q));
+                    assertEquals(
+                            geometries(
+                                    DataUtilities.list(
+                                            source.getFeatureSource("countries").getFeatures(q))),
+                            geometries(DataUtilities.list(fs.getFeatures(q))));
+                } finally {
+                    indexed.dispose();
+                }
+            }
+        } finally {
+            source.dispose();
+        }
+    }
+
+    @Test
+    public void writeEmpty() throws Exception {
+        DataStore source = getDataStore(TestData.url(FlatGeobufDataStore.class, "points.fgb"));
+        File file = temporaryFolder.newFile("points.fgb");
+        try {
+            try (OutputStream out = Files.newOutputStream(file.toPath());
+                    FlatGeobufIndexedWriter writer =
+                            new FlatGeobufIndexedWriter(
+                                    out, source.getSchema("points"), temporaryFolder.getRoot())) {
+                // nothing to write
+            }
+            DataStore written = getDataStore(file.toURI().toURL());
+            try {
+                assertEquals(0, written.getFeatureSource("points").getCount(Query.ALL));
+            } finally {
+                written.dispose();
+            }
+        } finally {
+            source.dispose();
+        }
+    }
+
+    @Test
+    public void featureWriterWithIndex() throws Exception {
+        DataStore source = getDataStore(TestData.url(FlatGeobufDataStore.class, "points.fgb"));
+        File file = new File(temporaryFolder.getRoot(), "points.fgb");
+        Map<String, Serializable> params = new HashMap<>();
+        params.put(FlatGeobufDataStoreFactory.URL_PARAM.key, file.toURI().toURL());
+        params.put(FlatGeobufDataStoreFactory.SPATIAL_INDEX.key, true);
+        DataStore store = DataStoreFinder.getDataStore(params);
+        try {
+            SimpleFeatureType featureType = source.getSchema("points");
+            store.createSchema(featureType);
+            List<SimpleFeature> expected =
+                    DataUtilities.list(source.getFeatureSource("points").getFeatures());
+            try (FeatureWriter<SimpleFeatureType, SimpleFeature> writer =
+                    store.getFeatureWriterAppend("points", Transaction.AUTO_COMMIT)) {
+                for (SimpleFeature feature : expected) {
+                    SimpleFeature next = writer.next();
+                    next.setAttributes(feature.getAttributes());
+                    writer.write();
+                }
+            }
+            assertTrue(((FlatGeobufDataStore) store).hasIndex());
+            List<SimpleFeature> actual =
+                    DataUtilities.list(store.getFeatureSource("points").getFeatures());
+            assertEquals(geometries(expected), geometries(actual));
+        } finally {
+            store.dispose();
+            source.dispose();
+        }
+    }
+
+    private static List<String> geometries(List<SimpleFeature> features) {
+        return features.stream()
+                .map(f -> ((Geometry) f.getDefaultGeometry()).norm().toText())
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    private static DataStore getDataStore(URL url) throws IOException {
+        return getDataStore(url, false);
+    }
+
+    private static DataStore getDataStore(URL url, boolean memoryMapped) throws IOException {
+        Map<String, Serializable> params = new HashMap<>();
+        params.put(FlatGeobufDataStoreFactory.URL_PARAM.key, url);
+        params.put(FlatGeobufDataStoreFactory.MEMORY_MAPPED.key, memoryMapped);
+        DataStore store = DataStoreFinder.getDataStore(params);
+        assertNotNull(store);
+        return store;
+    }
+}
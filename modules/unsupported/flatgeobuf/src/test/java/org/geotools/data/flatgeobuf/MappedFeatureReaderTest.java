@@ -0,0 +1,223 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2024, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.flatgeobuf;
+
+import static org.geotools.referencing.crs.DefaultGeographicCRS.WGS84;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.geotools.api.data.DataStore;
+import org.geotools.api.data.DataStoreFinder;
+import org.geotools.api.data.FeatureReader;
+import org.geotools.api.data.Query;
+import org.geotools.api.data.SimpleFeatureSource;
+import org.geotools.api.data.Transaction;
+import org.geotools.api.feature.simple.SimpleFeature;
+import org.geotools.api.feature.simple.SimpleFeatureType;
+import org.geotools.api.filter.FilterFactory;
+import org.geotools.api.filter.spatial.BBOX;
+import org.geotools.data.DataUtilities;
+import org.geotools.factory.CommonFactoryFinder;
+import org.geotools.geometry.jts.ReferencedEnvelope;
+import org.geotools.test.TestData;
+import org.junit.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.CoordinateSequenceFilter;
+import org.locationtech.jts.geom.Geometry;
+
+public class MappedFeatureReaderTest {
+
+    private static final String[] FILES = {
+        "points",
+        "lines",
+        "polygons",
+        "multipoints",
+        "multilinestrings",
+        "multipolygons",
+        "countries",
+        "empty"
+    };
+
+    private final FilterFactory ff = CommonFactoryFinder.getFilterFactory();
+
+    @Test
+    public void readSameAsStream() throws Exception {
+        for (String name : FILES) {
+            DataStore streamed = getDataStore(name, false);
+            DataStore mapped = getDataStore(name, true);
+            try {
+                assertSameFeatures(
+                        name, read(streamed, name, Query.ALL), read(mapped, name, Query.ALL));
+            } finally {
+                streamed.dispose();
+                mapped.dispose();
+            }
+        }
+    }
+
+    @Test
+    public void readBBOX() throws Exception {
+        DataStore streamed = getDataStore("countries", false);
+        DataStore mapped = getDataStore("countries", true);
+        try {
+            BBOX bbox = ff.bbox(ff.property(""), new ReferencedEnvelope(112, 154, -44, -11, WGS84));
+            Query q = new Query("countries", bbox);
+            List<SimpleFeature> expected = read(streamed, "countries", q);
+            List<SimpleFeature> actual = read(mapped, "countries", q);
+            // Australia, and Fiji crossing the dateline
+            assertEquals(2, actual.size());
+            assertSameFeatures("countries", expected, actual);
+
+            SimpleFeatureSource source = mapped.getFeatureSource("countries");
+            assertEquals(2, source.getCount(q));
+            assertEquals(1, DataUtilities.count(source.getFeatures(q)));
+        } finally {
+            streamed.dispose();
+            mapped.dispose();
+        }
+    }
+
+    @Test
+    public void readFids() throws Exception {
+        DataStore streamed = getDataStore("countries", false);
+        DataStore mapped = getDataStore("countries", true);
+        try {
+            Query q =
+                    new Query(
+                            "countries",
+                            ff.id(
+                                    ff.featureId("countries.77"),
+                                    ff.featureId("countries.3"),
+                                    ff.featureId("countries.500")));
+            List<SimpleFeature> actual = read(mapped, "countries", q);
+            assertEquals(2, actual.size());
+            assertEquals("countries.3", actual.get(0).getID());
+            assertEquals("countries.77", actual.get(1).getID());
+            assertSameFeatures("countries", read(streamed, "countries", q), actual);
+        } finally {
+            streamed.dispose();
+            mapped.dispose();
+        }
+    }
+
+    @Test
+    public void readStartIndex() throws Exception {
+        DataStore streamed = getDataStore("countries", false);
+        DataStore mapped = getDataStore("countries", true);
+        try {
+            Query q = new Query("countries");
+            q.setStartIndex(170);
+            List<SimpleFeature> actual =
+                    DataUtilities.list(mapped.getFeatureSource("countries").getFeatures(q));
+            assertEquals(9, actual.size());
+            assertEquals("countries.170", actual.get(0).getID());
+            assertSameFeatures(
+                    "countries",
+                    DataUtilities.list(streamed.getFeatureSource("countries").getFeatures(q)),
+                    actual);
+        } finally {
+            streamed.dispose();
+            mapped.dispose();
+        }
+    }
+
+    @Test
+    public void modifyGeometry() throws Exception {
+        DataStore mapped = getDataStore("polygons", true);
+        try {
+            SimpleFeature feature = read(mapped, "polygons", Query.ALL).get(0);
+            Geometry geometry = (Geometry) feature.getDefaultGeometry();
+            Coordinate first = geometry.getCoordinates()[0];
+            // the mapped file is read only, the coordinates are copied on write
+            geometry.apply(
+                    new CoordinateSequenceFilter() {
+                        @Override
+                        public void filter(CoordinateSequence seq, int i) {
+                            seq.setOrdinate(i, 0, seq.getX(i) + 1);
+                        }
+
+                        @Override
+                        public boolean isDone() {
+                            return false;
+                        }
+
+                        @Override
+                        public boolean isGeometryChanged() {
+                            return true;
+                        }
+                    });
+            assertEquals(first.x + 1, geometry.getCoordinates()[0].x, 0d);
+            Geometry reread =
+                    (Geometry) read(mapped, "polygons", Query.ALL).get(0).getDefaultGeometry();
+            assertEquals(first.x, reread.getCoordinates()[0].x, 0d);
+        } finally {
+            mapped.dispose();
+        }
+    }
+
+    private DataStore getDataStore(String name, boolean memoryMapped) throws IOException {
+        URL url = TestData.url(FlatGeobufDataStore.class, name + ".fgb");
+        Map<String, Serializable> params = new HashMap<>();
+        params.put(FlatGeobufDataStoreFactory.URL_PARAM.key, url);
+        params.put(FlatGeobufDataStoreFactory.MEMORY_MAPPED.key, memoryMapped);
+        DataStore store = DataStoreFinder.getDataStore(params);
+        assertNotNull(store);
+        return store;
+    }
+
+    private List<SimpleFeature> read(DataStore store, String name, Query query) throws IOException {
+        Query q = new Query(query);
+        q.setTypeName(name);
+        List<SimpleFeature> features = new ArrayList<>();
+        try (FeatureReader<SimpleFeatureType, SimpleFeature> reader =
+                store.getFeatureReader(q, Transaction.AUTO_COMMIT)) {
+            while (reader.hasNext()) {
+                features.add(reader.next());
+            }
+        }
+        return features;
+    }
+
+    private static void assertSameFeatures(
+            String name, List<SimpleFeature> expected, List<SimpleFeature> actual) {
+        assertEquals(name, expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            SimpleFeature e = expected.get(i);
+            SimpleFeature a = actual.get(i);
+            assertEquals(name, e.getID(), a.getID());
+            for (int j = 0; j < e.getAttributeCount(); j++) {
+                Object value = e.getAttribute(j);
+                if (value instanceof Geometry) {
+                    assertTrue(
+                            name + " " + e.getID(),
+                            ((Geometry) value).equalsExact((Geometry) a.getAttribute(j)));
+                } else {
+                    assertEquals(name + " " + e.getID(), value, a.getAttribute(j));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,324 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2024, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.geojson;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.commons.io.FilenameUtils;
+import org.geotools.api.data.FeatureReader;
+import org.geotools.api.feature.simple.SimpleFeature;
+import org.geotools.api.feature.simple.SimpleFeatureType;
+import org.geotools.data.geojson.GeoJSONReader.IdStrategy;
+
+/**
+ * Reads a newline-delimited GeoJSON file, one feature per line, splitting it in chunks of lines
+ * parsed concurrently by {@link GeoJSONStreamingReader}s, and returning the features in file order.
+ *
+ * <p>Only the chunks in flight and the chunk being read are held in memory. Since the chunks are
+ * parsed independently, ids cannot be generated with {@link IdStrategy#AUTO}.
+ *
+ * <p>The chunks are parsed on a pool of daemon threads shared by all the readers, sized on the
+ * number of processors, each reader keeping at most as many chunks in flight as its thread count.
+ */
+public class GeoJSONSequenceReader implements FeatureReader<SimpleFeatureType, SimpleFeature> {
+
+    /** Default size of the chunks parsed by each thread */
+    public static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+
+    /** Longest first line checked by {@link #isFeatureSequence(File)} */
+    static final int MAX_PROBE_SIZE = 1024 * 1024;
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    /** The threads parsing the chunks of all the readers, released when idle */
+    private static final ThreadPoolExecutor EXECUTOR = createExecutor();
+
+    private final File file;
+
+    private final SimpleFeatureType featureType;
+
+    private final int threads;
+
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    private String idPrefix;
+
+    private String idFieldName = "id";
+
+    private IdStrategy idStrategy = IdStrategy.PROVIDED;
+
+    private FileChannel channel;
+
+    private long fileSize;
+
+    private long nextStart;
+
+    private final Deque<Future<List<SimpleFeature>>> chunks = new ArrayDeque<>();
+
+    private Iterator<SimpleFeature> current = Collections.emptyIterator();
+
+    private boolean started;
+
+    /**
+     * @param file the newline-delimited GeoJSON file
+     * @param featureType the type of the features to build
+     * @param threads the number of chunks parsed concurrently
+     */
+    public GeoJSONSequenceReader(File file, SimpleFeatureType featureType, int threads) {
+        this.file = file;
+        this.featureType = featureType;
+        this.threads = Math.max(1, threads);
+        this.idPrefix = FilenameUtils.getBaseName(file.getName());
+    }
+
+    /**
+     * Returns true if the file starts with a line holding a complete GeoJSON feature, as
+     * newline-delimited GeoJSON files do
+     */
+    public static boolean isFeatureSequence(File file) throws IOException {
+        byte[] line;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long end = findLineEnd(channel, 0, Math.min(channel.size(), MAX_PROBE_SIZE));
+            if (end < 0) {
+                return false;
+            }
+            line = new byte[(int) end];
+            readFully(channel, ByteBuffer.wrap(line), 0);
+        }
+        try (JsonParser parser = GeoJSONStreamingReader.FACTORY.createParser(line)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return false;
+            }
+            boolean feature = false;
+            JsonToken token;
+            while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                parser.nextToken();
+                if ("type".equals(name)) {
+                    feature = "Feature".equals(parser.getValueAsString());
+                }
+                parser.skipChildren();
+            }
+            return feature && token == JsonToken.END_OBJECT && parser.nextToken() == null;
+        } catch (IOException e) {
+            // not a complete JSON object
+            return false;
+        }
+    }
+
+    /** Sets the size of the chunks parsed by each thread, extended to the end of a line */
+    public void setChunkSize(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    /** Sets the strategy used to generate ids, {@link IdStrategy#AUTO} is not supported */
+    public void setIdStrategy(IdStrategy idStrategy) {
+        if (idStrategy == IdStrategy.AUTO) {
+            throw new IllegalArgumentException("Cannot generate sequential ids in parallel");
+        }
+        this.idStrategy = idStrategy;
+    }
+
+    /** Sets the prefix to use for ids with {@link IdStrategy#PREFIX} */
+    public void setIdPrefix(String idPrefix) {
+        this.idPrefix = idPrefix;
+    }
+
+    /** Sets the field name to use for ids */
+    public void setIdFieldName(String idFieldName) {
+        this.idFieldName = idFieldName;
+    }
+
+    /** The type of the features read */
+    @Override
+    public SimpleFeatureType getFeatureType() {
+        return featureType;
+    }
+
+    @Override
+    public boolean hasNext() throws IOException {
+        if (!started) {
+            started = true;
+            start();
+        }
+        while (!current.hasNext()) {
+            Future<List<SimpleFeature>> chunk = chunks.poll();
+            if (chunk == null) {
+                return false;
+            }
+            // keep the pipeline full while this chunk is read
+            submitNextChunk();
+            current = getChunk(chunk).iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public SimpleFeature next() throws IOException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return current.next();
+    }
+
+    private void start() throws IOException {
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        this.fileSize = channel.size();
+        for (int i = 0; i < threads; i++) {
+            submitNextChunk();
+        }
+    }
+
+    private void submitNextChunk() throws IOException {
+        if (nextStart >= fileSize) {
+            return;
+        }
+        long start = nextStart;
+        long end = Math.min(fileSize, start + chunkSize);
+        if (end < fileSize) {
+            long lineEnd = findLineEnd(channel, end - 1, fileSize);
+            end = lineEnd < 0 ? fileSize : lineEnd;
+        }
+        if (end - start > Integer.MAX_VALUE) {
+            throw new IOException("Line too long at offset " + start);
+        }
+        // read in the caller thread, the file is read sequentially and parsed concurrently
+        byte[] bytes = new byte[(int) (end - start)];
+        readFully(channel, ByteBuffer.wrap(bytes), start);
+        chunks.add(EXECUTOR.submit(() -> parse(bytes)));
+        nextStart = end;
+    }
+
+    private static ThreadPoolExecutor createExecutor() {
+        int threads = Runtime.getRuntime().availableProcessors();
+        ThreadPoolExecutor executor =
+                new ThreadPoolExecutor(
+                        threads,
+                        threads,
+                        60,
+                        TimeUnit.SECONDS,
+                        new LinkedBlockingQueue<>(),
+                        r -> {
+                            Thread thread =
+                                    new Thread(
+                                            r,
+                                            "GeoJSON-parser-" + THREAD_COUNTER.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private List<SimpleFeature> parse(byte[] bytes) throws IOException {
+        List<SimpleFeature> features = new ArrayList<>();
+        try (GeoJSONStreamingReader reader =
+                new GeoJSONStreamingReader(
+                        GeoJSONStreamingReader.FACTORY.createParser(bytes), featureType)) {
+            reader.setIdStrategy(idStrategy);
+            reader.setIdPrefix(idPrefix);
+            reader.setIdFieldName(idFieldName);
+            while (reader.hasNext()) {
+                features.add(reader.next());
+            }
+        }
+        return features;
+    }
+
+    private List<SimpleFeature> getChunk(Future<List<SimpleFeature>> chunk) throws IOException {
+        try {
+            return chunk.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while parsing GeoJSON", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Returns the position following the first newline found at or after the given position, or -1
+     * if there is none before the limit
+     */
+    static long findLineEnd(FileChannel channel, long position, long limit) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        while (position < limit) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), limit - position));
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                return -1;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return -1;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position)
+            throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of file");
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        started = true;
+        current = Collections.emptyIterator();
+        for (Future<List<SimpleFeature>> chunk : chunks) {
+            chunk.cancel(true);
+        }
+        chunks.clear();
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+}
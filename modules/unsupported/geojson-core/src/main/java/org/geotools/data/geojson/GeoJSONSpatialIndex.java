@@ -0,0 +1,156 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2024, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.geojson;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import org.apache.commons.io.FilenameUtils;
+import org.geotools.api.data.FeatureReader;
+import org.geotools.api.feature.simple.SimpleFeature;
+import org.geotools.api.feature.simple.SimpleFeatureType;
+import org.geotools.data.geojson.GeoJSONReader.IdStrategy;
+import org.geotools.data.store.SidecarSpatialIndex;
+import org.geotools.feature.simple.SimpleFeatureTypeBuilder;
+import org.locationtech.jts.geom.Geometry;
+
+/**
+ * Builds and reads the {@link SidecarSpatialIndex} of a GeoJSON file, be it a feature collection or
+ * a newline-delimited sequence of features.
+ *
+ * <p>The index records the byte range of each feature object, the features matching a bounding box
+ * are then parsed one by one from their range with {@link GeoJSONStreamingReader}, skipping the
+ * rest of the file.
+ */
+public class GeoJSONSpatialIndex {
+
+    private GeoJSONSpatialIndex() {}
+
+    /** Parses the geometries of the file and writes its index, replacing any previous one */
+    public static void build(File file) throws IOException {
+        SimpleFeatureTypeBuilder tb = new SimpleFeatureTypeBuilder();
+        tb.setName("index");
+        tb.add("geometry", Geometry.class);
+        SimpleFeatureType type = tb.buildFeatureType();
+        try (SidecarSpatialIndex.Builder builder = new SidecarSpatialIndex.Builder(file);
+                GeoJSONStreamingReader reader =
+                        new GeoJSONStreamingReader(file.toURI().toURL(), type)) {
+            long ordinal = 0;
+            while (reader.hasNext()) {
+                Geometry geometry = (Geometry) reader.next().getDefaultGeometry();
+                if (geometry != null) {
+                    long start = reader.getFeatureStart();
+                    long length = reader.getFeatureEnd() - start;
+                    if (start < 0 || length > Integer.MAX_VALUE) {
+                        throw new IOException("Cannot locate the features of " + file);
+                    }
+                    builder.add(geometry.getEnvelopeInternal(), start, (int) length, ordinal);
+                }
+                ordinal++;
+            }
+            builder.build();
+        }
+    }
+
+    /**
+     * Reads the features of the given index entries, with ids prefixed by the file name as {@link
+     * GeoJSONStreamingReader} does with {@link IdStrategy#PREFIX}
+     *
+     * @param file the GeoJSON file
+     * @param entries the features to read, as returned by {@link SidecarSpatialIndex#search}
+     * @param featureType the type of the features to build
+     */
+    public static FeatureReader<SimpleFeatureType, SimpleFeature> read(
+            File file, List<SidecarSpatialIndex.Entry> entries, SimpleFeatureType featureType)
+            throws IOException {
+        return new Reader(file, entries, featureType);
+    }
+
+    /** Seeks to each feature of the entries, and parses it on its own */
+    private static class Reader implements FeatureReader<SimpleFeatureType, SimpleFeature> {
+
+        private final SimpleFeatureType featureType;
+
+        private final String idPrefix;
+
+        private final FileChannel channel;
+
+        private final Iterator<SidecarSpatialIndex.Entry> entries;
+
+        private ByteBuffer buffer = ByteBuffer.allocate(4096);
+
+        Reader(File file, List<SidecarSpatialIndex.Entry> entries, SimpleFeatureType featureType)
+                throws IOException {
+            this.featureType = featureType;
+            this.idPrefix = FilenameUtils.getBaseName(file.getName());
+            this.entries = entries.iterator();
+            this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        }
+
+        @Override
+        public SimpleFeatureType getFeatureType() {
+            return featureType;
+        }
+
+        @Override
+        public boolean hasNext() throws IOException {
+            return entries.hasNext();
+        }
+
+        @Override
+        public SimpleFeature next() throws IOException {
+            if (!entries.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            SidecarSpatialIndex.Entry entry = entries.next();
+            if (buffer.capacity() < entry.getLength()) {
+                buffer = ByteBuffer.allocate(entry.getLength());
+            }
+            buffer.clear();
+            buffer.limit(entry.getLength());
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, entry.getOffset() + buffer.position()) < 0) {
+                    throw new EOFException("Spatial index points past the end of the file");
+                }
+            }
+            try (GeoJSONStreamingReader reader =
+                    new GeoJSONStreamingReader(
+                            GeoJSONStreamingReader.FACTORY.createParser(
+                                    buffer.array(), 0, entry.getLength()),
+                            featureType)) {
+                reader.setIdStrategy(IdStrategy.PREFIX);
+                reader.setIdPrefix(idPrefix);
+                if (!reader.hasNext()) {
+                    throw new IOException(
+                            "No feature found at offset " + entry.getOffset() + ", stale index?");
+                }
+                return reader.next();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,696 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2024, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.geojson;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.apache.commons.io.FilenameUtils;
+import org.geotools.api.data.FeatureReader;
+import org.geotools.api.feature.simple.SimpleFeature;
+import org.geotools.api.feature.simple.SimpleFeatureType;
+import org.geotools.api.feature.type.AttributeDescriptor;
+import org.geotools.data.DataUtilities;
+import org.geotools.data.geojson.GeoJSONReader.IdStrategy;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.geotools.feature.simple.SimpleFeatureImpl;
+import org.geotools.filter.identity.FeatureIdImpl;
+import org.geotools.util.Converters;
+import org.geotools.util.logging.Logging;
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.LinearRing;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.geom.impl.PackedCoordinateSequence;
+import org.locationtech.jts.geom.impl.PackedCoordinateSequenceFactory;
+
+/**
+ * Reads GeoJSON features of a known feature type straight from the Jackson token stream, without
+ * building a tree for each feature as {@link GeoJSONReader} does.
+ *
+ * <p>Properties that are not part of the feature type are skipped without being parsed, as is the
+ * geometry when the feature type has none, so reading a subset of the attributes is cheaper than
+ * reading them all. Coordinates are parsed into {@link PackedCoordinateSequence packed sequences}.
+ *
+ * <p>The source can be a feature collection, a single feature, or a sequence of features, such as
+ * newline-delimited GeoJSON. Unlike {@link GeoJSONReader} the feature type does not evolve while
+ * reading, properties unknown to it are ignored.
+ */
+public class GeoJSONStreamingReader implements FeatureReader<SimpleFeatureType, SimpleFeature> {
+
+    private static final Logger LOGGER = Logging.getLogger(GeoJSONStreamingReader.class);
+
+    static final JsonFactory FACTORY = new JsonFactory();
+
+    private static final GeometryFactory GEOMETRY_FACTORY =
+            new GeometryFactory(PackedCoordinateSequenceFactory.DOUBLE_FACTORY);
+
+    private final SimpleFeatureType featureType;
+
+    private final ObjectMapper mapper = ObjectMapperFactory.getDefaultMapper();
+
+    private final DateParser dateParser = new DateParser();
+
+    private JsonParser parser;
+
+    private String baseName = "features";
+
+    private String idPrefix;
+
+    private String idFieldName = "id";
+
+    private IdStrategy idStrategy = IdStrategy.PROVIDED;
+
+    private long nextID = 0;
+
+    /** Index of the default geometry in the feature type, or -1 if not loaded */
+    private final int geometryIndex;
+
+    /** Whether the parser is inside the features array of a feature collection */
+    private boolean inFeatures;
+
+    /** Whether the features array is nested in a root object, whose end must be skipped */
+    private boolean featuresInObject;
+
+    private SimpleFeature next;
+
+    /** Byte range of the pending feature, and of the feature last returned by next() */
+    private long nextStart = -1, nextEnd = -1, featureStart = -1, featureEnd = -1;
+
+    /**
+     * Reads the GeoJSON located at the specified URL
+     *
+     * @param url the GeoJSON source
+     * @param featureType the type of the features to build
+     */
+    public GeoJSONStreamingReader(URL url, SimpleFeatureType featureType) throws IOException {
+        this(FACTORY.createParser(url), featureType);
+        this.baseName = FilenameUtils.getBaseName(url.getPath());
+        this.idPrefix = baseName;
+    }
+
+    /**
+     * Reads the GeoJSON provided as an {@link InputStream}, closed by {@link #close()}
+     *
+     * @param is the GeoJSON source
+     * @param featureType the type of the features to build
+     */
+    public GeoJSONStreamingReader(InputStream is, SimpleFeatureType featureType)
+            throws IOException {
+        this(FACTORY.createParser(is), featureType);
+    }
+
+    GeoJSONStreamingReader(JsonParser parser, SimpleFeatureType featureType) {
+        this.parser = parser;
+        this.featureType = featureType;
+        this.geometryIndex =
+                featureType.getGeometryDescriptor() == null
+                        ? -1
+                        : featureType.indexOf(featureType.getGeometryDescriptor().getName());
+    }
+
+    /** The type of the features read */
+    @Override
+    public SimpleFeatureType getFeatureType() {
+        return featureType;
+    }
+
+    /** Sets the base name used to generate ids with {@link IdStrategy#AUTO} and prefixes */
+    public void setBaseName(String baseName) {
+        this.baseName = baseName;
+    }
+
+    /** Sets the strategy used to generate ids, defaults to {@link IdStrategy#PROVIDED} */
+    public void setIdStrategy(IdStrategy idStrategy) {
+        this.idStrategy = idStrategy;
+    }
+
+    /** Sets the prefix to use for ids with {@link IdStrategy#PREFIX} */
+    public void setIdPrefix(String idPrefix) {
+        this.idPrefix = idPrefix;
+    }
+
+    /** Sets the field name to use for ids */
+    public void setIdFieldName(String idFieldName) {
+        this.idFieldName = idFieldName;
+    }
+
+    /** Sets the number used for the next id generated with {@link IdStrategy#AUTO} */
+    void setNextID(long nextID) {
+        this.nextID = nextID;
+    }
+
+    /**
+     * Byte offset of the opening brace of the feature last returned by {@link #next()}, or -1 if
+     * the source is not read as bytes
+     */
+    long getFeatureStart() {
+        return featureStart;
+    }
+
+    /** Byte offset right after the closing brace of the feature last returned by {@link #next()} */
+    long getFeatureEnd() {
+        return featureEnd;
+    }
+
+    @Override
+    public boolean hasNext() throws IOException {
+        if (next == null && parser != null) {
+            next = readNext();
+        }
+        return next != null;
+    }
+
+    @Override
+    public SimpleFeature next() throws IOException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        SimpleFeature result = next;
+        next = null;
+        featureStart = nextStart;
+        featureEnd = nextEnd;
+        return result;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (parser != null) {
+            parser.close();
+            parser = null;
+        }
+    }
+
+    private SimpleFeature readNext() throws IOException {
+        while (true) {
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                return null;
+            }
+            if (inFeatures) {
+                if (token == JsonToken.START_OBJECT) {
+                    nextStart = parser.getTokenLocation().getByteOffset();
+                    FeatureFields fields = new FeatureFields();
+                    readFeatureFields(fields, false);
+                    nextEnd = parser.getCurrentLocation().getByteOffset();
+                    return buildFeature(fields);
+                } else if (token == JsonToken.END_ARRAY) {
+                    inFeatures = false;
+                    if (featuresInObject) {
+                        // skip whatever follows the features, links and the like
+                        skipToEndObject();
+                    }
+                } else {
+                    throw new JsonParseException(parser, "Expected a feature, got " + token);
+                }
+            } else if (token == JsonToken.START_OBJECT) {
+                // a feature collection or a single feature, tell which from the fields
+                nextStart = parser.getTokenLocation().getByteOffset();
+                FeatureFields fields = new FeatureFields();
+                if (readFeatureFields(fields, true)) {
+                    inFeatures = true;
+                    featuresInObject = true;
+                } else if ("Feature".equalsIgnoreCase(fields.type)) {
+                    nextEnd = parser.getCurrentLocation().getByteOffset();
+                    return buildFeature(fields);
+                }
+            } else if (token == JsonToken.START_ARRAY) {
+                // a bare array of features
+                inFeatures = true;
+                featuresInObject = false;
+            } else {
+                throw new JsonParseException(parser, "Unexpected token " + token);
+            }
+        }
+    }
+
+    private void skipToEndObject() throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_OBJECT) {
+            if (token == null) {
+                throw new JsonParseException(parser, "Unexpected end of input");
+            }
+            if (token == JsonToken.FIELD_NAME) {
+                parser.nextToken();
+                parser.skipChildren();
+            }
+        }
+    }
+
+    /** The fields of a feature being read */
+    private final class FeatureFields {
+        String type;
+
+        final Object[] values = new Object[featureType.getAttributeCount()];
+
+        JsonNode id;
+
+        Map<String, Object> topLevelAttributes;
+    }
+
+    /**
+     * Reads the fields of a feature object, the parser being on the opening brace
+     *
+     * @param root whether the object is at the root, and might be a feature collection
+     * @return true if the object is a feature collection, with the parser on its features array
+     */
+    private boolean readFeatureFields(FeatureFields fields, boolean root) throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            token = parser.nextToken();
+            if ("type".equals(name)) {
+                fields.type = parser.getValueAsString();
+                parser.skipChildren();
+            } else if ("geometry".equals(name)) {
+                if (geometryIndex >= 0) {
+                    fields.values[geometryIndex] = readGeometry();
+                } else {
+                    parser.skipChildren();
+                }
+            } else if ("properties".equals(name)) {
+                readProperties(fields);
+            } else if (root && "features".equals(name) && token == JsonToken.START_ARRAY) {
+                return true;
+            } else if ("bbox".equals(name)) {
+                parser.skipChildren();
+            } else {
+                JsonNode value = mapper.readTree(parser);
+                if (name.equals(idFieldName)) {
+                    fields.id = value;
+                }
+                if (fields.topLevelAttributes == null) {
+                    fields.topLevelAttributes = new HashMap<>();
+                }
+                fields.topLevelAttributes.put(name, value);
+            }
+        }
+        if (token != JsonToken.END_OBJECT) {
+            throw new JsonParseException(parser, "Unexpected token " + token);
+        }
+        return false;
+    }
+
+    private void readProperties(FeatureFields fields) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            token = parser.nextToken();
+            int index = featureType.indexOf(name);
+            if (index < 0) {
+                // not requested, or not in the schema
+                parser.skipChildren();
+                continue;
+            }
+            AttributeDescriptor descriptor = featureType.getDescriptor(index);
+            fields.values[index] = readValue(token, descriptor.getType().getBinding());
+        }
+    }
+
+    /**
+     * Reads a property value, converting it like {@link GeoJSONReader} does, but for null values
+     * which are kept null instead of defaulting to zero or false
+     */
+    private Object readValue(JsonToken token, Class<?> binding) throws IOException {
+        if (token == JsonToken.VALUE_NULL && binding != Object.class) {
+            return null;
+        } else if (binding == Integer.class) {
+            int value = token.isStructStart() ? 0 : parser.getValueAsInt(0);
+            parser.skipChildren();
+            return value;
+        } else if (binding == Double.class) {
+            double value = token.isStructStart() ? 0 : parser.getValueAsDouble(0);
+            parser.skipChildren();
+            return value;
+        } else if (binding == String.class) {
+            String value = token == JsonToken.VALUE_STRING ? parser.getText() : null;
+            parser.skipChildren();
+            return value;
+        } else if (binding == Boolean.class) {
+            parser.skipChildren();
+            return token == JsonToken.VALUE_TRUE;
+        } else if (binding == Object.class) {
+            return mapper.readTree(parser);
+        } else if (binding == List.class) {
+            return readList(token);
+        } else if (Geometry.class.isAssignableFrom(binding)) {
+            return readGeometry();
+        } else if (Date.class.isAssignableFrom(binding)) {
+            String text = readText(token);
+            Date date = dateParser.parse(text);
+            return date != null ? date : Converters.convert(text, binding);
+        } else {
+            LOGGER.log(Level.FINE, "Unable to parse object of type {0}", binding);
+            return Converters.convert(readText(token), binding);
+        }
+    }
+
+    private String readText(JsonToken token) throws IOException {
+        if (token.isStructStart()) {
+            JsonNode node = mapper.readTree(parser);
+            return node.asText();
+        }
+        return token == JsonToken.VALUE_NULL ? "null" : parser.getText();
+    }
+
+    private List<Object> readList(JsonToken token) throws IOException {
+        if (token != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return null;
+        }
+        List<Object> list = new ArrayList<>();
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            switch (token) {
+                case VALUE_TRUE:
+                case VALUE_FALSE:
+                    list.add(token == JsonToken.VALUE_TRUE);
+                    break;
+                case VALUE_NUMBER_INT:
+                case VALUE_NUMBER_FLOAT:
+                    list.add(parser.getDoubleValue());
+                    break;
+                case VALUE_STRING:
+                    list.add(parser.getText());
+                    break;
+                case VALUE_NULL:
+                    list.add(null);
+                    break;
+                case START_OBJECT:
+                case START_ARRAY:
+                    list.add(mapper.readTree(parser));
+                    break;
+                default:
+                    throw new JsonParseException(parser, "Unexpected token " + token);
+            }
+        }
+        return list;
+    }
+
+    private SimpleFeature buildFeature(FeatureFields fields) throws IOException {
+        if (fields.type == null) {
+            throw new JsonParseException(
+                    parser, "Missing object type in GeoJSON Parsing, expected type=Feature here");
+        }
+        if (!"Feature".equalsIgnoreCase(fields.type)) {
+            throw new JsonParseException(
+                    parser,
+                    "Unexpected object type in GeoJSON Parsing, expected Feature got '"
+                            + fields.type
+                            + "'");
+        }
+        Object[] values = fields.values;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == null) {
+                AttributeDescriptor descriptor = featureType.getDescriptor(i);
+                if (!descriptor.isNillable()) {
+                    Object value = descriptor.getDefaultValue();
+                    values[i] =
+                            value != null
+                                    ? value
+                                    : DataUtilities.defaultValue(descriptor.getType().getBinding());
+                }
+            }
+        }
+        String id = getOrGenerateId(fields.id);
+        // the values are already converted, and the geometry is kept even if its type does not
+        // match the binding, as GeoJSON collections can mix geometry types
+        SimpleFeature feature =
+                new SimpleFeatureImpl(
+                        values,
+                        featureType,
+                        new FeatureIdImpl(
+                                id != null ? id : SimpleFeatureBuilder.createDefaultFeatureId()),
+                        false);
+        if (fields.topLevelAttributes != null) {
+            feature.getUserData()
+                    .put(GeoJSONReader.TOP_LEVEL_ATTRIBUTES, fields.topLevelAttributes);
+        }
+        return feature;
+    }
+
+    private String getOrGenerateId(JsonNode id) {
+        switch (idStrategy) {
+            case AUTO:
+                return baseName + "." + nextID++;
+            case PREFIX:
+                String value = id != null ? id.asText() : UUID.randomUUID().toString();
+                return (idPrefix != null ? idPrefix : baseName) + "." + value;
+            case PROVIDED:
+                return id != null ? id.asText() : null;
+            default:
+                throw new IllegalArgumentException("Unknown id strategy");
+        }
+    }
+
+    /** Reads a geometry object, the parser being on its opening brace */
+    private Geometry readGeometry() throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected a geometry, got " + token);
+        }
+        String type = null;
+        Object coordinates = null;
+        List<Geometry> geometries = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            token = parser.nextToken();
+            if ("type".equals(name)) {
+                type = parser.getValueAsString();
+            } else if ("coordinates".equals(name) && token == JsonToken.START_ARRAY) {
+                coordinates = readCoordinates();
+            } else if ("geometries".equals(name) && token == JsonToken.START_ARRAY) {
+                geometries = new ArrayList<>();
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    geometries.add(readGeometry());
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (type == null) {
+            throw new JsonParseException(parser, "Missing geometry type");
+        }
+        return buildGeometry(type, coordinates, geometries);
+    }
+
+    private Geometry buildGeometry(String type, Object coordinates, List<Geometry> geometries)
+            throws IOException {
+        switch (type) {
+            case "Point":
+                if (coordinates instanceof Position) {
+                    return GEOMETRY_FACTORY.createPoint(((Position) coordinates).sequence());
+                }
+                return GEOMETRY_FACTORY.createPoint();
+            case "MultiPoint":
+                {
+                    if (!(coordinates instanceof Positions)) {
+                        return GEOMETRY_FACTORY.createMultiPoint();
+                    }
+                    Positions positions = (Positions) coordinates;
+                    Point[] points = new Point[positions.size];
+                    for (int i = 0; i < points.length; i++) {
+                        points[i] = GEOMETRY_FACTORY.createPoint(positions.position(i));
+                    }
+                    return GEOMETRY_FACTORY.createMultiPoint(points);
+                }
+            case "LineString":
+                return GEOMETRY_FACTORY.createLineString(sequence(coordinates));
+            case "MultiLineString":
+                {
+                    List<Object> parts = parts(coordinates);
+                    LineString[] lines = new LineString[parts.size()];
+                    for (int i = 0; i < lines.length; i++) {
+                        lines[i] = GEOMETRY_FACTORY.createLineString(sequence(parts.get(i)));
+                    }
+                    return GEOMETRY_FACTORY.createMultiLineString(lines);
+                }
+            case "Polygon":
+                return polygon(coordinates);
+            case "MultiPolygon":
+                {
+                    List<Object> parts = parts(coordinates);
+                    Polygon[] polygons = new Polygon[parts.size()];
+                    for (int i = 0; i < polygons.length; i++) {
+                        polygons[i] = polygon(parts.get(i));
+                    }
+                    return GEOMETRY_FACTORY.createMultiPolygon(polygons);
+                }
+            case "GeometryCollection":
+                return GEOMETRY_FACTORY.createGeometryCollection(
+                        geometries == null
+                                ? new Geometry[0]
+                                : geometries.toArray(new Geometry[geometries.size()]));
+            default:
+                throw new JsonParseException(parser, "Invalid geometry type: " + type);
+        }
+    }
+
+    private Polygon polygon(Object coordinates) {
+        List<Object> rings = parts(coordinates);
+        if (rings.isEmpty()) {
+            return GEOMETRY_FACTORY.createPolygon();
+        }
+        LinearRing shell = GEOMETRY_FACTORY.createLinearRing(sequence(rings.get(0)));
+        LinearRing[] holes = new LinearRing[rings.size() - 1];
+        for (int i = 1; i < rings.size(); i++) {
+            holes[i - 1] = GEOMETRY_FACTORY.createLinearRing(sequence(rings.get(i)));
+        }
+        return GEOMETRY_FACTORY.createPolygon(shell, holes);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> parts(Object coordinates) {
+        return coordinates instanceof List ? (List<Object>) coordinates : Collections.emptyList();
+    }
+
+    private static CoordinateSequence sequence(Object coordinates) {
+        if (coordinates instanceof Positions) {
+            return ((Positions) coordinates).sequence();
+        }
+        return new PackedCoordinateSequence.Double(0, 2, 0);
+    }
+
+    /**
+     * Reads nested coordinate arrays, the parser being on the opening bracket. Returns a {@link
+     * Position}, the {@link Positions} of an array of positions, or a list of the nested arrays.
+     */
+    private Object readCoordinates() throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.START_ARRAY) {
+            Object first = readCoordinates();
+            if (first instanceof Position) {
+                Positions positions = new Positions();
+                positions.add((Position) first);
+                while ((token = parser.nextToken()) == JsonToken.START_ARRAY) {
+                    parser.nextToken();
+                    positions.add(readPosition());
+                }
+                checkEndArray(token);
+                return positions;
+            }
+            List<Object> children = new ArrayList<>();
+            children.add(first);
+            while ((token = parser.nextToken()) == JsonToken.START_ARRAY) {
+                children.add(readCoordinates());
+            }
+            checkEndArray(token);
+            return children;
+        } else if (token == JsonToken.END_ARRAY) {
+            return new ArrayList<>();
+        }
+        return readPosition();
+    }
+
+    /** Reads the ordinates of a position, the parser being on the first one */
+    private Position readPosition() throws IOException {
+        Position position = new Position();
+        JsonToken token = parser.currentToken();
+        while (token != JsonToken.END_ARRAY) {
+            if (!token.isNumeric()) {
+                throw new JsonParseException(parser, "Expected an ordinate, got " + token);
+            }
+            // like the tree parser, only x, y and z are kept
+            if (position.dimension < 3) {
+                position.ordinates[position.dimension++] = parser.getDoubleValue();
+            }
+            token = parser.nextToken();
+        }
+        return position;
+    }
+
+    private void checkEndArray(JsonToken token) throws IOException {
+        if (token != JsonToken.END_ARRAY) {
+            throw new JsonParseException(parser, "Expected a coordinate array, got " + token);
+        }
+    }
+
+    /** A single position */
+    private static final class Position {
+        final double[] ordinates = {Double.NaN, Double.NaN, Double.NaN};
+
+        int dimension;
+
+        CoordinateSequence sequence() {
+            int dim = dimension > 2 ? 3 : 2;
+            return new PackedCoordinateSequence.Double(Arrays.copyOf(ordinates, dim), dim, 0);
+        }
+    }
+
+    /** An array of positions, packed as x, y, z triplets */
+    private static final class Positions {
+        double[] ordinates = new double[3 * 16];
+
+        int size;
+
+        boolean hasZ;
+
+        void add(Position position) {
+            if (3 * size == ordinates.length) {
+                ordinates = Arrays.copyOf(ordinates, ordinates.length * 2);
+            }
+            System.arraycopy(position.ordinates, 0, ordinates, 3 * size, 3);
+            hasZ |= position.dimension > 2;
+            size++;
+        }
+
+        CoordinateSequence position(int i) {
+            int dim = hasZ ? 3 : 2;
+            return new PackedCoordinateSequence.Double(
+                    Arrays.copyOfRange(ordinates, 3 * i, 3 * i + dim), dim, 0);
+        }
+
+        CoordinateSequence sequence() {
+            if (hasZ) {
+                return new PackedCoordinateSequence.Double(
+                        Arrays.copyOf(ordinates, 3 * size), 3, 0);
+            }
+            double[] xy = new double[2 * size];
+            for (int i = 0; i < size; i++) {
+                xy[2 * i] = ordinates[3 * i];
+                xy[2 * i + 1] = ordinates[3 * i + 1];
+            }
+            return new PackedCoordinateSequence.Double(xy, 2, 0);
+        }
+    }
+}
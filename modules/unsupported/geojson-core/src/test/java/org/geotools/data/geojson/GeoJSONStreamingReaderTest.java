@@ -0,0 +1,274 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2024, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.geojson;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import org.geotools.api.feature.simple.SimpleFeature;
+import org.geotools.api.feature.simple.SimpleFeatureType;
+import org.geotools.data.DataUtilities;
+import org.geotools.data.geojson.GeoJSONReader.IdStrategy;
+import org.geotools.feature.simple.SimpleFeatureTypeBuilder;
+import org.geotools.test.TestData;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.impl.PackedCoordinateSequence;
+
+public class GeoJSONStreamingReaderTest {
+
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static final String[] FILES = {
+        "locations.json",
+        "locations-changeable.json",
+        "dates.json",
+        "geometryless.json",
+        "geometrynull.json",
+        "propertyless.json",
+        "empty.json"
+    };
+
+    @Test
+    public void testSameAsTreeReader() throws Exception {
+        for (String file : FILES) {
+            URL url = TestData.url(GeoJSONStreamingReaderTest.class, file);
+            List<SimpleFeature> expected;
+            SimpleFeatureType schema;
+            try (GeoJSONReader reader = new GeoJSONReader(url, IdStrategy.PREFIX)) {
+                expected = DataUtilities.list(reader.getFeatures());
+                schema = (SimpleFeatureType) reader.getSchema();
+            }
+            List<SimpleFeature> actual = new ArrayList<>();
+            try (GeoJSONStreamingReader reader = new GeoJSONStreamingReader(url, schema)) {
+                reader.setIdStrategy(IdStrategy.PREFIX);
+                while (reader.hasNext()) {
+                    actual.add(reader.next());
+                }
+            }
+            assertSameFeatures(file, expected, actual);
+        }
+    }
+
+    @Test
+    public void testSingleFeature() throws Exception {
+        for (String file : new String[] {"multilevel.json", "stac.json"}) {
+            URL url = TestData.url(GeoJSONStreamingReaderTest.class, file);
+            SimpleFeature expected;
+            SimpleFeatureType schema;
+            try (GeoJSONReader reader = new GeoJSONReader(url, IdStrategy.PREFIX)) {
+                expected = reader.getFeature();
+                schema = (SimpleFeatureType) reader.getSchema();
+            }
+            List<SimpleFeature> actual = new ArrayList<>();
+            try (GeoJSONStreamingReader reader = new GeoJSONStreamingReader(url, schema)) {
+                reader.setIdStrategy(IdStrategy.PREFIX);
+                while (reader.hasNext()) {
+                    actual.add(reader.next());
+                }
+            }
+            assertSameFeatures(file, List.of(expected), actual);
+        }
+    }
+
+    @Test
+    public void testSkipProperties() throws Exception {
+        URL url = TestData.url(GeoJSONStreamingReaderTest.class, "locations.json");
+        List<SimpleFeature> expected;
+        SimpleFeatureType schema;
+        try (GeoJSONReader reader = new GeoJSONReader(url)) {
+            expected = DataUtilities.list(reader.getFeatures());
+            schema = (SimpleFeatureType) reader.getSchema();
+        }
+        SimpleFeatureType cities = SimpleFeatureTypeBuilder.retype(schema, List.of("CITY"));
+        try (GeoJSONStreamingReader reader = new GeoJSONStreamingReader(url, cities)) {
+            for (SimpleFeature feature : expected) {
+                assertTrue(reader.hasNext());
+                SimpleFeature city = reader.next();
+                assertEquals(cities, city.getFeatureType());
+                assertEquals(1, city.getAttributeCount());
+                assertNull(city.getDefaultGeometry());
+                assertEquals(feature.getAttribute("CITY"), city.getAttribute("CITY"));
+            }
+            assertFalse(reader.hasNext());
+        }
+    }
+
+    @Test
+    public void testNullProperties() throws Exception {
+        SimpleFeatureType type =
+                DataUtilities.createType(
+                        "test", "i:Integer,d:Double,b:Boolean,s:String,t:java.util.Date");
+        String feature =
+                "{\"type\":\"Feature\",\"properties\":"
+                        + "{\"i\":null,\"d\":null,\"b\":null,\"s\":null,\"t\":null}}";
+        try (GeoJSONStreamingReader reader =
+                new GeoJSONStreamingReader(
+                        new ByteArrayInputStream(feature.getBytes(StandardCharsets.UTF_8)), type)) {
+            SimpleFeature read = reader.next();
+            for (int i = 0; i < type.getAttributeCount(); i++) {
+                assertNull(type.getDescriptor(i).getLocalName(), read.getAttribute(i));
+            }
+        }
+    }
+
+    @Test
+    public void testGeometries() throws Exception {
+        String[] geometries = {
+            "{\"type\":\"Point\",\"coordinates\":[1,2]}",
+            "{\"coordinates\":[1,2,3],\"type\":\"Point\"}",
+            "{\"type\":\"Point\",\"coordinates\":[]}",
+            "{\"type\":\"MultiPoint\",\"coordinates\":[[1,2],[3,4]]}",
+            "{\"type\":\"LineString\",\"coordinates\":[[1,2],[3,4,5]]}",
+            "{\"type\":\"MultiLineString\",\"coordinates\":[[[1,2],[3,4]],[[5,6],[7,8]]]}",
+            "{\"type\":\"Polygon\",\"coordinates\":[[[0,0],[10,0],[10,10],[0,0]],"
+                    + "[[1,1],[2,1],[2,2],[1,1]]]}",
+            "{\"type\":\"MultiPolygon\",\"coordinates\":[[[[0,0],[1,0],[1,1],[0,0]]],"
+                    + "[[[5,5],[6,5],[6,6],[5,5]]]]}",
+            "{\"type\":\"GeometryCollection\",\"geometries\":[{\"type\":\"Point\","
+                    + "\"coordinates\":[1,2]},{\"type\":\"LineString\",\"coordinates\":[[1,2],[3,4]]}]}"
+        };
+        SimpleFeatureTypeBuilder tb = new SimpleFeatureTypeBuilder();
+        tb.setName("test");
+        tb.add("geometry", Geometry.class);
+        SimpleFeatureType type = tb.buildFeatureType();
+        for (String json : geometries) {
+            String feature = "{\"type\":\"Feature\",\"properties\":{},\"geometry\":" + json + "}";
+            try (GeoJSONStreamingReader reader =
+                    new GeoJSONStreamingReader(
+                            new ByteArrayInputStream(feature.getBytes(StandardCharsets.UTF_8)),
+                            type)) {
+                Geometry actual = (Geometry) reader.next().getDefaultGeometry();
+                Geometry expected = GeoJSONReader.parseGeometry(json);
+                assertTrue(json, expected.equalsExact(actual));
+                assertEquals(
+                        json, expected.getCoordinates().length, actual.getCoordinates().length);
+                for (int i = 0; i < expected.getCoordinates().length; i++) {
+                    assertTrue(
+                            json,
+                            expected.getCoordinates()[i].equals3D(actual.getCoordinates()[i]));
+                }
+                assertFalse(reader.hasNext());
+            }
+        }
+        String line = "{\"type\":\"LineString\",\"coordinates\":[[1,2],[3,4]]}";
+        try (GeoJSONStreamingReader reader =
+                new GeoJSONStreamingReader(
+                        new ByteArrayInputStream(
+                                ("{\"type\":\"Feature\",\"geometry\":" + line + "}").getBytes()),
+                        type)) {
+            LineString geometry = (LineString) reader.next().getDefaultGeometry();
+            assertTrue(geometry.getCoordinateSequence() instanceof PackedCoordinateSequence);
+        }
+    }
+
+    @Test
+    public void testSequence() throws Exception {
+        File file = temporaryFolder.newFile("sequence.geojson");
+        int count = 1000;
+        StringBuilder json = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            json.append("{\"type\":\"Feature\",\"id\":")
+                    .append(i)
+                    .append(",\"properties\":{\"n\":")
+                    .append(i)
+                    .append(",\"name\":\"f")
+                    .append(i)
+                    .append("\"},\"geometry\":{\"type\":\"Point\",\"coordinates\":[")
+                    .append(i)
+                    .append(',')
+                    .append(-i)
+                    .append("]}}\n");
+        }
+        Files.write(file.toPath(), json.toString().getBytes(StandardCharsets.UTF_8));
+        assertTrue(GeoJSONSequenceReader.isFeatureSequence(file));
+        assertFalse(
+                GeoJSONSequenceReader.isFeatureSequence(
+                        TestData.file(GeoJSONStreamingReaderTest.class, "locations.json")));
+
+        SimpleFeatureType type =
+                DataUtilities.createType("sequence", "n:Integer,name:String,geometry:Point");
+        try (GeoJSONSequenceReader reader = new GeoJSONSequenceReader(file, type, 3)) {
+            // many chunks, whose boundaries fall in the middle of lines
+            reader.setChunkSize(1000);
+            reader.setIdStrategy(IdStrategy.PREFIX);
+            for (int i = 0; i < count; i++) {
+                assertTrue(reader.hasNext());
+                SimpleFeature feature = reader.next();
+                assertEquals("sequence." + i, feature.getID());
+                assertEquals(i, feature.getAttribute("n"));
+                assertEquals("f" + i, feature.getAttribute("name"));
+                assertEquals(-i, ((Geometry) feature.getDefaultGeometry()).getCoordinate().y, 0d);
+            }
+            assertFalse(reader.hasNext());
+            assertThrows(
+                    IllegalArgumentException.class, () -> reader.setIdStrategy(IdStrategy.AUTO));
+        }
+
+        // the streaming reader reads the same sequence on a single thread
+        try (GeoJSONStreamingReader reader =
+                new GeoJSONStreamingReader(file.toURI().toURL(), type)) {
+            int read = 0;
+            while (reader.hasNext()) {
+                assertEquals(read++, reader.next().getAttribute("n"));
+            }
+            assertEquals(count, read);
+        }
+    }
+
+    private static void assertSameFeatures(
+            String file, List<SimpleFeature> expected, List<SimpleFeature> actual)
+            throws IOException {
+        assertEquals(file, expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            SimpleFeature e = expected.get(i);
+            SimpleFeature a = actual.get(i);
+            String message = file + " " + e.getID();
+            // ids generated from a random UUID differ
+            if (!e.getID().matches(".*\\.[0-9a-f]{8}-[0-9a-f]{4}-.*")) {
+                assertEquals(message, e.getID(), a.getID());
+            }
+            for (int j = 0; j < e.getAttributeCount(); j++) {
+                Object value = e.getAttribute(j);
+                if (value instanceof Geometry) {
+                    assertTrue(
+                            message, ((Geometry) value).equalsExact((Geometry) a.getAttribute(j)));
+                } else {
+                    assertEquals(message, value, a.getAttribute(j));
+                }
+            }
+            assertEquals(
+                    message,
+                    e.getUserData().get(GeoJSONReader.TOP_LEVEL_ATTRIBUTES),
+                    a.getUserData().get(GeoJSONReader.TOP_LEVEL_ATTRIBUTES));
+        }
+    }
+}
@@ -21,6 +21,7 @@
 import java.net.URL;
 import java.util.Collections;
 import java.util.List;
+import java.util.logging.Level;
 import org.geotools.api.data.FeatureReader;
 import org.geotools.api.data.FeatureWriter;
 import org.geotools.api.data.FileDataStore;
@@ -33,9 +34,13 @@
 import org.geotools.api.filter.Filter;
 import org.geotools.api.referencing.crs.CoordinateReferenceSystem;
 import org.geotools.data.geojson.GeoJSONReader;
+import org.geotools.data.geojson.GeoJSONSequenceReader;
+import org.geotools.data.geojson.GeoJSONSpatialIndex;
+import org.geotools.data.geojson.GeoJSONStreamingReader;
 import org.geotools.data.store.ContentDataStore;
 import org.geotools.data.store.ContentEntry;
 import org.geotools.data.store.ContentFeatureSource;
+import org.geotools.data.store.SidecarSpatialIndex;
 import org.geotools.feature.NameImpl;
 import org.geotools.geometry.jts.ReferencedEnvelope;
 import org.geotools.referencing.crs.DefaultGeographicCRS;
@@ -52,6 +57,18 @@ public class GeoJSONDataStore extends ContentDataStore implements FileDataStore
     private ReferencedEnvelope bbox;
     private boolean quick = true;
 
+    /**
+     * Default size above which local files are read with the streaming parser, negative as
+     * streaming is disabled unless enabled explicitly
+     */
+    public static final long DEFAULT_STREAMING_THRESHOLD = -1;
+
+    private long streamingThreshold = DEFAULT_STREAMING_THRESHOLD;
+    private int parsingThreads = 1;
+
+    private boolean createSpatialIndex;
+    private SidecarSpatialIndex spatialIndex;
+
     public GeoJSONDataStore(URL url) {
         this.setUrl(url);
     }
@@ -65,6 +82,102 @@ GeoJSONReader read() throws IOException {
         return reader;
     }
 
+    /**
+     * Returns the file to read with {@link GeoJSONStreamingReader}, or null if the data is not a
+     * local file larger than the streaming threshold
+     */
+    File getStreamingFile() {
+        if (streamingThreshold < 0 || !"file".equalsIgnoreCase(getUrl().getProtocol())) {
+            return null;
+        }
+        File f = URLs.urlToFile(getUrl());
+        return f.isFile() && f.length() > streamingThreshold ? f : null;
+    }
+
+    /**
+     * Opens a streaming reader for the streaming file, parsing newline-delimited GeoJSON on several
+     * threads if enabled
+     */
+    FeatureReader<SimpleFeatureType, SimpleFeature> readStreaming(
+            File file, SimpleFeatureType featureType) throws IOException {
+        if (parsingThreads > 1 && GeoJSONSequenceReader.isFeatureSequence(file)) {
+            GeoJSONSequenceReader reader =
+                    new GeoJSONSequenceReader(file, featureType, parsingThreads);
+            reader.setIdStrategy(GeoJSONReader.IdStrategy.PREFIX);
+            return reader;
+        }
+        GeoJSONStreamingReader reader = new GeoJSONStreamingReader(getUrl(), featureType);
+        reader.setIdStrategy(GeoJSONReader.IdStrategy.PREFIX);
+        return reader;
+    }
+
+    /** Returns the data as a local file, or null if it is not one */
+    private File getLocalFile() {
+        if (!"file".equalsIgnoreCase(getUrl().getProtocol())) {
+            return null;
+        }
+        File f = URLs.urlToFile(getUrl());
+        return f.isFile() ? f : null;
+    }
+
+    /**
+     * Returns the spatial index of the file, building it if allowed, or null if there is no up to
+     * date index to use . The caller must close the returned index once done with it, a stale index
+     * being closed only once all its holders released it.
+     */
+    synchronized SidecarSpatialIndex getSpatialIndex() throws IOException {
+        File file = getLocalFile();
+        if (file == null) {
+            return null;
+        }
+        if (spatialIndex != null && !SidecarSpatialIndex.isCurrent(file)) {
+            closeSpatialIndex();
+        }
+        if (spatialIndex == null) {
+            if (createSpatialIndex && !SidecarSpatialIndex.isCurrent(file)) {
+                GeoJSONSpatialIndex.build(file);
+            }
+            spatialIndex = SidecarSpatialIndex.open(file);
+        }
+        return spatialIndex != null ? spatialIndex.retain() : null;
+    }
+
+    /** Opens a reader on the features of the index entries */
+    FeatureReader<SimpleFeatureType, SimpleFeature> readIndexed(
+            List<SidecarSpatialIndex.Entry> entries, SimpleFeatureType featureType)
+            throws IOException {
+        return GeoJSONSpatialIndex.read(getLocalFile(), entries, featureType);
+    }
+
+    /** Builds the spatial index of the file, replacing the existing one */
+    public synchronized void createSpatialIndex() throws IOException {
+        File file = getLocalFile();
+        if (file == null) {
+            throw new IOException("Spatial indexes can only be built for local files");
+        }
+        closeSpatialIndex();
+        GeoJSONSpatialIndex.build(file);
+    }
+
+    private void closeSpatialIndex() throws IOException {
+        if (spatialIndex != null) {
+            spatialIndex.close();
+            spatialIndex = null;
+        }
+    }
+
+    @Override
+    public void dispose() {
+        synchronized (this) {
+            try {
+                closeSpatialIndex();
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Failed to close the spatial index", e);
+            }
+        }
+        super.dispose();
+    }
+
     @Override
     protected ContentFeatureSource createFeatureSource(ContentEntry entry) throws IOException {
         if ("file".equalsIgnoreCase(getUrl().getProtocol())) {
@@ -200,6 +313,47 @@ public boolean isQuick() {
         return quick;
     }
 
+    /** @return the size in bytes above which local files are read with the streaming parser */
+    public long getStreamingThreshold() {
+        return streamingThreshold;
+    }
+
+    /**
+     * Sets the size in bytes above which local files are read with {@link GeoJSONStreamingReader},
+     * which only parses the requested properties but keeps the schema found when the store was
+     * opened, so properties missing from it are not read. Use a negative value, the default, to
+     * disable streaming.
+     */
+    public void setStreamingThreshold(long streamingThreshold) {
+        this.streamingThreshold = streamingThreshold;
+    }
+
+    /** @return the number of threads parsing newline-delimited GeoJSON files */
+    public int getParsingThreads() {
+        return parsingThreads;
+    }
+
+    /**
+     * Sets the number of threads parsing newline-delimited GeoJSON files read with the streaming
+     * parser, see {@link GeoJSONSequenceReader}
+     */
+    public void setParsingThreads(int parsingThreads) {
+        this.parsingThreads = parsingThreads;
+    }
+
+    /** @return true if a missing or stale spatial index is built on first access */
+    public boolean isCreateSpatialIndex() {
+        return createSpatialIndex;
+    }
+
+    /**
+     * Sets whether a missing or stale {@link SidecarSpatialIndex} is built when a bounding box
+     * query first needs it. An up to date index found next to a local file is used either way.
+     */
+    public void setCreateSpatialIndex(boolean createSpatialIndex) {
+        this.createSpatialIndex = createSpatialIndex;
+    }
+
     public ReferencedEnvelope getBbox() {
         return bbox;
     }
@@ -65,6 +65,32 @@ public class GeoJSONDataStoreFactory implements FileDataStoreFactorySpi {
                     "Should the schema be described by the first element of the collection (Default true)",
                     false);
 
+    public static final Param STREAMING_THRESHOLD =
+            new Param(
+                    "streaming threshold",
+                    Long.class,
+                    "Size in bytes above which local files are read with the streaming parser,"
+                            + " negative to disable it (Default disabled)",
+                    false,
+                    GeoJSONDataStore.DEFAULT_STREAMING_THRESHOLD,
+                    new KVP(Param.LEVEL, "advanced"));
+    public static final Param PARSING_THREADS =
+            new Param(
+                    "parsing threads",
+                    Integer.class,
+                    "Number of threads parsing large newline-delimited GeoJSON files",
+                    false,
+                    1,
+                    new KVP(Param.LEVEL, "advanced"));
+    public static final Param CREATE_SPATIAL_INDEX =
+            new Param(
+                    "create spatial index",
+                    Boolean.class,
+                    "Build a spatial index next to local files to speed up bounding box queries",
+                    false,
+                    false,
+                    new KVP(Param.LEVEL, "advanced"));
+
     public GeoJSONDataStoreFactory() {}
 
     /** No implementation hints required at this time */
@@ -109,6 +135,18 @@ public DataStore createDataStore(Map<String, ?> params) throws IOException {
         if (quick != null) {
             ret.setQuickSchema(quick);
         }
+        Long threshold = (Long) STREAMING_THRESHOLD.lookUp(params);
+        if (threshold != null) {
+            ret.setStreamingThreshold(threshold);
+        }
+        Integer threads = (Integer) PARSING_THREADS.lookUp(params);
+        if (threads != null) {
+            ret.setParsingThreads(threads);
+        }
+        Boolean spatialIndex = (Boolean) CREATE_SPATIAL_INDEX.lookUp(params);
+        if (spatialIndex != null) {
+            ret.setCreateSpatialIndex(spatialIndex);
+        }
         return ret;
     }
 
@@ -147,6 +185,18 @@ public DataStore createNewDataStore(Map<String, ?> params) throws IOException {
         if (quick != null) {
             ret.setQuickSchema(quick);
         }
+        Long threshold = (Long) STREAMING_THRESHOLD.lookUp(params);
+        if (threshold != null) {
+            ret.setStreamingThreshold(threshold);
+        }
+        Integer threads = (Integer) PARSING_THREADS.lookUp(params);
+        if (threads != null) {
+            ret.setParsingThreads(threads);
+        }
+        Boolean spatialIndex = (Boolean) CREATE_SPATIAL_INDEX.lookUp(params);
+        if (spatialIndex != null) {
+            ret.setCreateSpatialIndex(spatialIndex);
+        }
         return ret;
     }
 
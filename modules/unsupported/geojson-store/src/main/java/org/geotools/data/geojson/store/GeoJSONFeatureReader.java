@@ -16,15 +16,27 @@
  */
 package org.geotools.data.geojson.store;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Set;
 import org.geotools.api.data.FeatureReader;
 import org.geotools.api.data.Query;
 import org.geotools.api.feature.simple.SimpleFeature;
 import org.geotools.api.feature.simple.SimpleFeatureType;
+import org.geotools.api.feature.type.AttributeDescriptor;
+import org.geotools.api.filter.sort.SortBy;
+import org.geotools.data.DataUtilities;
 import org.geotools.data.geojson.GeoJSONReader;
 import org.geotools.data.store.ContentState;
+import org.geotools.data.store.SidecarSpatialIndex;
 import org.geotools.feature.FeatureIterator;
+import org.geotools.feature.simple.SimpleFeatureTypeBuilder;
+import org.locationtech.jts.geom.Envelope;
 
 public class GeoJSONFeatureReader implements FeatureReader<SimpleFeatureType, SimpleFeature> {
 
@@ -34,14 +46,82 @@ public class GeoJSONFeatureReader implements FeatureReader<SimpleFeatureType, Si
 
     private FeatureIterator<SimpleFeature> iterator;
 
+    /**
+     * Reads large files with the streaming parser, or the features found by the spatial index,
+     * instead of {@link #reader}
+     */
+    private FeatureReader<SimpleFeatureType, SimpleFeature> streaming;
+
     public GeoJSONFeatureReader(ContentState contentState, Query query) throws IOException {
+        this(contentState, query, true);
+    }
+
+    /**
+     * @param allowStreaming whether large files can be read with the streaming parser, which
+     *     follows the schema instead of discovering new properties
+     */
+    GeoJSONFeatureReader(ContentState contentState, Query query, boolean allowStreaming)
+            throws IOException {
         this.state = contentState;
         GeoJSONDataStore ds = (GeoJSONDataStore) state.getEntry().getDataStore();
-        reader = ds.read();
+        Envelope area =
+                allowStreaming ? SidecarSpatialIndex.getSearchBounds(query.getFilter()) : null;
+        try (SidecarSpatialIndex index = area != null ? ds.getSpatialIndex() : null) {
+            if (index != null && getSchema() != null) {
+                // the feature source still applies the filter to the candidates
+                streaming = ds.readIndexed(index.search(area), getLoadingType(getSchema(), query));
+                return;
+            }
+        }
+        File file = allowStreaming ? ds.getStreamingFile() : null;
+        SimpleFeatureType schema = file != null ? getSchema() : null;
+        if (schema != null) {
+            streaming = ds.readStreaming(file, getLoadingType(schema, query));
+        } else {
+            reader = ds.read();
+        }
+    }
+
+    /**
+     * Returns the attributes to parse: the requested ones and those needed to filter and sort, the
+     * others are skipped by the parser and the final retyping is left to the feature source
+     */
+    static SimpleFeatureType getLoadingType(SimpleFeatureType schema, Query query) {
+        if (query.getPropertyNames() == Query.ALL_NAMES) {
+            return schema;
+        }
+        Set<String> names = new HashSet<>(Arrays.asList(query.getPropertyNames()));
+        if (query.getFilter() != null) {
+            names.addAll(Arrays.asList(DataUtilities.attributeNames(query.getFilter(), schema)));
+        }
+        if (query.getSortBy() != null) {
+            for (SortBy sortBy : query.getSortBy()) {
+                if (sortBy.getPropertyName() != null) {
+                    names.add(sortBy.getPropertyName().getPropertyName());
+                }
+            }
+        }
+        List<String> loaded = new ArrayList<>();
+        for (AttributeDescriptor descriptor : schema.getAttributeDescriptors()) {
+            if (names.contains(descriptor.getLocalName())) {
+                loaded.add(descriptor.getLocalName());
+            }
+        }
+        if (loaded.size() == schema.getAttributeCount()) {
+            return schema;
+        }
+        return SimpleFeatureTypeBuilder.retype(schema, loaded);
     }
 
     @Override
     public SimpleFeatureType getFeatureType() {
+        if (streaming != null) {
+            return streaming.getFeatureType();
+        }
+        return getSchema();
+    }
+
+    private SimpleFeatureType getSchema() {
         GeoJSONDataStore ds = (GeoJSONDataStore) state.getEntry().getDataStore();
         try {
             SimpleFeatureType schema = ds.getSchema(state.getEntry().getName());
@@ -59,6 +139,9 @@ public SimpleFeatureType getFeatureType() {
     @Override
     public SimpleFeature next()
             throws IOException, IllegalArgumentException, NoSuchElementException {
+        if (streaming != null) {
+            return streaming.next();
+        }
         if (iterator == null) {
             iterator = reader.getIterator();
         }
@@ -67,6 +150,9 @@ public SimpleFeature next()
 
     @Override
     public boolean hasNext() throws IOException {
+        if (streaming != null) {
+            return streaming.hasNext();
+        }
         if (iterator == null) {
             iterator = reader.getIterator();
         }
@@ -76,6 +162,10 @@ public boolean hasNext() throws IOException {
     @Override
     @SuppressWarnings("PMD.UseTryWithResources") // closing field
     public void close() throws IOException {
+        if (streaming != null) {
+            streaming.close();
+            return;
+        }
         try {
             if (iterator != null) {
                 iterator.close();
@@ -24,6 +24,7 @@
 import org.geotools.api.feature.simple.SimpleFeature;
 import org.geotools.api.feature.simple.SimpleFeatureType;
 import org.geotools.api.feature.type.FeatureTypeFactory;
+import org.geotools.api.feature.type.GeometryDescriptor;
 import org.geotools.api.filter.Filter;
 import org.geotools.data.geojson.GeoJSONReader;
 import org.geotools.data.store.ContentEntry;
@@ -64,7 +65,22 @@ public GeoJSONDataStore getDataStore() {
     protected ReferencedEnvelope getBoundsInternal(Query query) throws IOException {
         ReferencedEnvelope env = new ReferencedEnvelope(getDataStore().getCrs());
 
-        if (query.getFilter() == Filter.INCLUDE) {
+        if (query.getFilter() == Filter.INCLUDE && getDataStore().getStreamingFile() != null) {
+            // parse the geometries only
+            GeometryDescriptor geometry = getSchema().getGeometryDescriptor();
+            Query geometryQuery = new Query(query);
+            geometryQuery.setPropertyNames(
+                    geometry == null ? Query.NO_NAMES : new String[] {geometry.getLocalName()});
+            try (GeoJSONFeatureReader reader =
+                    new GeoJSONFeatureReader(getState(), geometryQuery)) {
+                while (reader.hasNext()) {
+                    Geometry g = (Geometry) reader.next().getDefaultGeometry();
+                    if (g != null) {
+                        env.expandToInclude(g.getEnvelopeInternal());
+                    }
+                }
+            }
+        } else if (query.getFilter() == Filter.INCLUDE) {
 
             try (GeoJSONReader reader = getDataStore().read()) {
                 try (FeatureIterator<SimpleFeature> itr = reader.getIterator()) {
@@ -81,6 +97,19 @@ protected ReferencedEnvelope getBoundsInternal(Query query) throws IOException {
 
     @Override
     protected int getCountInternal(Query query) throws IOException {
+        if (query.getFilter() == Filter.INCLUDE && getDataStore().getStreamingFile() != null) {
+            // skip all the properties and geometries
+            Query countQuery = new Query(query);
+            countQuery.setPropertyNames(Query.NO_NAMES);
+            try (GeoJSONFeatureReader reader = new GeoJSONFeatureReader(getState(), countQuery)) {
+                int count = 0;
+                while (reader.hasNext()) {
+                    reader.next();
+                    count++;
+                }
+                return count;
+            }
+        }
         if (query.getFilter() == Filter.INCLUDE) {
 
             try (GeoJSONReader reader = getDataStore().read()) {
@@ -75,7 +75,8 @@ public GeoJSONFeatureWriter(ContentEntry entry, Query query) throws IOException
         if (bbox != null) {
             this.writer.setBounds(bbox);
         }
-        this.delegate = new GeoJSONFeatureReader(state, query);
+        // the copied features must keep all their properties, even those missing from the schema
+        this.delegate = new GeoJSONFeatureReader(state, query, false);
     }
 
     @Override
@@ -21,24 +21,41 @@
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
 import org.geotools.api.data.FeatureReader;
 import org.geotools.api.data.Query;
 import org.geotools.api.data.SimpleFeatureSource;
 import org.geotools.api.feature.simple.SimpleFeature;
 import org.geotools.api.feature.simple.SimpleFeatureType;
+import org.geotools.api.filter.Filter;
+import org.geotools.api.filter.FilterFactory;
 import org.geotools.data.geojson.GeoJSONReader;
+import org.geotools.data.simple.SimpleFeatureIterator;
+import org.geotools.data.store.SidecarSpatialIndex;
+import org.geotools.factory.CommonFactoryFinder;
 import org.geotools.geometry.jts.ReferencedEnvelope;
 import org.geotools.referencing.crs.DefaultGeographicCRS;
 import org.geotools.test.TestData;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.geom.Point;
 
 public class GeoJSONDataStoreTest {
+
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     GeoJSONDataStore ds;
 
     @Before
@@ -185,4 +202,85 @@ public void testEmptyFeatures() throws IOException {
             assertEquals(0, reader.getFeatureType().getAttributeCount());
         }
     }
+
+    @Test
+    public void testStreaming() throws IOException {
+        SimpleFeatureSource legacy = ds.getFeatureSource(ds.getNames().get(0));
+        GeoJSONDataStore streaming =
+                new GeoJSONDataStore(
+                        TestData.url(
+                                GeoJSONDataStore.class,
+                                "ne_110m_admin_1_states_provinces.geojson"));
+        // disabled by default
+        assertNull(streaming.getStreamingFile());
+        streaming.setStreamingThreshold(0);
+        assertNotNull(streaming.getStreamingFile());
+        SimpleFeatureSource source = streaming.getFeatureSource(streaming.getNames().get(0));
+
+        assertEquals(legacy.getCount(Query.ALL), source.getCount(Query.ALL));
+        assertEquals(legacy.getBounds(), source.getBounds());
+
+        Query query = new Query(source.getSchema().getTypeName());
+        query.setPropertyNames("name");
+        FilterFactory ff = CommonFactoryFinder.getFilterFactory();
+        query.setFilter(ff.equals(ff.property("postal"), ff.literal("CA")));
+        try (SimpleFeatureIterator expected = legacy.getFeatures(query).features();
+                SimpleFeatureIterator actual = source.getFeatures(query).features()) {
+            assertTrue(actual.hasNext());
+            while (expected.hasNext()) {
+                SimpleFeature feature = actual.next();
+                assertEquals(1, feature.getAttributeCount());
+                assertEquals(expected.next().getAttribute("name"), feature.getAttribute("name"));
+            }
+            assertFalse(actual.hasNext());
+        }
+    }
+
+    @Test
+    public void testSpatialIndex() throws IOException {
+        File file = temporaryFolder.newFile("states.geojson");
+        Files.copy(
+                TestData.file(GeoJSONDataStore.class, "ne_110m_admin_1_states_provinces.geojson")
+                        .toPath(),
+                file.toPath(),
+                StandardCopyOption.REPLACE_EXISTING);
+        GeoJSONDataStore legacy = new GeoJSONDataStore(file);
+        GeoJSONDataStore indexed = new GeoJSONDataStore(file);
+        indexed.setCreateSpatialIndex(true);
+        try {
+            SimpleFeatureSource expected = legacy.getFeatureSource();
+            SimpleFeatureSource source = indexed.getFeatureSource();
+            String geometry = source.getSchema().getGeometryDescriptor().getLocalName();
+            FilterFactory ff = CommonFactoryFinder.getFilterFactory();
+            Filter bbox = ff.bbox(geometry, -125, 30, -110, 45, null);
+            Query query = new Query(source.getSchema().getTypeName(), bbox);
+            query.setPropertyNames(geometry, "name");
+
+            // only queries with a bounding box build the index
+            assertEquals(legacy.getFeatureSource().getCount(Query.ALL), source.getCount(Query.ALL));
+            assertFalse(SidecarSpatialIndex.getIndexFile(file).exists());
+
+            List<String> names = new ArrayList<>();
+            try (SimpleFeatureIterator it = expected.getFeatures(query).features()) {
+                while (it.hasNext()) {
+                    names.add((String) it.next().getAttribute("name"));
+                }
+            }
+            assertFalse(names.isEmpty());
+            List<String> actual = new ArrayList<>();
+            try (SimpleFeatureIterator it = source.getFeatures(query).features()) {
+                while (it.hasNext()) {
+                    SimpleFeature feature = it.next();
+                    assertEquals(2, feature.getAttributeCount());
+                    actual.add((String) feature.getAttribute("name"));
+                }
+            }
+            assertTrue(SidecarSpatialIndex.isCurrent(file));
+            assertEquals(names, actual);
+            assertEquals(names.size(), source.getFeatures(query).size());
+        } finally {
+            legacy.dispose();
+            indexed.dispose();
+        }
+    }
 }
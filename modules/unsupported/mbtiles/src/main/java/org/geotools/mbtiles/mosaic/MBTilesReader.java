@@ -32,8 +32,11 @@
 import java.io.File;
 import java.io.IOException;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Hashtable;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
 import javax.imageio.ImageIO;
 import javax.imageio.ImageReadParam;
 import javax.imageio.ImageReader;
@@ -51,6 +54,7 @@
 import org.geotools.coverage.grid.io.AbstractGridFormat;
 import org.geotools.geometry.GeneralBounds;
 import org.geotools.geometry.jts.ReferencedEnvelope;
+import org.geotools.image.util.DecodedTileCache;
 import org.geotools.mbtiles.MBTilesFile;
 import org.geotools.mbtiles.MBTilesMetadata;
 import org.geotools.mbtiles.MBTilesTile;
@@ -79,6 +83,8 @@ public class MBTilesReader extends AbstractGridCoverage2DReader {
 
     protected File sourceFile;
 
+    private DecodedTileCache tileCache = DecodedTileCache.getDefault();
+
     public MBTilesReader(Object source, Hints hints) throws IOException {
         sourceFile = MBTilesFormat.getFileFromSource(source);
 
@@ -235,33 +241,44 @@ public GridCoverage2D read(GeneralParameterValue[] parameters)
 
             BufferedImage image = null;
 
+            List<MBTilesTile> tiles = new ArrayList<>();
             try (MBTilesFile.TileIterator it =
                     file.tiles(zoomLevel, leftTile, bottomTile, rightTile, topTile)) {
-
                 while (it.hasNext()) {
-                    MBTilesTile tile = it.next();
-
-                    BufferedImage tileImage =
-                            readImage(
-                                    tile.getData(),
-                                    metadata.getFormatStr() == null
-                                            ? "png"
-                                            : metadata.getFormatStr());
-
-                    if (image == null) {
-                        image = getStartImage(tileImage, width, height);
-                    }
-
-                    // coordinates
-                    int posx = (int) (tile.getTileColumn() - leftTile) * DEFAULT_TILE_SIZE;
-                    int posy = (int) (topTile - tile.getTileRow()) * DEFAULT_TILE_SIZE;
-
-                    image.getRaster().setRect(posx, posy, tileImage.getData());
+                    tiles.add(it.next());
                 }
             } catch (SQLException e) {
                 throw new IOException(e);
             }
 
+            // decode the tiles in parallel, reusing the ones already decoded
+            String format = metadata.getFormatStr() == null ? "png" : metadata.getFormatStr();
+            String cacheSource = sourceFile.getAbsolutePath() + "@" + sourceFile.lastModified();
+            List<BufferedImage> tileImages =
+                    tileCache.decode(
+                            tiles,
+                            t ->
+                                    new DecodedTileCache.Key(
+                                            cacheSource,
+                                            t.getZoomLevel(),
+                                            t.getTileColumn(),
+                                            t.getTileRow()),
+                            t -> readImage(t.getData(), format));
+            for (int i = 0; i < tiles.size(); i++) {
+                MBTilesTile tile = tiles.get(i);
+                BufferedImage tileImage = tileImages.get(i);
+
+                if (image == null) {
+                    image = getStartImage(tileImage, width, height);
+                }
+
+                // coordinates
+                int posx = (int) (tile.getTileColumn() - leftTile) * DEFAULT_TILE_SIZE;
+                int posy = (int) (topTile - tile.getTileRow()) * DEFAULT_TILE_SIZE;
+
+                image.getRaster().setRect(posx, posy, tileImage.getRaster());
+            }
+
             if (image == null) { // no tiles ??
                 image = getStartImage(width, height);
             }
@@ -273,6 +290,16 @@ public GridCoverage2D read(GeneralParameterValue[] parameters)
         }
     }
 
+    /** Returns the cache of decoded tiles, by default the shared one */
+    public DecodedTileCache getTileCache() {
+        return tileCache;
+    }
+
+    /** Sets the cache of decoded tiles, cached images are shared and must not be modified */
+    public void setTileCache(DecodedTileCache tileCache) {
+        this.tileCache = Objects.requireNonNull(tileCache);
+    }
+
     private long boundMin(long maxLimit, long minLimit, double position) {
         return Math.max(maxLimit, Math.min(minLimit, Math.round(Math.floor(position))));
     }
@@ -22,7 +22,8 @@
 import java.io.IOException;
 import java.net.URL;
 import java.net.URLDecoder;
-import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 import javax.imageio.stream.ImageInputStreamImpl;
 import org.geotools.s3.cache.CacheEntryKey;
 import org.geotools.s3.cache.CacheManagement;
@@ -92,7 +93,7 @@ private byte[] getFromCache(int block) throws IOException {
     }
 
     private int calculateBlockSizeForBlock(int block) {
-        long offsetInFile = this.cacheBlockSize * block;
+        long offsetInFile = (long) this.cacheBlockSize * block;
         long remainingInFile = this.length - offsetInFile;
         return (int) Math.min(this.cacheBlockSize, remainingInFile);
     }
@@ -127,25 +128,42 @@ private int getCurrentOffset() {
 
     @Override
     public int read(byte[] targetBuffer, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (streamPos >= this.length) {
+            return -1;
+        }
+        int toRead = (int) Math.min(len, this.length - streamPos);
+        int firstBlock = getBlockIndex();
+        int lastBlock = (int) ((streamPos + toRead - 1) / this.cacheBlockSize);
+        byte[][] blocks;
+        if (firstBlock == lastBlock) {
+            blocks = new byte[][] {this.getFromCache(firstBlock)};
+        } else {
+            // the blocks missing from the cache are fetched together
+            List<CacheEntryKey> keys = new ArrayList<>(lastBlock - firstBlock + 1);
+            for (int block = firstBlock; block <= lastBlock; block++) {
+                keys.add(
+                        new CacheEntryKey(
+                                this.bucket, this.key, block, calculateBlockSizeForBlock(block)));
+            }
+            blocks = CacheManagement.DEFAULT.getChunks(keys, connector);
+        }
 
-        int readRemaining = len;
-        ByteBuffer readBuffer = ByteBuffer.allocate(len);
-        while (readRemaining > 0 && streamPos < this.length) {
-            int block = getBlockIndex();
+        int read = 0;
+        for (byte[] blockBytes : blocks) {
+            // block could be longer than what we want to read... or shorter
             int offset = getCurrentOffset();
-            byte[] blockBytes = this.getFromCache(block);
-            // block could be longer than what we want to read... or shorter, or longer than the
-            // rest of the block
-            int bytesToRead = Math.min(readRemaining, blockBytes.length - offset);
-            readBuffer.put(blockBytes, offset, bytesToRead);
-            readRemaining -= bytesToRead;
+            int bytesToRead = Math.min(toRead - read, blockBytes.length - offset);
+            if (bytesToRead <= 0) {
+                break;
+            }
+            System.arraycopy(blockBytes, offset, targetBuffer, off + read, bytesToRead);
+            read += bytesToRead;
             streamPos += bytesToRead;
         }
-
-        ByteBuffer inputByteBuffer = ByteBuffer.wrap(targetBuffer, off, len);
-        inputByteBuffer.put(readBuffer.array(), 0, len);
-
-        return len - readRemaining;
+        return read;
     }
 
     private int getBlockIndex() {
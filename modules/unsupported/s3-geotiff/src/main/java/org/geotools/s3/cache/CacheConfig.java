@@ -61,6 +61,12 @@ public class CacheConfig {
     // time to live in seconds
     public static final String S3_CACHING_TIME_TO_LIVE = "s3.caching.timeToLive";
 
+    // the maximum size of a ranged read fetching several adjacent chunks at once
+    public static final String S3_CACHING_MAX_RANGE_BYTES = "s3.caching.maxRangeBytes";
+
+    // the number of threads fetching chunks concurrently
+    public static final String S3_CACHING_FETCH_THREADS = "s3.caching.fetchThreads";
+
     private boolean useDiskCache = true;
     private boolean useOffHeapCache = false;
     private int chunkSizeBytes = 5 * MEBIBYTE_IN_BYTES;
@@ -70,6 +76,8 @@ public class CacheConfig {
     private String configurationPath;
     private long timeToIdle = 0;
     private long timeToLive = 0;
+    private int maxRangeBytes = 20 * MEBIBYTE_IN_BYTES;
+    private int fetchThreads = 4;
 
     public static CacheConfig getDefaultConfig() {
         CacheConfig config = new CacheConfig();
@@ -157,6 +165,25 @@ public static CacheConfig getDefaultConfig() {
             }
         }
 
+        if (System.getProperty(S3_CACHING_MAX_RANGE_BYTES) != null) {
+            try {
+                int maxRangeBytes =
+                        Integer.parseInt(System.getProperty(S3_CACHING_MAX_RANGE_BYTES));
+                config.setMaxRangeBytes(maxRangeBytes);
+            } catch (NumberFormatException e) {
+                LOGGER.log(Level.FINER, "Can't parse max range bytes", e);
+            }
+        }
+
+        if (System.getProperty(S3_CACHING_FETCH_THREADS) != null) {
+            try {
+                int fetchThreads = Integer.parseInt(System.getProperty(S3_CACHING_FETCH_THREADS));
+                config.setFetchThreads(fetchThreads);
+            } catch (NumberFormatException e) {
+                LOGGER.log(Level.FINER, "Can't parse fetch threads", e);
+            }
+        }
+
         return config;
     }
 
@@ -231,4 +258,20 @@ public void setTimeToIdle(long timeToIdle) {
     public void setTimeToLive(long timeToLive) {
         this.timeToLive = timeToLive;
     }
+
+    public int getMaxRangeBytes() {
+        return maxRangeBytes;
+    }
+
+    public void setMaxRangeBytes(int maxRangeBytes) {
+        this.maxRangeBytes = maxRangeBytes;
+    }
+
+    public int getFetchThreads() {
+        return fetchThreads;
+    }
+
+    public void setFetchThreads(int fetchThreads) {
+        this.fetchThreads = fetchThreads;
+    }
 }
@@ -18,10 +18,20 @@
 
 import com.google.common.annotations.VisibleForTesting;
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import net.sf.ehcache.Cache;
 import net.sf.ehcache.CacheManager;
+import net.sf.ehcache.Ehcache;
+import net.sf.ehcache.Element;
 import net.sf.ehcache.config.CacheConfiguration;
 import net.sf.ehcache.config.Configuration;
 import net.sf.ehcache.config.ConfigurationFactory;
@@ -38,17 +48,25 @@ public enum CacheManagement {
     public static final String DEFAULT_CACHE = "default_cache";
     private CacheManager manager;
     private CacheConfig config;
+    private S3ChunkEntryFactory factory;
+    private ExecutorService executor;
 
     CacheManagement() {
         init(false);
     }
 
-    final @VisibleForTesting void init(final boolean removeCacheIfExists) {
+    final @VisibleForTesting synchronized void init(final boolean removeCacheIfExists) {
         this.config = CacheConfig.getDefaultConfig();
-        this.manager = buildCache(config, removeCacheIfExists);
+        this.factory = new S3ChunkEntryFactory(config);
+        this.manager = buildCache(config, factory, removeCacheIfExists);
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
     }
 
-    private static CacheManager buildCache(CacheConfig config, boolean removeCacheIfExists) {
+    private static CacheManager buildCache(
+            CacheConfig config, S3ChunkEntryFactory factory, boolean removeCacheIfExists) {
         Configuration cacheConfig = null;
         if (config.getConfigurationPath() != null) {
             cacheConfig = loadConfiguration(config.getConfigurationPath());
@@ -92,8 +110,7 @@ private static CacheManager buildCache(CacheConfig config, boolean removeCacheIf
             manager.addCache(DEFAULT_CACHE);
         }
         Cache cache = manager.getCache(DEFAULT_CACHE);
-        SelfPopulatingCache populatingCache =
-                new SelfPopulatingCache(cache, new S3ChunkEntryFactory(config));
+        SelfPopulatingCache populatingCache = new SelfPopulatingCache(cache, factory);
         manager.replaceCacheWithDecoratedCache(cache, populatingCache);
 
         return manager;
@@ -128,6 +145,100 @@ public byte[] getChunk(CacheEntryKey key, S3Connector connector) {
         return (byte[]) this.manager.getEhcache(DEFAULT_CACHE).get(key).getObjectValue();
     }
 
+    /**
+     * Returns the given chunks of a file. The chunks missing from the cache are fetched with as few
+     * reads as possible: adjacent ones are coalesced in a single ranged read, up to {@link
+     * CacheConfig#getMaxRangeBytes()}, and the reads run concurrently.
+     *
+     * @param keys the chunks of a single file, sorted by block
+     * @return the content of each chunk
+     */
+    public byte[][] getChunks(List<CacheEntryKey> keys, S3Connector connector) throws IOException {
+        Ehcache cache = this.manager.getEhcache(DEFAULT_CACHE);
+        byte[][] result = new byte[keys.size()][];
+        // group the missing chunks in runs of adjacent ones
+        List<List<Integer>> runs = new ArrayList<>();
+        List<Integer> run = null;
+        int runBytes = 0;
+        for (int i = 0; i < keys.size(); i++) {
+            CacheEntryKey key = keys.get(i);
+            Element element = cache.getQuiet(key);
+            if (element != null) {
+                result[i] = (byte[]) element.getObjectValue();
+                run = null;
+                continue;
+            }
+            if (run == null
+                    || keys.get(i - 1).getBlock() + 1 != key.getBlock()
+                    || runBytes + key.getBlockSize() > config.getMaxRangeBytes()) {
+                run = new ArrayList<>();
+                runs.add(run);
+                runBytes = 0;
+            }
+            run.add(i);
+            runBytes += key.getBlockSize();
+        }
+        if (runs.isEmpty()) {
+            return result;
+        }
+
+        // fetch the runs concurrently, the first one in the calling thread
+        List<Future<?>> futures = new ArrayList<>();
+        for (List<Integer> r : runs.subList(1, runs.size())) {
+            futures.add(getExecutor().submit(() -> fetch(cache, keys, r, connector, result)));
+        }
+        fetch(cache, keys, runs.get(0), connector, result);
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                throw cause instanceof IOException
+                        ? (IOException) cause
+                        : new IOException("Failed to fetch chunks", cause);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while fetching chunks", e);
+            }
+        }
+        return result;
+    }
+
+    private Void fetch(
+            Ehcache cache,
+            List<CacheEntryKey> keys,
+            List<Integer> run,
+            S3Connector connector,
+            byte[][] result)
+            throws IOException {
+        List<CacheEntryKey> runKeys = new ArrayList<>(run.size());
+        for (Integer i : run) {
+            runKeys.add(keys.get(i));
+        }
+        byte[][] chunks = factory.createEntries(runKeys, connector);
+        for (int i = 0; i < chunks.length; i++) {
+            cache.put(new Element(runKeys.get(i), chunks[i]));
+            result[run.get(i)] = chunks[i];
+        }
+        return null;
+    }
+
+    private synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            AtomicInteger count = new AtomicInteger();
+            executor =
+                    Executors.newFixedThreadPool(
+                            Math.max(1, config.getFetchThreads()),
+                            r -> {
+                                Thread t =
+                                        new Thread(r, "S3ChunkFetcher-" + count.incrementAndGet());
+                                t.setDaemon(true);
+                                return t;
+                            });
+        }
+        return executor;
+    }
+
     public CacheConfig getCacheConfig() {
         return this.config;
     }
@@ -23,6 +23,7 @@
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -87,6 +88,51 @@ private Object createEntry(Object key, S3Connector connector) throws IOException
         return val;
     }
 
+    /**
+     * Fetches consecutive chunks of the same file with a single ranged read
+     *
+     * @param keys the chunks, sorted by block
+     * @return the content of each chunk
+     */
+    byte[][] createEntries(List<CacheEntryKey> keys, S3Connector connector) throws IOException {
+        CacheEntryKey first = keys.get(0);
+        long offset = (long) first.getBlock() * (long) this.cacheBlockSize;
+        long length = 0;
+        for (CacheEntryKey key : keys) {
+            length += key.getBlockSize();
+        }
+        GetObjectRequest request =
+                new GetObjectRequest(first.getBucket(), first.getKey())
+                        .withRange(offset, offset + length - 1);
+        byte[][] result = new byte[keys.size()][];
+        try (S3Object object = connector.getS3Client().getObject(request);
+                InputStream stream = object.getObjectContent()) {
+            for (int i = 0; i < result.length; i++) {
+                // the block size of the object's last chunk is already the remaining length,
+                // so a short chunk is a truncated response, it must not be cached
+                byte[] chunk = new byte[keys.get(i).getBlockSize()];
+                int read = 0;
+                while (read < chunk.length) {
+                    int nBytes = stream.read(chunk, read, chunk.length - read);
+                    if (nBytes < 0) {
+                        throw new IOException(
+                                "Premature end of data reading "
+                                        + keys.get(i)
+                                        + ", got "
+                                        + read
+                                        + " bytes out of "
+                                        + chunk.length);
+                    }
+                    read += nBytes;
+                }
+                result[i] = chunk;
+            }
+        } catch (RuntimeException e) {
+            throw new IOException("Unable to read " + keys.size() + " chunks from " + first, e);
+        }
+        return result;
+    }
+
     private S3Object initStream(
             long offset, String bucket, String key, int blockSize, AmazonS3 s3Client) {
         try {
@@ -19,17 +19,39 @@
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import com.amazonaws.auth.AWSStaticCredentialsProvider;
+import com.amazonaws.auth.AnonymousAWSCredentials;
+import com.amazonaws.client.builder.AwsClientBuilder;
 import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.AmazonS3ClientBuilder;
 import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.amazonaws.services.s3.model.S3Object;
+import com.sun.net.httpserver.HttpServer;
 import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 import org.geotools.s3.S3Connector;
 import org.junit.After;
 import org.junit.Test;
@@ -38,6 +60,168 @@ public class CacheManagementTest {
 
     public @After void after() {
         System.clearProperty(CacheConfig.S3_CACHING_EH_CACHE_CONFIG);
+        System.clearProperty(CacheConfig.S3_CACHING_CHUNK_SIZE_BYTES);
+        // do not leak the test configuration, and cached chunks, to the other tests
+        CacheManagement.DEFAULT.init(true);
+    }
+
+    @Test
+    @SuppressWarnings("PMD.CloseResource")
+    public void testGetChunksCoalescesAdjacentBlocks() throws Exception {
+        System.setProperty(CacheConfig.S3_CACHING_CHUNK_SIZE_BYTES, "1024");
+        CacheManagement.DEFAULT.init(true);
+
+        // each byte of the file is the number of its block
+        List<long[]> ranges = Collections.synchronizedList(new ArrayList<>());
+        AmazonS3 s3Client = mock(AmazonS3.class);
+        when(s3Client.getObject(any(GetObjectRequest.class)))
+                .thenAnswer(
+                        invocation -> {
+                            long[] range =
+                                    ((GetObjectRequest) invocation.getArgument(0)).getRange();
+                            ranges.add(range);
+                            byte[] content = new byte[(int) (range[1] - range[0] + 1)];
+                            for (int i = 0; i < content.length; i++) {
+                                content[i] = (byte) ((range[0] + i) / 1024);
+                            }
+                            S3Object object = new S3Object();
+                            object.setObjectContent(new ByteArrayInputStream(content));
+                            return object;
+                        });
+        S3Connector connector = mock(S3Connector.class);
+        when(connector.getS3Client()).thenReturn(s3Client);
+
+        // block 11 is already cached
+        CacheManagement.DEFAULT.getChunk(
+                new CacheEntryKey("bucket", "blocks", 11, 1024), connector);
+        ranges.clear();
+
+        List<CacheEntryKey> keys = new ArrayList<>();
+        for (int block = 8; block < 15; block++) {
+            keys.add(new CacheEntryKey("bucket", "blocks", block, 1024));
+        }
+        byte[][] chunks = CacheManagement.DEFAULT.getChunks(keys, connector);
+        for (int i = 0; i < chunks.length; i++) {
+            assertEquals(1024, chunks[i].length);
+            assertEquals(8 + i, chunks[i][1023]);
+        }
+        // one read on each side of the cached block
+        assertEquals(2, ranges.size());
+        Set<Long> starts = ranges.stream().map(r -> r[0]).collect(Collectors.toSet());
+        assertEquals(new HashSet<>(Arrays.asList(8 * 1024L, 12 * 1024L)), starts);
+
+        // now all cached
+        ranges.clear();
+        CacheManagement.DEFAULT.getChunks(keys, connector);
+        assertEquals(0, ranges.size());
+    }
+
+    @Test
+    @SuppressWarnings("PMD.CloseResource")
+    public void testGetChunksDoesNotCacheTruncatedReads() throws Exception {
+        System.setProperty(CacheConfig.S3_CACHING_CHUNK_SIZE_BYTES, "1024");
+        CacheManagement.DEFAULT.init(true);
+
+        // the response ends in the middle of the second chunk
+        AtomicInteger reads = new AtomicInteger();
+        AmazonS3 s3Client = mock(AmazonS3.class);
+        when(s3Client.getObject(any(GetObjectRequest.class)))
+                .thenAnswer(
+                        invocation -> {
+                            reads.incrementAndGet();
+                            S3Object object = new S3Object();
+                            object.setObjectContent(new ByteArrayInputStream(new byte[1500]));
+                            return object;
+                        });
+        S3Connector connector = mock(S3Connector.class);
+        when(connector.getS3Client()).thenReturn(s3Client);
+
+        List<CacheEntryKey> keys =
+                Arrays.asList(
+                        new CacheEntryKey("bucket", "truncated", 0, 1024),
+                        new CacheEntryKey("bucket", "truncated", 1, 1024));
+        assertThrows(IOException.class, () -> CacheManagement.DEFAULT.getChunks(keys, connector));
+        // nothing was cached, the chunks are read again
+        assertThrows(IOException.class, () -> CacheManagement.DEFAULT.getChunks(keys, connector));
+        assertEquals(2, reads.get());
+    }
+
+    @Test
+    public void testGetChunksOverHttp() throws Exception {
+        System.setProperty(CacheConfig.S3_CACHING_CHUNK_SIZE_BYTES, "1024");
+        CacheManagement.DEFAULT.init(true);
+
+        // a stub S3 server, each byte of the file being the number of its block. Two concurrent
+        // requests are expected, each one waits for the other to come in
+        int length = 20 * 1024 + 100;
+        List<String> ranges = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch concurrent = new CountDownLatch(2);
+        AtomicBoolean overlapped = new AtomicBoolean(true);
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newFixedThreadPool(4));
+        server.createContext(
+                "/bucket/blocks",
+                exchange -> {
+                    String range = exchange.getRequestHeaders().getFirst("Range");
+                    ranges.add(range);
+                    concurrent.countDown();
+                    try {
+                        if (!concurrent.await(5, TimeUnit.SECONDS)) {
+                            overlapped.set(false);
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    String[] bounds = range.substring("bytes=".length()).split("-");
+                    long start = Long.parseLong(bounds[0]);
+                    long end = Math.min(Long.parseLong(bounds[1]), length - 1);
+                    byte[] content = new byte[(int) (end - start + 1)];
+                    for (int i = 0; i < content.length; i++) {
+                        content[i] = (byte) ((start + i) / 1024);
+                    }
+                    exchange.getResponseHeaders()
+                            .add("Content-Range", "bytes " + start + "-" + end + "/" + length);
+                    exchange.getResponseHeaders().add("Content-Type", "application/octet-stream");
+                    exchange.sendResponseHeaders(206, content.length);
+                    try (OutputStream out = exchange.getResponseBody()) {
+                        out.write(content);
+                    }
+                });
+        server.start();
+        try {
+            AmazonS3 s3Client =
+                    AmazonS3ClientBuilder.standard()
+                            .withCredentials(
+                                    new AWSStaticCredentialsProvider(new AnonymousAWSCredentials()))
+                            .withEndpointConfiguration(
+                                    new AwsClientBuilder.EndpointConfiguration(
+                                            "http://localhost:" + server.getAddress().getPort(),
+                                            "us-east-1"))
+                            .withPathStyleAccessEnabled(true)
+                            .build();
+            S3Connector connector = mock(S3Connector.class);
+            when(connector.getS3Client()).thenReturn(s3Client);
+
+            // the last three chunks and the first two, the last one being short, in two reads
+            List<CacheEntryKey> keys = new ArrayList<>();
+            for (int block : new int[] {0, 1, 18, 19, 20}) {
+                int size = (int) Math.min(1024, length - block * 1024L);
+                keys.add(new CacheEntryKey("bucket", "blocks", block, size));
+            }
+            byte[][] chunks = CacheManagement.DEFAULT.getChunks(keys, connector);
+            for (int i = 0; i < chunks.length; i++) {
+                assertEquals(keys.get(i).getBlockSize(), chunks[i].length);
+                assertEquals((byte) keys.get(i).getBlock(), chunks[i][chunks[i].length - 1]);
+            }
+            assertEquals(100, chunks[4].length);
+            assertEquals(
+                    new HashSet<>(Arrays.asList("bytes=0-2047", "bytes=18432-20579")),
+                    new HashSet<>(ranges));
+            assertTrue(overlapped.get());
+        } finally {
+            server.stop(0);
+            ((ExecutorService) server.getExecutor()).shutdown();
+        }
     }
 
     @Test
@@ -0,0 +1,190 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2024, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.wfs;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.geotools.api.data.FeatureReader;
+import org.geotools.api.feature.simple.SimpleFeature;
+import org.geotools.api.feature.simple.SimpleFeatureType;
+
+/**
+ * A {@link FeatureReader} fetching a range of features one page at a time, with up to a given
+ * number of page requests running concurrently, and returning the features in page order.
+ *
+ * <p>Only the pages in flight and the page being read are held in memory, so at most {@code
+ * (maxConcurrent + 1) * pageSize} features. Paging is only stable if the server returns the
+ * features in a consistent order, as servers usually do when sorting by the primary key.
+ */
+class PagedFeatureReader implements FeatureReader<SimpleFeatureType, SimpleFeature> {
+
+    /** Loads the features of a single page. */
+    @FunctionalInterface
+    interface PageLoader {
+        /**
+         * @param startIndex the index of the first feature of the page
+         * @param count the maximum number of features of the page
+         */
+        List<SimpleFeature> load(int startIndex, int count) throws IOException;
+    }
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private final PageLoader loader;
+
+    private final int pageSize;
+
+    private final long end;
+
+    private long nextStart;
+
+    private ExecutorService executor;
+
+    private final Deque<Future<List<SimpleFeature>>> pages = new ArrayDeque<>();
+
+    private Iterator<SimpleFeature> current = Collections.emptyIterator();
+
+    private SimpleFeature next;
+
+    private SimpleFeatureType featureType;
+
+    /**
+     * @param featureType the feature type to report if the range turns out to be empty
+     * @param startIndex the index of the first feature to read
+     * @param count the number of features to read
+     * @param pageSize the number of features requested at a time
+     * @param maxConcurrent the maximum number of pages requested concurrently
+     * @param loader loads the pages, called from the worker threads
+     */
+    public PagedFeatureReader(
+            SimpleFeatureType featureType,
+            int startIndex,
+            int count,
+            int pageSize,
+            int maxConcurrent,
+            PageLoader loader)
+            throws IOException {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+        }
+        this.loader = loader;
+        this.pageSize = pageSize;
+        this.nextStart = startIndex;
+        this.end = (long) startIndex + count;
+        this.executor =
+                Executors.newFixedThreadPool(
+                        Math.max(1, maxConcurrent),
+                        r -> {
+                            Thread thread =
+                                    new Thread(r, "WFS-paging-" + THREAD_COUNTER.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+        for (int i = 0; i < Math.max(1, maxConcurrent); i++) {
+            submitNextPage();
+        }
+        try {
+            this.next = fetchNext();
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+        this.featureType = next == null ? featureType : next.getFeatureType();
+    }
+
+    private void submitNextPage() {
+        if (nextStart >= end) {
+            return;
+        }
+        final int start = (int) nextStart;
+        final int size = (int) Math.min(pageSize, end - nextStart);
+        pages.add(executor.submit(() -> loader.load(start, size)));
+        nextStart += size;
+    }
+
+    private SimpleFeature fetchNext() throws IOException {
+        while (!current.hasNext()) {
+            Future<List<SimpleFeature>> page = pages.poll();
+            if (page == null) {
+                return null;
+            }
+            // keep the pipeline full while this page is read
+            submitNextPage();
+            current = getPage(page).iterator();
+        }
+        return current.next();
+    }
+
+    private List<SimpleFeature> getPage(Future<List<SimpleFeature>> page) throws IOException {
+        try {
+            return page.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a page of features", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    @Override
+    public SimpleFeatureType getFeatureType() {
+        return featureType;
+    }
+
+    @Override
+    public SimpleFeature next() throws IOException, NoSuchElementException {
+        if (next == null) {
+            throw new NoSuchElementException();
+        }
+        SimpleFeature result = next;
+        next = fetchNext();
+        return result;
+    }
+
+    @Override
+    public boolean hasNext() throws IOException {
+        return next != null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        next = null;
+        current = Collections.emptyIterator();
+        for (Future<List<SimpleFeature>> page : pages) {
+            page.cancel(true);
+        }
+        pages.clear();
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+}
@@ -17,6 +17,8 @@
 package org.geotools.data.wfs;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -283,6 +285,8 @@ protected FeatureReader<SimpleFeatureType, SimpleFeature> getReaderInternal(Quer
             return new EmptyFeatureReader<>(getSchema());
         }
 
+        // creating the request inverts the axis in the filter, pages need the original query
+        final Query pagingQuery = new Query(localQuery);
         GetFeatureRequest request = createGetFeature(localQuery, ResultType.RESULTS);
 
         // the read type migth contain extra properties to run the unsupported filter
@@ -293,14 +297,19 @@ protected FeatureReader<SimpleFeatureType, SimpleFeature> getReaderInternal(Quer
                 getQueryType(
                         crs, request.getPropertyNames(), (SimpleFeatureType) request.getFullType());
         request.setQueryType(contentType);
-        LOGGER.fine(() -> "request = " + request);
-        GetFeatureResponse response = client.issueRequest(request);
-        LOGGER.fine(() -> "response = " + response);
         GeometryFactory geometryFactory = findGeometryFactory(localQuery.getHints());
-        GetParser<SimpleFeature> features = response.getSimpleFeatures(geometryFactory);
 
-        FeatureReader<SimpleFeatureType, SimpleFeature> reader =
-                new WFSFeatureReader(features, response);
+        FeatureReader<SimpleFeatureType, SimpleFeature> reader = null;
+        if (isPageable(request)) {
+            reader = getPagedReader(pagingQuery, contentType, geometryFactory);
+        }
+        if (reader == null) {
+            LOGGER.fine(() -> "request = " + request);
+            GetFeatureResponse response = client.issueRequest(request);
+            LOGGER.fine(() -> "response = " + response);
+            GetParser<SimpleFeature> features = response.getSimpleFeatures(geometryFactory);
+            reader = new WFSFeatureReader(features, response);
+        }
 
         Filter unsupportedFilter = request.getUnsupportedFilter();
         if (unsupportedFilter != null && unsupportedFilter != Filter.INCLUDE) {
@@ -339,6 +348,91 @@ protected FeatureReader<SimpleFeatureType, SimpleFeature> getReaderInternal(Quer
         return reader;
     }
 
+    /**
+     * Returns true if the request can be split in pages: paging is enabled, the server supports
+     * startIndex and count, and the whole filter runs on the server, so that the server side
+     * feature indexes are the ones of the query.
+     */
+    private boolean isPageable(GetFeatureRequest request) {
+        Filter unsupportedFilter = request.getUnsupportedFilter();
+        return client.getConfig().getPageSize() > 0
+                && client.canOffset()
+                && client.canLimit()
+                && (unsupportedFilter == null || Filter.INCLUDE.equals(unsupportedFilter));
+    }
+
+    /**
+     * Returns a reader fetching the query results in pages, or null if the number of matched
+     * features is unknown or fits in a single page.
+     */
+    private FeatureReader<SimpleFeatureType, SimpleFeature> getPagedReader(
+            Query query, SimpleFeatureType contentType, GeometryFactory geometryFactory)
+            throws IOException {
+        final WFSConfig config = client.getConfig();
+        final int pageSize = config.getPageSize();
+        int numberMatched;
+        try {
+            numberMatched = getNumberMatched(query);
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Could not get the number of matched features", e);
+            return null;
+        }
+        int startIndex = query.getStartIndex() == null ? 0 : query.getStartIndex();
+        int count = Math.min(numberMatched - startIndex, query.getMaxFeatures());
+        if (numberMatched < 0 || count <= pageSize) {
+            return null;
+        }
+        LOGGER.fine(() -> "Reading " + count + " features in pages of " + pageSize);
+        return new PagedFeatureReader(
+                contentType,
+                startIndex,
+                count,
+                pageSize,
+                config.getMaxConcurrentPages(),
+                (start, size) -> readPage(query, start, size, contentType, geometryFactory));
+    }
+
+    /**
+     * Returns the number of features matched by the query, ignoring its paging, or -1 if unknown,
+     * see {@link #getCountInternal(Query)}.
+     */
+    private int getNumberMatched(Query query) throws IOException {
+        Query hitsQuery = new Query(query);
+        hitsQuery.setStartIndex(null);
+        hitsQuery.setMaxFeatures(Query.DEFAULT_MAX);
+        return getCountInternal(hitsQuery);
+    }
+
+    /** Reads a page of features, called concurrently from the {@link PagedFeatureReader}. */
+    private List<SimpleFeature> readPage(
+            Query query,
+            int startIndex,
+            int count,
+            SimpleFeatureType contentType,
+            GeometryFactory geometryFactory)
+            throws IOException {
+        Query pageQuery = new Query(query);
+        pageQuery.setStartIndex(startIndex);
+        pageQuery.setMaxFeatures(count);
+        GetFeatureRequest request = createGetFeature(pageQuery, ResultType.RESULTS);
+        request.setQueryType(contentType);
+        GetFeatureResponse response = client.issueRequest(request);
+        try {
+            GetParser<SimpleFeature> parser = response.getSimpleFeatures(geometryFactory);
+            try {
+                List<SimpleFeature> features = new ArrayList<>(count);
+                for (SimpleFeature f = parser.parse(); f != null; f = parser.parse()) {
+                    features.add(f);
+                }
+                return features;
+            } finally {
+                parser.close();
+            }
+        } finally {
+            response.dispose();
+        }
+    }
+
     protected String getSupportedSrsName(GetFeatureRequest request, Query query) {
         String identifier =
                 GML2EncodingUtils.toURI(query.getCoordinateSystem(), SrsSyntax.AUTH_CODE, false);
@@ -127,7 +127,7 @@ public T lookUp(final Map params) throws IOException {
     }
 
     /** Access with {@link WFSDataStoreFactory#getParametersInfo()  */
-    private static final WFSFactoryParam<?>[] parametersInfo = new WFSFactoryParam[24];
+    private static final WFSFactoryParam<?>[] parametersInfo = new WFSFactoryParam[27];
 
     private static final int GMLComplianceLevel = 2;
 
@@ -594,6 +594,62 @@ public T lookUp(final Map params) throws IOException {
                         new WFSFactoryParam<>(name, Map.class, title, description, null, "program");
     }
 
+    /**
+     * Optional {@code Boolean} use the streaming GML parser for WFS 2.0 GetFeature responses of
+     * simple feature types, instead of the schema driven one
+     */
+    public static final WFSFactoryParam<Boolean> USE_STREAMING_PARSER;
+
+    static {
+        String name = "WFSDataStoreFactory:USE_STREAMING_PARSER";
+        String title = "Use streaming GML parser";
+        String description =
+                "Parse WFS 2.0 GetFeature responses of simple feature types with a streaming"
+                        + " parser, faster and using constant memory, instead of the schema"
+                        + " driven one. WFS 1.x responses are always parsed this way.";
+        parametersInfo[24] =
+                USE_STREAMING_PARSER =
+                        new WFSFactoryParam<>(
+                                name, Boolean.class, title, description, false, "advanced");
+    }
+
+    /**
+     * Optional {@code Integer} number of features to request at a time from WFS 2.0 servers
+     * supporting paging, zero or negative to request all the features at once
+     */
+    public static final WFSFactoryParam<Integer> PAGE_SIZE;
+
+    static {
+        String name = "WFSDataStoreFactory:PAGE_SIZE";
+        String title = "Page size";
+        String description =
+                "Number of features requested at a time from WFS 2.0 servers supporting"
+                        + " startIndex and count, zero to fetch all the features with a single"
+                        + " request. Pages are fetched concurrently and returned in order.";
+        parametersInfo[25] =
+                PAGE_SIZE =
+                        new WFSFactoryParam<>(
+                                name, Integer.class, title, description, 0, "advanced");
+    }
+
+    /**
+     * Optional {@code Integer} maximum number of page requests in flight, only used when {@link
+     * #PAGE_SIZE} is positive
+     */
+    public static final WFSFactoryParam<Integer> MAX_CONCURRENT_PAGES;
+
+    static {
+        String name = "WFSDataStoreFactory:MAX_CONCURRENT_PAGES";
+        String title = "Maximum concurrent page requests";
+        String description =
+                "Maximum number of page requests running at the same time when paging is"
+                        + " enabled, bounding both the server load and the memory used";
+        parametersInfo[26] =
+                MAX_CONCURRENT_PAGES =
+                        new WFSFactoryParam<>(
+                                name, Integer.class, title, description, 4, "advanced");
+    }
+
     /**
      * Checks whether {@code params} contains a valid set of parameters to connect to a WFS.
      *
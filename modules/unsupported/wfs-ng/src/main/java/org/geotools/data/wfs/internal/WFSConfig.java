@@ -25,15 +25,18 @@
 import static org.geotools.data.wfs.impl.WFSDataAccessFactory.GML_COMPATIBLE_TYPENAMES;
 import static org.geotools.data.wfs.impl.WFSDataAccessFactory.LENIENT;
 import static org.geotools.data.wfs.impl.WFSDataAccessFactory.MAXFEATURES;
+import static org.geotools.data.wfs.impl.WFSDataAccessFactory.MAX_CONCURRENT_PAGES;
 import static org.geotools.data.wfs.impl.WFSDataAccessFactory.MAX_CONNECTION_POOL_SIZE;
 import static org.geotools.data.wfs.impl.WFSDataAccessFactory.NAMESPACE;
 import static org.geotools.data.wfs.impl.WFSDataAccessFactory.OUTPUTFORMAT;
+import static org.geotools.data.wfs.impl.WFSDataAccessFactory.PAGE_SIZE;
 import static org.geotools.data.wfs.impl.WFSDataAccessFactory.PASSWORD;
 import static org.geotools.data.wfs.impl.WFSDataAccessFactory.PROTOCOL;
 import static org.geotools.data.wfs.impl.WFSDataAccessFactory.TIMEOUT;
 import static org.geotools.data.wfs.impl.WFSDataAccessFactory.TRY_GZIP;
 import static org.geotools.data.wfs.impl.WFSDataAccessFactory.USERNAME;
 import static org.geotools.data.wfs.impl.WFSDataAccessFactory.USE_HTTP_CONNECTION_POOLING;
+import static org.geotools.data.wfs.impl.WFSDataAccessFactory.USE_STREAMING_PARSER;
 import static org.geotools.data.wfs.impl.WFSDataAccessFactory.WFS_STRATEGY;
 
 import java.io.IOException;
@@ -95,6 +98,12 @@ public class WFSConfig {
 
     protected int maxConnectionPoolSize;
 
+    protected boolean useStreamingParser;
+
+    protected int pageSize;
+
+    protected int maxConcurrentPages;
+
     protected EntityResolver entityResolver;
 
     protected Map<String, String> additionalHeaders;
@@ -124,6 +133,9 @@ public WFSConfig() {
         entityResolver = (EntityResolver) ENTITY_RESOLVER.getDefaultValue();
         useHttpConnectionPooling = (Boolean) USE_HTTP_CONNECTION_POOLING.getDefaultValue();
         maxConnectionPoolSize = (Integer) MAX_CONNECTION_POOL_SIZE.getDefaultValue();
+        useStreamingParser = (Boolean) USE_STREAMING_PARSER.getDefaultValue();
+        pageSize = (Integer) PAGE_SIZE.getDefaultValue();
+        maxConcurrentPages = (Integer) MAX_CONCURRENT_PAGES.getDefaultValue();
     }
 
     public static WFSConfig fromParams(Map<?, ?> params) throws IOException {
@@ -169,6 +181,15 @@ public static WFSConfig fromParams(Map<?, ?> params) throws IOException {
         config.entityResolver = ENTITY_RESOLVER.lookUp(params);
         config.useHttpConnectionPooling = USE_HTTP_CONNECTION_POOLING.lookUp(params);
         config.maxConnectionPoolSize = MAX_CONNECTION_POOL_SIZE.lookUp(params);
+        config.useStreamingParser = USE_STREAMING_PARSER.lookUp(params);
+        Integer pageSize = PAGE_SIZE.lookUp(params);
+        if (pageSize != null) {
+            config.pageSize = pageSize;
+        }
+        Integer maxConcurrentPages = MAX_CONCURRENT_PAGES.lookUp(params);
+        if (maxConcurrentPages != null) {
+            config.maxConcurrentPages = maxConcurrentPages;
+        }
 
         config.additionalHeaders = extractAdditionalHeaders(params);
         return config;
@@ -311,6 +332,26 @@ public int getMaxConnectionPoolSize() {
         return maxConnectionPoolSize;
     }
 
+    /** @return if WFS 2.0 GetFeature responses should be parsed with the streaming parser */
+    public boolean isUseStreamingParser() {
+        return useStreamingParser;
+    }
+
+    /**
+     * @return the number of features to request at a time from servers supporting paging, zero or
+     *     negative if paging is disabled
+     */
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * @return the maximum number of page requests in flight, if {@link #getPageSize()} is positive
+     */
+    public int getMaxConcurrentPages() {
+        return maxConcurrentPages;
+    }
+
     /**
      * @return null, if the {@link #additionalHeaders} are null. An unmodifiable version of the
      *     headers otherwise.
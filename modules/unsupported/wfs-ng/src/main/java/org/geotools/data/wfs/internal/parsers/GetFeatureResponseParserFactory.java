@@ -27,6 +27,7 @@
 import org.geotools.data.wfs.internal.GetFeatureRequest;
 import org.geotools.data.wfs.internal.GetParser;
 import org.geotools.data.wfs.internal.Versions;
+import org.geotools.data.wfs.internal.WFSConfig;
 import org.geotools.data.wfs.internal.WFSRequest;
 import org.geotools.wfs.v1_0.WFSConfiguration_1_0;
 import org.geotools.xsd.Configuration;
@@ -37,6 +38,9 @@
  * <p>Should eventually completely replace GmlGetFeatureResponseParserFactory as soon as it has been
  * proven to work as well. For now only used for wfs 2.0 and gml 3.2.
  *
+ * <p>When {@link WFSConfig#isUseStreamingParser()} is set the response is parsed by {@link
+ * XmlSimpleFeatureParser} instead of the schema driven {@link PullParserFeatureReader}.
+ *
  * <p>
  */
 public class GetFeatureResponseParserFactory extends AbstractGetFeatureResponseParserFactory {
@@ -98,6 +102,14 @@ protected GetParser<SimpleFeature> parser(GetFeatureRequest request, InputStream
 
         FeatureType queryType = getRequestedType(request);
 
+        if (request.getStrategy().getConfig().isUseStreamingParser()) {
+            return new XmlSimpleFeatureParser(
+                    in,
+                    (SimpleFeatureType) queryType,
+                    request.getTypeName(),
+                    request.getStrategy().getConfig().getAxisOrder());
+        }
+
         Configuration config = null;
         if (request.getStrategy().getVersion().equals(Versions.v2_0_0.toString())) {
             config = new org.geotools.wfs.v2_0.WFSConfiguration();
@@ -21,9 +21,12 @@
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.logging.Logger;
+import javax.xml.XMLConstants;
 import javax.xml.namespace.QName;
 import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamException;
@@ -50,6 +53,10 @@
  * A {@link GetParser<SimpleFeature>} implementation that uses plain xml pull to parse a GetFeature
  * response.
  *
+ * <p>Features are built straight from the StAX events, one at a time, without building an
+ * intermediate tree, so memory usage does not depend on the size of the response. Both GML 2/3.1
+ * (WFS 1.x) and GML 3.2 (WFS 2.0) responses are supported.
+ *
  * @author Gabriel Roldan (TOPP)
  * @version $Id$
  * @since 2.5.x
@@ -73,7 +80,11 @@ public class XmlSimpleFeatureParser implements GetParser<SimpleFeature> {
 
     final String featureName;
 
-    private final Map<String, AttributeDescriptor> expectedProperties;
+    /** The attribute indexes, by attribute name */
+    private final Map<String, Integer> attributeIndexes;
+
+    /** The attribute indexes, ignoring case */
+    private final Map<String, Integer> attributeIndexesIgnoreCase;
 
     private int numberOfFeatures = -1;
 
@@ -123,13 +134,16 @@ public XmlSimpleFeatureParser(
             throw new DataSourceException(e);
         }
 
-        // HACK! use a case insensitive set to compare the comming attribute names with the ones in
-        // the schema. Rationale being that the FGDC CubeWerx server has a missmatch in the case of
-        // property names between what it states in a DescribeFeatureType and in a GetFeature
-        // requests
-        expectedProperties = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
-        for (AttributeDescriptor desc : targetType.getAttributeDescriptors()) {
-            expectedProperties.put(desc.getLocalName(), desc);
+        // HACK! also use a case insensitive map to compare the comming attribute names with the
+        // ones in the schema. Rationale being that the FGDC CubeWerx server has a missmatch in the
+        // case of property names between what it states in a DescribeFeatureType and in a
+        // GetFeature requests
+        attributeIndexes = new HashMap<>();
+        attributeIndexesIgnoreCase = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        List<AttributeDescriptor> descriptors = targetType.getAttributeDescriptors();
+        for (int i = 0; i < descriptors.size(); i++) {
+            attributeIndexes.put(descriptors.get(i).getLocalName(), i);
+            attributeIndexesIgnoreCase.put(descriptors.get(i).getLocalName(), i);
         }
     }
 
@@ -172,26 +186,23 @@ public SimpleFeature parse() throws IOException {
             if (fid == null) {
                 return null;
             }
-            int tagType;
-            Object attributeValue;
+            // the cursor is on the feature START_ELEMENT, only its children are attributes
             while (true) {
-                tagType = parser.next();
+                int tagType = parser.next();
                 if (END_DOCUMENT == tagType) {
                     close();
                     return null;
                 }
-
-                if (END_ELEMENT == tagType
-                        && featureNamespace.equals(parser.getNamespaceURI())
-                        && featureName.equals(parser.getLocalName())) {
+                if (END_ELEMENT == tagType) {
                     // found end of current feature
                     break;
                 }
                 if (START_ELEMENT == tagType) {
-                    AttributeDescriptor descriptor = expectedProperties.get(parser.getLocalName());
-                    if (descriptor != null) {
-                        attributeValue = parseAttributeValue();
-                        builder.set(descriptor.getLocalName(), attributeValue);
+                    Integer index = getAttributeIndex(parser.getLocalName());
+                    if (index == null || isNil()) {
+                        skipElement();
+                    } else {
+                        builder.set(index, parseAttributeValue(targetType.getDescriptor(index)));
                     }
                 }
             }
@@ -202,22 +213,56 @@ public SimpleFeature parse() throws IOException {
         return feature;
     }
 
+    private Integer getAttributeIndex(String name) {
+        Integer index = attributeIndexes.get(name);
+        return index != null ? index : attributeIndexesIgnoreCase.get(name);
+    }
+
+    private boolean isNil() {
+        return "true"
+                .equals(
+                        parser.getAttributeValue(
+                                XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI, "nil"));
+    }
+
+    /**
+     * Skips the current element and its children, parser cursor shall be on a START_ELEMENT event,
+     * and is left on the matching END_ELEMENT one.
+     */
+    private void skipElement() throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int tagType = parser.next();
+            if (START_ELEMENT == tagType) {
+                depth++;
+            } else if (END_ELEMENT == tagType) {
+                depth--;
+            }
+        }
+    }
+
     /**
      * Parses the value of the current attribute, parser cursor shall be on a feature attribute
-     * START_ELEMENT event.
+     * START_ELEMENT event, and is left on the matching END_ELEMENT one.
      */
-    private Object parseAttributeValue() throws XMLStreamException, IOException {
-        final String name = parser.getLocalName();
-        final AttributeDescriptor attribute = expectedProperties.get(name);
+    private Object parseAttributeValue(AttributeDescriptor attribute)
+            throws XMLStreamException, IOException {
         final AttributeType type = attribute.getType();
         Object parsedValue;
         if (type instanceof GeometryType) {
-            parser.nextTag();
+            if (parser.nextTag() == END_ELEMENT) {
+                // empty geometry property
+                return null;
+            }
             try {
                 parsedValue = geometryReader.readGeometry();
             } catch (FactoryException e) {
                 throw new DataSourceException(e);
             }
+            // move past the geometry to the end of the property
+            while (parser.nextTag() != END_ELEMENT) {
+                skipElement();
+            }
         } else {
             String rawTextValue = parser.getElementText();
             Class<?> binding = type.getBinding();
@@ -246,6 +291,13 @@ private String seekFeature() throws IOException, XMLStreamException {
                             parser.getAttributeValue(
                                     GML.id.getNamespaceURI(), GML.id.getLocalPart());
 
+                    // GML 3.2
+                    if (featureId == null) {
+                        featureId =
+                                parser.getAttributeValue(
+                                        org.geotools.gml.stream.GML.NAMESPACE_3_2,
+                                        GML.id.getLocalPart());
+                    }
                     if (featureId == null) {
                         featureId = parser.getAttributeValue(null, "fid");
                     }
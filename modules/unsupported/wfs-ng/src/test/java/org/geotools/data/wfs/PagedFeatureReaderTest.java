@@ -0,0 +1,130 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2024, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.wfs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.geotools.api.feature.simple.SimpleFeature;
+import org.geotools.api.feature.simple.SimpleFeatureType;
+import org.geotools.data.DataUtilities;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class PagedFeatureReaderTest {
+
+    private static SimpleFeatureType TYPE;
+
+    private final AtomicInteger running = new AtomicInteger();
+
+    private final AtomicInteger maxRunning = new AtomicInteger();
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        TYPE = DataUtilities.createType("test", "index:Integer");
+    }
+
+    @Test
+    public void testReadInOrder() throws Exception {
+        List<Integer> indexes = new ArrayList<>();
+        try (PagedFeatureReader reader = new PagedFeatureReader(TYPE, 5, 95, 10, 3, this::load)) {
+            assertSame(TYPE, reader.getFeatureType());
+            while (reader.hasNext()) {
+                indexes.add((Integer) reader.next().getAttribute("index"));
+            }
+        }
+        assertEquals(95, indexes.size());
+        for (int i = 0; i < indexes.size(); i++) {
+            assertEquals(Integer.valueOf(i + 5), indexes.get(i));
+        }
+        assertEquals(10, requests.get());
+        assertTrue("Expected concurrent requests", maxRunning.get() > 1);
+        assertTrue(maxRunning.get() <= 3);
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        try (PagedFeatureReader reader =
+                new PagedFeatureReader(TYPE, 0, 20, 10, 2, (start, count) -> new ArrayList<>())) {
+            assertFalse(reader.hasNext());
+            assertSame(TYPE, reader.getFeatureType());
+        }
+    }
+
+    @Test
+    public void testPageError() throws Exception {
+        try (PagedFeatureReader reader =
+                new PagedFeatureReader(
+                        TYPE,
+                        0,
+                        30,
+                        10,
+                        2,
+                        (start, count) -> {
+                            if (start == 20) {
+                                throw new IOException("page failed");
+                            }
+                            return load(start, count);
+                        })) {
+            for (int i = 0; i < 19; i++) {
+                reader.next();
+            }
+            try {
+                reader.next();
+                fail("Expected an exception");
+            } catch (IOException e) {
+                assertEquals("page failed", e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void testCloseEarly() throws Exception {
+        PagedFeatureReader reader = new PagedFeatureReader(TYPE, 0, 1000, 10, 2, this::load);
+        reader.next();
+        reader.close();
+        assertFalse(reader.hasNext());
+        // only the first pages were requested
+        assertTrue(requests.get() <= 4);
+    }
+
+    private List<SimpleFeature> load(int start, int count) {
+        requests.incrementAndGet();
+        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+        try {
+            Thread.sleep(20);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<SimpleFeature> features = new ArrayList<>();
+        for (int i = start; i < start + count; i++) {
+            features.add(SimpleFeatureBuilder.build(TYPE, new Object[] {i}, "test." + i));
+        }
+        running.decrementAndGet();
+        return features;
+    }
+}
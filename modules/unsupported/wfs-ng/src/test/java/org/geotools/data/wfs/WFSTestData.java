@@ -212,6 +212,18 @@ public void setProtocol(Boolean protocol) {
         public void setGmlCompatibleTypeNames(boolean gmlCompatibleTypeNames) {
             this.gmlCompatibleTypenames = gmlCompatibleTypeNames;
         }
+
+        public void setUseStreamingParser(boolean useStreamingParser) {
+            this.useStreamingParser = useStreamingParser;
+        }
+
+        public void setPageSize(int pageSize) {
+            this.pageSize = pageSize;
+        }
+
+        public void setMaxConcurrentPages(int maxConcurrentPages) {
+            this.maxConcurrentPages = maxConcurrentPages;
+        }
     }
 
     public static WFSConfig getGmlCompatibleConfig() {
@@ -0,0 +1,154 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2024, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.wfs.internal.parsers;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.Writer;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.geotools.api.feature.simple.SimpleFeature;
+import org.geotools.api.feature.simple.SimpleFeatureType;
+import org.geotools.data.DataUtilities;
+import org.geotools.data.wfs.WFSTestData;
+import org.geotools.data.wfs.internal.GetParser;
+import org.geotools.referencing.CRS;
+import org.geotools.wfs.v2_0.WFSConfiguration;
+import org.geotools.xsd.Configuration;
+import org.geotools.xsd.XSD;
+
+/**
+ * Compares the time and memory needed to parse a large WFS 2.0 GetFeature response with the schema
+ * driven {@link PullParserFeatureReader} and the streaming {@link XmlSimpleFeatureParser}.
+ *
+ * <p>Usage: {@code GetFeatureParserBenchmark [featureCount]}, defaults to 500000 features.
+ */
+@SuppressWarnings("PMD.SystemPrintln")
+public class GetFeatureParserBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        File response = File.createTempFile("GetFeature_roads", ".xml");
+        response.deleteOnExit();
+        writeResponse(response, count);
+        System.out.printf("%d features, %d MB%n", count, response.length() >> 20);
+
+        URL schemaLocation = WFSTestData.GEOS_ROADS_20.SCHEMA;
+        WFSConfiguration wfsConfiguration = new WFSConfiguration();
+        SimpleFeatureType featureType =
+                DataUtilities.createSubType(
+                        EmfAppSchemaParser.parseSimpleFeatureType(
+                                wfsConfiguration,
+                                WFSTestData.GEOS_ROADS_20.TYPENAME,
+                                schemaLocation,
+                                CRS.decode(WFSTestData.GEOS_ROADS_20.CRS)),
+                        new String[] {"the_geom", "cat", "label"});
+        XSD roadsSchema =
+                new XSD() {
+                    @Override
+                    public String getNamespaceURI() {
+                        return featureType.getName().getNamespaceURI();
+                    }
+
+                    @Override
+                    public String getSchemaLocation() {
+                        return schemaLocation.toExternalForm();
+                    }
+                };
+        Configuration configuration =
+                new Configuration(roadsSchema) {
+                    {
+                        addDependency(wfsConfiguration);
+                    }
+                };
+
+        for (int run = 0; run < 3; run++) {
+            try (InputStream in = open(response)) {
+                benchmark(
+                        "PullParserFeatureReader",
+                        new PullParserFeatureReader(configuration, in, featureType, null));
+            }
+            try (InputStream in = open(response)) {
+                benchmark(
+                        "XmlSimpleFeatureParser",
+                        new XmlSimpleFeatureParser(
+                                in, featureType, WFSTestData.GEOS_ROADS_20.TYPENAME, null));
+            }
+        }
+    }
+
+    private static void benchmark(String name, GetParser<SimpleFeature> parser) throws Exception {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long baseline = runtime.totalMemory() - runtime.freeMemory();
+        long maxUsed = 0;
+        long start = System.nanoTime();
+        int features = 0;
+        try {
+            while (parser.parse() != null) {
+                if (++features % 10_000 == 0) {
+                    maxUsed = Math.max(maxUsed, runtime.totalMemory() - runtime.freeMemory());
+                }
+            }
+        } finally {
+            parser.close();
+        }
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+        System.out.printf(
+                "%-24s %8d features %8d ms %6d MB peak heap growth%n",
+                name, features, elapsed, Math.max(0, maxUsed - baseline) >> 20);
+    }
+
+    private static InputStream open(File file) throws Exception {
+        return new BufferedInputStream(Files.newInputStream(file.toPath()));
+    }
+
+    /** Writes a response shaped like the GeoServer 2.0.0 roads sample, with many features. */
+    private static void writeResponse(File file, int count) throws Exception {
+        try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            writer.write(
+                    "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                            + "<wfs:FeatureCollection numberMatched=\""
+                            + count
+                            + "\" numberReturned=\""
+                            + count
+                            + "\" xmlns:wfs=\"http://www.opengis.net/wfs/2.0\""
+                            + " xmlns:gml=\"http://www.opengis.net/gml/3.2\""
+                            + " xmlns:sf=\"http://www.openplans.org/spearfish\">\n");
+            for (int i = 0; i < count; i++) {
+                double x = 598000 + i % 1000;
+                double y = 4914000 + i / 1000;
+                writer.write("<wfs:member><sf:roads gml:id=\"roads.");
+                writer.write(String.valueOf(i));
+                writer.write(
+                        "\"><sf:the_geom><gml:MultiCurve srsName=\"urn:x-ogc:def:crs:EPSG:26713\">"
+                                + "<gml:curveMember><gml:LineString><gml:posList>");
+                writer.write(x + " " + y + " " + (x + 10) + " " + (y + 20) + " " + (x + 15));
+                writer.write(" " + (y + 40));
+                writer.write(
+                        "</gml:posList></gml:LineString></gml:curveMember></gml:MultiCurve>"
+                                + "</sf:the_geom><sf:cat>");
+                writer.write(String.valueOf(i % 7));
+                writer.write("</sf:cat><sf:label>unimproved road</sf:label></sf:roads>");
+                writer.write("</wfs:member>\n");
+            }
+            writer.write("</wfs:FeatureCollection>\n");
+        }
+    }
+}
@@ -13,17 +13,24 @@
  */
 package org.geotools.data.wfs.internal.parsers;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
 import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import javax.xml.namespace.QName;
 import org.geotools.api.feature.simple.SimpleFeature;
 import org.geotools.api.feature.simple.SimpleFeatureType;
 import org.geotools.data.wfs.internal.GetParser;
+import org.geotools.feature.simple.SimpleFeatureTypeBuilder;
 import org.geotools.xsd.Configuration;
-import org.junit.Ignore;
 import org.junit.Test;
+import org.locationtech.jts.geom.MultiLineString;
 
 public class XmlSimpleFeatureParserTest extends AbstractGetFeatureParserTest {
 
@@ -44,10 +51,57 @@ protected GetParser<SimpleFeature> getParser(
         return parser;
     }
 
-    @Override
     @Test
-    @Ignore
-    public void testParseWfs200Gml32() throws Exception {
-        // parser is not supporting wfs 2.0.0/gml 3.2 so this impl is empty
+    public void testNilAndNestedElements() throws Exception {
+        String ns = "http://www.openplans.org/spearfish";
+        SimpleFeatureTypeBuilder tb = new SimpleFeatureTypeBuilder();
+        tb.setName("roads");
+        tb.setNamespaceURI(ns);
+        tb.add("the_geom", MultiLineString.class);
+        tb.add("cat", Integer.class);
+        tb.add("label", String.class);
+        SimpleFeatureType featureType = tb.buildFeatureType();
+
+        String xml =
+                "<wfs:FeatureCollection xmlns:wfs='http://www.opengis.net/wfs/2.0'"
+                        + " xmlns:gml='http://www.opengis.net/gml/3.2' xmlns:sf='"
+                        + ns
+                        + "' xmlns:xsi='http://www.w3.org/2001/XMLSchema-instance'>"
+                        + "<wfs:member><sf:roads gml:id='roads.1'>"
+                        + "<gml:boundedBy><gml:Envelope><gml:lowerCorner>0 0</gml:lowerCorner>"
+                        + "</gml:Envelope></gml:boundedBy>"
+                        + "<sf:extra><sf:label>nested</sf:label></sf:extra>"
+                        + "<sf:the_geom/>"
+                        + "<sf:cat xsi:nil='true'/>"
+                        + "<sf:LABEL>first</sf:LABEL>"
+                        + "</sf:roads></wfs:member>"
+                        + "<wfs:member><sf:roads gml:id='roads.2'>"
+                        + "<sf:the_geom><gml:MultiCurve><gml:curveMember><gml:LineString>"
+                        + "<gml:posList>0 0 1 1</gml:posList></gml:LineString></gml:curveMember>"
+                        + "</gml:MultiCurve></sf:the_geom>"
+                        + "<sf:cat>2</sf:cat><sf:label>second</sf:label>"
+                        + "</sf:roads></wfs:member>"
+                        + "</wfs:FeatureCollection>";
+        InputStream in = new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8));
+        GetParser<SimpleFeature> parser =
+                new XmlSimpleFeatureParser(in, featureType, new QName(ns, "roads"), null);
+        try {
+            SimpleFeature first = parser.parse();
+            assertEquals("roads.1", first.getID());
+            assertNull(first.getDefaultGeometry());
+            assertNull(first.getAttribute("cat"));
+            // only direct children are attributes, names matched ignoring case
+            assertEquals("first", first.getAttribute("label"));
+
+            SimpleFeature second = parser.parse();
+            assertEquals("roads.2", second.getID());
+            assertTrue(second.getDefaultGeometry() instanceof MultiLineString);
+            assertEquals(2, second.getAttribute("cat"));
+            assertEquals("second", second.getAttribute("label"));
+
+            assertNull(parser.parse());
+        } finally {
+            parser.close();
+        }
     }
 }